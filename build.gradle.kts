@@ -4,6 +4,7 @@ plugins {
     java
 
     id("com.consentframework.consentmanagement.checkstyle-config") version "1.1.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -36,11 +37,17 @@ dependencies {
     val log4j2Version = "2.23.1"
     implementation("org.apache.logging.log4j:log4j-api:$log4j2Version")
     implementation("org.apache.logging.log4j:log4j-core:$log4j2Version")
+    runtimeOnly("com.lmax:disruptor:3.4.4")
 
     // DynamoDB client
     val dynamoDbClientVersion = "2.26.7"
     implementation("software.amazon.awssdk:dynamodb:$dynamoDbClientVersion")
     implementation("software.amazon.awssdk:dynamodb-enhanced:$dynamoDbClientVersion")
+    implementation("software.amazon.awssdk:apache-client:$dynamoDbClientVersion")
+    implementation("software.amazon.awssdk:url-connection-client:$dynamoDbClientVersion")
+
+    // CRaC API, through which Lambda SnapStart runs checkpoint and restore hooks
+    implementation("org.crac:crac:1.4.0")
 
     // Consent history API models
     implementation("com.consentframework.consenthistory:consenthistory-api-models:0.2.0")
@@ -65,12 +72,26 @@ dependencies {
     testImplementation("org.mockito:mockito-inline:5.2.0")
 }
 
+jmh {
+    jmhVersion = "1.37"
+    // Report allocation per operation alongside each benchmark's timings
+    profilers.add("gc")
+    resultFormat = "JSON"
+    // Run a subset of benchmarks with eg. ./gradlew jmh -PjmhIncludes=ConsentHistoryApiServiceBenchmark
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
 java {
     toolchain {
         languageVersion = JavaLanguageVersion.of(21)
     }
 }
 
+// Standalone HTTP server entry point for container deployments, run with ./gradlew run or the installDist scripts
+application {
+    mainClass = "com.consentframework.consenthistory.api.ConsentHistoryApiServer"
+}
+
 tasks {
     withType<Test> {
         useJUnitPlatform()
@@ -0,0 +1,83 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.usecases.routing.ApiRouter;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures routing overhead, dispatching API Gateway requests by resource and resolving raw request paths through the
+ * path template trie, to handlers returning a constant response.
+ *
+ * Compare gc.alloc.rate.norm: dispatching by resource should allocate nothing, and resolving a path only the resolved
+ * request and its path parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiRouterBenchmark {
+    private static final String CONSENT_PATH = "/v1/consent-history/services/%s/users/%s/consents/%s";
+    private static final Map<String, Object> RESPONSE = Map.of();
+
+    private ApiRouter router;
+    private ApiRequest apiGatewayRequest;
+    private ApiRequest pathRequest;
+
+    /**
+     * Build the route table and requests.
+     */
+    @Setup
+    public void setUp() {
+        router = ApiRouter.builder()
+            .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_CONSENT_HISTORY, request -> RESPONSE)
+            .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_HISTORY, request -> RESPONSE)
+            .unmatchedRequestHandler(request -> RESPONSE)
+            .build();
+
+        final String path = String.format(CONSENT_PATH, BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID,
+            "consent-0");
+        apiGatewayRequest = new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(), path,
+            Map.of(ApiPathParameterName.SERVICE_ID.getValue(), BenchmarkRecordGenerator.SERVICE_ID,
+                ApiPathParameterName.USER_ID.getValue(), BenchmarkRecordGenerator.USER_ID,
+                ApiPathParameterName.CONSENT_ID.getValue(), "consent-0"),
+            null, null, false, null);
+        pathRequest = new ApiRequest(HttpMethod.GET.name(), null, path, null, null, null, false, null);
+    }
+
+    /**
+     * Route an API Gateway request by its resource.
+     *
+     * @return handler response
+     */
+    @Benchmark
+    public Map<String, Object> routeByResource() {
+        return router.handleRequest(router.resolve(apiGatewayRequest));
+    }
+
+    /**
+     * Route a request by its raw path.
+     *
+     * @return handler response
+     */
+    @Benchmark
+    public Map<String, Object> routeByPath() {
+        return router.handleRequest(router.resolve(pathRequest));
+    }
+}
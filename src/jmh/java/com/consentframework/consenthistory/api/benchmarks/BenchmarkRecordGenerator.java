@@ -0,0 +1,84 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentStatus;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a service user's consent history as DynamoDB records, in event time order as the ConsentHistoryByServiceUser GSI
+ * returns them, for benchmarks parameterized over history size, consents per service user, and consent data width.
+ *
+ * Every record has its own old and new consent images, but images share a single consent data map of the requested width,
+ * so that histories of a million events fit in a benchmark JVM's heap.  Consent data width therefore mostly affects
+ * serialization rather than mapping.
+ */
+final class BenchmarkRecordGenerator {
+    static final String SERVICE_ID = "BenchmarkServiceId";
+    static final String USER_ID = "BenchmarkUserId";
+    static final String SERVICE_USER_ID = SERVICE_ID + "|" + USER_ID;
+
+    private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private BenchmarkRecordGenerator() {}
+
+    /**
+     * Generate a service user's consent history, with events assigned to consents round-robin.
+     *
+     * @param eventCount number of consent change events
+     * @param consentCount number of consents of the service user
+     * @param consentDataWidth number of consent data entries of each consent image
+     * @return DynamoDB records in ascending event time order
+     */
+    static List<DynamoDbConsentHistory> generate(final int eventCount, final int consentCount, final int consentDataWidth) {
+        final Map<String, String> consentData = new HashMap<>();
+        for (int entryIndex = 0; entryIndex < consentDataWidth; entryIndex++) {
+            consentData.put("key-" + entryIndex, "value-" + entryIndex);
+        }
+
+        final List<DynamoDbConsentHistory> records = new ArrayList<>(eventCount);
+        for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+            final int consentIndex = eventIndex % consentCount;
+            final int consentVersion = eventIndex / consentCount + 1;
+            records.add(DynamoDbConsentHistory.builder()
+                .id(toConsentId(consentIndex))
+                .eventId("event-" + eventIndex)
+                .eventType(consentVersion == 1 ? ConsentEventType.INSERT.getValue() : ConsentEventType.MODIFY.getValue())
+                .eventTime(FIRST_EVENT_TIME.plusNanos(eventIndex * 1_000_000_123L).toString())
+                .serviceUserId(SERVICE_USER_ID)
+                .oldImage(consentVersion == 1 ? null : generateStoredConsent(consentIndex, consentVersion - 1, consentData))
+                .newImage(generateStoredConsent(consentIndex, consentVersion, consentData))
+                .build());
+        }
+        return records;
+    }
+
+    /**
+     * Return the consent ID, ie. the consent history partition key, of the consent with the given index.
+     *
+     * @param consentIndex consent index
+     * @return consent ID
+     */
+    static String toConsentId(final int consentIndex) {
+        return SERVICE_USER_ID + "|consent-" + consentIndex;
+    }
+
+    private static StoredConsentImage generateStoredConsent(final int consentIndex, final int consentVersion,
+            final Map<String, String> consentData) {
+        return new StoredConsentImage()
+            .serviceId(SERVICE_ID)
+            .userId(USER_ID)
+            .consentId("consent-" + consentIndex)
+            .consentVersion(consentVersion)
+            .consentStatus(ConsentStatus.ACTIVE.getValue())
+            .consentType("BenchmarkConsentType")
+            .consentData(consentData);
+    }
+}
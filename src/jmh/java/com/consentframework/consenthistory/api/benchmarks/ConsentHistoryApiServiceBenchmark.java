@@ -0,0 +1,143 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.ConsentHistoryApiService;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.usecases.requesthandlers.GetHistoryForServiceUserRequestHandler;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives ConsentHistoryApiService.handleRequest end to end, from routing through mapping DynamoDB records and serializing
+ * the response body, against an in-memory repository, across history sizes, consents per service user, and consent data
+ * widths.
+ *
+ * The consent route returns one consent's full history, ie. eventCount / consentCount events, and the service user route
+ * reads the history a page of {@link GetHistoryForServiceUserRequestHandler#MAX_PAGE_LIMIT} events at a time.
+ * The jmh task runs the GC profiler, compare gc.alloc.rate.norm for allocation per request.  Consent counts start at 10
+ * so that the largest single consent history, 100k events, fits the forked JVM's 4GB heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConsentHistoryApiServiceBenchmark {
+    private static final String CONSENT_PATH = "/v1/consent-history/services/%s/users/%s/consents/%s";
+    private static final String SERVICE_USER_PATH = "/v1/consent-history/services/%s/users/%s/consents";
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int eventCount;
+
+    @Param({"10", "1000"})
+    private int consentCount;
+
+    @Param({"1", "10"})
+    private int consentDataWidth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConsentHistoryApiService service;
+    private ApiRequest consentRequest;
+
+    /**
+     * Generate the service user's history, turning logging off so log volume does not depend on the parameters.
+     */
+    @Setup
+    public void setUp() {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.OFF);
+        service = new ConsentHistoryApiService(new InMemoryDynamoDbRecordRepository(
+            BenchmarkRecordGenerator.generate(eventCount, consentCount, consentDataWidth)));
+
+        final String consentId = "consent-0";
+        consentRequest = new ApiRequest(
+            HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(),
+            String.format(CONSENT_PATH, BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID, consentId),
+            Map.of(ApiPathParameterName.SERVICE_ID.getValue(), BenchmarkRecordGenerator.SERVICE_ID,
+                ApiPathParameterName.USER_ID.getValue(), BenchmarkRecordGenerator.USER_ID,
+                ApiPathParameterName.CONSENT_ID.getValue(), consentId),
+            null,
+            null,
+            false,
+            null);
+    }
+
+    /**
+     * Retrieve the full history of one consent.
+     *
+     * @return API response
+     */
+    @Benchmark
+    public Map<String, Object> getHistoryForServiceUserConsent() {
+        return service.handleRequest(consentRequest, null);
+    }
+
+    /**
+     * Retrieve the first page of the service user's history.
+     *
+     * @return API response
+     */
+    @Benchmark
+    public Map<String, Object> getHistoryForServiceUserFirstPage() {
+        return service.handleRequest(buildServiceUserRequest(null), null);
+    }
+
+    /**
+     * Retrieve the service user's full history, following page tokens as a client would.
+     *
+     * @param blackhole consumes each page's response
+     * @throws IOException if a response body is not valid JSON
+     */
+    @Benchmark
+    public void getHistoryForServiceUserAllPages(final Blackhole blackhole) throws IOException {
+        String pageToken = null;
+        do {
+            final Map<String, Object> response = service.handleRequest(buildServiceUserRequest(pageToken), null);
+            blackhole.consume(response);
+            final JsonNode nextPageToken = objectMapper.readTree((String) response.get(ApiResponseParameterName.BODY.getValue()))
+                .get(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME);
+            pageToken = nextPageToken == null || nextPageToken.isNull() ? null : nextPageToken.asText();
+        } while (pageToken != null);
+    }
+
+    private static ApiRequest buildServiceUserRequest(final String pageToken) {
+        final Map<String, Object> queryStringParameters = pageToken == null
+            ? Map.of(ApiQueryStringParameterName.LIMIT.getValue(), String.valueOf(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT))
+            : Map.of(ApiQueryStringParameterName.LIMIT.getValue(), String.valueOf(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT),
+                ApiQueryStringParameterName.PAGE_TOKEN.getValue(), pageToken);
+        return new ApiRequest(
+            HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_HISTORY.getValue(),
+            String.format(SERVICE_USER_PATH, BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID),
+            Map.of(ApiPathParameterName.SERVICE_ID.getValue(), BenchmarkRecordGenerator.SERVICE_ID,
+                ApiPathParameterName.USER_ID.getValue(), BenchmarkRecordGenerator.USER_ID),
+            queryStringParameters,
+            null,
+            false,
+            null);
+    }
+}
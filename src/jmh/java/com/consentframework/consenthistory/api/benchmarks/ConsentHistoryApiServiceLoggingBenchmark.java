@@ -0,0 +1,82 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.ConsentHistoryApiService;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.usecases.requesthandlers.GetHistoryForServiceUserRequestHandler;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ConsentHistoryApiService latency for the largest page of a 10k event service user history with logging at INFO,
+ * as configured in log4j2.xml, against logging turned off.
+ *
+ * The repository maps pre-generated DynamoDB records with DynamoDbConsentHistoryMapper on each request, so the request
+ * and sampled per-event log lines are all written when logging is on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConsentHistoryApiServiceLoggingBenchmark {
+    private static final int EVENT_COUNT = 10_000;
+    private static final int CONSENT_COUNT = 100;
+
+    @Param({"INFO", "OFF"})
+    private String logLevel;
+
+    private ConsentHistoryApiService service;
+    private ApiRequest request;
+
+    /**
+     * Set the log level and build the service and request.
+     */
+    @Setup
+    public void setUp() {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.valueOf(logLevel));
+
+        service = new ConsentHistoryApiService(new InMemoryDynamoDbRecordRepository(
+            BenchmarkRecordGenerator.generate(EVENT_COUNT, CONSENT_COUNT, 1)));
+        request = new ApiRequest(
+            HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_HISTORY.getValue(),
+            String.format("/v1/consent-history/services/%s/users/%s/consents", BenchmarkRecordGenerator.SERVICE_ID,
+                BenchmarkRecordGenerator.USER_ID),
+            Map.of(ApiPathParameterName.SERVICE_ID.getValue(), BenchmarkRecordGenerator.SERVICE_ID,
+                ApiPathParameterName.USER_ID.getValue(), BenchmarkRecordGenerator.USER_ID),
+            Map.of(ApiQueryStringParameterName.LIMIT.getValue(), String.valueOf(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT)),
+            null,
+            false,
+            null);
+    }
+
+    /**
+     * Handle a request for the service user's history.
+     *
+     * @return API response
+     */
+    @Benchmark
+    public Map<String, Object> handleRequest() {
+        return service.handleRequest(request, null);
+    }
+}
@@ -0,0 +1,128 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.ConsentHistoryApiService;
+import com.consentframework.consenthistory.api.ConsentHistoryApiServicePrimer;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressionConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryTableSchema;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time to first response of a freshly started JVM, ie. a Lambda cold start less JVM and runtime startup, with
+ * the introspected DynamoDB table schema the service used to build, with the hand-built table schema, and after priming
+ * as the SnapStart checkpoint hook does.
+ *
+ * Each fork measures a single request, so the score is the spread of first requests across forks.  Records are read
+ * back through the table schema before being served from memory, standing in for mapping query results, as no DynamoDB
+ * client is created.  Logging is turned off as in the other benchmarks, so log4j initialization is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ConsentHistoryApiServiceStartupBenchmark {
+    private static final int EVENT_COUNT = 100;
+    private static final int CONSENT_COUNT = 10;
+    private static final int CONSENT_DATA_WIDTH = 10;
+    private static final String CONSENT_ID = "consent-0";
+    private static final String CONSENT_PATH = "/v1/consent-history/services/%s/users/%s/consents/%s";
+
+    private List<DynamoDbConsentHistory> records;
+    private ApiRequest consentRequest;
+
+    /**
+     * Generate the service user's history and turn logging off.
+     */
+    @Setup
+    public void setUp() {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.OFF);
+        records = BenchmarkRecordGenerator.generate(EVENT_COUNT, CONSENT_COUNT, CONSENT_DATA_WIDTH);
+        consentRequest = new ApiRequest(
+            HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(),
+            String.format(CONSENT_PATH, BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID, CONSENT_ID),
+            Map.of(ApiPathParameterName.SERVICE_ID.getValue(), BenchmarkRecordGenerator.SERVICE_ID,
+                ApiPathParameterName.USER_ID.getValue(), BenchmarkRecordGenerator.USER_ID,
+                ApiPathParameterName.CONSENT_ID.getValue(), CONSENT_ID),
+            null,
+            null,
+            false,
+            null);
+    }
+
+    /**
+     * First response with the table schema introspected from the record's annotations.
+     *
+     * @return API response
+     */
+    @Benchmark
+    public Map<String, Object> firstResponseWithIntrospectedSchema() {
+        return handleFirstRequest(TableSchema.fromImmutableClass(DynamoDbConsentHistory.class));
+    }
+
+    /**
+     * First response with the hand-built table schema.
+     *
+     * @return API response
+     */
+    @Benchmark
+    public Map<String, Object> firstResponseWithStaticSchema() {
+        return handleFirstRequest(DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA);
+    }
+
+    /**
+     * First response with the hand-built table schema, after priming the service before the measured request.
+     *
+     * @param primedState primes the service in its setup
+     * @return API response
+     */
+    @Benchmark
+    public Map<String, Object> firstResponseAfterPriming(final PrimedState primedState) {
+        return handleFirstRequest(DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA);
+    }
+
+    private Map<String, Object> handleFirstRequest(final TableSchema<DynamoDbConsentHistory> tableSchema) {
+        final List<DynamoDbConsentHistory> readRecords = records.stream()
+            .map(record -> tableSchema.mapToItem(tableSchema.itemToMap(record, true)))
+            .toList();
+        return new ConsentHistoryApiService(new InMemoryDynamoDbRecordRepository(readRecords)).handleRequest(consentRequest, null);
+    }
+
+    /**
+     * Primes the service as the SnapStart checkpoint hook does, outside the measured request.
+     */
+    @State(Scope.Benchmark)
+    public static class PrimedState {
+        /**
+         * Prime the service, without a DynamoDB client to initialize.
+         */
+        @Setup
+        public void setUp() {
+            Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.OFF);
+            new ConsentHistoryApiServicePrimer(() -> { }, ResponseCompressionConfiguration.DISABLED).prime();
+        }
+    }
+}
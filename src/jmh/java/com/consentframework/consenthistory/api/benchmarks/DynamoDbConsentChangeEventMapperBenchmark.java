@@ -0,0 +1,148 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.infrastructure.mappers.CanonicalizingConsentChangeEventMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentChangeEventMapper;
+import com.consentframework.consenthistory.api.models.Consent;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentStatus;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares mapping 10k DynamoDB records across 10 consents with the mapper as it was, parsing event times with
+ * OffsetDateTime.parse and looking up enums by scanning their values, against the stateless fast-path mapper and
+ * the canonicalizing mapper used for query results.
+ *
+ * Records are built as the DynamoDB enhanced client returns them, with fresh strings and consent data maps per record,
+ * and each event's old image a copy of the previous event's new image.  Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DynamoDbConsentChangeEventMapperBenchmark {
+    private static final int EVENT_COUNT = 10_000;
+    private static final int CONSENT_COUNT = 10;
+    private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private List<DynamoDbConsentHistory> records;
+
+    /**
+     * Generate the DynamoDB records to map.
+     */
+    @Setup
+    public void setUp() {
+        records = new ArrayList<>(EVENT_COUNT);
+        for (int eventIndex = 0; eventIndex < EVENT_COUNT; eventIndex++) {
+            final int consentIndex = eventIndex % CONSENT_COUNT;
+            final int consentVersion = eventIndex / CONSENT_COUNT + 1;
+            records.add(DynamoDbConsentHistory.builder()
+                .id(new String("BenchmarkServiceId|BenchmarkUserId|consent-" + consentIndex))
+                .eventId("event-" + eventIndex)
+                .eventType(new String(consentVersion == 1 ? ConsentEventType.INSERT.getValue() : ConsentEventType.MODIFY.getValue()))
+                .eventTime(FIRST_EVENT_TIME.plusNanos(eventIndex * 1_000_000_123L).toString())
+                .serviceUserId(new String("BenchmarkServiceId|BenchmarkUserId"))
+                .oldImage(consentVersion == 1 ? null : generateStoredConsent(consentIndex, consentVersion - 1))
+                .newImage(generateStoredConsent(consentIndex, consentVersion))
+                .build());
+        }
+    }
+
+    /**
+     * Map records as DynamoDbConsentChangeEventMapper did before the fast path.
+     *
+     * @return mapped events
+     */
+    @Benchmark
+    public List<ConsentChangeEvent> generalPurposeMapper() {
+        final List<ConsentChangeEvent> consentChangeEvents = new ArrayList<>(EVENT_COUNT);
+        for (final DynamoDbConsentHistory record : records) {
+            consentChangeEvents.add(new ConsentChangeEvent()
+                .consentId(record.id())
+                .eventId(record.eventId())
+                .eventTime(OffsetDateTime.parse(record.eventTime()).withOffsetSameLocal(ZoneOffset.UTC))
+                .eventType(ConsentEventType.fromValue(record.eventType()))
+                .oldImage(toConsent(record.oldImage()))
+                .newImage(toConsent(record.newImage())));
+        }
+        return consentChangeEvents;
+    }
+
+    /**
+     * Map records with the stateless fast-path mapper.
+     *
+     * @return mapped events
+     */
+    @Benchmark
+    public List<ConsentChangeEvent> fastPathMapper() {
+        final List<ConsentChangeEvent> consentChangeEvents = new ArrayList<>(EVENT_COUNT);
+        for (final DynamoDbConsentHistory record : records) {
+            consentChangeEvents.add(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record));
+        }
+        return consentChangeEvents;
+    }
+
+    /**
+     * Map records with the canonicalizing mapper, as query results are mapped.
+     *
+     * @return mapped events
+     */
+    @Benchmark
+    public List<ConsentChangeEvent> canonicalizingMapper() {
+        final CanonicalizingConsentChangeEventMapper mapper = new CanonicalizingConsentChangeEventMapper();
+        final List<ConsentChangeEvent> consentChangeEvents = new ArrayList<>(EVENT_COUNT);
+        for (final DynamoDbConsentHistory record : records) {
+            consentChangeEvents.add(mapper.apply(record));
+        }
+        return consentChangeEvents;
+    }
+
+    private static Consent toConsent(final StoredConsentImage storedConsent) {
+        if (storedConsent == null) {
+            return null;
+        }
+        return new Consent()
+            .consentId(storedConsent.getConsentId())
+            .consentVersion(storedConsent.getConsentVersion())
+            .userId(storedConsent.getUserId())
+            .serviceId(storedConsent.getServiceId())
+            .status(ConsentStatus.fromValue(storedConsent.getConsentStatus()))
+            .consentType(storedConsent.getConsentType())
+            .consentData(storedConsent.getConsentData())
+            .expiryTime(storedConsent.getExpiryTime());
+    }
+
+    private static StoredConsentImage generateStoredConsent(final int consentIndex, final int consentVersion) {
+        final Map<String, String> consentData = new HashMap<>();
+        consentData.put(new String("purpose"), new String("marketing"));
+        return new StoredConsentImage()
+            .serviceId(new String("BenchmarkServiceId"))
+            .userId(new String("BenchmarkUserId"))
+            .consentId(new String("consent-" + consentIndex))
+            .consentVersion(consentVersion)
+            .consentStatus(new String(ConsentStatus.ACTIVE.getValue()))
+            .consentType(new String("BenchmarkConsentType"))
+            .consentData(consentData);
+    }
+}
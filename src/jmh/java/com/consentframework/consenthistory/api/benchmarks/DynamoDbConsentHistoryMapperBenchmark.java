@@ -0,0 +1,111 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.infrastructure.mappers.CanonicalizingConsentChangeEventMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryMapper;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares grouping 10k DynamoDB records of a service user into per-consent histories by sorting all events by event time
+ * before bucketing them into a HashMap, against DynamoDbConsentHistoryMapper, which partitions events in one pass and
+ * orders each consent's events independently, across service users with few to many consents.
+ *
+ * Both map records with the canonicalizing mapper, so the difference is the grouping alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DynamoDbConsentHistoryMapperBenchmark {
+    private static final int EVENT_COUNT = 10_000;
+    private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final Comparator<ConsentChangeEvent> EVENT_TIME_ORDER = Comparator.comparing(ConsentChangeEvent::getEventTime,
+        OffsetDateTime.timeLineOrder());
+
+    @Param({"1", "10", "100", "1000"})
+    private int consentCount;
+
+    private List<DynamoDbConsentHistory> records;
+
+    /**
+     * Generate the DynamoDB records to group, in event time order as the ConsentHistoryByServiceUser GSI returns them.
+     */
+    @Setup
+    public void setUp() {
+        records = new ArrayList<>(EVENT_COUNT);
+        for (int eventIndex = 0; eventIndex < EVENT_COUNT; eventIndex++) {
+            records.add(DynamoDbConsentHistory.builder()
+                .id("BenchmarkServiceId|BenchmarkUserId|consent-" + eventIndex % consentCount)
+                .eventId("event-" + eventIndex)
+                .eventType(ConsentEventType.MODIFY.getValue())
+                .eventTime(FIRST_EVENT_TIME.plusNanos(eventIndex * 1_000_000_123L).toString())
+                .serviceUserId("BenchmarkServiceId|BenchmarkUserId")
+                .build());
+        }
+    }
+
+    /**
+     * Sort all events by event time, then bucket them by consent ID.
+     *
+     * @return consent histories
+     */
+    @Benchmark
+    public List<ConsentHistory> globalSortThenGroup() {
+        final List<ConsentChangeEvent> consentChangeEvents = records.stream()
+            .map(new CanonicalizingConsentChangeEventMapper())
+            .sorted(EVENT_TIME_ORDER)
+            .toList();
+        final Map<String, List<ConsentChangeEvent>> consentHistoryByConsentId = new HashMap<>();
+        for (final ConsentChangeEvent consentChangeEvent : consentChangeEvents) {
+            final String consentId = consentChangeEvent.getConsentId();
+            if (consentHistoryByConsentId.containsKey(consentId)) {
+                consentHistoryByConsentId.get(consentId).add(consentChangeEvent);
+            } else {
+                final List<ConsentChangeEvent> consentHistory = new ArrayList<>();
+                consentHistory.add(consentChangeEvent);
+                consentHistoryByConsentId.put(consentId, consentHistory);
+            }
+        }
+        return consentHistoryByConsentId.entrySet()
+            .stream()
+            .map(entry -> new ConsentHistory().consentId(entry.getKey()).history(entry.getValue()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Group events with DynamoDbConsentHistoryMapper, as query results are grouped.
+     *
+     * @return consent histories
+     */
+    @Benchmark
+    public List<ConsentHistory> partitionThenOrderPerConsent() {
+        return DynamoDbConsentHistoryMapper.toConsentHistories("BenchmarkServiceId", "BenchmarkUserId", records.stream(),
+            EventTimeWindow.UNBOUNDED);
+    }
+}
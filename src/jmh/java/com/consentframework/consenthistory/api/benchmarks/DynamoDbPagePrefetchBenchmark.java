@@ -0,0 +1,93 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.infrastructure.concurrency.PagePrefetchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.SimulatedLatency;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a service user's full history one 1MB query page after another, mapping each page before fetching
+ * the next, against fetching the next pages in the background while the current page is mapped, against an in-memory
+ * DynamoDB table with a fixed latency per page.
+ *
+ * Without prefetching a read takes the sum of its page latencies and its mapping time, with prefetching it takes about
+ * the longer of the two, so the gain is largest when a page takes about as long to map as to fetch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DynamoDbPagePrefetchBenchmark {
+    private static final int CONSENT_COUNT = 16;
+    private static final int CONSENT_DATA_WIDTH = 10;
+
+    @Param({"10000", "100000"})
+    private int eventCount;
+
+    @Param({"5", "20"})
+    private int pageLatencyMillis;
+
+    @Param({"1", "2"})
+    private int prefetchDepth;
+
+    private DynamoDbServiceUserConsentHistoryRepository serialRepository;
+    private DynamoDbServiceUserConsentHistoryRepository prefetchingRepository;
+
+    /**
+     * Load the service user's history into the in-memory table.
+     */
+    @Setup
+    public void setUp() {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.OFF);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable()
+            .withPageLatency(SimulatedLatency.constant(Duration.ofMillis(pageLatencyMillis)));
+        table.putItems(BenchmarkRecordGenerator.generate(eventCount, CONSENT_COUNT, CONSENT_DATA_WIDTH));
+        serialRepository = new DynamoDbServiceUserConsentHistoryRepository(table);
+        prefetchingRepository = new DynamoDbServiceUserConsentHistoryRepository(table,
+            new PagePrefetchConfiguration(true, prefetchDepth));
+    }
+
+    /**
+     * Read the service user's full history, fetching each page once the previous page has been mapped.
+     *
+     * @return consent histories
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public List<ConsentHistory> serial() throws ResourceNotFoundException {
+        return serialRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+    }
+
+    /**
+     * Read the service user's full history, fetching the next pages while the current page is mapped.
+     *
+     * @return consent histories
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public List<ConsentHistory> prefetching() throws ResourceNotFoundException {
+        return prefetchingRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+    }
+}
@@ -0,0 +1,127 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.SimulatedLatency;
+import com.consentframework.consenthistory.api.usecases.requesthandlers.GetHistoryForServiceUserRequestHandler;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load tests DynamoDbServiceUserConsentHistoryRepository against an in-memory DynamoDB table reading 1MB query pages,
+ * with log-normally distributed page latencies and throttled page reads, across history sizes.
+ *
+ * Runs concurrent threads so that the sampled latency distributions show how paging and simulated DynamoDB latency
+ * add up under load.  Throttled reads are counted as completed operations which return no history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(8)
+public class DynamoDbServiceUserConsentHistoryRepositoryLoadBenchmark {
+    private static final int CONSENT_COUNT = 10;
+    private static final int CONSENT_DATA_WIDTH = 10;
+
+    @Param({"1000", "100000"})
+    private int eventCount;
+
+    @Param({"0", "10"})
+    private int medianPageLatencyMillis;
+
+    @Param({"0", "0.01"})
+    private double throttleProbability;
+
+    private DynamoDbServiceUserConsentHistoryRepository repository;
+
+    /**
+     * Load the service user's history into the in-memory table, turning logging off so log volume does not depend on
+     * the parameters.
+     */
+    @Setup
+    public void setUp() {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.OFF);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable()
+            .withPageLatency(medianPageLatencyMillis == 0
+                ? SimulatedLatency.NONE
+                : SimulatedLatency.logNormal(Duration.ofMillis(medianPageLatencyMillis), 0.5))
+            .withThrottleProbability(throttleProbability);
+        table.putItems(BenchmarkRecordGenerator.generate(eventCount, CONSENT_COUNT, CONSENT_DATA_WIDTH));
+        repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+    }
+
+    /**
+     * Read a consent's full history from the table.
+     *
+     * @return consent history, or null if throttled
+     * @throws ResourceNotFoundException if the consent has no history
+     */
+    @Benchmark
+    public List<ConsentChangeEvent> getConsentHistory() throws ResourceNotFoundException {
+        try {
+            return repository.getConsentHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID,
+                "consent-0", EventTimeWindow.UNBOUNDED);
+        } catch (final ProvisionedThroughputExceededException throttledException) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the service user's full history from the GSI, one 1MB page after another.
+     *
+     * @return consent histories, or null if throttled
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public List<ConsentHistory> getServiceUserHistory() throws ResourceNotFoundException {
+        try {
+            return repository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+        } catch (final ProvisionedThroughputExceededException throttledException) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the largest page of the service user's history the API serves.
+     *
+     * @return page of consent histories, or null if throttled
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public ListPage<ConsentHistory> getServiceUserHistoryFirstPage() throws BadRequestException, ResourceNotFoundException {
+        try {
+            return repository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT));
+        } catch (final ProvisionedThroughputExceededException throttledException) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.models.Consent;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.models.ConsentStatus;
+import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserResponseContent;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares serializing a 100k event service user history response via a JSON tree, as GetHistoryForServiceUserRequestHandler
+ * did, against writing it with ConsentHistoryJsonWriter's JsonGenerator.
+ *
+ * Both benchmarks serialize the same materialized List of ConsentHistory, standing in for the repository's result, so the
+ * difference is the intermediate JSON tree; the materialized histories and the response String are on the heap in both.
+ * Run with -prof gc to compare allocation, and compare peak heap by lowering the forked JVM's heap, eg.
+ * -jvmArgsAppend "-Xms256m -Xmx256m", until a benchmark fails with OutOfMemoryError.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class GetHistoryForServiceUserSerializationBenchmark {
+    private static final int EVENT_COUNT = 100_000;
+    private static final int CONSENT_COUNT = 100;
+    private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new JSON().getMapper();
+    private final ConsentHistoryJsonWriter jsonWriter = new ConsentHistoryJsonWriter(objectMapper);
+
+    /**
+     * Serialize the history via a JSON tree, as the request handler did before using the JSON writer.
+     *
+     * @return response body
+     * @throws IOException if serialization fails
+     */
+    @Benchmark
+    public String treeResponse() throws IOException {
+        final ObjectNode responseContent = objectMapper.valueToTree(new GetHistoryForServiceUserResponseContent()
+            .data(generateConsentHistories()));
+        return objectMapper.writeValueAsString(responseContent);
+    }
+
+    /**
+     * Serialize the history with the JSON writer, straight from the consent histories to the output.
+     *
+     * @return response body
+     * @throws IOException if serialization fails
+     */
+    @Benchmark
+    public String generatorResponse() throws IOException {
+        final StringWriter writer = new StringWriter();
+        jsonWriter.writeConsentHistories(writer, generateConsentHistories(), Optional.empty());
+        return writer.toString();
+    }
+
+    private static List<ConsentHistory> generateConsentHistories() {
+        final List<ConsentHistory> consentHistories = new ArrayList<>();
+        for (int consentIndex = 0; consentIndex < CONSENT_COUNT; consentIndex++) {
+            consentHistories.add(new ConsentHistory().consentId(toConsentId(consentIndex)).history(new ArrayList<>()));
+        }
+        IntStream.range(0, EVENT_COUNT).forEach(eventIndex ->
+            consentHistories.get(eventIndex % CONSENT_COUNT).getHistory().add(generateConsentChangeEvent(eventIndex)));
+        return consentHistories;
+    }
+
+    private static ConsentChangeEvent generateConsentChangeEvent(final int eventIndex) {
+        final String consentId = toConsentId(eventIndex % CONSENT_COUNT);
+        final int consentVersion = eventIndex / CONSENT_COUNT + 1;
+        return new ConsentChangeEvent()
+            .consentId(consentId)
+            .eventId("event-" + eventIndex)
+            .eventTime(FIRST_EVENT_TIME.plusSeconds(eventIndex))
+            .eventType(consentVersion == 1 ? ConsentEventType.INSERT : ConsentEventType.MODIFY)
+            .oldImage(consentVersion == 1 ? null : generateConsent(consentId, consentVersion - 1))
+            .newImage(generateConsent(consentId, consentVersion));
+    }
+
+    private static Consent generateConsent(final String consentId, final int consentVersion) {
+        return new Consent()
+            .serviceId("BenchmarkServiceId")
+            .userId("BenchmarkUserId")
+            .consentId(consentId)
+            .consentVersion(consentVersion)
+            .status(ConsentStatus.ACTIVE)
+            .consentType("BenchmarkConsentType")
+            .consentData(Map.of("key", "value-" + consentVersion));
+    }
+
+    private static String toConsentId(final int consentIndex) {
+        return "BenchmarkServiceId|BenchmarkUserId|consent-" + consentIndex;
+    }
+}
@@ -0,0 +1,72 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryMapper;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository serving a single service user's DynamoDB records from memory, mapped with the same mapper and paged the same
+ * way as DynamoDbServiceUserConsentHistoryRepository, so benchmarks measure everything but the DynamoDB round trips.
+ *
+ * Page tokens are the offset of the page's first record.
+ */
+final class InMemoryDynamoDbRecordRepository implements ServiceUserConsentHistoryRepository {
+    private final List<DynamoDbConsentHistory> records;
+    private final Map<String, List<DynamoDbConsentHistory>> recordsByConsentId = new HashMap<>();
+
+    /**
+     * Construct the repository.
+     *
+     * @param records the service user's records, in ascending event time order
+     */
+    InMemoryDynamoDbRecordRepository(final List<DynamoDbConsentHistory> records) {
+        this.records = records;
+        records.forEach(record -> recordsByConsentId.computeIfAbsent(record.id(), ignored -> new ArrayList<>()).add(record));
+    }
+
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+        final List<DynamoDbConsentHistory> consentRecords = recordsByConsentId.get(String.format("%s|%s|%s", serviceId, userId,
+            consentId));
+        if (consentRecords == null) {
+            throw new ResourceNotFoundException(String.format(CONSENT_NOT_FOUND_MESSAGE, serviceId, userId, consentId));
+        }
+        return DynamoDbConsentHistoryMapper.toConsentChangeEvents(consentRecords.stream(), eventTimeWindow).toList();
+    }
+
+    @Override
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException {
+        final int fromIndex = parsePageToken(query.pageToken());
+        final int toIndex = query.limit() == null ? records.size() : (int) Math.min(records.size(), (long) fromIndex + query.limit());
+        final List<ConsentHistory> consentHistories = DynamoDbConsentHistoryMapper.toConsentHistories(serviceId, userId,
+            records.subList(fromIndex, toIndex).stream(), query.eventTimeWindow());
+        return query.view().projectPage(
+            new ListPage<>(consentHistories, toIndex < records.size() ? Optional.of(String.valueOf(toIndex)) : Optional.empty()));
+    }
+
+    private int parsePageToken(final String pageToken) throws BadRequestException {
+        if (pageToken == null) {
+            return 0;
+        }
+        try {
+            return Math.min(records.size(), Integer.parseInt(pageToken));
+        } catch (final NumberFormatException numberFormatException) {
+            throw new BadRequestException(String.format(INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.consentframework.consenthistory.api.benchmarks;
+
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ServiceUserHistoryFanOutConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.FanOutServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.SimulatedLatency;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.google.common.base.Ticker;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a service user's full history as a single GSI query paged serially against fanning out to parallel
+ * per-consent queries, against an in-memory DynamoDB table reading 1MB query pages with a fixed latency per page.
+ *
+ * The serial read takes one page latency per 1MB of history, while the fan-out read takes one page latency to discover
+ * new consents plus the page latencies of the largest consent, per batch of concurrent queries.  Across history sizes
+ * and consents per service user, the results show where fanning out starts to pay off.  The adaptive read fans out
+ * as the service does, switching back to serial reads once consecutive fan-out reads were slower than the serial read it learned
+ * the consent IDs from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ServiceUserHistoryFanOutBenchmark {
+    private static final int CONSENT_DATA_WIDTH = 10;
+    private static final Duration PAGE_LATENCY = Duration.ofMillis(10);
+    private static final Ticker STOPPED_TICKER = new Ticker() {
+        @Override
+        public long read() {
+            return 0;
+        }
+    };
+
+    @Param({"1000", "10000", "100000"})
+    private int eventCount;
+
+    @Param({"1", "4", "16", "64", "256"})
+    private int consentCount;
+
+    private DynamoDbServiceUserConsentHistoryRepository serialRepository;
+    private FanOutServiceUserConsentHistoryRepository fanOutRepository;
+    private FanOutServiceUserConsentHistoryRepository adaptiveRepository;
+
+    /**
+     * Load the service user's history into the in-memory table, and read it once so that the fan-out repositories know
+     * the service user's consent IDs.
+     *
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Setup
+    public void setUp() throws ResourceNotFoundException {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.OFF);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable()
+            .withPageLatency(SimulatedLatency.constant(PAGE_LATENCY));
+        table.putItems(BenchmarkRecordGenerator.generate(eventCount, consentCount, CONSENT_DATA_WIDTH));
+        serialRepository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        // Fan out for every consent count, so each parameter combination measures the fan-out strategy itself
+        final ServiceUserHistoryFanOutConfiguration fanOutConfiguration = new ServiceUserHistoryFanOutConfiguration(true, 1,
+            ServiceUserHistoryFanOutConfiguration.DEFAULT_MAX_CONCURRENCY,
+            ServiceUserHistoryFanOutConfiguration.DEFAULT_MAXIMUM_INDEXED_SERVICE_USERS, Duration.ofDays(1));
+        // A ticker which never advances times every fan-out read as no slower than the serial read, so it always fans out
+        fanOutRepository = new FanOutServiceUserConsentHistoryRepository(serialRepository, fanOutConfiguration, Clock.systemUTC(),
+            STOPPED_TICKER);
+        fanOutRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+        adaptiveRepository = new FanOutServiceUserConsentHistoryRepository(serialRepository, fanOutConfiguration);
+        adaptiveRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+    }
+
+    /**
+     * Read the service user's full history from the GSI, one 1MB page after another.
+     *
+     * @return consent histories
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public List<ConsentHistory> serial() throws ResourceNotFoundException {
+        return serialRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+    }
+
+    /**
+     * Read the service user's full history as parallel per-consent queries.
+     *
+     * @return consent histories
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public List<ConsentHistory> fanOut() throws ResourceNotFoundException {
+        return fanOutRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+    }
+
+    /**
+     * Read the service user's full history as parallel per-consent queries unless that was slower than a serial read.
+     *
+     * @return consent histories
+     * @throws ResourceNotFoundException if the service user has no history
+     */
+    @Benchmark
+    public List<ConsentHistory> adaptive() throws ResourceNotFoundException {
+        return adaptiveRepository.getServiceUserHistory(BenchmarkRecordGenerator.SERVICE_ID, BenchmarkRecordGenerator.USER_ID);
+    }
+}
@@ -0,0 +1,95 @@
+package com.consentframework.consenthistory.api;
+
+import com.consentframework.consenthistory.api.infrastructure.concurrency.QueryCoalescingConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.server.ApiHttpExchangeHandler;
+import com.consentframework.consenthistory.api.infrastructure.server.HttpServerConfiguration;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Entry point for running the service as a standalone HTTP server, eg. in a container, outside Lambda.
+ *
+ * Serves the same routes as the Lambda function on the JDK's built-in HTTP server, handling each request on its own
+ * virtual thread, so that requests blocked on DynamoDB do not hold a platform thread.  Shutdown stops accepting
+ * connections and gives in-flight requests the configured grace period to complete.
+ */
+public class ConsentHistoryApiServer {
+    /**
+     * Concurrent requests share a process, so identical queries are coalesced unless disabled by the environment.
+     */
+    static final QueryCoalescingConfiguration DEFAULT_QUERY_COALESCING_CONFIGURATION = QueryCoalescingConfiguration.ENABLED;
+
+    private static final Logger logger = LogManager.getLogger(ConsentHistoryApiServer.class);
+
+    private final HttpServerConfiguration configuration;
+    private final ApiHttpExchangeHandler exchangeHandler;
+    private final ExecutorService executor;
+    private final HttpServer httpServer;
+
+    /**
+     * Construct the server, bound to the configured port but not yet accepting requests.
+     *
+     * @param service API service handling the server's requests
+     * @param configuration HTTP server configuration
+     * @throws IOException if the server cannot bind to the port
+     */
+    public ConsentHistoryApiServer(final ConsentHistoryApiService service, final HttpServerConfiguration configuration)
+            throws IOException {
+        this.configuration = configuration;
+        this.exchangeHandler = new ApiHttpExchangeHandler(request -> service.handleRequest(request, null),
+            configuration.maxConcurrency());
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpServer = HttpServer.create(new InetSocketAddress(configuration.port()), configuration.maxConcurrency());
+        this.httpServer.createContext("/", exchangeHandler);
+        this.httpServer.setExecutor(executor);
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        httpServer.start();
+        logger.info("Consent History API server listening on port {} with maximum concurrency {}", getPort(),
+            configuration.maxConcurrency());
+    }
+
+    /**
+     * Return the port the server is bound to.
+     *
+     * @return bound port
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stop the server, waiting up to the shutdown grace period for in-flight requests to complete before interrupting them.
+     */
+    public void stop() {
+        logger.info("Stopping Consent History API server with {} requests in flight", exchangeHandler.getInFlightRequestCount());
+        exchangeHandler.startDraining();
+        httpServer.stop((int) configuration.shutdownGracePeriod().toSeconds());
+        executor.shutdownNow();
+        logger.info("Stopped Consent History API server");
+    }
+
+    /**
+     * Run the server until the JVM is shut down.
+     *
+     * @param args command line arguments, unused
+     * @throws IOException if the server cannot bind to the port
+     */
+    public static void main(final String[] args) throws IOException {
+        final ConsentHistoryApiServer server = new ConsentHistoryApiServer(
+            new ConsentHistoryApiService(System.getenv(), DEFAULT_QUERY_COALESCING_CONFIGURATION),
+            HttpServerConfiguration.fromEnvironment(System.getenv()));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "consent-history-api-server-shutdown"));
+        server.start();
+    }
+}
@@ -3,26 +3,53 @@ package com.consentframework.consenthistory.api;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.entities.RequestDeadline;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.caches.BloomFilterServiceUserExistenceFilter;
+import com.consentframework.consenthistory.api.infrastructure.caches.ConsentHistoryCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.caches.NegativeResultCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.caches.ServiceUserExistenceFilter;
+import com.consentframework.consenthistory.api.infrastructure.clients.DynamoDbClientConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.clients.DynamoDbClientFactory;
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressor;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.BoundedParallelReader;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ConsentHistoryBatchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.PagePrefetchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.QueryCoalescingConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ServiceUserHistoryFanOutConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.RequestDeadlineConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.ResponseSizeBudgetConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.metrics.EmfMetricsPublisher;
+import com.consentframework.consenthistory.api.infrastructure.repositories.CachingServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.CoalescingServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.FanOutServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.NegativeCachingServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.usecases.activities.GetChangesForServiceUserActivity;
+import com.consentframework.consenthistory.api.usecases.activities.GetConsentHistoryBatchActivity;
 import com.consentframework.consenthistory.api.usecases.activities.GetHistoryForServiceUserActivity;
 import com.consentframework.consenthistory.api.usecases.activities.GetHistoryForServiceUserConsentActivity;
+import com.consentframework.consenthistory.api.usecases.requesthandlers.GetChangesForServiceUserRequestHandler;
+import com.consentframework.consenthistory.api.usecases.requesthandlers.GetConsentHistoryBatchRequestHandler;
 import com.consentframework.consenthistory.api.usecases.requesthandlers.GetHistoryForServiceUserConsentRequestHandler;
 import com.consentframework.consenthistory.api.usecases.requesthandlers.GetHistoryForServiceUserRequestHandler;
+import com.consentframework.consenthistory.api.usecases.routing.ApiRouter;
 import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
 import com.consentframework.shared.api.domain.constants.HttpMethod;
 import com.consentframework.shared.api.domain.constants.HttpStatusCode;
 import com.consentframework.shared.api.domain.entities.ApiRequest;
 import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
-import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import org.crac.Core;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Entry point for the service, handles requests for an AWS Lambda function.
@@ -31,28 +58,68 @@ public class ConsentHistoryApiService implements RequestHandler<ApiRequest, Map<
     static final String UNSUPPORTED_OPERATION_MESSAGE = "Unsupported resource operation, received resource '%s' and operation '%s'";
     private static final Logger logger = LogManager.getLogger(ConsentHistoryApiService.class);
 
-    private ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private ResponseCompressor responseCompressor;
+    private ApiRouter router;
+    private EmfMetricsPublisher metricsPublisher;
+    private RequestDeadlineConfiguration deadlineConfiguration;
+    private ConsentHistoryApiServicePrimer primer;
 
     /**
-     * Instantiate API service.
+     * Instantiate API service configured by environment variables, for the Lambda function.
+     *
+     * Each Lambda execution environment handles a single request at a time, so queries are only coalesced if enabled.
      */
     public ConsentHistoryApiService() {
-        final DynamoDbEnhancedClient dynamoDbEnhancedClient = DynamoDbEnhancedClient.create();
-        final DynamoDbTable<DynamoDbConsentHistory> dynamoDbTable = dynamoDbEnhancedClient.table(
-            DynamoDbConsentHistory.TABLE_NAME,
-            TableSchema.fromImmutableClass(DynamoDbConsentHistory.class));
-        this.consentHistoryRepository = new DynamoDbServiceUserConsentHistoryRepository(dynamoDbTable);
+        this(System.getenv(), QueryCoalescingConfiguration.DISABLED);
+    }
+
+    /**
+     * Instantiate API service configured by environment variables.
+     *
+     * The DynamoDB client is created on first use, or while priming the service before a SnapStart snapshot.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @param defaultCoalescingConfiguration query coalescing configuration used unless set by the environment
+     */
+    public ConsentHistoryApiService(final Map<String, String> environment,
+            final QueryCoalescingConfiguration defaultCoalescingConfiguration) {
+        final DynamoDbServiceUserConsentHistoryRepository dynamoDbRepository = new DynamoDbServiceUserConsentHistoryRepository(
+            () -> DynamoDbClientFactory.createConsentHistoryTable(DynamoDbClientConfiguration.fromEnvironment(environment)),
+            PagePrefetchConfiguration.fromEnvironment(environment));
+        final ConsentHistoryApiServiceConfiguration serviceConfiguration =
+            ConsentHistoryApiServiceConfiguration.fromEnvironment(environment);
+        configure(buildConsentHistoryRepository(dynamoDbRepository, environment, defaultCoalescingConfiguration), serviceConfiguration);
+
+        // The CRaC context holds resources weakly, so the service keeps the primer reachable
+        this.primer = new ConsentHistoryApiServicePrimer(dynamoDbRepository::initialize,
+            serviceConfiguration.responseCompressionConfiguration());
+        Core.getGlobalContext().register(primer);
+    }
+
+    /**
+     * Instantiate API service with input repository and service configuration.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param serviceConfiguration service configuration
+     */
+    public ConsentHistoryApiService(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ConsentHistoryApiServiceConfiguration serviceConfiguration) {
+        configure(consentHistoryRepository, serviceConfiguration);
     }
 
     /**
      * Instantiate API service with input repository.
      */
     public ConsentHistoryApiService(final ServiceUserConsentHistoryRepository consentHistoryRepository) {
-        this.consentHistoryRepository = consentHistoryRepository;
+        this(consentHistoryRepository, ConsentHistoryApiServiceConfiguration.DEFAULT);
     }
 
     /**
-     * Route requests to appropriate request handler and return their response.
+     * Route requests to appropriate request handler and return their response, compressed if the client accepts it.
+     *
+     * Requests without a resource, eg. from servers other than API Gateway, are routed by their path.  Metrics recorded
+     * while handling the request are published once the response is built.  If request deadlines are enabled, the request's
+     * deadline is the invocation's remaining time less the configured response time reserve.
      *
      * @param request API request
      * @return API response
@@ -63,20 +130,180 @@ public class ConsentHistoryApiService implements RequestHandler<ApiRequest, Map<
             return buildUnsupportedOperationResponse(request);
         }
 
-        logger.info("Consent History API service received request: {}", request);
-
-        if (HttpMethod.GET.name().equals(request.httpMethod())) {
-            if (ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue().equals(request.resource())) {
-                final GetHistoryForServiceUserConsentActivity activity =
-                    new GetHistoryForServiceUserConsentActivity(consentHistoryRepository);
-                return new GetHistoryForServiceUserConsentRequestHandler(activity).handleRequest(request);
-            } else if (ApiHttpResource.SERVICE_USER_HISTORY.getValue().equals(request.resource())) {
-                final GetHistoryForServiceUserActivity activity = new GetHistoryForServiceUserActivity(consentHistoryRepository);
-                return new GetHistoryForServiceUserRequestHandler(activity).handleRequest(request);
-            }
+        final long startNanos = System.nanoTime();
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        final RequestDeadline requestDeadline = startDeadline(context);
+        final ApiRequest routedRequest = router.resolve(request);
+        logger.info("Consent History API service received {} request for path {}", request.httpMethod(), request.path());
+        final Map<String, Object> response;
+        try {
+            response = router.handleRequest(routedRequest);
+        } finally {
+            requestDeadline.stop();
+            requestMetrics.stop();
         }
+        metricsPublisher.publish(routedRequest.resource(), parseStatusCode(response), System.nanoTime() - startNanos, requestMetrics);
+        return response;
+    }
+
+    private void configure(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ConsentHistoryApiServiceConfiguration serviceConfiguration) {
+        this.responseCompressor = new ResponseCompressor(serviceConfiguration.responseCompressionConfiguration());
+        this.router = buildRouter(consentHistoryRepository, serviceConfiguration.responseBudgetConfiguration(),
+            serviceConfiguration.batchConfiguration());
+        this.metricsPublisher = serviceConfiguration.metricsPublisher();
+        this.deadlineConfiguration = serviceConfiguration.deadlineConfiguration();
+    }
+
+    /**
+     * Build the route table, with a single request handler per route shared by all requests.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param responseBudgetConfiguration maximum size of service user history responses, if bounded
+     * @param batchConfiguration maximum number of keys and parallel queries of batch consent history requests
+     * @return API router
+     */
+    private ApiRouter buildRouter(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ResponseSizeBudgetConfiguration responseBudgetConfiguration, final ConsentHistoryBatchConfiguration batchConfiguration) {
+        final GetHistoryForServiceUserConsentRequestHandler consentHistoryHandler = new GetHistoryForServiceUserConsentRequestHandler(
+            new GetHistoryForServiceUserConsentActivity(consentHistoryRepository));
+        final GetHistoryForServiceUserRequestHandler serviceUserHistoryHandler = new GetHistoryForServiceUserRequestHandler(
+            new GetHistoryForServiceUserActivity(consentHistoryRepository), responseBudgetConfiguration.maximumResponseBytes());
+        final GetChangesForServiceUserRequestHandler serviceUserChangesHandler = new GetChangesForServiceUserRequestHandler(
+            new GetChangesForServiceUserActivity(consentHistoryRepository));
+        final GetConsentHistoryBatchRequestHandler consentHistoryBatchHandler = new GetConsentHistoryBatchRequestHandler(
+            new GetConsentHistoryBatchActivity(consentHistoryRepository,
+                new BoundedParallelReader(batchConfiguration.maxConcurrency())),
+            batchConfiguration.maximumKeys());
+
+        return ApiRouter.builder()
+            .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_CONSENT_HISTORY,
+                request -> responseCompressor.compress(request, consentHistoryHandler.handleRequest(request)))
+            .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_HISTORY,
+                request -> responseCompressor.compress(request, serviceUserHistoryHandler.handleRequest(request)))
+            .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_CHANGES,
+                request -> responseCompressor.compress(request, serviceUserChangesHandler.handleRequest(request)))
+            .route(HttpMethod.POST, ApiHttpResource.CONSENT_HISTORY_BATCH,
+                request -> responseCompressor.compress(request, consentHistoryBatchHandler.handleRequest(request)))
+            .unmatchedRequestHandler(this::buildUnsupportedOperationResponse)
+            .build();
+    }
+
+    /**
+     * Wrap the repository in the fan-out, query coalescing, and caching repositories enabled by environment variables.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param environment environment variables, eg. System.getenv()
+     * @param defaultCoalescingConfiguration query coalescing configuration used unless set by the environment
+     * @return repository reading through the enabled wrappers
+     */
+    static ServiceUserConsentHistoryRepository buildConsentHistoryRepository(
+            final ServiceUserConsentHistoryRepository consentHistoryRepository, final Map<String, String> environment,
+            final QueryCoalescingConfiguration defaultCoalescingConfiguration) {
+        return withCache(
+            withNegativeResultCache(
+                withCoalescing(
+                    withFanOut(consentHistoryRepository, ServiceUserHistoryFanOutConfiguration.fromEnvironment(environment)),
+                    QueryCoalescingConfiguration.fromEnvironment(environment, defaultCoalescingConfiguration)),
+                NegativeResultCacheConfiguration.fromEnvironment(environment)),
+            ConsentHistoryCacheConfiguration.fromEnvironment(environment));
+    }
+
+    /**
+     * Wrap the repository in a read-through cache if caching is enabled.
+     *
+     * Cached results are retained across invocations served by the same warm Lambda container.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param cacheConfiguration cache configuration
+     * @return caching repository if caching is enabled, otherwise the input repository
+     */
+    static ServiceUserConsentHistoryRepository withCache(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ConsentHistoryCacheConfiguration cacheConfiguration) {
+        if (!cacheConfiguration.enabled()) {
+            return consentHistoryRepository;
+        }
+
+        logger.info("Caching consent history with time-to-live {} and maximum size {} bytes",
+            cacheConfiguration.timeToLive(), cacheConfiguration.maximumSizeBytes());
+        return new CachingServiceUserConsentHistoryRepository(consentHistoryRepository, cacheConfiguration);
+    }
+
+    /**
+     * Wrap the repository in a not-found result cache if negative result caching is enabled.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param cacheConfiguration negative result cache configuration
+     * @return negative caching repository if negative result caching is enabled, otherwise the input repository
+     * @throws UncheckedIOException if the configured existence filter snapshot cannot be loaded
+     */
+    static ServiceUserConsentHistoryRepository withNegativeResultCache(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final NegativeResultCacheConfiguration cacheConfiguration) {
+        if (!cacheConfiguration.enabled()) {
+            return consentHistoryRepository;
+        }
+
+        final Optional<ServiceUserExistenceFilter> existenceFilter;
+        try {
+            existenceFilter = cacheConfiguration.existenceFilterSnapshotPath().isPresent()
+                ? Optional.of(BloomFilterServiceUserExistenceFilter.readFrom(cacheConfiguration.existenceFilterSnapshotPath().get()))
+                : Optional.empty();
+        } catch (final IOException ioException) {
+            throw new UncheckedIOException("Unable to load service user existence filter snapshot", ioException);
+        }
+
+        logger.info("Caching consent history not-found results with time-to-live {}, maximum size {}, and existence filter {}",
+            cacheConfiguration.timeToLive(), cacheConfiguration.maximumSize(), cacheConfiguration.existenceFilterSnapshotPath());
+        return new NegativeCachingServiceUserConsentHistoryRepository(consentHistoryRepository, cacheConfiguration, existenceFilter);
+    }
+
+    /**
+     * Wrap the repository in a per-consent fan-out of service user history reads if fanning out is enabled.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param fanOutConfiguration fan-out configuration
+     * @return fan-out repository if fanning out is enabled, otherwise the input repository
+     */
+    static ServiceUserConsentHistoryRepository withFanOut(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ServiceUserHistoryFanOutConfiguration fanOutConfiguration) {
+        if (!fanOutConfiguration.enabled()) {
+            return consentHistoryRepository;
+        }
+
+        logger.info("Reading histories of service users with at least {} consents by consent, with at most {} queries in flight",
+            fanOutConfiguration.consentCountThreshold(), fanOutConfiguration.maxConcurrency());
+        return new FanOutServiceUserConsentHistoryRepository(consentHistoryRepository, fanOutConfiguration);
+    }
+
+    /**
+     * Wrap the repository so concurrent identical queries share a single in-flight query if coalescing is enabled.
+     *
+     * Coalescing sits beneath the caches, so concurrent cache misses for the same query are read from DynamoDB once.
+     *
+     * @param consentHistoryRepository repository to read consent history from
+     * @param coalescingConfiguration query coalescing configuration
+     * @return coalescing repository if coalescing is enabled, otherwise the input repository
+     */
+    static ServiceUserConsentHistoryRepository withCoalescing(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final QueryCoalescingConfiguration coalescingConfiguration) {
+        if (!coalescingConfiguration.enabled()) {
+            return consentHistoryRepository;
+        }
+
+        logger.info("Coalescing concurrent identical consent history queries");
+        return new CoalescingServiceUserConsentHistoryRepository(consentHistoryRepository);
+    }
+
+    private RequestDeadline startDeadline(final Context context) {
+        if (!deadlineConfiguration.enabled() || context == null) {
+            return RequestDeadline.unbounded();
+        }
+        return RequestDeadline.start(Duration.ofMillis(context.getRemainingTimeInMillis())
+            .minus(deadlineConfiguration.responseTimeReserve()));
+    }
 
-        return buildUnsupportedOperationResponse(request);
+    private static int parseStatusCode(final Map<String, Object> response) {
+        return response.get(ApiResponseParameterName.STATUS_CODE.getValue()) instanceof Number statusCode ? statusCode.intValue() : 0;
     }
 
     private Map<String, Object> buildUnsupportedOperationResponse(final ApiRequest request) {
@@ -0,0 +1,100 @@
+package com.consentframework.consenthistory.api;
+
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressionConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ConsentHistoryBatchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.RequestDeadlineConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.ResponseSizeBudgetConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.metrics.EmfMetricsPublisher;
+import com.consentframework.consenthistory.api.infrastructure.metrics.MetricsConfiguration;
+
+import java.util.Map;
+
+/**
+ * Configuration of the API service's request handling, independent of the repository it reads consent history from.
+ *
+ * @param responseCompressionConfiguration response compression configuration
+ * @param metricsPublisher publisher of per-request metrics
+ * @param deadlineConfiguration request deadline configuration
+ * @param responseBudgetConfiguration service user history response size budget configuration
+ * @param batchConfiguration batch consent history request configuration
+ */
+public record ConsentHistoryApiServiceConfiguration(ResponseCompressionConfiguration responseCompressionConfiguration,
+        EmfMetricsPublisher metricsPublisher, RequestDeadlineConfiguration deadlineConfiguration,
+        ResponseSizeBudgetConfiguration responseBudgetConfiguration, ConsentHistoryBatchConfiguration batchConfiguration) {
+    public static final ConsentHistoryApiServiceConfiguration DEFAULT = new ConsentHistoryApiServiceConfiguration(
+        ResponseCompressionConfiguration.DISABLED, new EmfMetricsPublisher(MetricsConfiguration.DISABLED),
+        RequestDeadlineConfiguration.DISABLED, ResponseSizeBudgetConfiguration.DISABLED, ConsentHistoryBatchConfiguration.DEFAULT);
+
+    /**
+     * Parse the service configuration from environment variables, using the defaults of each configuration which is not set.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return service configuration
+     * @throws IllegalArgumentException if any configuration is invalid
+     */
+    public static ConsentHistoryApiServiceConfiguration fromEnvironment(final Map<String, String> environment) {
+        return new ConsentHistoryApiServiceConfiguration(
+            ResponseCompressionConfiguration.fromEnvironment(environment),
+            new EmfMetricsPublisher(MetricsConfiguration.fromEnvironment(environment)),
+            RequestDeadlineConfiguration.fromEnvironment(environment),
+            ResponseSizeBudgetConfiguration.fromEnvironment(environment),
+            ConsentHistoryBatchConfiguration.fromEnvironment(environment));
+    }
+
+    /**
+     * Return this configuration with a different response compression configuration.
+     *
+     * @param responseCompressionConfiguration response compression configuration
+     * @return updated service configuration
+     */
+    public ConsentHistoryApiServiceConfiguration withResponseCompressionConfiguration(
+            final ResponseCompressionConfiguration responseCompressionConfiguration) {
+        return new ConsentHistoryApiServiceConfiguration(responseCompressionConfiguration, metricsPublisher, deadlineConfiguration,
+            responseBudgetConfiguration, batchConfiguration);
+    }
+
+    /**
+     * Return this configuration with a different metrics publisher.
+     *
+     * @param metricsPublisher publisher of per-request metrics
+     * @return updated service configuration
+     */
+    public ConsentHistoryApiServiceConfiguration withMetricsPublisher(final EmfMetricsPublisher metricsPublisher) {
+        return new ConsentHistoryApiServiceConfiguration(responseCompressionConfiguration, metricsPublisher, deadlineConfiguration,
+            responseBudgetConfiguration, batchConfiguration);
+    }
+
+    /**
+     * Return this configuration with a different request deadline configuration.
+     *
+     * @param deadlineConfiguration request deadline configuration
+     * @return updated service configuration
+     */
+    public ConsentHistoryApiServiceConfiguration withDeadlineConfiguration(final RequestDeadlineConfiguration deadlineConfiguration) {
+        return new ConsentHistoryApiServiceConfiguration(responseCompressionConfiguration, metricsPublisher, deadlineConfiguration,
+            responseBudgetConfiguration, batchConfiguration);
+    }
+
+    /**
+     * Return this configuration with a different response size budget configuration.
+     *
+     * @param responseBudgetConfiguration service user history response size budget configuration
+     * @return updated service configuration
+     */
+    public ConsentHistoryApiServiceConfiguration withResponseBudgetConfiguration(
+            final ResponseSizeBudgetConfiguration responseBudgetConfiguration) {
+        return new ConsentHistoryApiServiceConfiguration(responseCompressionConfiguration, metricsPublisher, deadlineConfiguration,
+            responseBudgetConfiguration, batchConfiguration);
+    }
+
+    /**
+     * Return this configuration with a different batch configuration.
+     *
+     * @param batchConfiguration batch consent history request configuration
+     * @return updated service configuration
+     */
+    public ConsentHistoryApiServiceConfiguration withBatchConfiguration(final ConsentHistoryBatchConfiguration batchConfiguration) {
+        return new ConsentHistoryApiServiceConfiguration(responseCompressionConfiguration, metricsPublisher, deadlineConfiguration,
+            responseBudgetConfiguration, batchConfiguration);
+    }
+}
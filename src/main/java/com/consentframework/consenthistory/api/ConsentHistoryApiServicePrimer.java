@@ -0,0 +1,224 @@
+package com.consentframework.consenthistory.api;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpHeaderName;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressionConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryTableSchema;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbPageTokenMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbQueryRequestMapper;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.models.ConsentStatus;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.crac.Context;
+import org.crac.Resource;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Primes the API service before a Lambda SnapStart snapshot is taken, so that execution environments restored from the
+ * snapshot serve their first request with the request path's classes already loaded and initialized.
+ *
+ * Priming creates the DynamoDB client without calling DynamoDB, since connections opened before the snapshot would be
+ * stale after restore.  It then handles synthetic requests for both routes and views with a service reading synthetic
+ * records through the consent history table schema, the DynamoDB record mappers and the page token mapper, which runs
+ * request parsing, Jackson serialization and response compression as a real request does.
+ */
+public class ConsentHistoryApiServicePrimer implements Resource {
+    static final int PRIMING_ROUNDS = 5;
+    static final String PRIMING_SERVICE_ID = "PrimingServiceId";
+    static final String PRIMING_USER_ID = "PrimingUserId";
+    static final String PRIMING_CONSENT_ID = "PrimingConsentId";
+
+    private static final Logger logger = LogManager.getLogger(ConsentHistoryApiServicePrimer.class);
+    private static final int PRIMING_EVENT_COUNT = 10;
+
+    private final Runnable clientInitializer;
+    private final ConsentHistoryApiService primingService;
+
+    /**
+     * Construct the primer.
+     *
+     * @param clientInitializer creates the service's clients without sending requests
+     * @param responseCompressionConfiguration response compression configuration of the service being primed
+     */
+    public ConsentHistoryApiServicePrimer(final Runnable clientInitializer,
+            final ResponseCompressionConfiguration responseCompressionConfiguration) {
+        this.clientInitializer = clientInitializer;
+        this.primingService = new ConsentHistoryApiService(new PrimingConsentHistoryRepository(),
+            ConsentHistoryApiServiceConfiguration.DEFAULT.withResponseCompressionConfiguration(responseCompressionConfiguration));
+    }
+
+    /**
+     * Prime the service before the snapshot is taken.
+     *
+     * @param context checkpoint context
+     */
+    @Override
+    public void beforeCheckpoint(final Context<? extends Resource> context) {
+        prime();
+    }
+
+    /**
+     * Nothing needs restoring, primed state holds no connections or time-sensitive values.
+     *
+     * @param context restore context
+     */
+    @Override
+    public void afterRestore(final Context<? extends Resource> context) {
+        logger.info("Consent History API service restored from snapshot");
+    }
+
+    /**
+     * Create the service's clients and handle synthetic requests for every route.
+     *
+     * @return number of synthetic requests handled successfully
+     */
+    public int prime() {
+        final long startNanos = System.nanoTime();
+        clientInitializer.run();
+
+        final List<ApiRequest> primingRequests = buildPrimingRequests();
+        int successfulRequestCount = 0;
+        for (int round = 0; round < PRIMING_ROUNDS; round++) {
+            for (final ApiRequest primingRequest : primingRequests) {
+                final Map<String, Object> response = primingService.handleRequest(primingRequest, null);
+                if (response.get(ApiResponseParameterName.STATUS_CODE.getValue()) instanceof Number statusCode
+                        && statusCode.intValue() == HttpStatusCode.SUCCESS.getValue()) {
+                    successfulRequestCount++;
+                }
+            }
+        }
+        logger.info("Primed Consent History API service with {} of {} requests succeeding in {} ms", successfulRequestCount,
+            PRIMING_ROUNDS * primingRequests.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        return successfulRequestCount;
+    }
+
+    private static List<ApiRequest> buildPrimingRequests() {
+        final List<ApiRequest> primingRequests = new ArrayList<>();
+        final Map<String, String> consentPathParameters = Map.of(
+            ApiPathParameterName.SERVICE_ID.getValue(), PRIMING_SERVICE_ID,
+            ApiPathParameterName.USER_ID.getValue(), PRIMING_USER_ID,
+            ApiPathParameterName.CONSENT_ID.getValue(), PRIMING_CONSENT_ID);
+        final Map<String, String> serviceUserPathParameters = Map.of(
+            ApiPathParameterName.SERVICE_ID.getValue(), PRIMING_SERVICE_ID,
+            ApiPathParameterName.USER_ID.getValue(), PRIMING_USER_ID);
+        // Prime the compressed and uncompressed response paths, compression applies only if enabled
+        final Map<String, String> headers = Map.of(ApiHttpHeaderName.ACCEPT_ENCODING.getValue(), "gzip");
+
+        for (final ConsentHistoryView view : ConsentHistoryView.values()) {
+            final Map<String, Object> viewQueryStringParameters = Map.of(ApiQueryStringParameterName.VIEW.getValue(), view.getValue());
+            primingRequests.add(buildPrimingRequest(ApiHttpResource.SERVICE_USER_CONSENT_HISTORY, consentPathParameters,
+                viewQueryStringParameters, null));
+            primingRequests.add(buildPrimingRequest(ApiHttpResource.SERVICE_USER_CONSENT_HISTORY, consentPathParameters,
+                viewQueryStringParameters, headers));
+            primingRequests.add(buildPrimingRequest(ApiHttpResource.SERVICE_USER_HISTORY, serviceUserPathParameters, Map.of(
+                ApiQueryStringParameterName.VIEW.getValue(), view.getValue(),
+                ApiQueryStringParameterName.LIMIT.getValue(), String.valueOf(PRIMING_EVENT_COUNT / 2)), headers));
+        }
+        return primingRequests;
+    }
+
+    private static ApiRequest buildPrimingRequest(final ApiHttpResource resource, final Map<String, String> pathParameters,
+            final Map<String, Object> queryStringParameters, final Map<String, String> headers) {
+        String path = resource.getValue();
+        for (final Map.Entry<String, String> pathParameter : pathParameters.entrySet()) {
+            path = path.replace("{" + pathParameter.getKey() + "}", pathParameter.getValue());
+        }
+        return new ApiRequest(HttpMethod.GET.name(), resource.getValue(), path, pathParameters, queryStringParameters, headers, false,
+            null);
+    }
+
+    /**
+     * Repository reading synthetic DynamoDB records through the same schema and mappers as the DynamoDB repository.
+     */
+    private static final class PrimingConsentHistoryRepository implements ServiceUserConsentHistoryRepository {
+        private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        @Override
+        public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                final EventTimeWindow eventTimeWindow) {
+            DynamoDbQueryRequestMapper.toConsentHistoryQueryRequest(serviceId, userId, consentId, eventTimeWindow);
+            return DynamoDbConsentHistoryMapper.toConsentChangeEvents(readRecords(serviceId, userId).stream(), eventTimeWindow)
+                .toList();
+        }
+
+        @Override
+        public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+                final ServiceUserHistoryQuery query) throws BadRequestException {
+            final Map<String, AttributeValue> exclusiveStartKey = DynamoDbPageTokenMapper.toServiceUserHistoryExclusiveStartKey(
+                query.pageToken(), serviceId, userId);
+            DynamoDbQueryRequestMapper.toServiceUserHistoryQueryRequest(serviceId, userId, query.limit(), exclusiveStartKey,
+                query.eventTimeWindow(), query.view());
+
+            final List<DynamoDbConsentHistory> records = readRecords(serviceId, userId);
+            final List<DynamoDbConsentHistory> pageRecords = records.subList(0, Math.min(query.limit() == null
+                ? records.size()
+                : query.limit(), records.size()));
+            final DynamoDbConsentHistory lastRecord = pageRecords.get(pageRecords.size() - 1);
+            final Optional<String> nextPageToken = query.isPaged()
+                ? Optional.of(DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(lastRecord))
+                : Optional.empty();
+            return query.view().projectPage(new ListPage<>(DynamoDbConsentHistoryMapper.toConsentHistories(serviceId, userId,
+                pageRecords.stream(), query.eventTimeWindow()), nextPageToken));
+        }
+
+        /**
+         * Build synthetic records and read them back through the table schema, as query results are read.
+         */
+        private static List<DynamoDbConsentHistory> readRecords(final String serviceId, final String userId) {
+            final String serviceUserId = String.format("%s|%s", serviceId, userId);
+            final List<DynamoDbConsentHistory> records = new ArrayList<>(PRIMING_EVENT_COUNT);
+            for (int eventIndex = 0; eventIndex < PRIMING_EVENT_COUNT; eventIndex++) {
+                final DynamoDbConsentHistory record = DynamoDbConsentHistory.builder()
+                    .id(String.format("%s|%s", serviceUserId, PRIMING_CONSENT_ID))
+                    .eventId("priming-event-" + eventIndex)
+                    .eventType(eventIndex == 0 ? ConsentEventType.INSERT.getValue() : ConsentEventType.MODIFY.getValue())
+                    .eventTime(FIRST_EVENT_TIME.plusSeconds(eventIndex).toString())
+                    .serviceUserId(serviceUserId)
+                    .oldImage(eventIndex == 0 ? null : buildConsentImage(serviceId, userId, eventIndex))
+                    .newImage(buildConsentImage(serviceId, userId, eventIndex + 1))
+                    .build();
+                records.add(DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.mapToItem(
+                    DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.itemToMap(record, true)));
+            }
+            return records;
+        }
+
+        private static StoredConsentImage buildConsentImage(final String serviceId, final String userId, final int consentVersion) {
+            return new StoredConsentImage()
+                .id(String.format("%s|%s|%s", serviceId, userId, PRIMING_CONSENT_ID))
+                .serviceId(serviceId)
+                .userId(userId)
+                .consentId(PRIMING_CONSENT_ID)
+                .consentVersion(consentVersion)
+                .consentStatus(ConsentStatus.ACTIVE.getValue())
+                .consentType("PrimingConsentType")
+                .consentData(Map.of("primingKey", "primingValue"))
+                .expiryTime(FIRST_EVENT_TIME.plusYears(1));
+        }
+    }
+}
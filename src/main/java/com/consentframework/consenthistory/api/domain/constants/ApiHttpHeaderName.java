@@ -0,0 +1,27 @@
+package com.consentframework.consenthistory.api.domain.constants;
+
+/**
+ * API HTTP header names.
+ */
+public enum ApiHttpHeaderName {
+    ACCEPT_ENCODING("Accept-Encoding"),
+    CONTENT_ENCODING("Content-Encoding"),
+    ETAG("ETag"),
+    IF_NONE_MATCH("If-None-Match"),
+    VARY("Vary");
+
+    private final String value;
+
+    private ApiHttpHeaderName(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Return header name.
+     *
+     * @return header name
+     */
+    public String getValue() {
+        return value;
+    }
+}
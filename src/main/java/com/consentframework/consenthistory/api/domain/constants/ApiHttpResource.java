@@ -5,7 +5,9 @@ package com.consentframework.consenthistory.api.domain.constants;
  */
 public enum ApiHttpResource {
     SERVICE_USER_CONSENT_HISTORY("/v1/consent-history/services/{serviceId}/users/{userId}/consents/{consentId}"),
-    SERVICE_USER_HISTORY("/v1/consent-history/services/{serviceId}/users/{userId}/consents");
+    SERVICE_USER_HISTORY("/v1/consent-history/services/{serviceId}/users/{userId}/consents"),
+    SERVICE_USER_CHANGES("/v1/consent-history/services/{serviceId}/users/{userId}/changes"),
+    CONSENT_HISTORY_BATCH("/v1/consent-history/batch");
 
     private final String value;
 
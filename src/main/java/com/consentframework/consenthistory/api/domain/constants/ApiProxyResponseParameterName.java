@@ -0,0 +1,24 @@
+package com.consentframework.consenthistory.api.domain.constants;
+
+/**
+ * API Gateway proxy integration response parameter names, in addition to the status code and body.
+ */
+public enum ApiProxyResponseParameterName {
+    HEADERS("headers"),
+    IS_BASE64_ENCODED("isBase64Encoded");
+
+    private final String value;
+
+    private ApiProxyResponseParameterName(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Return parameter name.
+     *
+     * @return parameter name
+     */
+    public String getValue() {
+        return value;
+    }
+}
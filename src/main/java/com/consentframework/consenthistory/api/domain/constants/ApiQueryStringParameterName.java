@@ -0,0 +1,28 @@
+package com.consentframework.consenthistory.api.domain.constants;
+
+/**
+ * API query string parameter names.
+ */
+public enum ApiQueryStringParameterName {
+    AFTER("after"),
+    LIMIT("limit"),
+    PAGE_TOKEN("pageToken"),
+    SINCE("since"),
+    UNTIL("until"),
+    VIEW("view");
+
+    private final String value;
+
+    private ApiQueryStringParameterName(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Return parameter name.
+     *
+     * @return parameter name
+     */
+    public String getValue() {
+        return value;
+    }
+}
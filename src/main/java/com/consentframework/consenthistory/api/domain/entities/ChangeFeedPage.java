@@ -0,0 +1,15 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+
+import java.util.List;
+
+/**
+ * Single page of a service user's change feed.
+ *
+ * @param changes change events after the requested watermark, in the order they were read
+ * @param nextWatermark watermark to pass back to retrieve the change events after this page, never null
+ * @param hasMore true if more change events may follow this page already, false if the feed was read to its end
+ */
+public record ChangeFeedPage(List<ConsentChangeEvent> changes, String nextWatermark, boolean hasMore) {
+}
@@ -0,0 +1,45 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Position in a service user's change feed, after which change events are returned.
+ *
+ * A watermark is either an ISO-8601 event time, returning change events at or after that time, or an opaque position
+ * returned as the next watermark of a previous change feed page, returning the change events not delivered by previous pages.
+ * Positions never contain a colon, which every event time does, so the two are told apart by their value.
+ *
+ * @param value watermark as passed by the caller
+ * @param eventTime event time parsed from the value, or null if the value is an opaque position
+ */
+public record ChangeFeedWatermark(String value, OffsetDateTime eventTime) {
+    /**
+     * Build a watermark at an event time.
+     *
+     * @param value watermark as passed by the caller
+     * @param eventTime event time parsed from the value
+     * @return event time watermark
+     */
+    public static ChangeFeedWatermark ofEventTime(final String value, final OffsetDateTime eventTime) {
+        return new ChangeFeedWatermark(value, eventTime);
+    }
+
+    /**
+     * Build a watermark at an opaque position returned with a previous change feed page.
+     *
+     * @param position next watermark of a previous change feed page
+     * @return position watermark
+     */
+    public static ChangeFeedWatermark ofPosition(final String position) {
+        return new ChangeFeedWatermark(position, null);
+    }
+
+    /**
+     * Return whether the watermark is an event time rather than an opaque position.
+     *
+     * @return true if the watermark is an event time
+     */
+    public boolean isEventTime() {
+        return eventTime != null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+/**
+ * Identifies a single consent whose history is read by a batch consent history request.
+ *
+ * @param serviceId service identifier
+ * @param userId user identifier
+ * @param consentId consent ID, specific to the service-user pair
+ */
+public record ConsentHistoryBatchKey(String serviceId, String userId, String consentId) {}
@@ -0,0 +1,35 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * History read for a single key of a batch consent history request.
+ *
+ * @param key consent the history was read for
+ * @param history change events of the consent, sorted ascending by event time, or empty if no history was found
+ */
+public record ConsentHistoryBatchResult(ConsentHistoryBatchKey key, Optional<List<ConsentChangeEvent>> history) {
+    /**
+     * Return the result for a key whose history was found.
+     *
+     * @param key consent the history was read for
+     * @param history change events of the consent
+     * @return found result
+     */
+    public static ConsentHistoryBatchResult found(final ConsentHistoryBatchKey key, final List<ConsentChangeEvent> history) {
+        return new ConsentHistoryBatchResult(key, Optional.of(history));
+    }
+
+    /**
+     * Return the result for a key without any history.
+     *
+     * @param key consent the history was read for
+     * @return not-found result
+     */
+    public static ConsentHistoryBatchResult notFound(final ConsentHistoryBatchKey key) {
+        return new ConsentHistoryBatchResult(key, Optional.empty());
+    }
+}
@@ -0,0 +1,99 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Consent history representation requested by the caller.
+ */
+public enum ConsentHistoryView {
+    /**
+     * Change events with the consent's old and new images.
+     */
+    FULL("full"),
+
+    /**
+     * Change event timeline only, without consent images.
+     */
+    SUMMARY("summary");
+
+    private final String value;
+
+    private ConsentHistoryView(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Return view query string parameter value.
+     *
+     * @return view value
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Look up a view by its query string parameter value.
+     *
+     * @param value view value
+     * @return matching view, or empty if no view has the value
+     */
+    public static Optional<ConsentHistoryView> fromValue(final String value) {
+        return Arrays.stream(values())
+            .filter(view -> view.value.equals(value))
+            .findFirst();
+    }
+
+    /**
+     * Project a consent change event into this view, without modifying it.
+     *
+     * @param consentChangeEvent consent change event
+     * @return the event itself if it has no fields outside this view, otherwise a copy restricted to this view
+     */
+    public ConsentChangeEvent project(final ConsentChangeEvent consentChangeEvent) {
+        if (this == FULL || consentChangeEvent.getOldImage() == null && consentChangeEvent.getNewImage() == null) {
+            return consentChangeEvent;
+        }
+        return new ConsentChangeEvent()
+            .consentId(consentChangeEvent.getConsentId())
+            .eventId(consentChangeEvent.getEventId())
+            .eventTime(consentChangeEvent.getEventTime())
+            .eventType(consentChangeEvent.getEventType());
+    }
+
+    /**
+     * Project a consent history into this view, without modifying it.
+     *
+     * @param consentHistory consent change events
+     * @return consent change events restricted to this view
+     */
+    public List<ConsentChangeEvent> project(final List<ConsentChangeEvent> consentHistory) {
+        if (this == FULL) {
+            return consentHistory;
+        }
+        return consentHistory.stream().map(this::project).toList();
+    }
+
+    /**
+     * Project a page of consent histories into this view, without modifying it.
+     *
+     * @param consentHistoryPage page of consent histories
+     * @return page of consent histories restricted to this view
+     */
+    public ListPage<ConsentHistory> projectPage(final ListPage<ConsentHistory> consentHistoryPage) {
+        if (this == FULL) {
+            return consentHistoryPage;
+        }
+        final List<ConsentHistory> consentHistories = consentHistoryPage.resultsOnPage()
+            .stream()
+            .map(consentHistory -> new ConsentHistory()
+                .consentId(consentHistory.getConsentId())
+                .history(project(consentHistory.getHistory())))
+            .toList();
+        return new ListPage<>(consentHistories, consentHistoryPage.nextPageToken());
+    }
+}
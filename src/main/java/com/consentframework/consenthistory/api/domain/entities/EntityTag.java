@@ -0,0 +1,107 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Strong entity tag identifying a version of a consent history, derived from its latest change event.
+ *
+ * Consent history is append-only and change events are written in event time order, so a history's latest event
+ * changes whenever the history does.  Representations restricted to a view other than the full history carry the tag
+ * with a ".view" qualifier, and representations which differ only by content coding carry the tag with a "-coding" suffix,
+ * which is ignored when matching.
+ *
+ * @param value opaque tag value, without quotes
+ */
+public record EntityTag(String value) {
+    private static final String ANY_TAG = "*";
+    private static final String WEAK_TAG_PREFIX = "W/";
+    private static final char CONTENT_CODING_SUFFIX_SEPARATOR = '-';
+    private static final char VIEW_QUALIFIER_SEPARATOR = '.';
+
+    /**
+     * Build the entity tag for a consent history whose latest change event is the given event.
+     *
+     * @param latestConsentChangeEvent latest change event of the consent history
+     * @return entity tag
+     */
+    public static EntityTag of(final ConsentChangeEvent latestConsentChangeEvent) {
+        final String eventTime = latestConsentChangeEvent.getEventTime() == null
+            ? ""
+            : latestConsentChangeEvent.getEventTime().toInstant().toString();
+        final String value = Hashing.murmur3_128()
+            .hashString(latestConsentChangeEvent.getEventId() + "|" + eventTime, StandardCharsets.UTF_8)
+            .toString();
+        return new EntityTag(value);
+    }
+
+    /**
+     * Build the entity tag for a consent history from the change event with the latest event time.
+     *
+     * The history's change events need not be in event time order, as events of the same minute may be read in any order.
+     *
+     * @param consentHistory change events of the consent history, at least one
+     * @return entity tag
+     */
+    public static EntityTag ofLatest(final List<ConsentChangeEvent> consentHistory) {
+        return of(consentHistory.stream()
+            .max(Comparator.comparing(ConsentChangeEvent::getEventTime, Comparator.nullsFirst(OffsetDateTime.timeLineOrder())))
+            .orElseThrow());
+    }
+
+    /**
+     * Return the tag of the same consent history version restricted to a view.
+     *
+     * @param view consent history view of the representation
+     * @return this tag for the full view, otherwise the tag qualified by the view
+     */
+    public EntityTag forView(final ConsentHistoryView view) {
+        if (view == ConsentHistoryView.FULL) {
+            return this;
+        }
+        return new EntityTag(value + VIEW_QUALIFIER_SEPARATOR + view.getValue());
+    }
+
+    /**
+     * Return the tag as an ETag header value.
+     *
+     * @return quoted tag value
+     */
+    public String toHeaderValue() {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Return whether the tag matches an If-None-Match header, using weak comparison as required for If-None-Match.
+     *
+     * @param ifNoneMatch If-None-Match header value, either "*" or a comma separated list of entity tags
+     * @return true if the header is "*" or lists this tag
+     */
+    public boolean matchesAny(final String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (final String candidateTag : ifNoneMatch.split(",")) {
+            final String trimmedTag = candidateTag.trim();
+            if (ANY_TAG.equals(trimmedTag) || value.equals(toOpaqueValue(trimmedTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toOpaqueValue(final String headerTag) {
+        String opaqueValue = headerTag.startsWith(WEAK_TAG_PREFIX) ? headerTag.substring(WEAK_TAG_PREFIX.length()) : headerTag;
+        if (opaqueValue.length() >= 2 && opaqueValue.startsWith("\"") && opaqueValue.endsWith("\"")) {
+            opaqueValue = opaqueValue.substring(1, opaqueValue.length() - 1);
+        }
+        final int suffixIndex = opaqueValue.indexOf(CONTENT_CODING_SUFFIX_SEPARATOR);
+        return suffixIndex < 0 ? opaqueValue : opaqueValue.substring(0, suffixIndex);
+    }
+}
@@ -0,0 +1,73 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Inclusive range of consent change event times to retrieve history for.
+ *
+ * @param since earliest event time to include, or null if unbounded
+ * @param until latest event time to include, or null if unbounded
+ */
+public record EventTimeWindow(OffsetDateTime since, OffsetDateTime until) {
+    public static final String INVALID_EVENT_TIME_WINDOW_MESSAGE = "Query parameter since (%s) must not be after until (%s)";
+    public static final EventTimeWindow UNBOUNDED = new EventTimeWindow(null, null);
+
+    /**
+     * Build an event time window, validating that its bounds are ordered.
+     *
+     * @param since earliest event time to include, or null if unbounded
+     * @param until latest event time to include, or null if unbounded
+     * @return event time window
+     * @throws BadRequestException if since is after until
+     */
+    public static EventTimeWindow of(final OffsetDateTime since, final OffsetDateTime until) throws BadRequestException {
+        if (since != null && until != null && since.isAfter(until)) {
+            throw new BadRequestException(String.format(INVALID_EVENT_TIME_WINDOW_MESSAGE, since, until));
+        }
+        if (since == null && until == null) {
+            return UNBOUNDED;
+        }
+        return new EventTimeWindow(since, until);
+    }
+
+    /**
+     * Return whether the window has neither a lower nor an upper bound.
+     *
+     * @return true if all event times are within the window
+     */
+    public boolean isUnbounded() {
+        return since == null && until == null;
+    }
+
+    /**
+     * Return an equivalent window with both bounds in UTC, so that windows covering the same instants are equal.
+     *
+     * @return event time window with UTC bounds
+     */
+    public EventTimeWindow normalized() {
+        if (isUnbounded()) {
+            return UNBOUNDED;
+        }
+        return new EventTimeWindow(toUtc(since), toUtc(until));
+    }
+
+    /**
+     * Return whether the given event time is within the window.
+     *
+     * @param eventTime event time
+     * @return true if the event time is within the window
+     */
+    public boolean contains(final OffsetDateTime eventTime) {
+        if (since != null && eventTime.isBefore(since)) {
+            return false;
+        }
+        return until == null || !eventTime.isAfter(until);
+    }
+
+    private static OffsetDateTime toUtc(final OffsetDateTime eventTime) {
+        return eventTime == null ? null : eventTime.withOffsetSameInstant(ZoneOffset.UTC);
+    }
+}
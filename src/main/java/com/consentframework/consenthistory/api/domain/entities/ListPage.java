@@ -0,0 +1,14 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single page of results from a paginated list query.
+ *
+ * @param resultsOnPage results retrieved on this page
+ * @param nextPageToken opaque token to pass back to retrieve the next page, empty if there are no more results
+ * @param <T> result type
+ */
+public record ListPage<T>(List<T> resultsOnPage, Optional<String> nextPageToken) {
+}
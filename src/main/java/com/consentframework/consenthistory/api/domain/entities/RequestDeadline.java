@@ -0,0 +1,82 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import java.time.Duration;
+
+/**
+ * Deadline of the request being handled on the current thread, by which its response must be built.
+ *
+ * A request's deadline is started by the API service from the time remaining before the invocation times out, and checked
+ * by the layers handling the request through {@link #current()}, so that a long read can stop early and return a partial
+ * result rather than running into the timeout.  Outside of a started request, {@link #current()} returns a deadline
+ * which never passes.
+ */
+public final class RequestDeadline {
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+    private static final RequestDeadline NONE = new RequestDeadline(false, 0);
+
+    private final boolean bounded;
+    private final long deadlineNanos;
+
+    private RequestDeadline(final boolean bounded, final long deadlineNanos) {
+        this.bounded = bounded;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Start the deadline of a request handled on the current thread.
+     *
+     * @param timeRemaining time from now by which the request's response must be built
+     * @return the request's deadline, also returned by {@link #current()} until {@link #stop()} is called
+     */
+    public static RequestDeadline start(final Duration timeRemaining) {
+        final RequestDeadline requestDeadline = new RequestDeadline(true, System.nanoTime() + timeRemaining.toNanos());
+        CURRENT.set(requestDeadline);
+        return requestDeadline;
+    }
+
+    /**
+     * Return a deadline which never passes, for requests handled without a deadline.
+     *
+     * @return unbounded deadline, stopping it has no effect
+     */
+    public static RequestDeadline unbounded() {
+        return NONE;
+    }
+
+    /**
+     * Return the deadline of the request being handled on the current thread.
+     *
+     * @return the current request's deadline, or a deadline which never passes if no deadline was started
+     */
+    public static RequestDeadline current() {
+        final RequestDeadline requestDeadline = CURRENT.get();
+        return requestDeadline == null ? NONE : requestDeadline;
+    }
+
+    /**
+     * Stop the deadline of the request on the current thread.
+     */
+    public void stop() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Return whether the deadline can pass, so a read may stop early and return a partial result.
+     *
+     * @return true if the deadline was started for a request, false if it never passes
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Return whether the deadline has passed, so the request should stop reading and respond with what it has.
+     *
+     * @return true if the deadline has passed
+     */
+    public boolean hasPassed() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+}
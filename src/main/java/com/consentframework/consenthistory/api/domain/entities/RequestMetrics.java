@@ -0,0 +1,192 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+/**
+ * Metrics buffered for the request being handled on the current thread, published once the request completes.
+ *
+ * A request's metrics are started by the API service and recorded into by the layers handling the request through
+ * {@link #current()}, so recording is a field update rather than a call to the metrics backend.  Outside of a started
+ * request, {@link #current()} returns an instance which discards everything recorded into it.
+ */
+public final class RequestMetrics {
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+    private static final RequestMetrics DISCARDED = new RequestMetrics(false);
+
+    private final boolean recording;
+    private long repositoryNanos;
+    private long serializationNanos;
+    private long dynamoDbReadNanos;
+    private long dynamoDbPageCount;
+    private long dynamoDbItemCount;
+    private double consumedReadCapacityUnits;
+    private boolean partialResult;
+
+    private RequestMetrics(final boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Start buffering metrics for a request handled on the current thread.
+     *
+     * @return the request's metrics, also returned by {@link #current()} until {@link #stop()} is called
+     */
+    public static RequestMetrics start() {
+        final RequestMetrics requestMetrics = new RequestMetrics(true);
+        CURRENT.set(requestMetrics);
+        return requestMetrics;
+    }
+
+    /**
+     * Return the metrics of the request being handled on the current thread.
+     *
+     * @return the current request's metrics, or an instance discarding recorded metrics if no request was started
+     */
+    public static RequestMetrics current() {
+        final RequestMetrics requestMetrics = CURRENT.get();
+        return requestMetrics == null ? DISCARDED : requestMetrics;
+    }
+
+    /**
+     * Stop buffering metrics on the current thread, the recorded values remain readable.
+     */
+    public void stop() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Record time spent reading from the repository, including mapping its results.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void addRepositoryNanos(final long nanos) {
+        if (recording) {
+            repositoryNanos += nanos;
+        }
+    }
+
+    /**
+     * Record time spent serializing the response body.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void addSerializationNanos(final long nanos) {
+        if (recording) {
+            serializationNanos += nanos;
+        }
+    }
+
+    /**
+     * Record a page of DynamoDB query results.
+     *
+     * @param itemCount number of items on the page
+     * @param capacityUnits read capacity units consumed by the page, or null if not returned
+     * @param readNanos time spent waiting for the page in nanoseconds
+     */
+    public void addDynamoDbPage(final int itemCount, final Double capacityUnits, final long readNanos) {
+        if (recording) {
+            dynamoDbPageCount++;
+            dynamoDbItemCount += itemCount;
+            dynamoDbReadNanos += readNanos;
+            if (capacityUnits != null) {
+                consumedReadCapacityUnits += capacityUnits;
+            }
+        }
+    }
+
+    /**
+     * Record the DynamoDB pages, items, and read capacity recorded by a part of the request handled on another thread.
+     *
+     * Read time is not added, since reads made concurrently overlap, the caller records the time it waited for them instead.
+     *
+     * @param concurrentMetrics metrics recorded on the other thread
+     */
+    public void addDynamoDbPages(final RequestMetrics concurrentMetrics) {
+        if (recording) {
+            dynamoDbPageCount += concurrentMetrics.dynamoDbPageCount;
+            dynamoDbItemCount += concurrentMetrics.dynamoDbItemCount;
+            consumedReadCapacityUnits += concurrentMetrics.consumedReadCapacityUnits;
+        }
+    }
+
+    /**
+     * Record that the request's deadline cut a read short, so the response holds a partial result to be continued.
+     */
+    public void recordPartialResult() {
+        if (recording) {
+            partialResult = true;
+        }
+    }
+
+    /**
+     * Return time spent reading from the repository.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long repositoryNanos() {
+        return repositoryNanos;
+    }
+
+    /**
+     * Return time spent serializing the response body.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long serializationNanos() {
+        return serializationNanos;
+    }
+
+    /**
+     * Return time spent waiting for DynamoDB query result pages.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long dynamoDbReadNanos() {
+        return dynamoDbReadNanos;
+    }
+
+    /**
+     * Return time spent in the repository other than waiting for DynamoDB, ie. mapping query results into consent history.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long mappingNanos() {
+        return Math.max(0, repositoryNanos - dynamoDbReadNanos);
+    }
+
+    /**
+     * Return the number of DynamoDB query result pages read.
+     *
+     * @return page count
+     */
+    public long dynamoDbPageCount() {
+        return dynamoDbPageCount;
+    }
+
+    /**
+     * Return the number of items read from DynamoDB.
+     *
+     * @return item count
+     */
+    public long dynamoDbItemCount() {
+        return dynamoDbItemCount;
+    }
+
+    /**
+     * Return DynamoDB read capacity units consumed.
+     *
+     * @return capacity units
+     */
+    public double consumedReadCapacityUnits() {
+        return consumedReadCapacityUnits;
+    }
+
+    /**
+     * Return whether the response holds a partial result, cut short by the request's deadline.
+     *
+     * @return true if a read was cut short
+     */
+    public boolean partialResult() {
+        return partialResult;
+    }
+}
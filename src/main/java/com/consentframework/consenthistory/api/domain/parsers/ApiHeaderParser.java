@@ -0,0 +1,29 @@
+package com.consentframework.consenthistory.api.domain.parsers;
+
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+
+import java.util.Map;
+
+/**
+ * Utility class for parsing optional headers from API requests.
+ */
+public final class ApiHeaderParser {
+    /**
+     * Parse an optional header, matching the header name case-insensitively.
+     *
+     * @param request API request
+     * @param headerName header name
+     * @return header value, or null if not present
+     */
+    public static String parseHeader(final ApiRequest request, final String headerName) {
+        if (request == null || request.headers() == null) {
+            return null;
+        }
+        return request.headers().entrySet()
+            .stream()
+            .filter(header -> headerName.equalsIgnoreCase(header.getKey()))
+            .map(Map.Entry::getValue)
+            .findFirst()
+            .orElse(null);
+    }
+}
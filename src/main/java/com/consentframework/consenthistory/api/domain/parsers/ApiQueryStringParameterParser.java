@@ -0,0 +1,150 @@
+package com.consentframework.consenthistory.api.domain.parsers;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for parsing optional query string parameters from API requests.
+ */
+public final class ApiQueryStringParameterParser {
+    public static final String INVALID_INTEGER_PARAMETER_MESSAGE = "Query parameter %s must be a positive integer, received '%s'";
+    public static final String INVALID_DATE_TIME_PARAMETER_MESSAGE = "Query parameter %s must be an ISO-8601 date-time, received '%s'";
+    public static final String INVALID_VIEW_PARAMETER_MESSAGE = "Query parameter %s must be one of %s, received '%s'";
+    public static final String MISSING_PARAMETER_MESSAGE = "Query parameter %s is required";
+
+    /**
+     * Parse an optional string query string parameter.
+     *
+     * @param request API request
+     * @param parameterName query string parameter name
+     * @return parameter value, or null if not present
+     */
+    public static String parseStringQueryStringParameter(final ApiRequest request, final String parameterName) {
+        if (request == null) {
+            return null;
+        }
+        final Map<String, ?> queryStringParameters = request.queryStringParameters();
+        if (queryStringParameters == null) {
+            return null;
+        }
+        final Object parameterValue = queryStringParameters.get(parameterName);
+        if (parameterValue == null || parameterValue.toString().isBlank()) {
+            return null;
+        }
+        return parameterValue.toString();
+    }
+
+    /**
+     * Parse an optional positive integer query string parameter.
+     *
+     * @param request API request
+     * @param parameterName query string parameter name
+     * @return parameter value, or null if not present
+     * @throws BadRequestException if the parameter is present but not a positive integer
+     */
+    public static Integer parsePositiveIntQueryStringParameter(final ApiRequest request, final String parameterName)
+            throws BadRequestException {
+        final String parameterValue = parseStringQueryStringParameter(request, parameterName);
+        if (parameterValue == null) {
+            return null;
+        }
+
+        final int parsedValue;
+        try {
+            parsedValue = Integer.parseInt(parameterValue.trim());
+        } catch (final NumberFormatException numberFormatException) {
+            throw new BadRequestException(String.format(INVALID_INTEGER_PARAMETER_MESSAGE, parameterName, parameterValue));
+        }
+        if (parsedValue <= 0) {
+            throw new BadRequestException(String.format(INVALID_INTEGER_PARAMETER_MESSAGE, parameterName, parameterValue));
+        }
+        return parsedValue;
+    }
+
+    /**
+     * Parse an optional ISO-8601 date-time query string parameter, eg. 2024-01-01T00:00:00Z.
+     *
+     * @param request API request
+     * @param parameterName query string parameter name
+     * @return parameter value, or null if not present
+     * @throws BadRequestException if the parameter is present but not an ISO-8601 date-time with offset
+     */
+    public static OffsetDateTime parseOffsetDateTimeQueryStringParameter(final ApiRequest request, final String parameterName)
+            throws BadRequestException {
+        final String parameterValue = parseStringQueryStringParameter(request, parameterName);
+        if (parameterValue == null) {
+            return null;
+        }
+
+        try {
+            return OffsetDateTime.parse(parameterValue.trim());
+        } catch (final DateTimeParseException dateTimeParseException) {
+            throw new BadRequestException(String.format(INVALID_DATE_TIME_PARAMETER_MESSAGE, parameterName, parameterValue));
+        }
+    }
+
+    /**
+     * Parse the optional since and until query string parameters into an event time window.
+     *
+     * @param request API request
+     * @return event time window, unbounded if neither parameter is present
+     * @throws BadRequestException if either parameter is invalid, or since is after until
+     */
+    public static EventTimeWindow parseEventTimeWindow(final ApiRequest request) throws BadRequestException {
+        final OffsetDateTime since = parseOffsetDateTimeQueryStringParameter(request, ApiQueryStringParameterName.SINCE.getValue());
+        final OffsetDateTime until = parseOffsetDateTimeQueryStringParameter(request, ApiQueryStringParameterName.UNTIL.getValue());
+        return EventTimeWindow.of(since, until);
+    }
+
+    /**
+     * Parse the optional view query string parameter.
+     *
+     * @param request API request
+     * @return requested view, or the full view if the parameter is not present
+     * @throws BadRequestException if the parameter is present but not a supported view
+     */
+    public static ConsentHistoryView parseView(final ApiRequest request) throws BadRequestException {
+        final String parameterName = ApiQueryStringParameterName.VIEW.getValue();
+        final String parameterValue = parseStringQueryStringParameter(request, parameterName);
+        if (parameterValue == null) {
+            return ConsentHistoryView.FULL;
+        }
+
+        return ConsentHistoryView.fromValue(parameterValue.trim())
+            .orElseThrow(() -> new BadRequestException(String.format(INVALID_VIEW_PARAMETER_MESSAGE, parameterName,
+                Arrays.stream(ConsentHistoryView.values()).map(ConsentHistoryView::getValue).collect(Collectors.joining(", ")),
+                parameterValue)));
+    }
+
+    /**
+     * Parse the required after query string parameter into a change feed watermark.
+     *
+     * Values containing a colon are parsed as ISO-8601 date-times, other values are passed on as opaque positions
+     * returned with a previous change feed page, and validated by the repository.
+     *
+     * @param request API request
+     * @return change feed watermark
+     * @throws BadRequestException if the parameter is not present, or is an invalid ISO-8601 date-time
+     */
+    public static ChangeFeedWatermark parseChangeFeedWatermark(final ApiRequest request) throws BadRequestException {
+        final String parameterName = ApiQueryStringParameterName.AFTER.getValue();
+        final String parameterValue = parseStringQueryStringParameter(request, parameterName);
+        if (parameterValue == null) {
+            throw new BadRequestException(String.format(MISSING_PARAMETER_MESSAGE, parameterName));
+        }
+        if (parameterValue.indexOf(':') < 0) {
+            return ChangeFeedWatermark.ofPosition(parameterValue.trim());
+        }
+        return ChangeFeedWatermark.ofEventTime(parameterValue, parseOffsetDateTimeQueryStringParameter(request, parameterName));
+    }
+}
@@ -0,0 +1,26 @@
+package com.consentframework.consenthistory.api.domain.repositories;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+
+/**
+ * Bounds how many consent change events a page of history holds, eg. by the size of the response they are written to.
+ *
+ * Change events are offered to the budget in the order they are read, and a read stops before the first event the budget
+ * does not accept, continuing from that event on the following page.  The first event offered is kept even if the budget
+ * does not accept it, so every page makes progress.
+ */
+@FunctionalInterface
+public interface ConsentChangeEventBudget {
+    /**
+     * Budget accepting every change event, so reads end only at their limit.
+     */
+    ConsentChangeEventBudget UNLIMITED = consentChangeEvent -> true;
+
+    /**
+     * Add the next change event read to the budget, if it fits.
+     *
+     * @param consentChangeEvent change event read
+     * @return true if the change event was added, false if the read should stop before it
+     */
+    boolean tryAdd(ConsentChangeEvent consentChangeEvent);
+}
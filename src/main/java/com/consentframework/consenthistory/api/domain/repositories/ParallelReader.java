@@ -0,0 +1,23 @@
+package com.consentframework.consenthistory.api.domain.repositories;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs independent repository reads in parallel, eg. one query per consent, and collects their results.
+ */
+public interface ParallelReader {
+    /**
+     * Read each input in parallel and return the results in the order of the inputs.
+     *
+     * Metrics recorded by each read are added to the calling thread's request metrics.  A runtime exception thrown by a
+     * read is rethrown to the caller once the reads in flight complete.
+     *
+     * @param inputs inputs to read, eg. consent keys
+     * @param read blocking read of a single input, run on its own thread
+     * @param <T> input type
+     * @param <R> result type
+     * @return result of each read, in the order of the inputs
+     */
+    <T, R> List<R> readAll(List<T> inputs, Function<T, R> read);
+}
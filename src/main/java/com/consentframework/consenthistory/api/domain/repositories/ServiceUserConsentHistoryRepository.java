@@ -1,10 +1,18 @@
 package com.consentframework.consenthistory.api.domain.repositories;
 
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Defines supported integrations with service user consent history records.
@@ -12,6 +20,8 @@ import java.util.List;
 public interface ServiceUserConsentHistoryRepository {
     public static final String CONSENT_NOT_FOUND_MESSAGE = "No consent history found for serviceId: %s, userId: %s, consentId: %s";
     public static final String SERVICE_USER_CONSENTS_NOT_FOUND = "No consent history found for serviceId: %s, userId: %s";
+    public static final String INVALID_PAGE_TOKEN_MESSAGE = "Invalid pageToken: %s";
+    public static final String INVALID_WATERMARK_MESSAGE = "Invalid after watermark: %s";
 
     /**
      * Retrieve history for a given service user consent.
@@ -22,8 +32,88 @@ public interface ServiceUserConsentHistoryRepository {
      * @return list of consent change events for the consent
      * @throws ResourceNotFoundException if no history is found for the consent
      */
-    List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId)
-        throws ResourceNotFoundException;
+    default List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId)
+            throws ResourceNotFoundException {
+        return getConsentHistory(serviceId, userId, consentId, EventTimeWindow.UNBOUNDED);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @return list of consent change events for the consent, sorted ascending by event time
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+        final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException;
+
+    /**
+     * Retrieve history for a given service user consent within an event time window, in the requested view.
+     *
+     * Implementations backed by a data store should avoid reading fields outside the view, the default reads the full history.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return list of consent change events for the consent, sorted ascending by event time
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    default List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+        return view.project(getConsentHistory(serviceId, userId, consentId, eventTimeWindow));
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view, continuing from
+     * a page token returned with a previous partial result.
+     *
+     * Implementations backed by a data store may stop reading once the current request's deadline has passed, returning
+     * the change events read so far with a token to continue from.  The default reads the full history in one result.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return consent change events sorted ascending by event time, with a token to continue from if the result is partial
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    default ListPage<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, ResourceNotFoundException {
+        if (pageToken != null) {
+            throw new BadRequestException(String.format(INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+        return new ListPage<>(getConsentHistory(serviceId, userId, consentId, eventTimeWindow, view), Optional.empty());
+    }
+
+    /**
+     * Retrieve the latest change event for a given service user consent within an event time window.
+     *
+     * Implementations backed by a data store should read only the latest event, the default reads the full history.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     * @return latest consent change event within the event time window, or empty if there is none
+     */
+    default Optional<ConsentChangeEvent> getLatestConsentChangeEvent(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        try {
+            final List<ConsentChangeEvent> consentHistory = getConsentHistory(serviceId, userId, consentId, eventTimeWindow);
+            return consentHistory.isEmpty() ? Optional.empty() : Optional.of(consentHistory.get(consentHistory.size() - 1));
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            return Optional.empty();
+        }
+    }
 
     /**
      * Retrieve history for a given service user.
@@ -33,6 +123,71 @@ public interface ServiceUserConsentHistoryRepository {
      * @return list of consent histories for the service user, each having a consent ID and its change events
      * @throws ResourceNotFoundException if no history is found for the service user
      */
-    List<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId)
-        throws ResourceNotFoundException;
+    default List<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId) throws ResourceNotFoundException {
+        try {
+            return getServiceUserHistory(serviceId, userId, ServiceUserHistoryQuery.FULL_HISTORY).resultsOnPage();
+        } catch (final BadRequestException badRequestException) {
+            // A full history query has no page token to reject
+            throw new IllegalStateException(badRequestException);
+        }
+    }
+
+    /**
+     * Retrieve history for a given service user, in full or a single page of it, as the query requests.
+     *
+     * Pages are bounded by number of consent change events, so the history of a single consent may be split across
+     * consecutive pages.  Implementations backed by a data store should avoid reading fields outside the query's view.
+     * Implementations which can continue from within a page of the data store end the result at the last change event
+     * the query's budget accepts, others may ignore the budget.  Either way every returned change event belongs on the page.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @return consent histories for the service user, with a token for the next page if more results exist
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the service user within the event time window
+     */
+    ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId, final ServiceUserHistoryQuery query)
+        throws BadRequestException, ResourceNotFoundException;
+
+    /**
+     * Retrieve the change events of a given service user after a watermark, with the watermark to continue from.
+     *
+     * Unlike the service user's history, a service user without change events after the watermark is not an error,
+     * the page is empty and its next watermark is the requested one.
+     *
+     * An event time watermark returns the change events at or after its time, so events sharing the time of a watermark
+     * are not skipped.  Implementations backed by a data store should read only the change events after the watermark, a
+     * page at a time, and may return opaque position watermarks.  The default only supports event time watermarks, reading
+     * the full history and returning every change event at or after the watermark in one page, with the instant after
+     * the last event's time as the next watermark.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for the data store's default page size
+     * @return page of change events after the watermark, in event time order, with the watermark to continue from
+     * @throws BadRequestException if the watermark is an invalid position
+     */
+    default ChangeFeedPage getServiceUserChanges(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        if (!after.isEventTime()) {
+            throw new BadRequestException(String.format(INVALID_WATERMARK_MESSAGE, after.value()));
+        }
+
+        List<ConsentChangeEvent> changes;
+        try {
+            changes = getServiceUserHistory(serviceId, userId).stream()
+                .flatMap(consentHistory -> consentHistory.getHistory().stream())
+                .filter(consentChangeEvent -> !consentChangeEvent.getEventTime().isBefore(after.eventTime()))
+                .sorted(Comparator.comparing(ConsentChangeEvent::getEventTime))
+                .toList();
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            changes = List.of();
+        }
+        final String nextWatermark = changes.isEmpty()
+            ? after.value()
+            : changes.get(changes.size() - 1).getEventTime().plusNanos(1).toString();
+        return new ChangeFeedPage(changes, nextWatermark, false);
+    }
 }
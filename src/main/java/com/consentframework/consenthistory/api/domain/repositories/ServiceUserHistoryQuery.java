@@ -0,0 +1,109 @@
+package com.consentframework.consenthistory.api.domain.repositories;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+
+/**
+ * Parameters of a read of a service user's history.
+ *
+ * A query without a limit or page token reads the service user's full history in one result, otherwise it reads a single
+ * page, continuing from the page token.  Either way the result ends early at the last change event the budget accepts,
+ * with a token to continue from the change event after it.
+ *
+ * @param limit maximum number of consent change events on the page, or null for the data store's default page size
+ * @param pageToken token returned with a previous result, or null to read from the start of the history
+ * @param eventTimeWindow range of event times to retrieve
+ * @param view consent history representation to retrieve
+ * @param budget budget offered each change event read, in the order read
+ */
+public record ServiceUserHistoryQuery(Integer limit, String pageToken, EventTimeWindow eventTimeWindow, ConsentHistoryView view,
+        ConsentChangeEventBudget budget) {
+    public static final ServiceUserHistoryQuery FULL_HISTORY = new ServiceUserHistoryQuery(null, null, EventTimeWindow.UNBOUNDED,
+        ConsentHistoryView.FULL, ConsentChangeEventBudget.UNLIMITED);
+
+    /**
+     * Return whether the query reads a single page rather than the full history.
+     *
+     * @return true if the query has a limit or a page token
+     */
+    public boolean isPaged() {
+        return limit != null || pageToken != null;
+    }
+
+    /**
+     * Return whether the query's result may end early at its budget.
+     *
+     * @return true unless the budget is unlimited
+     */
+    public boolean isBudgeted() {
+        return budget != ConsentChangeEventBudget.UNLIMITED;
+    }
+
+    /**
+     * Return whether the query reads the service user's full history in the full view, with no window or budget.
+     *
+     * @return true if the query's result is every consent history of the service user
+     */
+    public boolean isFullHistory() {
+        return !isPaged() && eventTimeWindow.isUnbounded() && view == ConsentHistoryView.FULL && !isBudgeted();
+    }
+
+    /**
+     * Return the query with its event time window normalized, so queries for the same instants are equal.
+     *
+     * @return normalized query
+     */
+    public ServiceUserHistoryQuery normalized() {
+        return withEventTimeWindow(eventTimeWindow.normalized());
+    }
+
+    /**
+     * Return this query with a different limit.
+     *
+     * @param limit maximum number of consent change events on the page, or null for the data store's default page size
+     * @return updated query
+     */
+    public ServiceUserHistoryQuery withLimit(final Integer limit) {
+        return new ServiceUserHistoryQuery(limit, pageToken, eventTimeWindow, view, budget);
+    }
+
+    /**
+     * Return this query with a different page token.
+     *
+     * @param pageToken token returned with a previous result, or null to read from the start of the history
+     * @return updated query
+     */
+    public ServiceUserHistoryQuery withPageToken(final String pageToken) {
+        return new ServiceUserHistoryQuery(limit, pageToken, eventTimeWindow, view, budget);
+    }
+
+    /**
+     * Return this query with a different event time window.
+     *
+     * @param eventTimeWindow range of event times to retrieve
+     * @return updated query
+     */
+    public ServiceUserHistoryQuery withEventTimeWindow(final EventTimeWindow eventTimeWindow) {
+        return new ServiceUserHistoryQuery(limit, pageToken, eventTimeWindow, view, budget);
+    }
+
+    /**
+     * Return this query with a different view.
+     *
+     * @param view consent history representation to retrieve
+     * @return updated query
+     */
+    public ServiceUserHistoryQuery withView(final ConsentHistoryView view) {
+        return new ServiceUserHistoryQuery(limit, pageToken, eventTimeWindow, view, budget);
+    }
+
+    /**
+     * Return this query with a different budget.
+     *
+     * @param budget budget offered each change event read, in the order read
+     * @return updated query
+     */
+    public ServiceUserHistoryQuery withBudget(final ConsentChangeEventBudget budget) {
+        return new ServiceUserHistoryQuery(limit, pageToken, eventTimeWindow, view, budget);
+    }
+}
@@ -0,0 +1,100 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Bloom filter backed service user existence filter, serializable to and loadable from a snapshot.
+ *
+ * A snapshot only knows about service users written before it was built, so it must be rebuilt whenever
+ * a new service user's first consent change event is written, otherwise that service user is reported as not found.
+ */
+public final class BloomFilterServiceUserExistenceFilter implements ServiceUserExistenceFilter {
+    private static final Funnel<CharSequence> SERVICE_USER_ID_FUNNEL = Funnels.stringFunnel(StandardCharsets.UTF_8);
+
+    private final BloomFilter<CharSequence> bloomFilter;
+
+    private BloomFilterServiceUserExistenceFilter(final BloomFilter<CharSequence> bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
+    /**
+     * Create an empty existence filter sized for the expected number of service users.
+     *
+     * @param expectedServiceUsers expected number of service users to be added
+     * @param falsePositiveProbability desired false positive probability once the expected number of service users are added
+     * @return empty existence filter
+     */
+    public static BloomFilterServiceUserExistenceFilter create(final long expectedServiceUsers, final double falsePositiveProbability) {
+        return new BloomFilterServiceUserExistenceFilter(
+            BloomFilter.create(SERVICE_USER_ID_FUNNEL, expectedServiceUsers, falsePositiveProbability));
+    }
+
+    /**
+     * Load an existence filter from a snapshot previously written by writeTo.
+     *
+     * @param snapshotPath path of the snapshot file
+     * @return existence filter
+     * @throws IOException if the snapshot cannot be read or is malformed
+     */
+    public static BloomFilterServiceUserExistenceFilter readFrom(final Path snapshotPath) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(snapshotPath)) {
+            return readFrom(inputStream);
+        }
+    }
+
+    /**
+     * Load an existence filter from a snapshot previously written by writeTo.
+     *
+     * @param inputStream stream of the snapshot, not closed by this method
+     * @return existence filter
+     * @throws IOException if the snapshot cannot be read or is malformed
+     */
+    public static BloomFilterServiceUserExistenceFilter readFrom(final InputStream inputStream) throws IOException {
+        return new BloomFilterServiceUserExistenceFilter(BloomFilter.readFrom(inputStream, SERVICE_USER_ID_FUNNEL));
+    }
+
+    /**
+     * Write a snapshot of the existence filter.
+     *
+     * @param outputStream stream to write the snapshot to, not closed by this method
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        bloomFilter.writeTo(outputStream);
+    }
+
+    /**
+     * Record that a service user has consent history.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     */
+    public void add(final String serviceId, final String userId) {
+        bloomFilter.put(toServiceUserId(serviceId, userId));
+    }
+
+    /**
+     * Check whether a service user might have consent history.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @return false if the service user definitely has no consent history, true otherwise
+     */
+    @Override
+    public boolean mightHaveHistory(final String serviceId, final String userId) {
+        return bloomFilter.mightContain(toServiceUserId(serviceId, userId));
+    }
+
+    private static String toServiceUserId(final String serviceId, final String userId) {
+        return String.format("%s|%s", serviceId, userId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration for the in-container consent history cache.
+ *
+ * @param enabled whether consent history reads are cached
+ * @param timeToLive how long a cached result is served before it is re-read from the repository
+ * @param maximumSizeBytes approximate heap budget for cached results, least recently used results are evicted beyond it
+ */
+public record ConsentHistoryCacheConfiguration(boolean enabled, Duration timeToLive, long maximumSizeBytes) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_CACHE_ENABLED";
+    public static final String TTL_SECONDS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_CACHE_TTL_SECONDS";
+    public static final String MAXIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_CACHE_MAX_BYTES";
+    public static final String INVALID_CONFIGURATION_MESSAGE = EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE;
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(30);
+    public static final long DEFAULT_MAXIMUM_SIZE_BYTES = 32L * 1024 * 1024;
+    public static final ConsentHistoryCacheConfiguration DISABLED = new ConsentHistoryCacheConfiguration(
+        false, DEFAULT_TIME_TO_LIVE, DEFAULT_MAXIMUM_SIZE_BYTES);
+
+    /**
+     * Parse the cache configuration from environment variables, caching is disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return cache configuration
+     * @throws IllegalArgumentException if the TTL or maximum size is not a positive integer
+     */
+    public static ConsentHistoryCacheConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final Duration timeToLive = Duration.ofSeconds(EnvironmentVariableParser.parsePositiveLong(environment,
+            TTL_SECONDS_ENVIRONMENT_VARIABLE, DEFAULT_TIME_TO_LIVE.toSeconds()));
+        final long maximumSizeBytes = EnvironmentVariableParser.parsePositiveLong(environment, MAXIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAXIMUM_SIZE_BYTES);
+        return new ConsentHistoryCacheConfiguration(true, timeToLive, maximumSizeBytes);
+    }
+}
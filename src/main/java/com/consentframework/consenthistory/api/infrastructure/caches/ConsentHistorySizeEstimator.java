@@ -0,0 +1,87 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.models.Consent;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the retained heap size of consent history results, used to bound the consent history cache in bytes.
+ *
+ * Estimates assume compact (Latin-1) strings and a 64-bit JVM with compressed oops, they are intended to be
+ * proportional to the true retained size rather than exact.
+ */
+public final class ConsentHistorySizeEstimator {
+    static final long OBJECT_OVERHEAD_BYTES = 16;
+    static final long REFERENCE_BYTES = 4;
+    static final long STRING_OVERHEAD_BYTES = 40;
+    static final long DATE_TIME_BYTES = 72;
+    static final long MAP_ENTRY_OVERHEAD_BYTES = 32;
+
+    /**
+     * Estimate the retained size of a consent history repository result.
+     *
+     * @param result list of consent change events, list of consent histories, or page of consent histories
+     * @return estimated size in bytes
+     */
+    public static long estimateSizeBytes(final Object result) {
+        if (result instanceof ListPage<?> page) {
+            return OBJECT_OVERHEAD_BYTES + estimateSizeBytes(page.resultsOnPage())
+                + estimateStringSizeBytes(page.nextPageToken().orElse(null));
+        }
+        if (result instanceof List<?> list) {
+            long sizeBytes = OBJECT_OVERHEAD_BYTES + list.size() * REFERENCE_BYTES;
+            for (final Object element : list) {
+                sizeBytes += estimateSizeBytes(element);
+            }
+            return sizeBytes;
+        }
+        if (result instanceof ConsentHistory consentHistory) {
+            return OBJECT_OVERHEAD_BYTES + estimateStringSizeBytes(consentHistory.getConsentId())
+                + estimateSizeBytes(consentHistory.getHistory());
+        }
+        if (result instanceof ConsentChangeEvent consentChangeEvent) {
+            return OBJECT_OVERHEAD_BYTES
+                + estimateStringSizeBytes(consentChangeEvent.getConsentId())
+                + estimateStringSizeBytes(consentChangeEvent.getEventId())
+                + DATE_TIME_BYTES
+                + estimateConsentSizeBytes(consentChangeEvent.getOldImage())
+                + estimateConsentSizeBytes(consentChangeEvent.getNewImage());
+        }
+        return result == null ? 0 : OBJECT_OVERHEAD_BYTES;
+    }
+
+    private static long estimateConsentSizeBytes(final Consent consent) {
+        if (consent == null) {
+            return 0;
+        }
+        return OBJECT_OVERHEAD_BYTES
+            + estimateStringSizeBytes(consent.getServiceId())
+            + estimateStringSizeBytes(consent.getUserId())
+            + estimateStringSizeBytes(consent.getConsentId())
+            + estimateStringSizeBytes(consent.getConsentType())
+            + OBJECT_OVERHEAD_BYTES
+            + (consent.getExpiryTime() == null ? 0 : DATE_TIME_BYTES)
+            + estimateMapSizeBytes(consent.getConsentData());
+    }
+
+    private static long estimateMapSizeBytes(final Map<?, ?> map) {
+        if (map == null) {
+            return 0;
+        }
+        long sizeBytes = OBJECT_OVERHEAD_BYTES;
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            sizeBytes += MAP_ENTRY_OVERHEAD_BYTES
+                + estimateStringSizeBytes(String.valueOf(entry.getKey()))
+                + estimateStringSizeBytes(String.valueOf(entry.getValue()));
+        }
+        return sizeBytes;
+    }
+
+    private static long estimateStringSizeBytes(final String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+}
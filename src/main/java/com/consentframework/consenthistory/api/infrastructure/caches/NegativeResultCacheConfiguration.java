@@ -0,0 +1,52 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Configuration for the in-container cache of consent history not-found results.
+ *
+ * @param enabled whether not-found results are cached
+ * @param timeToLive how long a not-found result is served before the repository is queried again
+ * @param maximumSize maximum number of cached not-found results, least recently used results are evicted beyond it
+ * @param existenceFilterSnapshotPath optional path of a service user existence filter snapshot
+ */
+public record NegativeResultCacheConfiguration(boolean enabled, Duration timeToLive, long maximumSize,
+        Optional<Path> existenceFilterSnapshotPath) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_NEGATIVE_CACHE_ENABLED";
+    public static final String TTL_SECONDS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_NEGATIVE_CACHE_TTL_SECONDS";
+    public static final String MAXIMUM_SIZE_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_NEGATIVE_CACHE_MAX_ENTRIES";
+    public static final String EXISTENCE_FILTER_PATH_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_EXISTENCE_FILTER_PATH";
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(5);
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+    public static final NegativeResultCacheConfiguration DISABLED = new NegativeResultCacheConfiguration(
+        false, DEFAULT_TIME_TO_LIVE, DEFAULT_MAXIMUM_SIZE, Optional.empty());
+
+    /**
+     * Parse the negative result cache configuration from environment variables, caching is disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return negative result cache configuration
+     * @throws IllegalArgumentException if the TTL or maximum size is not a positive integer
+     */
+    public static NegativeResultCacheConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final Duration timeToLive = Duration.ofSeconds(EnvironmentVariableParser.parsePositiveLong(environment,
+            TTL_SECONDS_ENVIRONMENT_VARIABLE, DEFAULT_TIME_TO_LIVE.toSeconds()));
+        final long maximumSize = EnvironmentVariableParser.parsePositiveLong(environment, MAXIMUM_SIZE_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAXIMUM_SIZE);
+        final Optional<Path> existenceFilterSnapshotPath = Optional.ofNullable(environment.get(EXISTENCE_FILTER_PATH_ENVIRONMENT_VARIABLE))
+            .filter(path -> !path.isBlank())
+            .map(Path::of);
+        return new NegativeResultCacheConfiguration(true, timeToLive, maximumSize, existenceFilterSnapshotPath);
+    }
+}
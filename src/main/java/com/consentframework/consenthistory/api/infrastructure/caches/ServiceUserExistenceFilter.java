@@ -0,0 +1,17 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+/**
+ * Probabilistic membership check for service users having consent history.
+ *
+ * Implementations may report false positives but never false negatives for the service users they were built from.
+ */
+public interface ServiceUserExistenceFilter {
+    /**
+     * Check whether a service user might have consent history.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @return false if the service user definitely has no consent history, true otherwise
+     */
+    boolean mightHaveHistory(final String serviceId, final String userId);
+}
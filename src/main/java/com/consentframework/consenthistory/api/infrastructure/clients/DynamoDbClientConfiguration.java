@@ -0,0 +1,40 @@
+package com.consentframework.consenthistory.api.infrastructure.clients;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Configuration for constructing the DynamoDB client.
+ *
+ * @param httpClientType HTTP client implementation the DynamoDB client sends requests with
+ * @param region AWS region of the DynamoDB table, or empty to resolve it from the SDK's default region provider chain
+ */
+public record DynamoDbClientConfiguration(DynamoDbHttpClientType httpClientType, Optional<String> region) {
+    public static final String HTTP_CLIENT_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_DYNAMODB_HTTP_CLIENT";
+    public static final String REGION_ENVIRONMENT_VARIABLE = "AWS_REGION";
+    public static final String INVALID_HTTP_CLIENT_MESSAGE =
+        "Environment variable %s must be one of apache or url-connection, received '%s'";
+
+    public static final DynamoDbHttpClientType DEFAULT_HTTP_CLIENT_TYPE = DynamoDbHttpClientType.APACHE;
+
+    /**
+     * Parse the DynamoDB client configuration from environment variables, defaulting to the Apache HTTP client.
+     *
+     * Lambda sets AWS_REGION, so the region is read from it directly rather than through the SDK's region provider chain.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return DynamoDB client configuration
+     * @throws IllegalArgumentException if the HTTP client type is set but is not supported
+     */
+    public static DynamoDbClientConfiguration fromEnvironment(final Map<String, String> environment) {
+        final String httpClientValue = environment.get(HTTP_CLIENT_ENVIRONMENT_VARIABLE);
+        final DynamoDbHttpClientType httpClientType = httpClientValue == null || httpClientValue.isBlank()
+            ? DEFAULT_HTTP_CLIENT_TYPE
+            : DynamoDbHttpClientType.fromValue(httpClientValue.trim()).orElseThrow(() -> new IllegalArgumentException(
+                String.format(INVALID_HTTP_CLIENT_MESSAGE, HTTP_CLIENT_ENVIRONMENT_VARIABLE, httpClientValue)));
+
+        final String region = environment.get(REGION_ENVIRONMENT_VARIABLE);
+        return new DynamoDbClientConfiguration(httpClientType,
+            region == null || region.isBlank() ? Optional.empty() : Optional.of(region.trim()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.consentframework.consenthistory.api.infrastructure.clients;
+
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryTableSchema;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+/**
+ * Constructs the DynamoDB client and consent history table.
+ *
+ * The HTTP client is chosen explicitly rather than discovered from the classpath, and the table uses the hand-built
+ * consent history table schema, both of which avoid work at cold start.
+ */
+public final class DynamoDbClientFactory {
+    private static final Logger logger = LogManager.getLogger(DynamoDbClientFactory.class);
+
+    /**
+     * Construct the consent history table, backed by a new DynamoDB client.
+     *
+     * @param configuration DynamoDB client configuration
+     * @return consent history table
+     */
+    public static DynamoDbTable<DynamoDbConsentHistory> createConsentHistoryTable(final DynamoDbClientConfiguration configuration) {
+        logger.info("Creating DynamoDB client with {} HTTP client and region {}", configuration.httpClientType().getValue(),
+            configuration.region());
+        final DynamoDbClientBuilder dynamoDbClientBuilder = DynamoDbClient.builder()
+            .httpClient(createHttpClient(configuration.httpClientType()));
+        configuration.region().ifPresent(region -> dynamoDbClientBuilder.region(Region.of(region)));
+
+        final DynamoDbEnhancedClient dynamoDbEnhancedClient = DynamoDbEnhancedClient.builder()
+            .dynamoDbClient(dynamoDbClientBuilder.build())
+            .build();
+        return dynamoDbEnhancedClient.table(DynamoDbConsentHistory.TABLE_NAME, DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA);
+    }
+
+    static SdkHttpClient createHttpClient(final DynamoDbHttpClientType httpClientType) {
+        return switch (httpClientType) {
+            case URL_CONNECTION -> UrlConnectionHttpClient.create();
+            case APACHE -> ApacheHttpClient.create();
+        };
+    }
+}
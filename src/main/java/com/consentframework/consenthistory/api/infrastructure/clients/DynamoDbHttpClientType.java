@@ -0,0 +1,46 @@
+package com.consentframework.consenthistory.api.infrastructure.clients;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * HTTP client implementations the DynamoDB client can send requests with.
+ */
+public enum DynamoDbHttpClientType {
+    /**
+     * Apache HttpClient, the SDK's default, with connection pooling tuned for sustained throughput.
+     */
+    APACHE("apache"),
+
+    /**
+     * JDK HttpURLConnection based client, which loads fewer classes and initializes faster, lowering cold start latency.
+     */
+    URL_CONNECTION("url-connection");
+
+    private final String value;
+
+    private DynamoDbHttpClientType(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Return HTTP client type name, as configured in environment variables.
+     *
+     * @return HTTP client type name
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Return the HTTP client type with the given name, ignoring case.
+     *
+     * @param value HTTP client type name
+     * @return HTTP client type, or empty if there is no HTTP client type with the name
+     */
+    public static Optional<DynamoDbHttpClientType> fromValue(final String value) {
+        return Arrays.stream(values())
+            .filter(httpClientType -> httpClientType.value.equalsIgnoreCase(value))
+            .findFirst();
+    }
+}
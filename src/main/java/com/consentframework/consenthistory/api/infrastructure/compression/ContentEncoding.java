@@ -0,0 +1,50 @@
+package com.consentframework.consenthistory.api.infrastructure.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP content codings supported for compressing response bodies, in order of server preference.
+ */
+public enum ContentEncoding {
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String value;
+
+    private ContentEncoding(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Return content coding name, as used in Accept-Encoding and Content-Encoding headers.
+     *
+     * @return content coding name
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Compress the input bytes with this content coding.
+     *
+     * @param input bytes to compress
+     * @return compressed bytes
+     */
+    public byte[] encode(final byte[] input) {
+        final ByteArrayOutputStream compressedOutput = new ByteArrayOutputStream(input.length / 4);
+        try (OutputStream encodingOutput = this == GZIP
+                ? new GZIPOutputStream(compressedOutput)
+                : new DeflaterOutputStream(compressedOutput)) {
+            encodingOutput.write(input);
+        } catch (final IOException ioException) {
+            // Only thrown by the underlying output stream, which is in memory
+            throw new UncheckedIOException(ioException);
+        }
+        return compressedOutput.toByteArray();
+    }
+}
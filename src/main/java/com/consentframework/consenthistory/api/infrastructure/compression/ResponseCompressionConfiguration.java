@@ -0,0 +1,38 @@
+package com.consentframework.consenthistory.api.infrastructure.compression;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.util.Map;
+
+/**
+ * Configuration for compressing response bodies negotiated via the Accept-Encoding request header.
+ *
+ * @param enabled whether response bodies may be compressed
+ * @param minimumSizeBytes minimum UTF-8 encoded size of a response body before it is compressed
+ */
+public record ResponseCompressionConfiguration(boolean enabled, long minimumSizeBytes) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_RESPONSE_COMPRESSION_ENABLED";
+    public static final String MINIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_RESPONSE_COMPRESSION_MIN_BYTES";
+
+    public static final long DEFAULT_MINIMUM_SIZE_BYTES = 1024;
+    public static final ResponseCompressionConfiguration DISABLED = new ResponseCompressionConfiguration(
+        false, DEFAULT_MINIMUM_SIZE_BYTES);
+
+    /**
+     * Parse the response compression configuration from environment variables, compression is disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return response compression configuration
+     * @throws IllegalArgumentException if the minimum size is not a positive integer
+     */
+    public static ResponseCompressionConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final long minimumSizeBytes = EnvironmentVariableParser.parsePositiveLong(environment, MINIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE,
+            DEFAULT_MINIMUM_SIZE_BYTES);
+        return new ResponseCompressionConfiguration(true, minimumSizeBytes);
+    }
+}
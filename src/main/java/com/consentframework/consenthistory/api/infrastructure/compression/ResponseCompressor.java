@@ -0,0 +1,182 @@
+package com.consentframework.consenthistory.api.infrastructure.compression;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpHeaderName;
+import com.consentframework.consenthistory.api.domain.constants.ApiProxyResponseParameterName;
+import com.consentframework.consenthistory.api.domain.parsers.ApiHeaderParser;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compresses API response bodies with the content coding preferred by the request's Accept-Encoding header.
+ *
+ * Compressed bodies are returned base64 encoded with isBase64Encoded set, so API Gateway decodes them
+ * back into binary before returning them to the client.  Bodies under the configured minimum size are returned as-is,
+ * as are bodies which do not shrink when compressed.  A strong ETag of a compressed response is suffixed with its
+ * content coding, since the compressed bytes are a different representation from the uncompressed body.  For the same
+ * reason, 304 Not Modified responses vary by Accept-Encoding like the responses they revalidate.
+ */
+public class ResponseCompressor {
+    public static final String HEADERS_RESPONSE_PARAMETER_NAME = ApiProxyResponseParameterName.HEADERS.getValue();
+    public static final String IS_BASE64_ENCODED_RESPONSE_PARAMETER_NAME = ApiProxyResponseParameterName.IS_BASE64_ENCODED.getValue();
+    public static final String ACCEPT_ENCODING_HEADER_NAME = ApiHttpHeaderName.ACCEPT_ENCODING.getValue();
+    public static final String CONTENT_ENCODING_HEADER_NAME = ApiHttpHeaderName.CONTENT_ENCODING.getValue();
+    public static final String VARY_HEADER_NAME = ApiHttpHeaderName.VARY.getValue();
+    public static final String ETAG_HEADER_NAME = ApiHttpHeaderName.ETAG.getValue();
+
+    private static final int NOT_MODIFIED_STATUS_CODE = 304;
+    private static final String ANY_ENCODING = "*";
+    private static final String IDENTITY_ENCODING = "identity";
+    private static final String GZIP_ALIAS = "x-gzip";
+
+    private final ResponseCompressionConfiguration configuration;
+
+    /**
+     * Construct the response compressor.
+     *
+     * @param configuration response compression configuration
+     */
+    public ResponseCompressor(final ResponseCompressionConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Compress the response body if compression is enabled, the body is large enough, and the client accepts a supported coding.
+     *
+     * @param request API request, whose Accept-Encoding header is negotiated against
+     * @param response API response
+     * @return response with a compressed, base64 encoded body, or the input response if it is not compressed
+     */
+    public Map<String, Object> compress(final ApiRequest request, final Map<String, Object> response) {
+        if (!configuration.enabled() || request == null) {
+            return response;
+        }
+        if (Integer.valueOf(NOT_MODIFIED_STATUS_CODE).equals(response.get(ApiResponseParameterName.STATUS_CODE.getValue()))) {
+            // The validated representation's ETag depends on the negotiated coding, so caches must key revalidations by it too
+            return withHeader(response, VARY_HEADER_NAME, ACCEPT_ENCODING_HEADER_NAME);
+        }
+        if (!(response.get(ApiResponseParameterName.BODY.getValue()) instanceof String body)) {
+            return response;
+        }
+
+        final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bodyBytes.length < configuration.minimumSizeBytes()) {
+            return response;
+        }
+
+        // The body may be compressed for other clients, so caches must key responses by Accept-Encoding
+        final Map<String, Object> varyingResponse = withHeader(response, VARY_HEADER_NAME, ACCEPT_ENCODING_HEADER_NAME);
+        final Optional<ContentEncoding> contentEncoding = negotiate(ApiHeaderParser.parseHeader(request, ACCEPT_ENCODING_HEADER_NAME));
+        if (contentEncoding.isEmpty()) {
+            return varyingResponse;
+        }
+
+        final byte[] compressedBodyBytes = contentEncoding.get().encode(bodyBytes);
+        if (compressedBodyBytes.length >= bodyBytes.length) {
+            return varyingResponse;
+        }
+
+        Map<String, Object> compressedResponse = withHeader(varyingResponse, CONTENT_ENCODING_HEADER_NAME,
+            contentEncoding.get().getValue());
+        final String entityTag = getHeader(response, ETAG_HEADER_NAME);
+        if (entityTag != null && entityTag.endsWith("\"")) {
+            compressedResponse = withHeader(compressedResponse, ETAG_HEADER_NAME,
+                entityTag.substring(0, entityTag.length() - 1) + "-" + contentEncoding.get().getValue() + "\"");
+        }
+        compressedResponse.put(ApiResponseParameterName.BODY.getValue(), Base64.getEncoder().encodeToString(compressedBodyBytes));
+        compressedResponse.put(IS_BASE64_ENCODED_RESPONSE_PARAMETER_NAME, true);
+        return compressedResponse;
+    }
+
+    /**
+     * Select the supported content coding with the highest quality value in an Accept-Encoding header.
+     *
+     * Codings are acceptable if listed or matched by "*" with a non-zero quality value, ties are broken by server preference,
+     * and no coding is selected if the client prefers an explicitly listed identity coding.
+     *
+     * @param acceptEncoding Accept-Encoding header value, or null if absent
+     * @return preferred supported content coding, or empty if the body should not be compressed
+     */
+    static Optional<ContentEncoding> negotiate(final String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return Optional.empty();
+        }
+
+        final Map<String, Double> qualityByCoding = parseQualityValues(acceptEncoding);
+        final Double anyQuality = qualityByCoding.get(ANY_ENCODING);
+        ContentEncoding preferredEncoding = null;
+        double preferredQuality = 0;
+        for (final ContentEncoding contentEncoding : ContentEncoding.values()) {
+            final Double quality = qualityByCoding.getOrDefault(contentEncoding.getValue(), anyQuality);
+            if (quality != null && quality > preferredQuality) {
+                preferredEncoding = contentEncoding;
+                preferredQuality = quality;
+            }
+        }
+
+        final Double identityQuality = qualityByCoding.get(IDENTITY_ENCODING);
+        if (preferredEncoding == null || identityQuality != null && identityQuality > preferredQuality) {
+            return Optional.empty();
+        }
+        return Optional.of(preferredEncoding);
+    }
+
+    private static Map<String, Double> parseQualityValues(final String acceptEncoding) {
+        final Map<String, Double> qualityByCoding = new HashMap<>();
+        for (final String codingAndParameters : acceptEncoding.split(",")) {
+            final String[] parts = codingAndParameters.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (GZIP_ALIAS.equals(coding)) {
+                coding = ContentEncoding.GZIP.getValue();
+            }
+
+            final Double quality = parseQualityValue(parts);
+            if (!coding.isEmpty() && quality != null) {
+                qualityByCoding.put(coding, quality);
+            }
+        }
+        return qualityByCoding;
+    }
+
+    private static Double parseQualityValue(final String[] codingParts) {
+        for (int index = 1; index < codingParts.length; index++) {
+            final String parameter = codingParts[index].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    final double quality = Double.parseDouble(parameter.substring(2));
+                    return quality >= 0 && quality <= 1 ? quality : null;
+                } catch (final NumberFormatException numberFormatException) {
+                    // Ignore codings with malformed quality values
+                    return null;
+                }
+            }
+        }
+        return 1.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getHeader(final Map<String, Object> response, final String headerName) {
+        if (response.get(HEADERS_RESPONSE_PARAMETER_NAME) instanceof Map<?, ?> headers) {
+            return ((Map<String, String>) headers).get(headerName);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> withHeader(final Map<String, Object> response, final String headerName,
+            final String headerValue) {
+        final Map<String, Object> updatedResponse = new HashMap<>(response);
+        final Map<String, String> headers = response.get(HEADERS_RESPONSE_PARAMETER_NAME) instanceof Map<?, ?> existingHeaders
+            ? new HashMap<>((Map<String, String>) existingHeaders)
+            : new HashMap<>();
+        headers.put(headerName, headerValue);
+        updatedResponse.put(HEADERS_RESPONSE_PARAMETER_NAME, headers);
+        return updatedResponse;
+    }
+}
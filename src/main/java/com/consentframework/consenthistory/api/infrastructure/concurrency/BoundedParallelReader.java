@@ -0,0 +1,102 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.repositories.ParallelReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs repository reads on virtual threads with at most a maximum number in flight, so reading many inputs takes about as
+ * long as the slowest reads rather than the sum of them, without flooding the data store with queries.
+ *
+ * Each read records its metrics on its own thread, and they are merged into the caller's request metrics in input order,
+ * along with the time spent reading as repository time.
+ */
+public final class BoundedParallelReader implements ParallelReader {
+    private final int maxConcurrency;
+
+    /**
+     * Construct the reader.
+     *
+     * @param maxConcurrency maximum number of reads in flight for a single call
+     */
+    public BoundedParallelReader(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Read each input on a virtual thread, with at most the maximum concurrency in flight, and return the results in the
+     * order of the inputs.
+     *
+     * @param inputs inputs to read, eg. consent keys
+     * @param read blocking read of a single input, run on its own virtual thread
+     * @param <T> input type
+     * @param <R> result type
+     * @return result of each read, in the order of the inputs
+     * @throws IllegalStateException if interrupted while waiting for a read, or a read throws a checked exception
+     */
+    @Override
+    public <T, R> List<R> readAll(final List<T> inputs, final Function<T, R> read) {
+        final long startNanos = System.nanoTime();
+        final RequestMetrics requestMetrics = RequestMetrics.current();
+        final Semaphore permits = new Semaphore(maxConcurrency);
+        final List<Future<MeteredRead<R>>> reads = new ArrayList<>(inputs.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final T input : inputs) {
+                permits.acquireUninterruptibly();
+                reads.add(executor.submit(() -> {
+                    try {
+                        return readMetered(input, read);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            final List<R> results = new ArrayList<>(inputs.size());
+            for (final Future<MeteredRead<R>> pendingRead : reads) {
+                final MeteredRead<R> meteredRead = await(pendingRead);
+                requestMetrics.addDynamoDbPages(meteredRead.requestMetrics());
+                results.add(meteredRead.result());
+            }
+            return results;
+        } finally {
+            requestMetrics.addRepositoryNanos(System.nanoTime() - startNanos);
+        }
+    }
+
+    private static <T, R> MeteredRead<R> readMetered(final T input, final Function<T, R> read) {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            return new MeteredRead<>(read.apply(input), requestMetrics);
+        } finally {
+            requestMetrics.stop();
+        }
+    }
+
+    private static <R> MeteredRead<R> await(final Future<MeteredRead<R>> pendingRead) {
+        try {
+            return pendingRead.get();
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(interruptedException);
+        } catch (final ExecutionException executionException) {
+            if (executionException.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(executionException.getCause());
+        }
+    }
+
+    /**
+     * Result of a single read on a virtual thread, with the metrics recorded while reading it.
+     */
+    private record MeteredRead<R>(R result, RequestMetrics requestMetrics) {}
+}
@@ -0,0 +1,38 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.util.Map;
+
+/**
+ * Configuration for batch consent history requests, which read the histories of many consents in a single invocation.
+ *
+ * @param maximumKeys maximum number of consents a single batch request may read
+ * @param maxConcurrency maximum number of per-consent queries in flight for a single batch request
+ */
+public record ConsentHistoryBatchConfiguration(int maximumKeys, int maxConcurrency) {
+    public static final String MAXIMUM_KEYS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_BATCH_MAX_KEYS";
+    public static final String MAX_CONCURRENCY_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_BATCH_MAX_CONCURRENCY";
+    public static final String INVALID_CONFIGURATION_MESSAGE = EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE;
+
+    public static final int DEFAULT_MAXIMUM_KEYS = 100;
+    public static final int DEFAULT_MAX_CONCURRENCY = ServiceUserHistoryFanOutConfiguration.DEFAULT_MAX_CONCURRENCY;
+    public static final ConsentHistoryBatchConfiguration DEFAULT = new ConsentHistoryBatchConfiguration(DEFAULT_MAXIMUM_KEYS,
+        DEFAULT_MAX_CONCURRENCY);
+
+    /**
+     * Parse the batch configuration from environment variables, using the defaults for any which are not set.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return batch configuration
+     * @throws IllegalArgumentException if the maximum number of keys or maximum concurrency is not a positive integer
+     */
+    public static ConsentHistoryBatchConfiguration fromEnvironment(final Map<String, String> environment) {
+        final long maximumKeys = EnvironmentVariableParser.parsePositiveLong(environment, MAXIMUM_KEYS_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAXIMUM_KEYS);
+        final long maxConcurrency = EnvironmentVariableParser.parsePositiveLong(environment, MAX_CONCURRENCY_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAX_CONCURRENCY);
+        return new ConsentHistoryBatchConfiguration((int) Math.min(maximumKeys, Integer.MAX_VALUE),
+            (int) Math.min(maxConcurrency, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,38 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.util.Map;
+
+/**
+ * Configuration for fetching the next DynamoDB query result pages in the background while the current page is mapped.
+ *
+ * @param enabled whether multi-page query results are prefetched
+ * @param prefetchDepth maximum number of fetched pages buffered ahead of the page being mapped
+ */
+public record PagePrefetchConfiguration(boolean enabled, int prefetchDepth) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_PAGE_PREFETCH_ENABLED";
+    public static final String PREFETCH_DEPTH_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_PAGE_PREFETCH_DEPTH";
+    public static final String INVALID_CONFIGURATION_MESSAGE = EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE;
+
+    public static final int DEFAULT_PREFETCH_DEPTH = 1;
+    public static final PagePrefetchConfiguration DISABLED = new PagePrefetchConfiguration(false, DEFAULT_PREFETCH_DEPTH);
+
+    /**
+     * Parse the page prefetch configuration from environment variables, prefetching is disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return page prefetch configuration
+     * @throws IllegalArgumentException if the prefetch depth is not a positive integer
+     */
+    public static PagePrefetchConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final long prefetchDepth = EnvironmentVariableParser.parsePositiveLong(environment, PREFETCH_DEPTH_ENVIRONMENT_VARIABLE,
+            DEFAULT_PREFETCH_DEPTH);
+        return new PagePrefetchConfiguration(true, (int) Math.min(prefetchDepth, Integer.MAX_VALUE));
+    }
+}
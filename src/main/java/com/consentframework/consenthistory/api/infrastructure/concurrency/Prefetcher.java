@@ -0,0 +1,124 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a lazily produced stream ahead of its consumer on a virtual thread, so that producing the next elements, eg. fetching
+ * the next DynamoDB query result pages, overlaps with the consumer processing the current one.
+ */
+public final class Prefetcher {
+    private static final String PRODUCER_THREAD_NAME = "prefetcher";
+
+    private Prefetcher() {}
+
+    /**
+     * Wrap a lazily produced stream, reading its elements ahead of the consumer on a virtual thread.
+     *
+     * At most the prefetch depth of elements are buffered ahead of the consumer, besides the one being produced.
+     * An exception thrown producing an element is rethrown to the consumer in its place.  Closing the returned stream
+     * stops prefetching, so a consumer stopping early, eg. on an exception, should close it.
+     *
+     * @param source lazily produced stream of non-null elements, read and closed on the prefetching thread
+     * @param prefetchDepth maximum number of elements buffered ahead of the consumer
+     * @param <T> element type
+     * @return stream of the same elements in the same order
+     */
+    public static <T> Stream<T> prefetching(final Stream<T> source, final int prefetchDepth) {
+        final PrefetchingIterator<T> prefetchingIterator = new PrefetchingIterator<>(source, prefetchDepth);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(prefetchingIterator, Spliterator.ORDERED), false)
+            .onClose(prefetchingIterator::close);
+    }
+
+    private static final class PrefetchingIterator<T> implements Iterator<T> {
+        private static final Object END = new Object();
+
+        private final BlockingQueue<Object> prefetchedElements;
+        private final Thread producer;
+        private volatile boolean closed;
+        private Object nextElement;
+
+        private PrefetchingIterator(final Stream<T> source, final int prefetchDepth) {
+            this.prefetchedElements = new LinkedBlockingQueue<>(prefetchDepth);
+            this.producer = Thread.ofVirtual().name(PRODUCER_THREAD_NAME).start(() -> produce(source));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextElement == null) {
+                nextElement = takePrefetchedElement();
+            }
+            if (nextElement instanceof ProducerFailure producerFailure) {
+                producerFailure.rethrow();
+            }
+            return nextElement != END;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T element = (T) nextElement;
+            nextElement = null;
+            return element;
+        }
+
+        private void close() {
+            closed = true;
+            producer.interrupt();
+            // Unblock a producer which finished producing an element before being interrupted
+            prefetchedElements.clear();
+        }
+
+        private void produce(final Stream<T> source) {
+            try (source) {
+                final Iterator<T> sourceIterator = source.iterator();
+                while (!closed && sourceIterator.hasNext()) {
+                    prefetchedElements.put(sourceIterator.next());
+                }
+                prefetchedElements.put(END);
+            } catch (final InterruptedException interruptedException) {
+                // Only interrupted once the consumer closed the stream, so no element is awaited
+            } catch (final RuntimeException | Error exception) {
+                if (!closed) {
+                    putQuietly(new ProducerFailure(exception));
+                }
+            }
+        }
+
+        private void putQuietly(final ProducerFailure producerFailure) {
+            try {
+                prefetchedElements.put(producerFailure);
+            } catch (final InterruptedException interruptedException) {
+                // Only interrupted once the consumer closed the stream, so the failure is not awaited
+            }
+        }
+
+        private Object takePrefetchedElement() {
+            try {
+                return prefetchedElements.take();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException(interruptedException);
+            }
+        }
+    }
+
+    private record ProducerFailure(Throwable exception) {
+        private void rethrow() {
+            if (exception instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) exception;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import java.util.Map;
+
+/**
+ * Configuration for coalescing concurrent identical consent history queries into a single query.
+ *
+ * @param enabled whether concurrent identical queries share a single in-flight query
+ */
+public record QueryCoalescingConfiguration(boolean enabled) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_QUERY_COALESCING_ENABLED";
+
+    public static final QueryCoalescingConfiguration ENABLED = new QueryCoalescingConfiguration(true);
+    public static final QueryCoalescingConfiguration DISABLED = new QueryCoalescingConfiguration(false);
+
+    /**
+     * Parse the query coalescing configuration from environment variables, coalescing is disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return query coalescing configuration
+     */
+    public static QueryCoalescingConfiguration fromEnvironment(final Map<String, String> environment) {
+        return fromEnvironment(environment, DISABLED);
+    }
+
+    /**
+     * Parse the query coalescing configuration from environment variables, using the default if the variable is not set.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @param defaultConfiguration configuration if coalescing is neither enabled nor disabled by the environment
+     * @return query coalescing configuration
+     */
+    public static QueryCoalescingConfiguration fromEnvironment(final Map<String, String> environment,
+            final QueryCoalescingConfiguration defaultConfiguration) {
+        final String enabled = environment.get(ENABLED_ENVIRONMENT_VARIABLE);
+        if (enabled == null || enabled.isBlank()) {
+            return defaultConfiguration;
+        }
+        return Boolean.parseBoolean(enabled) ? ENABLED : DISABLED;
+    }
+}
@@ -0,0 +1,58 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration for reading a service user's full history as parallel per-consent queries once it has many consents.
+ *
+ * @param enabled whether service user history reads may fan out to per-consent queries
+ * @param consentCountThreshold minimum number of consents for which a service user's history is read by fanning out
+ * @param maxConcurrency maximum number of per-consent queries in flight for a single service user history read
+ * @param maximumIndexedServiceUsers maximum number of service users whose consent IDs are remembered, least recently read
+ *     service users are evicted beyond it
+ * @param indexTimeToLive how long consent IDs learned from a full history read are relied on before the history is read in full again
+ */
+public record ServiceUserHistoryFanOutConfiguration(boolean enabled, int consentCountThreshold, int maxConcurrency,
+        long maximumIndexedServiceUsers, Duration indexTimeToLive) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_FAN_OUT_ENABLED";
+    public static final String CONSENT_COUNT_THRESHOLD_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_FAN_OUT_CONSENT_THRESHOLD";
+    public static final String MAX_CONCURRENCY_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_FAN_OUT_MAX_CONCURRENCY";
+    public static final String MAXIMUM_INDEXED_SERVICE_USERS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_FAN_OUT_INDEX_MAX_SIZE";
+    public static final String INDEX_TTL_SECONDS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_FAN_OUT_INDEX_TTL_SECONDS";
+    public static final String INVALID_CONFIGURATION_MESSAGE = EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE;
+
+    public static final int DEFAULT_CONSENT_COUNT_THRESHOLD = 16;
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final long DEFAULT_MAXIMUM_INDEXED_SERVICE_USERS = 10_000;
+    public static final Duration DEFAULT_INDEX_TIME_TO_LIVE = Duration.ofMinutes(15);
+    public static final ServiceUserHistoryFanOutConfiguration DISABLED = new ServiceUserHistoryFanOutConfiguration(false,
+        DEFAULT_CONSENT_COUNT_THRESHOLD, DEFAULT_MAX_CONCURRENCY, DEFAULT_MAXIMUM_INDEXED_SERVICE_USERS, DEFAULT_INDEX_TIME_TO_LIVE);
+
+    /**
+     * Parse the fan-out configuration from environment variables, fanning out is disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return fan-out configuration
+     * @throws IllegalArgumentException if the threshold, maximum concurrency, index size, or index TTL is not a positive integer
+     */
+    public static ServiceUserHistoryFanOutConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final long consentCountThreshold = EnvironmentVariableParser.parsePositiveLong(environment,
+            CONSENT_COUNT_THRESHOLD_ENVIRONMENT_VARIABLE, DEFAULT_CONSENT_COUNT_THRESHOLD);
+        final long maxConcurrency = EnvironmentVariableParser.parsePositiveLong(environment, MAX_CONCURRENCY_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAX_CONCURRENCY);
+        final long maximumIndexedServiceUsers = EnvironmentVariableParser.parsePositiveLong(environment,
+            MAXIMUM_INDEXED_SERVICE_USERS_ENVIRONMENT_VARIABLE, DEFAULT_MAXIMUM_INDEXED_SERVICE_USERS);
+        final Duration indexTimeToLive = Duration.ofSeconds(EnvironmentVariableParser.parsePositiveLong(environment,
+            INDEX_TTL_SECONDS_ENVIRONMENT_VARIABLE, DEFAULT_INDEX_TIME_TO_LIVE.toSeconds()));
+        return new ServiceUserHistoryFanOutConfiguration(true, (int) Math.min(consentCountThreshold, Integer.MAX_VALUE),
+            (int) Math.min(maxConcurrency, Integer.MAX_VALUE), maximumIndexedServiceUsers, indexTimeToLive);
+    }
+}
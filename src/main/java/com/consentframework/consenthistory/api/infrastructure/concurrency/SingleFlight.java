@@ -0,0 +1,80 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent calls for the same key into a single in-flight call whose result is shared by all callers.
+ *
+ * A call is only shared while it is in flight, callers arriving after it completes start a new call,
+ * so coalescing never serves results older than the slowest concurrent caller would have seen.
+ *
+ * @param <K> key identifying equivalent calls
+ * @param <V> call result type
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlightCalls = new ConcurrentHashMap<>();
+    private final LongAdder coalescedCallCount = new LongAdder();
+
+    /**
+     * Run a blocking call, or wait for the result of an equivalent call already in flight.
+     *
+     * @param key key identifying equivalent calls
+     * @param call blocking call, run on the calling thread if no equivalent call is in flight
+     * @return result of the call
+     * @throws Exception exception thrown by the call, or InterruptedException if interrupted while waiting for an in-flight call
+     */
+    public V call(final K key, final Callable<V> call) throws Exception {
+        final CompletableFuture<V> newCall = new CompletableFuture<>();
+        final CompletableFuture<V> inFlightCall = inFlightCalls.putIfAbsent(key, newCall);
+        if (inFlightCall != null) {
+            coalescedCallCount.increment();
+            return awaitResult(inFlightCall);
+        }
+
+        try {
+            final V result = call.call();
+            inFlightCalls.remove(key, newCall);
+            newCall.complete(result);
+            return result;
+        } catch (final Exception | Error exception) {
+            inFlightCalls.remove(key, newCall);
+            newCall.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Return the number of calls which shared the result of an in-flight call rather than starting their own.
+     *
+     * @return number of coalesced calls
+     */
+    public long coalescedCallCount() {
+        return coalescedCallCount.sum();
+    }
+
+    /**
+     * Return the number of calls currently in flight.
+     *
+     * @return number of in-flight calls
+     */
+    public int inFlightCallCount() {
+        return inFlightCalls.size();
+    }
+
+    private static <V> V awaitResult(final CompletableFuture<V> inFlightCall) throws Exception {
+        try {
+            return inFlightCall.get();
+        } catch (final ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (Exception) cause;
+        }
+    }
+}
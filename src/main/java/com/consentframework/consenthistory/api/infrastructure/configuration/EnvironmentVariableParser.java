@@ -0,0 +1,36 @@
+package com.consentframework.consenthistory.api.infrastructure.configuration;
+
+import java.util.Map;
+
+/**
+ * Parses optional configuration values from environment variables.
+ */
+public final class EnvironmentVariableParser {
+    public static final String INVALID_CONFIGURATION_MESSAGE = "Environment variable %s must be a positive integer, received '%s'";
+
+    /**
+     * Parse a positive integer environment variable, returning the default if it is unset or blank.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @param variableName environment variable name
+     * @param defaultValue value to return if the environment variable is unset or blank
+     * @return parsed value, or the default value
+     * @throws IllegalArgumentException if the environment variable is set but is not a positive integer
+     */
+    public static long parsePositiveLong(final Map<String, String> environment, final String variableName, final long defaultValue) {
+        final String value = environment.get(variableName);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            final long parsedValue = Long.parseLong(value.trim());
+            if (parsedValue > 0) {
+                return parsedValue;
+            }
+        } catch (final NumberFormatException numberFormatException) {
+            // Fall through to the invalid configuration error below
+        }
+        throw new IllegalArgumentException(String.format(INVALID_CONFIGURATION_MESSAGE, variableName, value));
+    }
+}
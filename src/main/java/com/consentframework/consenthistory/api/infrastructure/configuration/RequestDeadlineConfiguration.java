@@ -0,0 +1,37 @@
+package com.consentframework.consenthistory.api.infrastructure.configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration for bounding request handling by the time remaining before the Lambda invocation times out.
+ *
+ * @param enabled whether reads stop early and return partial results as the invocation's timeout approaches
+ * @param responseTimeReserve time reserved before the timeout for building and returning the response
+ */
+public record RequestDeadlineConfiguration(boolean enabled, Duration responseTimeReserve) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_DEADLINE_ENABLED";
+    public static final String RESPONSE_TIME_RESERVE_MILLIS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_DEADLINE_RESERVE_MILLIS";
+    public static final String INVALID_CONFIGURATION_MESSAGE = EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE;
+
+    public static final Duration DEFAULT_RESPONSE_TIME_RESERVE = Duration.ofSeconds(1);
+    public static final RequestDeadlineConfiguration DISABLED = new RequestDeadlineConfiguration(false, DEFAULT_RESPONSE_TIME_RESERVE);
+
+    /**
+     * Parse the request deadline configuration from environment variables, deadlines are disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return request deadline configuration
+     * @throws IllegalArgumentException if the response time reserve is not a positive integer
+     */
+    public static RequestDeadlineConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final long responseTimeReserveMillis = EnvironmentVariableParser.parsePositiveLong(environment,
+            RESPONSE_TIME_RESERVE_MILLIS_ENVIRONMENT_VARIABLE, DEFAULT_RESPONSE_TIME_RESERVE.toMillis());
+        return new RequestDeadlineConfiguration(true, Duration.ofMillis(responseTimeReserveMillis));
+    }
+}
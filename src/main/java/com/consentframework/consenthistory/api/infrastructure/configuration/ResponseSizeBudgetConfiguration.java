@@ -0,0 +1,49 @@
+package com.consentframework.consenthistory.api.infrastructure.configuration;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Configuration for bounding service user history responses by size, to stay within the Lambda response payload limit.
+ *
+ * @param enabled whether pages of service user history end once their response would exceed the maximum size
+ * @param maximumBytes maximum size of a response in bytes
+ */
+public record ResponseSizeBudgetConfiguration(boolean enabled, long maximumBytes) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_RESPONSE_BUDGET_ENABLED";
+    public static final String MAXIMUM_BYTES_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_RESPONSE_BUDGET_MAX_BYTES";
+    public static final String INVALID_CONFIGURATION_MESSAGE = EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE;
+
+    /**
+     * Default maximum response size, 5MB, leaving headroom below the 6MB synchronous Lambda response payload limit.
+     */
+    public static final long DEFAULT_MAXIMUM_BYTES = 5L * 1024 * 1024;
+    public static final ResponseSizeBudgetConfiguration DISABLED = new ResponseSizeBudgetConfiguration(false, DEFAULT_MAXIMUM_BYTES);
+
+    /**
+     * Parse the response size budget configuration from environment variables, budgets are disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return response size budget configuration
+     * @throws IllegalArgumentException if the maximum size is not a positive integer
+     */
+    public static ResponseSizeBudgetConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final long maximumBytes = EnvironmentVariableParser.parsePositiveLong(environment, MAXIMUM_BYTES_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAXIMUM_BYTES);
+        return new ResponseSizeBudgetConfiguration(true, maximumBytes);
+    }
+
+    /**
+     * Return the maximum size of a response if budgets are enabled.
+     *
+     * @return maximum response size in bytes, or empty if responses are not bounded by size
+     */
+    public OptionalLong maximumResponseBytes() {
+        return enabled ? OptionalLong.of(maximumBytes) : OptionalLong.empty();
+    }
+}
@@ -0,0 +1,63 @@
+package com.consentframework.consenthistory.api.infrastructure.logging;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples one of every sampleInterval calls, so high volume log lines are logged in part without building the skipped ones.
+ *
+ * Log4j filters attached to a logger only run once the log event has been created, so sampling before calling the logger
+ * is what keeps the cost of skipped lines down to a counter increment.
+ */
+public final class LogSampler {
+    public static final String CONSENT_CHANGE_EVENT_SAMPLE_INTERVAL_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_EVENT_LOG_SAMPLE_INTERVAL";
+    public static final long DEFAULT_SAMPLE_INTERVAL = 100;
+
+    private final long sampleInterval;
+    private final AtomicLong callCount = new AtomicLong();
+
+    /**
+     * Construct a log sampler.
+     *
+     * @param sampleInterval number of calls per sampled call, 1 samples every call
+     * @throws IllegalArgumentException if the sample interval is not positive
+     */
+    public LogSampler(final long sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be positive, received " + sampleInterval);
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Parse the consent change event log sample interval from environment variables.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return consent change event log sampler
+     * @throws IllegalArgumentException if the sample interval is not a positive integer
+     */
+    public static LogSampler consentChangeEventSamplerFromEnvironment(final Map<String, String> environment) {
+        return new LogSampler(EnvironmentVariableParser.parsePositiveLong(environment,
+            CONSENT_CHANGE_EVENT_SAMPLE_INTERVAL_ENVIRONMENT_VARIABLE, DEFAULT_SAMPLE_INTERVAL));
+    }
+
+    /**
+     * Return whether this call is sampled, the first call and every sampleInterval-th call after it are.
+     *
+     * @return true if the caller should log
+     */
+    public boolean sample() {
+        return callCount.getAndIncrement() % sampleInterval == 0;
+    }
+
+    /**
+     * Return the number of calls per sampled call.
+     *
+     * @return sample interval
+     */
+    public long sampleInterval() {
+        return sampleInterval;
+    }
+}
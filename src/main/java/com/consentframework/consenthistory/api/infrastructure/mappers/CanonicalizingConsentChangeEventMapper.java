@@ -0,0 +1,98 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import com.consentframework.consenthistory.api.models.Consent;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Mapper for converting the DynamoDB records of a single query into domain models, sharing repeated values between events.
+ *
+ * Records of the same query repeat the same partition keys, service, user, and consent IDs, consent types, and often
+ * consent data, and each event's old image is usually the previous event's new image for the same consent.  This mapper
+ * retains one instance of each repeated string and consent data map, and reuses the previous event's new image Consent
+ * as the old image when the stored images are identical, so materialized histories hold far fewer objects.
+ * Mapped events share instances, so they must not be modified.
+ *
+ * Instances are stateful and not thread-safe, create one per query result stream.
+ */
+public final class CanonicalizingConsentChangeEventMapper implements Function<DynamoDbConsentHistory, ConsentChangeEvent> {
+    static final int MAXIMUM_CANONICAL_VALUES = 4096;
+
+    private final Map<Object, Object> canonicalValues = new HashMap<>();
+    private final Map<String, MappedConsentImage> latestImageByConsentId = new HashMap<>();
+
+    /**
+     * Converts a DynamoDB consent change event record to a domain model.
+     *
+     * @param record the DynamoDB record to convert.
+     * @return the converted ConsentChangeEvent.
+     */
+    @Override
+    public ConsentChangeEvent apply(final DynamoDbConsentHistory record) {
+        if (record == null) {
+            return null;
+        }
+
+        final String consentId = canonical(record.id());
+        final MappedConsentImage latestImage = latestImageByConsentId.get(consentId);
+        final Consent oldImage = latestImage != null && isSameImage(latestImage.storedConsent(), record.oldImage())
+            ? latestImage.consent()
+            : toConsent(record.oldImage());
+        final Consent newImage = toConsent(record.newImage());
+        if (record.newImage() != null && (latestImage != null || latestImageByConsentId.size() < MAXIMUM_CANONICAL_VALUES)) {
+            latestImageByConsentId.put(consentId, new MappedConsentImage(record.newImage(), newImage));
+        }
+
+        return new ConsentChangeEvent()
+            .consentId(consentId)
+            .eventId(record.eventId())
+            .eventTime(DynamoDbEventTimeParser.parse(record.eventTime()))
+            .eventType(DynamoDbConsentChangeEventMapper.toConsentEventType(record.eventType()))
+            .oldImage(oldImage)
+            .newImage(newImage);
+    }
+
+    private Consent toConsent(final StoredConsentImage storedConsent) {
+        return DynamoDbConsentChangeEventMapper.toConsent(storedConsent, this::canonical, this::canonical);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T canonical(final T value) {
+        if (value == null) {
+            return null;
+        }
+        final Object canonicalValue = canonicalValues.get(value);
+        if (canonicalValue != null) {
+            return (T) canonicalValue;
+        }
+        if (canonicalValues.size() < MAXIMUM_CANONICAL_VALUES) {
+            canonicalValues.put(value, value);
+        }
+        return value;
+    }
+
+    private static boolean isSameImage(final StoredConsentImage storedConsent, final StoredConsentImage otherStoredConsent) {
+        if (storedConsent == null || otherStoredConsent == null) {
+            return false;
+        }
+        return Objects.equals(storedConsent.getConsentId(), otherStoredConsent.getConsentId())
+            && Objects.equals(storedConsent.getConsentVersion(), otherStoredConsent.getConsentVersion())
+            && Objects.equals(storedConsent.getUserId(), otherStoredConsent.getUserId())
+            && Objects.equals(storedConsent.getServiceId(), otherStoredConsent.getServiceId())
+            && Objects.equals(storedConsent.getConsentStatus(), otherStoredConsent.getConsentStatus())
+            && Objects.equals(storedConsent.getConsentType(), otherStoredConsent.getConsentType())
+            && Objects.equals(storedConsent.getConsentData(), otherStoredConsent.getConsentData())
+            && Objects.equals(storedConsent.getExpiryTime(), otherStoredConsent.getExpiryTime());
+    }
+
+    /**
+     * Stored consent image and the Consent it was mapped to.
+     */
+    private record MappedConsentImage(StoredConsentImage storedConsent, Consent consent) {}
+}
@@ -0,0 +1,226 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Position in a service user's change feed, encoded as the opaque watermark returned with each change feed page.
+ *
+ * Stored event times omit zero seconds and the ConsentHistoryByServiceUser GSI is only eventually consistent, so the
+ * change events of a service user are not written to the GSI in sort key order: an event of an already read minute may
+ * sort before the last record read, or arrive in the GSI after later events were read.  A position therefore does not
+ * continue after the last record read once a read has caught up.  It resumes from the start of the minute a short
+ * window before the latest event read, and holds the IDs of the events already delivered since then, so re-read
+ * events are skipped and every event is delivered once.  While a read has more pages, the position also holds the key
+ * of the last record read, so the read continues after it, and already moves its start up behind the record, so a long
+ * read does not accumulate the IDs of every event it delivers.
+ *
+ * @param since earliest event time to deliver, read from the start of its minute
+ * @param startAfter service user history page token of the last record read while a read has more pages, or null
+ * @param deliveredEventIds IDs of the change events delivered at or after since, keyed by their event time's minute
+ */
+public record DynamoDbChangeFeedPosition(OffsetDateTime since, String startAfter,
+        SortedMap<String, SortedSet<String>> deliveredEventIds) {
+    /**
+     * How long before the latest change event read a caught up read resumes, so events written to the GSI after later
+     * events were read are still delivered.  GSI writes typically propagate within a second.
+     */
+    public static final Duration LATE_ARRIVAL_WINDOW = Duration.ofSeconds(10);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder decoder = Base64.getUrlDecoder();
+
+    /**
+     * Encoded form of a position, with event IDs grouped by minute to keep watermarks short.
+     */
+    record EncodedPosition(String since, String startAfter, Map<String, List<String>> delivered) {}
+
+    /**
+     * Parse the position of a change feed watermark.
+     *
+     * An event time watermark is the position from which every change event at or after that time is delivered, so
+     * change events sharing the watermark's time are not skipped.
+     *
+     * @param watermark change feed watermark passed by the caller
+     * @param serviceId service identifier of the change feed
+     * @param userId user identifier of the change feed
+     * @return change feed position
+     * @throws BadRequestException if the watermark is malformed or its position belongs to another service user
+     */
+    public static DynamoDbChangeFeedPosition fromWatermark(final ChangeFeedWatermark watermark, final String serviceId,
+            final String userId) throws BadRequestException {
+        if (watermark.isEventTime()) {
+            return new DynamoDbChangeFeedPosition(watermark.eventTime(), null, new TreeMap<>());
+        }
+
+        final EncodedPosition encodedPosition;
+        try {
+            final String decodedWatermark = new String(decoder.decode(watermark.value()), StandardCharsets.UTF_8);
+            encodedPosition = objectMapper.readValue(decodedWatermark, EncodedPosition.class);
+        } catch (final IllegalArgumentException | JsonProcessingException exception) {
+            throw invalidWatermark(watermark);
+        }
+        if (encodedPosition == null || encodedPosition.since() == null || encodedPosition.delivered() == null
+                || encodedPosition.delivered().values().stream().anyMatch(eventIds -> eventIds == null || eventIds.contains(null))) {
+            throw invalidWatermark(watermark);
+        }
+
+        final OffsetDateTime since;
+        try {
+            since = OffsetDateTime.parse(encodedPosition.since());
+        } catch (final DateTimeParseException dateTimeParseException) {
+            throw invalidWatermark(watermark);
+        }
+        if (encodedPosition.startAfter() != null) {
+            try {
+                DynamoDbPageTokenMapper.toServiceUserChangesExclusiveStartKey(encodedPosition.startAfter(), serviceId, userId);
+            } catch (final BadRequestException badRequestException) {
+                throw invalidWatermark(watermark);
+            }
+        }
+
+        final SortedMap<String, SortedSet<String>> deliveredEventIds = new TreeMap<>();
+        encodedPosition.delivered().forEach((minute, eventIds) -> deliveredEventIds.put(minute, new TreeSet<>(eventIds)));
+        return new DynamoDbChangeFeedPosition(since, encodedPosition.startAfter(), deliveredEventIds);
+    }
+
+    /**
+     * Return the GSI key to continue a read after, if the read has more pages.
+     *
+     * @return exclusive start key of the last record read, or null to read from the start of since's minute
+     */
+    public Map<String, AttributeValue> exclusiveStartKey() {
+        try {
+            return DynamoDbPageTokenMapper.toExclusiveStartKey(startAfter);
+        } catch (final BadRequestException badRequestException) {
+            throw new IllegalStateException("Change feed position holds an invalid page token", badRequestException);
+        }
+    }
+
+    /**
+     * Return whether a change event read from the position is still to be delivered.
+     *
+     * @param consentChangeEvent change event read from the position
+     * @return true if the event is not before since and was not delivered already
+     */
+    public boolean isUndelivered(final ConsentChangeEvent consentChangeEvent) {
+        if (consentChangeEvent.getEventTime().isBefore(since)) {
+            return false;
+        }
+        final SortedSet<String> minuteEventIds = deliveredEventIds.get(toMinute(consentChangeEvent.getEventTime()));
+        return minuteEventIds == null || !minuteEventIds.contains(consentChangeEvent.getEventId());
+    }
+
+    /**
+     * Return the position continuing a read with more pages after a record, forgetting the events delivered before the
+     * start of the minute LATE_ARRIVAL_WINDOW before the record, so the watermark stays bounded however long the read is.
+     *
+     * The read continues after the record in sort key order, so it only reads events of the record's minute or later, and
+     * once it has caught up it resumes no earlier than the same minute, see {@link #resumingBefore(Collection, OffsetDateTime)}.
+     *
+     * @param deliveredChanges change events delivered from the page read
+     * @param lastRecord last record of the page read
+     * @return position continuing after the record
+     */
+    public DynamoDbChangeFeedPosition continuingAfter(final Collection<ConsentChangeEvent> deliveredChanges,
+            final DynamoDbConsentHistory lastRecord) {
+        return advancedBefore(deliveredChanges, DynamoDbEventTimeParser.parse(lastRecord.eventTime()),
+            DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(lastRecord));
+    }
+
+    /**
+     * Return the position of the next read once a read has caught up, resuming from the start of the minute
+     * LATE_ARRIVAL_WINDOW before the latest change event read, and forgetting events delivered before then.
+     *
+     * @param deliveredChanges change events delivered from the page read
+     * @param latestEventTime latest event time read
+     * @return position resuming before the latest change event read
+     */
+    public DynamoDbChangeFeedPosition resumingBefore(final Collection<ConsentChangeEvent> deliveredChanges,
+            final OffsetDateTime latestEventTime) {
+        return advancedBefore(deliveredChanges, latestEventTime, null);
+    }
+
+    /**
+     * Return the position of the next read once a read continuing after a record finds no more records, resuming before
+     * that record as for {@link #resumingBefore(Collection, OffsetDateTime)}.
+     *
+     * @return position resuming before the last record read
+     * @throws IllegalStateException if the position does not continue after a record
+     */
+    public DynamoDbChangeFeedPosition resumingBeforeStartAfter() {
+        final Map<String, AttributeValue> exclusiveStartKey = exclusiveStartKey();
+        if (exclusiveStartKey == null) {
+            throw new IllegalStateException("Change feed position does not continue after a record");
+        }
+        return resumingBefore(List.of(),
+            DynamoDbEventTimeParser.parse(exclusiveStartKey.get(DynamoDbPageTokenMapper.EVENT_TIME_ATTRIBUTE_NAME).s()));
+    }
+
+    /**
+     * Encode the position as an opaque watermark, which never contains a colon.
+     *
+     * @return change feed watermark
+     */
+    public String toWatermark() {
+        final Map<String, List<String>> delivered = new TreeMap<>();
+        deliveredEventIds.forEach((minute, eventIds) -> delivered.put(minute, List.copyOf(eventIds)));
+        try {
+            return encoder.encodeToString(objectMapper.writeValueAsBytes(new EncodedPosition(since.toString(), startAfter, delivered)));
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new IllegalStateException("Unable to serialize change feed position", jsonProcessingException);
+        }
+    }
+
+    private DynamoDbChangeFeedPosition advancedBefore(final Collection<ConsentChangeEvent> deliveredChanges,
+            final OffsetDateTime eventTime, final String nextStartAfter) {
+        final OffsetDateTime resumeFrom = eventTime.minus(LATE_ARRIVAL_WINDOW)
+            .withOffsetSameInstant(ZoneOffset.UTC)
+            .truncatedTo(ChronoUnit.MINUTES);
+        final OffsetDateTime nextSince = resumeFrom.isAfter(since) ? resumeFrom : since;
+        final SortedMap<String, SortedSet<String>> nextDeliveredEventIds = new TreeMap<>(
+            withDelivered(deliveredChanges, deliveredEventIds).tailMap(toMinute(nextSince)));
+        return new DynamoDbChangeFeedPosition(nextSince, nextStartAfter, nextDeliveredEventIds);
+    }
+
+    private static SortedMap<String, SortedSet<String>> withDelivered(final Collection<ConsentChangeEvent> deliveredChanges,
+            final SortedMap<String, SortedSet<String>> deliveredEventIds) {
+        final SortedMap<String, SortedSet<String>> updatedEventIds = new TreeMap<>();
+        deliveredEventIds.forEach((minute, eventIds) -> updatedEventIds.put(minute, new TreeSet<>(eventIds)));
+        deliveredChanges.forEach(consentChangeEvent -> updatedEventIds
+            .computeIfAbsent(toMinute(consentChangeEvent.getEventTime()), ignored -> new TreeSet<>())
+            .add(consentChangeEvent.getEventId()));
+        return updatedEventIds;
+    }
+
+    private static String toMinute(final OffsetDateTime eventTime) {
+        return DynamoDbEventTimeSortKeyMapper.toLowerBound(eventTime);
+    }
+
+    private static BadRequestException invalidWatermark(final ChangeFeedWatermark watermark) {
+        return new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, watermark.value()));
+    }
+}
@@ -7,13 +7,21 @@ import com.consentframework.consenthistory.api.models.ConsentStatus;
 import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
 import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
 
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * Mapper for converting between DynamoDB consent change event records and domain models.
  */
 public final class DynamoDbConsentChangeEventMapper {
+    private static final Map<String, ConsentEventType> EVENT_TYPES_BY_VALUE = Arrays.stream(ConsentEventType.values())
+        .collect(Collectors.toUnmodifiableMap(ConsentEventType::getValue, Function.identity()));
+    private static final Map<String, ConsentStatus> CONSENT_STATUSES_BY_VALUE = Arrays.stream(ConsentStatus.values())
+        .collect(Collectors.toUnmodifiableMap(ConsentStatus::getValue, Function.identity()));
+
     /**
      * Converts a DynamoDB consent change event record to a domain model.
      *
@@ -27,24 +35,50 @@ public final class DynamoDbConsentChangeEventMapper {
         return new ConsentChangeEvent()
             .consentId(record.id())
             .eventId(record.eventId())
-            .eventTime(OffsetDateTime.parse(record.eventTime()).withOffsetSameLocal(ZoneOffset.UTC))
-            .eventType(ConsentEventType.fromValue(record.eventType()))
-            .oldImage(toConsent(record.oldImage()))
-            .newImage(toConsent(record.newImage()));
+            .eventTime(DynamoDbEventTimeParser.parse(record.eventTime()))
+            .eventType(toConsentEventType(record.eventType()))
+            .oldImage(toConsent(record.oldImage(), UnaryOperator.identity(), UnaryOperator.identity()))
+            .newImage(toConsent(record.newImage(), UnaryOperator.identity(), UnaryOperator.identity()));
+    }
+
+    /**
+     * Converts a stored event type to a ConsentEventType using a precomputed lookup.
+     *
+     * @param eventType stored event type
+     * @return the converted ConsentEventType
+     * @throws IllegalArgumentException if the event type is not a ConsentEventType value
+     */
+    static ConsentEventType toConsentEventType(final String eventType) {
+        final ConsentEventType consentEventType = eventType == null ? null : EVENT_TYPES_BY_VALUE.get(eventType);
+        return consentEventType == null ? ConsentEventType.fromValue(eventType) : consentEventType;
     }
 
-    private static Consent toConsent(final StoredConsentImage storedConsent) {
+    /**
+     * Converts a stored consent image to a domain model.
+     *
+     * @param storedConsent the stored consent image to convert, or null
+     * @param canonicalString returns the instance to retain for a string attribute
+     * @param canonicalConsentData returns the instance to retain for a consent data map
+     * @return the converted Consent, or null if there is no stored consent image
+     */
+    static Consent toConsent(final StoredConsentImage storedConsent, final UnaryOperator<String> canonicalString,
+            final UnaryOperator<Map<String, String>> canonicalConsentData) {
         if (storedConsent == null) {
             return null;
         }
         return new Consent()
-            .consentId(storedConsent.getConsentId())
+            .consentId(canonicalString.apply(storedConsent.getConsentId()))
             .consentVersion(storedConsent.getConsentVersion())
-            .userId(storedConsent.getUserId())
-            .serviceId(storedConsent.getServiceId())
-            .status(ConsentStatus.fromValue(storedConsent.getConsentStatus()))
-            .consentType(storedConsent.getConsentType())
-            .consentData(storedConsent.getConsentData())
+            .userId(canonicalString.apply(storedConsent.getUserId()))
+            .serviceId(canonicalString.apply(storedConsent.getServiceId()))
+            .status(toConsentStatus(storedConsent.getConsentStatus()))
+            .consentType(canonicalString.apply(storedConsent.getConsentType()))
+            .consentData(canonicalConsentData.apply(storedConsent.getConsentData()))
             .expiryTime(storedConsent.getExpiryTime());
     }
+
+    private static ConsentStatus toConsentStatus(final String consentStatus) {
+        final ConsentStatus status = consentStatus == null ? null : CONSENT_STATUSES_BY_VALUE.get(consentStatus);
+        return status == null ? ConsentStatus.fromValue(consentStatus) : status;
+    }
 }
@@ -0,0 +1,169 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.infrastructure.logging.LogSampler;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Mapper for converting DynamoDB consent history query results into domain models.
+ */
+public final class DynamoDbConsentHistoryMapper {
+    private static final Logger logger = LogManager.getLogger(DynamoDbConsentHistoryMapper.class);
+    private static final LogSampler consentChangeEventLogSampler = LogSampler.consentChangeEventSamplerFromEnvironment(System.getenv());
+
+    /**
+     * Orders change events by the instant they occurred, regardless of the offset their event time was stored with.
+     */
+    static final Comparator<ConsentChangeEvent> EVENT_TIME_ORDER = Comparator.comparing(ConsentChangeEvent::getEventTime,
+        Comparator.nullsFirst(OffsetDateTime.timeLineOrder()));
+
+    /**
+     * Parse consent history records into consent histories, grouped by consent ID.
+     *
+     * Records are partitioned by consent ID in a single pass, then each consent's change events are ordered by event time
+     * independently.  Records arrive in sort key order, so each consent's events are usually already ordered and are only
+     * checked, while event times whose sort keys do not order chronologically, eg. with differing fractional seconds,
+     * are reordered within their consent.  Consent histories are returned in ascending consent ID order, so the same
+     * records always produce the same response.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentHistoryRecords ConsentHistory DynamoDB records, sorted ascending by event time
+     * @param eventTimeWindow range of event times to retrieve
+     * @return list of consent histories in ascending consent ID order, each having a consent ID and its change events
+     */
+    public static List<ConsentHistory> toConsentHistories(final String serviceId, final String userId,
+            final Stream<DynamoDbConsentHistory> consentHistoryRecords, final EventTimeWindow eventTimeWindow) {
+        return toConsentHistories(serviceId, userId, toConsentChangeEventsInReadOrder(consentHistoryRecords, eventTimeWindow));
+    }
+
+    /**
+     * Group consent change events parsed from consent history records into consent histories, grouped by consent ID.
+     *
+     * Consent histories are ordered and their change events are ordered as for {@link #toConsentHistories(String, String,
+     * Stream, EventTimeWindow)}, for callers which need to see each change event before it is grouped.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentChangeEvents consent change events parsed from records sorted ascending by event time
+     * @return list of consent histories in ascending consent ID order, each having a consent ID and its change events
+     */
+    public static List<ConsentHistory> toConsentHistories(final String serviceId, final String userId,
+            final Stream<ConsentChangeEvent> consentChangeEvents) {
+        final Map<String, List<ConsentChangeEvent>> consentHistoryByConsentId = toConsentIdsToChangeEvents(
+            serviceId, userId, consentChangeEvents);
+
+        final List<String> consentIds = new ArrayList<>(consentHistoryByConsentId.keySet());
+        consentIds.sort(Comparator.naturalOrder());
+        final List<ConsentHistory> consentHistories = new ArrayList<>(consentIds.size());
+        for (final String consentId : consentIds) {
+            consentHistories.add(toConsentHistory(consentId, consentHistoryByConsentId.get(consentId)));
+        }
+
+        logger.info("getServiceUserHistory({}, {}) retrieved {} consent histories",
+            serviceId, userId, consentHistories.size());
+        return consentHistories;
+    }
+
+    /**
+     * Parse the consent history records into a stream of ConsentChangeEvent objects within the event time window, ordered
+     * by the instant each event occurred.
+     *
+     * Stored event times omit zero seconds and fractions, so sort keys do not order chronologically within a minute,
+     * eg. "12:00:30Z" sorts before "12:00Z".  Records are mostly in order already, so the stable sort is close to a single
+     * linear pass, and events at the same instant keep their sort key order.
+     *
+     * @param consentHistoryRecords ConsentHistory DynamoDB records, sorted ascending by event time sort key
+     * @param eventTimeWindow range of event times to retrieve
+     * @return Stream of consent change events, sorted ascending by event time
+     */
+    public static Stream<ConsentChangeEvent> toConsentChangeEvents(final Stream<DynamoDbConsentHistory> consentHistoryRecords,
+            final EventTimeWindow eventTimeWindow) {
+        return toConsentChangeEventsInReadOrder(consentHistoryRecords, eventTimeWindow).sorted(EVENT_TIME_ORDER);
+    }
+
+    /**
+     * Parse the consent history records into a stream of ConsentChangeEvent objects within the event time window, in the
+     * order the records were read.
+     *
+     * For callers which consume each change event alongside the record it was parsed from, or which order the change events
+     * themselves, eg. per consent.  Values repeated across records are shared between the parsed events, see
+     * CanonicalizingConsentChangeEventMapper.
+     *
+     * @param consentHistoryRecords ConsentHistory DynamoDB records, sorted ascending by event time sort key
+     * @param eventTimeWindow range of event times to retrieve
+     * @return Stream of consent change events, in sort key order
+     */
+    public static Stream<ConsentChangeEvent> toConsentChangeEventsInReadOrder(
+            final Stream<DynamoDbConsentHistory> consentHistoryRecords, final EventTimeWindow eventTimeWindow) {
+        final Stream<ConsentChangeEvent> consentChangeEvents = consentHistoryRecords
+            .map(new CanonicalizingConsentChangeEventMapper());
+        if (eventTimeWindow.isUnbounded()) {
+            return consentChangeEvents;
+        }
+
+        // Sort key conditions are widened to whole minutes, so trim events outside the exact window
+        return consentChangeEvents.filter(consentChangeEvent -> eventTimeWindow.contains(consentChangeEvent.getEventTime()));
+    }
+
+    /**
+     * Parse the consent history records into the latest ConsentChangeEvent within the event time window.
+     *
+     * Event times omit zero seconds, so records of the same minute are not read in event time order, and the latest
+     * change event is the one with the latest instant rather than the last one read.
+     *
+     * @param consentHistoryRecords ConsentHistory DynamoDB records, in any order
+     * @param eventTimeWindow range of event times to consider
+     * @return latest consent change event, or empty if no record is within the window
+     */
+    public static Optional<ConsentChangeEvent> toLatestConsentChangeEvent(final Stream<DynamoDbConsentHistory> consentHistoryRecords,
+            final EventTimeWindow eventTimeWindow) {
+        return toConsentChangeEventsInReadOrder(consentHistoryRecords, eventTimeWindow).max(EVENT_TIME_ORDER);
+    }
+
+    /**
+     * Group consent change events into a map of consent IDs to consent change events.
+     *
+     * Retrieved events are logged at a sample rate set by the CONSENT_HISTORY_EVENT_LOG_SAMPLE_INTERVAL environment variable,
+     * so a large service user history adds a bounded number of log lines to the request.
+     *
+     * @param consentChangeEvents consent change events parsed from records sorted ascending by event time
+     * @return Map of consent ID to list of consent change events, each sorted ascending by event time
+     */
+    private static Map<String, List<ConsentChangeEvent>> toConsentIdsToChangeEvents(final String serviceId, final String userId,
+            final Stream<ConsentChangeEvent> consentChangeEvents) {
+        final Map<String, List<ConsentChangeEvent>> consentHistoryByConsentId = new HashMap<>();
+
+        consentChangeEvents.forEach(consentChangeEvent -> {
+            final String consentId = consentChangeEvent.getConsentId();
+            if (logger.isInfoEnabled() && consentChangeEventLogSampler.sample()) {
+                logger.info("getServiceUserHistory({}, {}) retrieved consent change event with consentId: {}, eventId: {}",
+                    serviceId, userId, consentId, consentChangeEvent.getEventId());
+            }
+            consentHistoryByConsentId.computeIfAbsent(consentId, ignored -> new ArrayList<>()).add(consentChangeEvent);
+        });
+
+        // A stable sort of an already ordered run is a single linear pass
+        consentHistoryByConsentId.values().forEach(consentHistory -> consentHistory.sort(EVENT_TIME_ORDER));
+        return consentHistoryByConsentId;
+    }
+
+    private static ConsentHistory toConsentHistory(final String consentId, final List<ConsentChangeEvent> consentHistory) {
+        return new ConsentHistory()
+            .consentId(consentId)
+            .history(consentHistory);
+    }
+}
@@ -0,0 +1,89 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticImmutableTableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Hand-built DynamoDB table schema of consent history records.
+ *
+ * Equivalent to TableSchema.fromImmutableClass(DynamoDbConsentHistory.class), but built from method references rather than
+ * by introspecting the record's annotations and generating accessors at runtime, which is a large part of the
+ * service's cold start.
+ */
+public final class DynamoDbConsentHistoryTableSchema {
+    private static final String GSI_NAME = DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME;
+
+    private static final TableSchema<StoredConsentImage> STORED_CONSENT_IMAGE_SCHEMA = StaticTableSchema.builder(StoredConsentImage.class)
+        .newItemSupplier(StoredConsentImage::new)
+        .addAttribute(String.class, attribute -> attribute.name("id")
+            .getter(StoredConsentImage::getId)
+            .setter(StoredConsentImage::setId))
+        .addAttribute(String.class, attribute -> attribute.name("serviceId")
+            .getter(StoredConsentImage::getServiceId)
+            .setter(StoredConsentImage::setServiceId))
+        .addAttribute(String.class, attribute -> attribute.name("userId")
+            .getter(StoredConsentImage::getUserId)
+            .setter(StoredConsentImage::setUserId))
+        .addAttribute(String.class, attribute -> attribute.name("consentId")
+            .getter(StoredConsentImage::getConsentId)
+            .setter(StoredConsentImage::setConsentId))
+        .addAttribute(Integer.class, attribute -> attribute.name("consentVersion")
+            .getter(StoredConsentImage::getConsentVersion)
+            .setter(StoredConsentImage::setConsentVersion))
+        .addAttribute(String.class, attribute -> attribute.name("consentStatus")
+            .getter(StoredConsentImage::getConsentStatus)
+            .setter(StoredConsentImage::setConsentStatus))
+        .addAttribute(String.class, attribute -> attribute.name("consentType")
+            .getter(StoredConsentImage::getConsentType)
+            .setter(StoredConsentImage::setConsentType))
+        .addAttribute(EnhancedType.mapOf(String.class, String.class), attribute -> attribute.name("consentData")
+            .getter(StoredConsentImage::getConsentData)
+            .setter(StoredConsentImage::setConsentData))
+        .addAttribute(OffsetDateTime.class, attribute -> attribute.name("expiryTime")
+            .getter(StoredConsentImage::getExpiryTime)
+            .setter(StoredConsentImage::setExpiryTime))
+        .build();
+
+    private static final EnhancedType<StoredConsentImage> STORED_CONSENT_IMAGE_TYPE = EnhancedType.documentOf(StoredConsentImage.class,
+        STORED_CONSENT_IMAGE_SCHEMA);
+
+    /**
+     * Consent history table schema, keyed by id and eventTime, and by serviceUserId and eventTime in the
+     * ConsentHistoryByServiceUser GSI.
+     */
+    public static final TableSchema<DynamoDbConsentHistory> TABLE_SCHEMA = StaticImmutableTableSchema
+        .builder(DynamoDbConsentHistory.class, DynamoDbConsentHistory.Builder.class)
+        .newItemBuilder(DynamoDbConsentHistory::builder, DynamoDbConsentHistory.Builder::build)
+        .addAttribute(String.class, attribute -> attribute.name("id")
+            .getter(DynamoDbConsentHistory::id)
+            .setter(DynamoDbConsentHistory.Builder::id)
+            .tags(StaticAttributeTags.primaryPartitionKey()))
+        .addAttribute(String.class, attribute -> attribute.name("eventId")
+            .getter(DynamoDbConsentHistory::eventId)
+            .setter(DynamoDbConsentHistory.Builder::eventId))
+        .addAttribute(String.class, attribute -> attribute.name("eventType")
+            .getter(DynamoDbConsentHistory::eventType)
+            .setter(DynamoDbConsentHistory.Builder::eventType))
+        .addAttribute(String.class, attribute -> attribute.name("eventTime")
+            .getter(DynamoDbConsentHistory::eventTime)
+            .setter(DynamoDbConsentHistory.Builder::eventTime)
+            .tags(StaticAttributeTags.primarySortKey(), StaticAttributeTags.secondarySortKey(GSI_NAME)))
+        .addAttribute(String.class, attribute -> attribute.name("serviceUserId")
+            .getter(DynamoDbConsentHistory::serviceUserId)
+            .setter(DynamoDbConsentHistory.Builder::serviceUserId)
+            .tags(StaticAttributeTags.secondaryPartitionKey(GSI_NAME)))
+        .addAttribute(STORED_CONSENT_IMAGE_TYPE, attribute -> attribute.name("oldImage")
+            .getter(DynamoDbConsentHistory::oldImage)
+            .setter(DynamoDbConsentHistory.Builder::oldImage))
+        .addAttribute(STORED_CONSENT_IMAGE_TYPE, attribute -> attribute.name("newImage")
+            .getter(DynamoDbConsentHistory::newImage)
+            .setter(DynamoDbConsentHistory.Builder::newImage))
+        .build();
+}
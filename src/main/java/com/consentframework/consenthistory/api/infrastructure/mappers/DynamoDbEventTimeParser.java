@@ -0,0 +1,107 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Parser for DynamoDB eventTime attribute values.
+ *
+ * Event times are stored as ISO-8601 UTC strings formatted by OffsetDateTime.toString, eg. 2024-01-01T00:00Z,
+ * 2024-01-01T00:00:30Z, 2024-01-01T00:00:30.123456Z.  Those shapes are parsed directly from their digits, skipping
+ * the general-purpose formatter's per-call parse context and field map.  Any other shape falls back to OffsetDateTime.parse.
+ */
+public final class DynamoDbEventTimeParser {
+    private static final int MINUTE_LENGTH = "uuuu-MM-ddTHH:mm".length();
+    private static final int SECOND_LENGTH = "uuuu-MM-ddTHH:mm:ss".length();
+    private static final int MAXIMUM_FRACTION_DIGITS = 9;
+
+    // Nanoseconds per unit of a fraction with the index's number of digits
+    private static final int[] NANOS_PER_FRACTION_UNIT = {
+        1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+
+    /**
+     * Parse a stored event time into a UTC date-time.
+     *
+     * Times with a non-UTC offset keep their local date-time with the offset replaced by UTC, matching how event times
+     * have always been read.
+     *
+     * @param eventTime ISO-8601 event time
+     * @return event time with a UTC offset
+     * @throws java.time.format.DateTimeParseException if the event time is not an ISO-8601 offset date-time
+     */
+    public static OffsetDateTime parse(final String eventTime) {
+        final OffsetDateTime utcEventTime = parseUtc(eventTime);
+        if (utcEventTime != null) {
+            return utcEventTime;
+        }
+        return OffsetDateTime.parse(eventTime).withOffsetSameLocal(ZoneOffset.UTC);
+    }
+
+    /**
+     * Parse an event time in one of the UTC shapes written by OffsetDateTime.toString.
+     *
+     * @param eventTime event time
+     * @return parsed event time, or null if the event time has any other shape or out of range fields
+     */
+    private static OffsetDateTime parseUtc(final String eventTime) {
+        final int length = eventTime.length();
+        if (length < MINUTE_LENGTH + 1 || eventTime.charAt(length - 1) != 'Z'
+                || eventTime.charAt(4) != '-' || eventTime.charAt(7) != '-' || eventTime.charAt(10) != 'T'
+                || eventTime.charAt(13) != ':') {
+            return null;
+        }
+
+        final int year = parseDigits(eventTime, 0, 4);
+        final int month = parseDigits(eventTime, 5, 7);
+        final int day = parseDigits(eventTime, 8, 10);
+        final int hour = parseDigits(eventTime, 11, 13);
+        final int minute = parseDigits(eventTime, 14, 16);
+        int second = 0;
+        int nanoOfSecond = 0;
+
+        final int timeEnd = length - 1;
+        if (timeEnd > MINUTE_LENGTH) {
+            if (timeEnd < SECOND_LENGTH || eventTime.charAt(MINUTE_LENGTH) != ':') {
+                return null;
+            }
+            second = parseDigits(eventTime, MINUTE_LENGTH + 1, SECOND_LENGTH);
+            if (timeEnd > SECOND_LENGTH) {
+                final int fractionDigits = timeEnd - SECOND_LENGTH - 1;
+                if (eventTime.charAt(SECOND_LENGTH) != '.' || fractionDigits < 1 || fractionDigits > MAXIMUM_FRACTION_DIGITS) {
+                    return null;
+                }
+                final int fraction = parseDigits(eventTime, SECOND_LENGTH + 1, timeEnd);
+                nanoOfSecond = fraction < 0 ? -1 : fraction * NANOS_PER_FRACTION_UNIT[fractionDigits];
+            }
+        }
+
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nanoOfSecond < 0) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.of(year, month, day, hour, minute, second, nanoOfSecond, ZoneOffset.UTC);
+        } catch (final DateTimeException dateTimeException) {
+            // Leave reporting out of range fields to the general-purpose parser
+            return null;
+        }
+    }
+
+    /**
+     * Parse a run of ASCII digits.
+     *
+     * @return parsed value, or -1 if any character is not a digit
+     */
+    private static int parseDigits(final String value, final int beginIndex, final int endIndex) {
+        int parsedValue = 0;
+        for (int index = beginIndex; index < endIndex; index++) {
+            final int digit = value.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            parsedValue = parsedValue * 10 + digit;
+        }
+        return parsedValue;
+    }
+}
@@ -0,0 +1,47 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Mapper for converting event time bounds into DynamoDB eventTime sort key bounds.
+ *
+ * Event times are stored as ISO-8601 UTC strings whose seconds and fractional seconds are omitted when zero,
+ * eg. 2024-01-01T00:00Z, 2024-01-01T00:00:30Z, 2024-01-01T00:00:30.5Z, so they do not sort lexicographically
+ * within a minute.  Bounds are therefore widened to the enclosing minute, which every stored representation
+ * of a time within that minute shares as a prefix, and callers filter the returned events on exact event time.
+ */
+public final class DynamoDbEventTimeSortKeyMapper {
+    private static final DateTimeFormatter MINUTE_PREFIX_FORMATTER = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm");
+
+    // Sorts after every character that can follow the minute in a stored event time, ie. ':' and 'Z'
+    private static final String MINUTE_SUFFIX_UPPER_BOUND = "~";
+
+    /**
+     * Converts an inclusive lower event time bound into an inclusive lower sort key bound.
+     *
+     * @param since the earliest event time to include.
+     * @return sort key sorting at or before every stored event time at or after since.
+     */
+    public static String toLowerBound(final OffsetDateTime since) {
+        return toMinutePrefix(since);
+    }
+
+    /**
+     * Converts an inclusive upper event time bound into an inclusive upper sort key bound.
+     *
+     * @param until the latest event time to include.
+     * @return sort key sorting at or after every stored event time at or before until.
+     */
+    public static String toUpperBound(final OffsetDateTime until) {
+        return toMinutePrefix(until) + MINUTE_SUFFIX_UPPER_BOUND;
+    }
+
+    private static String toMinutePrefix(final OffsetDateTime eventTime) {
+        return eventTime.withOffsetSameInstant(ZoneOffset.UTC)
+            .truncatedTo(ChronoUnit.MINUTES)
+            .format(MINUTE_PREFIX_FORMATTER);
+    }
+}
@@ -0,0 +1,184 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mapper for converting between DynamoDB query pagination keys and opaque API page tokens.
+ *
+ * Page tokens are URL-safe Base64 encodings of the string key attributes of a query's last evaluated key.
+ */
+public final class DynamoDbPageTokenMapper {
+    static final String ID_ATTRIBUTE_NAME = "id";
+    static final String EVENT_TIME_ATTRIBUTE_NAME = "eventTime";
+    static final String SERVICE_USER_ID_ATTRIBUTE_NAME = "serviceUserId";
+
+    private static final Set<String> CONSENT_HISTORY_KEY_ATTRIBUTE_NAMES = Set.of(ID_ATTRIBUTE_NAME, EVENT_TIME_ATTRIBUTE_NAME);
+    private static final Set<String> SERVICE_USER_HISTORY_KEY_ATTRIBUTE_NAMES = Set.of(
+        ID_ATTRIBUTE_NAME, EVENT_TIME_ATTRIBUTE_NAME, SERVICE_USER_ID_ATTRIBUTE_NAME);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, String>> KEY_ATTRIBUTES_TYPE = new TypeReference<>() {};
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder decoder = Base64.getUrlDecoder();
+
+    /**
+     * Converts a DynamoDB last evaluated key into an opaque page token.
+     *
+     * @param lastEvaluatedKey the last evaluated key of a DynamoDB query page.
+     * @return the page token, or null if there are no more pages.
+     */
+    public static String toPageToken(final Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+
+        final Map<String, String> keyAttributes = new LinkedHashMap<>();
+        lastEvaluatedKey.forEach((attributeName, attributeValue) -> keyAttributes.put(attributeName, attributeValue.s()));
+        try {
+            return encoder.encodeToString(objectMapper.writeValueAsBytes(keyAttributes));
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new IllegalStateException("Unable to serialize DynamoDB last evaluated key", jsonProcessingException);
+        }
+    }
+
+    /**
+     * Converts the key of a ConsentHistoryByServiceUser GSI query result into an opaque page token continuing after it.
+     *
+     * The token holds the same key attributes as the query's last evaluated key would, had the query's page ended on the record.
+     *
+     * @param consentHistoryRecord a record read by a ConsentHistoryByServiceUser GSI query.
+     * @return the page token continuing after the record.
+     */
+    public static String toServiceUserHistoryPageToken(final DynamoDbConsentHistory consentHistoryRecord) {
+        final Map<String, AttributeValue> recordKey = new LinkedHashMap<>();
+        recordKey.put(ID_ATTRIBUTE_NAME, AttributeValue.fromS(consentHistoryRecord.id()));
+        recordKey.put(EVENT_TIME_ATTRIBUTE_NAME, AttributeValue.fromS(consentHistoryRecord.eventTime()));
+        recordKey.put(SERVICE_USER_ID_ATTRIBUTE_NAME, AttributeValue.fromS(consentHistoryRecord.serviceUserId()));
+        return toPageToken(recordKey);
+    }
+
+    /**
+     * Converts an opaque page token back into a DynamoDB exclusive start key.
+     *
+     * Only the token's encoding is checked, queries on behalf of a caller validate the key against the caller with
+     * toConsentHistoryExclusiveStartKey or toServiceUserHistoryExclusiveStartKey.
+     *
+     * @param pageToken the page token returned with a previous page of results.
+     * @return the exclusive start key, or null if no page token was provided.
+     * @throws BadRequestException if the page token is malformed.
+     */
+    public static Map<String, AttributeValue> toExclusiveStartKey(final String pageToken) throws BadRequestException {
+        if (pageToken == null) {
+            return null;
+        }
+
+        final Map<String, String> keyAttributes;
+        try {
+            final String decodedToken = new String(decoder.decode(pageToken), StandardCharsets.UTF_8);
+            keyAttributes = objectMapper.readValue(decodedToken, KEY_ATTRIBUTES_TYPE);
+        } catch (final IllegalArgumentException | JsonProcessingException exception) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+        if (keyAttributes == null || keyAttributes.isEmpty() || keyAttributes.containsValue(null)) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+
+        final Map<String, AttributeValue> exclusiveStartKey = new LinkedHashMap<>();
+        keyAttributes.forEach((attributeName, attributeValue) ->
+            exclusiveStartKey.put(attributeName, AttributeValue.fromS(attributeValue)));
+        return exclusiveStartKey;
+    }
+
+    /**
+     * Converts an opaque page token of a consent history query back into a table exclusive start key.
+     *
+     * The token must hold exactly the table's key attributes, and its partition key must be the requested consent's, so
+     * a token issued for one consent cannot be replayed to read another.
+     *
+     * @param pageToken the page token returned with a previous partial result.
+     * @param serviceId service identifier of the query.
+     * @param userId user identifier of the query.
+     * @param consentId consent ID of the query.
+     * @return the exclusive start key, or null if no page token was provided.
+     * @throws BadRequestException if the page token is malformed or belongs to another consent.
+     */
+    public static Map<String, AttributeValue> toConsentHistoryExclusiveStartKey(final String pageToken, final String serviceId,
+            final String userId, final String consentId) throws BadRequestException {
+        final Map<String, AttributeValue> exclusiveStartKey = toExclusiveStartKey(pageToken);
+        if (exclusiveStartKey == null) {
+            return null;
+        }
+
+        final String partitionKey = String.format("%s|%s|%s", serviceId, userId, consentId);
+        if (!exclusiveStartKey.keySet().equals(CONSENT_HISTORY_KEY_ATTRIBUTE_NAMES)
+                || !partitionKey.equals(exclusiveStartKey.get(ID_ATTRIBUTE_NAME).s())) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+        return exclusiveStartKey;
+    }
+
+    /**
+     * Converts an opaque page token of a ConsentHistoryByServiceUser GSI query back into an exclusive start key.
+     *
+     * The token must hold exactly the GSI record key attributes, and belong to the service user whose history is read,
+     * so a token issued for one service user cannot be replayed to read another.
+     *
+     * @param pageToken the page token returned with a previous page of results.
+     * @param serviceId service identifier of the query.
+     * @param userId user identifier of the query.
+     * @return the exclusive start key, or null if no page token was provided.
+     * @throws BadRequestException if the page token is malformed or belongs to another service user.
+     */
+    public static Map<String, AttributeValue> toServiceUserHistoryExclusiveStartKey(final String pageToken, final String serviceId,
+            final String userId) throws BadRequestException {
+        final Map<String, AttributeValue> exclusiveStartKey = toExclusiveStartKey(pageToken);
+        if (exclusiveStartKey == null) {
+            return null;
+        }
+
+        final String serviceUserId = String.format("%s|%s", serviceId, userId);
+        if (!exclusiveStartKey.keySet().equals(SERVICE_USER_HISTORY_KEY_ATTRIBUTE_NAMES)
+                || !serviceUserId.equals(exclusiveStartKey.get(SERVICE_USER_ID_ATTRIBUTE_NAME).s())) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+        return exclusiveStartKey;
+    }
+
+    /**
+     * Converts the page token held by a change feed position back into a ConsentHistoryByServiceUser GSI exclusive start key.
+     *
+     * Change feed positions hold the page token of the last record read while a read has more pages, see
+     * DynamoDbChangeFeedPosition, so it is validated as a service user history page token.
+     *
+     * @param watermark the page token held by the change feed position of a previous change feed page.
+     * @param serviceId service identifier of the change feed.
+     * @param userId user identifier of the change feed.
+     * @return the exclusive start key.
+     * @throws BadRequestException if the watermark is malformed or belongs to another service user.
+     */
+    public static Map<String, AttributeValue> toServiceUserChangesExclusiveStartKey(final String watermark, final String serviceId,
+            final String userId) throws BadRequestException {
+        final Map<String, AttributeValue> exclusiveStartKey;
+        try {
+            exclusiveStartKey = toServiceUserHistoryExclusiveStartKey(watermark, serviceId, userId);
+        } catch (final BadRequestException badRequestException) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, watermark));
+        }
+        if (exclusiveStartKey == null) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, watermark));
+        }
+        return exclusiveStartKey;
+    }
+}
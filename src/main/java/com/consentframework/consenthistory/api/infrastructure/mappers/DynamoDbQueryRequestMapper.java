@@ -0,0 +1,257 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapper for converting consent history lookups into DynamoDB query requests.
+ *
+ * Shared by the DynamoDB repository and the SnapStart primer, so that priming builds the same queries as requests do.
+ * Queries return the total read capacity they consumed, which is published with each request's metrics.  Every request
+ * builds at least one query, so built queries are only logged at debug level.
+ */
+public final class DynamoDbQueryRequestMapper {
+    private static final Logger logger = LogManager.getLogger(DynamoDbQueryRequestMapper.class);
+
+    /**
+     * Attributes read for the summary view, excluding the oldImage and newImage consent snapshots.
+     */
+    public static final List<String> SUMMARY_ATTRIBUTE_NAMES = List.of("id", "eventId", "eventTime", "eventType", "serviceUserId");
+
+    /**
+     * Builds a consent history table query for a given service user consent.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @return query request reading the consent's change events in ascending event time order
+     */
+    public static QueryEnhancedRequest toConsentHistoryQueryRequest(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        return toConsentHistoryQueryRequest(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Builds a consent history table query for a given service user consent, reading only the attributes of the view.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return query request reading the consent's change events in ascending event time order
+     */
+    public static QueryEnhancedRequest toConsentHistoryQueryRequest(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) {
+        return toConsentHistoryQueryRequest(serviceId, userId, consentId, null, eventTimeWindow, view);
+    }
+
+    /**
+     * Builds a consent history table query for a given service user consent, continuing after an exclusive start key
+     * and reading only the attributes of the view.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param exclusiveStartKey last evaluated key of the previously read page, or null to read from the first change event
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return query request reading the consent's change events in ascending event time order
+     */
+    public static QueryEnhancedRequest toConsentHistoryQueryRequest(final String serviceId, final String userId,
+            final String consentId, final Map<String, AttributeValue> exclusiveStartKey, final EventTimeWindow eventTimeWindow,
+            final ConsentHistoryView view) {
+        final String partitionKey = String.format("%s|%s|%s", serviceId, userId, consentId);
+        logger.debug("Built DDB query with partitionValue {}, eventTimeWindow {}, exclusiveStartKey {}, and view {}",
+            partitionKey, eventTimeWindow, exclusiveStartKey, view);
+
+        final QueryEnhancedRequest.Builder queryRequestBuilder = QueryEnhancedRequest.builder()
+            .queryConditional(toQueryConditional(partitionKey, eventTimeWindow))
+            .scanIndexForward(true)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .exclusiveStartKey(exclusiveStartKey);
+        return withProjection(queryRequestBuilder, view).build();
+    }
+
+    /**
+     * Builds a consent history table query for the change event with the largest sort key of a given service user consent.
+     *
+     * Event times omit zero seconds, so sort keys are only ordered by minute: the event read is in the latest minute,
+     * but is not necessarily the latest event of that minute.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     * @return query request reading a single change event in descending sort key order
+     */
+    public static QueryEnhancedRequest toLatestConsentChangeEventQueryRequest(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        final String partitionKey = String.format("%s|%s|%s", serviceId, userId, consentId);
+        logger.debug("Built DDB latest event query with partitionValue {} and eventTimeWindow {}", partitionKey, eventTimeWindow);
+
+        return QueryEnhancedRequest.builder()
+            .queryConditional(toQueryConditional(partitionKey, eventTimeWindow))
+            .scanIndexForward(false)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .limit(1)
+            .build();
+    }
+
+    /**
+     * Builds a consent history table query for every change event of a given service user consent in the minute of an event time.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTime event time within the minute to retrieve
+     * @return query request reading the consent's change events in the minute of the event time
+     */
+    public static QueryEnhancedRequest toConsentChangeEventsInMinuteQueryRequest(final String serviceId, final String userId,
+            final String consentId, final OffsetDateTime eventTime) {
+        final String partitionKey = String.format("%s|%s|%s", serviceId, userId, consentId);
+        logger.debug("Built DDB minute query with partitionValue {} and eventTime {}", partitionKey, eventTime);
+
+        return QueryEnhancedRequest.builder()
+            .queryConditional(QueryConditional.sortBetween(
+                toSortKey(partitionKey, DynamoDbEventTimeSortKeyMapper.toLowerBound(eventTime)),
+                toSortKey(partitionKey, DynamoDbEventTimeSortKeyMapper.toUpperBound(eventTime))))
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .build();
+    }
+
+    /**
+     * Builds a ConsentHistoryByServiceUser GSI query for a given service user.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param limit maximum number of records to read per page, or null for DynamoDB's default page size
+     * @param exclusiveStartKey last evaluated key of the previous page, or null to start from the first record
+     * @param eventTimeWindow range of event times to retrieve
+     * @return query request reading the service user's change events in ascending event time order
+     */
+    public static QueryEnhancedRequest toServiceUserHistoryQueryRequest(final String serviceId, final String userId,
+            final Integer limit, final Map<String, AttributeValue> exclusiveStartKey, final EventTimeWindow eventTimeWindow) {
+        return toServiceUserHistoryQueryRequest(serviceId, userId, limit, exclusiveStartKey, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Builds a ConsentHistoryByServiceUser GSI query for a given service user, reading only the attributes of the view.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param limit maximum number of records to read per page, or null for DynamoDB's default page size
+     * @param exclusiveStartKey last evaluated key of the previous page, or null to start from the first record
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return query request reading the service user's change events in ascending event time order
+     */
+    public static QueryEnhancedRequest toServiceUserHistoryQueryRequest(final String serviceId, final String userId,
+            final Integer limit, final Map<String, AttributeValue> exclusiveStartKey, final EventTimeWindow eventTimeWindow,
+            final ConsentHistoryView view) {
+        final String serviceUserId = String.format("%s|%s", serviceId, userId);
+        logger.debug("Built ConsentHistoryByServiceUser GSI query with partitionValue {}, eventTimeWindow {}, limit {}, "
+            + "exclusiveStartKey {}, and view {}", serviceUserId, eventTimeWindow, limit, exclusiveStartKey, view);
+
+        final QueryEnhancedRequest.Builder queryRequestBuilder = QueryEnhancedRequest.builder()
+            .queryConditional(toQueryConditional(serviceUserId, eventTimeWindow))
+            .scanIndexForward(true)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .limit(limit)
+            .exclusiveStartKey(exclusiveStartKey);
+        return withProjection(queryRequestBuilder, view).build();
+    }
+
+    /**
+     * Builds a ConsentHistoryByServiceUser GSI query for a given service user's change events from a change feed position.
+     *
+     * The eventTime sort key bound is widened to the enclosing minute, so callers filter out returned change events
+     * before the event time.  A read with more pages continues after its last record through the exclusive start key.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param limit maximum number of records to read, or null for DynamoDB's default page size
+     * @param since earliest event time to read change events from
+     * @param exclusiveStartKey GSI key of the last record read, or null to read from the start of since's minute
+     * @return query request reading the service user's change events in ascending event time order
+     */
+    public static QueryEnhancedRequest toServiceUserChangesQueryRequest(final String serviceId, final String userId,
+            final Integer limit, final OffsetDateTime since, final Map<String, AttributeValue> exclusiveStartKey) {
+        final String serviceUserId = String.format("%s|%s", serviceId, userId);
+        return toServiceUserChangesQueryRequest(serviceUserId, limit, exclusiveStartKey,
+            DynamoDbEventTimeSortKeyMapper.toLowerBound(since));
+    }
+
+    private static QueryEnhancedRequest toServiceUserChangesQueryRequest(final String serviceUserId, final Integer limit,
+            final Map<String, AttributeValue> exclusiveStartKey, final String sortKeyLowerBound) {
+        logger.debug("Built ConsentHistoryByServiceUser GSI changes query with partitionValue {}, sortKeyLowerBound {}, limit {}, "
+            + "and exclusiveStartKey {}", serviceUserId, sortKeyLowerBound, limit, exclusiveStartKey);
+
+        return QueryEnhancedRequest.builder()
+            .queryConditional(QueryConditional.sortGreaterThanOrEqualTo(toSortKey(serviceUserId, sortKeyLowerBound)))
+            .scanIndexForward(true)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .limit(limit)
+            .exclusiveStartKey(exclusiveStartKey)
+            .build();
+    }
+
+    /**
+     * Restrict the attributes read by a query to those of the view, so that DynamoDB does not return consent images
+     * for the summary view.  Read capacity is still consumed by item size, but fewer bytes are transferred and mapped.
+     *
+     * @param queryRequestBuilder query request builder
+     * @param view consent history representation to retrieve
+     * @return the query request builder
+     */
+    private static QueryEnhancedRequest.Builder withProjection(final QueryEnhancedRequest.Builder queryRequestBuilder,
+            final ConsentHistoryView view) {
+        if (view == ConsentHistoryView.SUMMARY) {
+            queryRequestBuilder.attributesToProject(SUMMARY_ATTRIBUTE_NAMES);
+        }
+        return queryRequestBuilder;
+    }
+
+    /**
+     * Build a query conditional matching the partition key, restricted by eventTime sort key bounds if the window is bounded.
+     *
+     * @param partitionValue partition key value
+     * @param eventTimeWindow range of event times to retrieve
+     * @return query conditional
+     */
+    private static QueryConditional toQueryConditional(final String partitionValue, final EventTimeWindow eventTimeWindow) {
+        if (eventTimeWindow.since() != null && eventTimeWindow.until() != null) {
+            return QueryConditional.sortBetween(
+                toSortKey(partitionValue, DynamoDbEventTimeSortKeyMapper.toLowerBound(eventTimeWindow.since())),
+                toSortKey(partitionValue, DynamoDbEventTimeSortKeyMapper.toUpperBound(eventTimeWindow.until())));
+        }
+        if (eventTimeWindow.since() != null) {
+            return QueryConditional.sortGreaterThanOrEqualTo(
+                toSortKey(partitionValue, DynamoDbEventTimeSortKeyMapper.toLowerBound(eventTimeWindow.since())));
+        }
+        if (eventTimeWindow.until() != null) {
+            return QueryConditional.sortLessThanOrEqualTo(
+                toSortKey(partitionValue, DynamoDbEventTimeSortKeyMapper.toUpperBound(eventTimeWindow.until())));
+        }
+        return QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionValue).build());
+    }
+
+    private static Key toSortKey(final String partitionValue, final String sortValue) {
+        return Key.builder()
+            .partitionValue(partitionValue)
+            .sortValue(sortValue)
+            .build();
+    }
+}
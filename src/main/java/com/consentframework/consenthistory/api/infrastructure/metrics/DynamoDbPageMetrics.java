@@ -0,0 +1,56 @@
+package com.consentframework.consenthistory.api.infrastructure.metrics;
+
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Records DynamoDB query result pages into the current request's metrics as they are read.
+ */
+public final class DynamoDbPageMetrics {
+    private DynamoDbPageMetrics() {}
+
+    /**
+     * Wrap a lazily read stream of query result pages, recording each page's item count, consumed read capacity, and the time
+     * spent waiting for it into the current request's metrics when it is read.
+     *
+     * @param pages query result pages, read from DynamoDB as the stream is consumed
+     * @param <T> item type
+     * @return stream of the same pages
+     */
+    public static <T> Stream<Page<T>> recording(final Stream<Page<T>> pages) {
+        final Iterator<Page<T>> pageIterator = pages.iterator();
+        final Iterator<Page<T>> recordingIterator = new Iterator<>() {
+            private long readNanos;
+
+            @Override
+            public boolean hasNext() {
+                final long startNanos = System.nanoTime();
+                final boolean hasNext = pageIterator.hasNext();
+                readNanos += System.nanoTime() - startNanos;
+                return hasNext;
+            }
+
+            @Override
+            public Page<T> next() {
+                final long startNanos = System.nanoTime();
+                final Page<T> page = pageIterator.next();
+                final long pageReadNanos = readNanos + System.nanoTime() - startNanos;
+                readNanos = 0;
+
+                final ConsumedCapacity consumedCapacity = page.consumedCapacity();
+                RequestMetrics.current().addDynamoDbPage(page.items().size(),
+                    consumedCapacity == null ? null : consumedCapacity.capacityUnits(), pageReadNanos);
+                return page;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(recordingIterator, Spliterator.ORDERED), false)
+            .onClose(pages::close);
+    }
+}
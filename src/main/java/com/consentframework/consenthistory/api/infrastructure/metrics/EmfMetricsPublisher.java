@@ -0,0 +1,142 @@
+package com.consentframework.consenthistory.api.infrastructure.metrics;
+
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a request's metrics as a single CloudWatch Embedded Metric Format log line.
+ *
+ * Lambda forwards standard output to CloudWatch Logs, which extracts metrics from EMF log lines, so publishing a request's
+ * metrics is one write at the end of the invocation rather than a call to CloudWatch per metric.  Metrics are dimensioned
+ * by route and by route and status code.
+ */
+public class EmfMetricsPublisher {
+    static final String ROUTE_DIMENSION = "Route";
+    static final String STATUS_CODE_DIMENSION = "StatusCode";
+    static final String LATENCY_METRIC = "Latency";
+    static final String REPOSITORY_LATENCY_METRIC = "RepositoryLatency";
+    static final String DYNAMODB_READ_LATENCY_METRIC = "DynamoDbReadLatency";
+    static final String MAPPING_LATENCY_METRIC = "MappingLatency";
+    static final String SERIALIZATION_LATENCY_METRIC = "SerializationLatency";
+    static final String DYNAMODB_PAGES_METRIC = "DynamoDbPages";
+    static final String DYNAMODB_ITEMS_METRIC = "DynamoDbItems";
+    static final String CONSUMED_READ_CAPACITY_UNITS_METRIC = "ConsumedReadCapacityUnits";
+    static final String PARTIAL_RESULTS_METRIC = "PartialResults";
+
+    private static final String MILLISECONDS_UNIT = "Milliseconds";
+    private static final String COUNT_UNIT = "Count";
+    private static final String[][] METRIC_DEFINITIONS = {
+        {LATENCY_METRIC, MILLISECONDS_UNIT},
+        {REPOSITORY_LATENCY_METRIC, MILLISECONDS_UNIT},
+        {DYNAMODB_READ_LATENCY_METRIC, MILLISECONDS_UNIT},
+        {MAPPING_LATENCY_METRIC, MILLISECONDS_UNIT},
+        {SERIALIZATION_LATENCY_METRIC, MILLISECONDS_UNIT},
+        {DYNAMODB_PAGES_METRIC, COUNT_UNIT},
+        {DYNAMODB_ITEMS_METRIC, COUNT_UNIT},
+        {CONSUMED_READ_CAPACITY_UNITS_METRIC, COUNT_UNIT},
+        {PARTIAL_RESULTS_METRIC, COUNT_UNIT}
+    };
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final MetricsConfiguration configuration;
+    private final PrintStream output;
+    private final Clock clock;
+
+    /**
+     * Construct the metrics publisher, writing to standard output.
+     *
+     * @param configuration metrics configuration
+     */
+    public EmfMetricsPublisher(final MetricsConfiguration configuration) {
+        this(configuration, System.out, Clock.systemUTC());
+    }
+
+    /**
+     * Construct the metrics publisher with a custom output and time source.
+     *
+     * @param configuration metrics configuration
+     * @param output stream EMF log lines are written to
+     * @param clock time source of the metrics' timestamp
+     */
+    EmfMetricsPublisher(final MetricsConfiguration configuration, final PrintStream output, final Clock clock) {
+        this.configuration = configuration;
+        this.output = output;
+        this.clock = clock;
+    }
+
+    /**
+     * Publish a request's metrics if metrics are enabled.
+     *
+     * @param route API resource of the request, eg. /v1/consent-history/services/{serviceId}/users/{userId}/consents
+     * @param statusCode response status code
+     * @param latencyNanos time spent handling the request in nanoseconds
+     * @param requestMetrics metrics recorded while handling the request
+     */
+    public void publish(final String route, final int statusCode, final long latencyNanos, final RequestMetrics requestMetrics) {
+        if (!configuration.enabled()) {
+            return;
+        }
+        output.println(toEmfLogLine(route, statusCode, latencyNanos, requestMetrics));
+    }
+
+    String toEmfLogLine(final String route, final int statusCode, final long latencyNanos, final RequestMetrics requestMetrics) {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.writeStartObject();
+            writeMetadata(generator);
+            generator.writeStringField(ROUTE_DIMENSION, String.valueOf(route));
+            generator.writeStringField(STATUS_CODE_DIMENSION, String.valueOf(statusCode));
+            generator.writeNumberField(LATENCY_METRIC, toMillis(latencyNanos));
+            generator.writeNumberField(REPOSITORY_LATENCY_METRIC, toMillis(requestMetrics.repositoryNanos()));
+            generator.writeNumberField(DYNAMODB_READ_LATENCY_METRIC, toMillis(requestMetrics.dynamoDbReadNanos()));
+            generator.writeNumberField(MAPPING_LATENCY_METRIC, toMillis(requestMetrics.mappingNanos()));
+            generator.writeNumberField(SERIALIZATION_LATENCY_METRIC, toMillis(requestMetrics.serializationNanos()));
+            generator.writeNumberField(DYNAMODB_PAGES_METRIC, requestMetrics.dynamoDbPageCount());
+            generator.writeNumberField(DYNAMODB_ITEMS_METRIC, requestMetrics.dynamoDbItemCount());
+            generator.writeNumberField(CONSUMED_READ_CAPACITY_UNITS_METRIC, requestMetrics.consumedReadCapacityUnits());
+            generator.writeNumberField(PARTIAL_RESULTS_METRIC, requestMetrics.partialResult() ? 1 : 0);
+            generator.writeEndObject();
+        } catch (final IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+        return writer.toString();
+    }
+
+    private void writeMetadata(final JsonGenerator generator) throws IOException {
+        generator.writeObjectFieldStart("_aws");
+        generator.writeNumberField("Timestamp", clock.millis());
+        generator.writeArrayFieldStart("CloudWatchMetrics");
+        generator.writeStartObject();
+        generator.writeStringField("Namespace", configuration.namespace());
+
+        generator.writeArrayFieldStart("Dimensions");
+        generator.writeArray(new String[] {ROUTE_DIMENSION}, 0, 1);
+        generator.writeArray(new String[] {ROUTE_DIMENSION, STATUS_CODE_DIMENSION}, 0, 2);
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("Metrics");
+        for (final String[] metricDefinition : METRIC_DEFINITIONS) {
+            generator.writeStartObject();
+            generator.writeStringField("Name", metricDefinition[0]);
+            generator.writeStringField("Unit", metricDefinition[1]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static double toMillis(final long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,33 @@
+package com.consentframework.consenthistory.api.infrastructure.metrics;
+
+import java.util.Map;
+
+/**
+ * Configuration for publishing per-request metrics in CloudWatch Embedded Metric Format.
+ *
+ * @param enabled whether metrics are published
+ * @param namespace CloudWatch namespace the metrics are published to
+ */
+public record MetricsConfiguration(boolean enabled, String namespace) {
+    public static final String ENABLED_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_METRICS_ENABLED";
+    public static final String NAMESPACE_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_METRICS_NAMESPACE";
+
+    public static final String DEFAULT_NAMESPACE = "ConsentHistoryApi";
+    public static final MetricsConfiguration DISABLED = new MetricsConfiguration(false, DEFAULT_NAMESPACE);
+
+    /**
+     * Parse the metrics configuration from environment variables, metrics are disabled unless explicitly enabled.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return metrics configuration
+     */
+    public static MetricsConfiguration fromEnvironment(final Map<String, String> environment) {
+        final boolean enabled = Boolean.parseBoolean(environment.get(ENABLED_ENVIRONMENT_VARIABLE));
+        if (!enabled) {
+            return DISABLED;
+        }
+
+        final String namespace = environment.get(NAMESPACE_ENVIRONMENT_VARIABLE);
+        return new MetricsConfiguration(true, namespace == null || namespace.isBlank() ? DEFAULT_NAMESPACE : namespace);
+    }
+}
@@ -0,0 +1,229 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.caches.ConsentHistoryCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.caches.ConsentHistorySizeEstimator;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through caching decorator for a ServiceUserConsentHistory repository.
+ *
+ * Results are cached for a fixed time-to-live after being read, and least recently used results are evicted
+ * once the estimated size of all cached results exceeds the configured byte budget.  Only successful reads
+ * are cached, so a consent is visible as soon as its first change event is readable from the underlying repository,
+ * while new change events for an already cached consent are visible at most one time-to-live later.
+ */
+public class CachingServiceUserConsentHistoryRepository implements ServiceUserConsentHistoryRepository {
+    private final ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private final Cache<CacheKey, Object> cache;
+
+    /**
+     * Construct the caching consent history repository.
+     *
+     * @param consentHistoryRepository repository to read through to on cache misses
+     * @param cacheConfiguration cache time-to-live and size configuration
+     */
+    public CachingServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ConsentHistoryCacheConfiguration cacheConfiguration) {
+        this(consentHistoryRepository, cacheConfiguration, Ticker.systemTicker());
+    }
+
+    /**
+     * Construct the caching consent history repository with a custom time source.
+     *
+     * @param consentHistoryRepository repository to read through to on cache misses
+     * @param cacheConfiguration cache time-to-live and size configuration
+     * @param ticker time source used to expire cached results
+     */
+    CachingServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ConsentHistoryCacheConfiguration cacheConfiguration, final Ticker ticker) {
+        this.consentHistoryRepository = consentHistoryRepository;
+        this.cache = CacheBuilder.newBuilder()
+            .expireAfterWrite(cacheConfiguration.timeToLive())
+            .maximumWeight(cacheConfiguration.maximumSizeBytes())
+            .weigher(CachingServiceUserConsentHistoryRepository::weigh)
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Retrieve the latest change event for a given service user consent within an event time window.
+     *
+     * The latest event is used to detect changes to cached results, so it is always read from the underlying repository.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     */
+    @Override
+    public Optional<ConsentChangeEvent> getLatestConsentChangeEvent(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        return consentHistoryRepository.getLatestConsentChangeEvent(serviceId, userId, consentId, eventTimeWindow);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window, from the cache if present.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+        return getConsentHistory(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view,
+     * from the cache if present.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+        final CacheKey cacheKey = new ConsentHistoryKey(serviceId, userId, consentId, eventTimeWindow.normalized(), view);
+        final List<ConsentChangeEvent> cachedConsentHistory = (List<ConsentChangeEvent>) cache.getIfPresent(cacheKey);
+        if (cachedConsentHistory != null) {
+            return cachedConsentHistory;
+        }
+
+        final List<ConsentChangeEvent> consentHistory = consentHistoryRepository.getConsentHistory(serviceId, userId, consentId,
+            eventTimeWindow, view);
+        cache.put(cacheKey, consentHistory);
+        return consentHistory;
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view, continuing from
+     * a page token returned with a previous partial result, from the cache if the full history is cached.
+     *
+     * Only complete results are cached, since a partial result depends on how far its request read before its deadline,
+     * and continuations of partial results are always read from the underlying repository.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ListPage<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, ResourceNotFoundException {
+        if (pageToken != null) {
+            return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, pageToken, eventTimeWindow, view);
+        }
+
+        final CacheKey cacheKey = new ConsentHistoryKey(serviceId, userId, consentId, eventTimeWindow.normalized(), view);
+        final List<ConsentChangeEvent> cachedConsentHistory = (List<ConsentChangeEvent>) cache.getIfPresent(cacheKey);
+        if (cachedConsentHistory != null) {
+            return new ListPage<>(cachedConsentHistory, Optional.empty());
+        }
+
+        final ListPage<ConsentChangeEvent> consentHistory = consentHistoryRepository.getConsentHistory(serviceId, userId, consentId,
+            null, eventTimeWindow, view);
+        if (consentHistory.nextPageToken().isEmpty()) {
+            cache.put(cacheKey, consentHistory.resultsOnPage());
+        }
+        return consentHistory;
+    }
+
+    /**
+     * Retrieve history for a given service user, in full or a single page of it, from the cache if present.
+     *
+     * Results of budgeted queries are not cached, as where they end depends on the budget of the request reading them.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the service user within the event time window
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+        if (query.isBudgeted()) {
+            return consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+        }
+
+        final CacheKey cacheKey = new ServiceUserHistoryKey(serviceId, userId, query.normalized());
+        final ListPage<ConsentHistory> cachedPage = (ListPage<ConsentHistory>) cache.getIfPresent(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        final ListPage<ConsentHistory> page = consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+        cache.put(cacheKey, page);
+        return page;
+    }
+
+    /**
+     * Retrieve a single page of the change events of a given service user after a watermark.
+     *
+     * Change feed pages are not cached, as a feed is read to pick up change events written since its previous read.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for the data store's default page size
+     * @throws BadRequestException if the watermark is invalid
+     */
+    @Override
+    public ChangeFeedPage getServiceUserChanges(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        return consentHistoryRepository.getServiceUserChanges(serviceId, userId, after, limit);
+    }
+
+    /**
+     * Retrieve cache hit, miss, and eviction counts since the cache was created.
+     *
+     * @return cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static int weigh(final CacheKey cacheKey, final Object result) {
+        return (int) Math.min(Integer.MAX_VALUE, ConsentHistorySizeEstimator.estimateSizeBytes(result));
+    }
+
+    private sealed interface CacheKey permits ConsentHistoryKey, ServiceUserHistoryKey {}
+
+    private record ConsentHistoryKey(String serviceId, String userId, String consentId, EventTimeWindow eventTimeWindow,
+        ConsentHistoryView view) implements CacheKey {}
+
+    private record ServiceUserHistoryKey(String serviceId, String userId, ServiceUserHistoryQuery query) implements CacheKey {}
+}
@@ -0,0 +1,199 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestDeadline;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.SingleFlight;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Decorator for a ServiceUserConsentHistory repository which coalesces concurrent identical queries into a single query.
+ *
+ * Callers issuing a query while an identical query is in flight wait for and share its result, including
+ * not-found and bad request errors, instead of querying the underlying repository again.  Queries are identical
+ * when they have the same arguments, with event time windows compared by instant rather than by offset.
+ */
+public class CoalescingServiceUserConsentHistoryRepository implements ServiceUserConsentHistoryRepository {
+    private final ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private final SingleFlight<QueryKey, Object> inFlightQueries = new SingleFlight<>();
+
+    /**
+     * Construct the coalescing consent history repository.
+     *
+     * @param consentHistoryRepository repository to query
+     */
+    public CoalescingServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository) {
+        this.consentHistoryRepository = consentHistoryRepository;
+    }
+
+    /**
+     * Retrieve the latest change event for a given service user consent within an event time window,
+     * sharing any identical in-flight query.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<ConsentChangeEvent> getLatestConsentChangeEvent(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        final QueryKey queryKey = new LatestConsentChangeEventKey(serviceId, userId, consentId, eventTimeWindow.normalized());
+        try {
+            return (Optional<ConsentChangeEvent>) call(queryKey,
+                () -> consentHistoryRepository.getLatestConsentChangeEvent(serviceId, userId, consentId, eventTimeWindow));
+        } catch (final BadRequestException | ResourceNotFoundException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window, sharing any identical in-flight query.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+        return getConsentHistory(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view,
+     * sharing any identical in-flight query.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+        final QueryKey queryKey = new ConsentHistoryKey(serviceId, userId, consentId, eventTimeWindow.normalized(), view);
+        try {
+            return (List<ConsentChangeEvent>) call(queryKey,
+                () -> consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, eventTimeWindow, view));
+        } catch (final BadRequestException badRequestException) {
+            throw new IllegalStateException(badRequestException);
+        }
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view, continuing from
+     * a page token returned with a previous partial result.
+     *
+     * Reads from the start of the history without a request deadline read the full history, and share any identical in-flight
+     * query.  Other reads may return a partial result and are not shared, since how far each reads depends on its own request's
+     * deadline.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public ListPage<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, ResourceNotFoundException {
+        if (pageToken == null && !RequestDeadline.current().isBounded()) {
+            return new ListPage<>(getConsentHistory(serviceId, userId, consentId, eventTimeWindow, view), Optional.empty());
+        }
+        return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, pageToken, eventTimeWindow, view);
+    }
+
+    /**
+     * Retrieve history for a given service user, in full or a single page of it, sharing any identical in-flight query.
+     *
+     * Budgeted queries are not shared with identical in-flight queries, as each is bounded by its own request's budget.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the service user within the event time window
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+        if (query.isBudgeted()) {
+            return consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+        }
+        return (ListPage<ConsentHistory>) call(new ServiceUserHistoryKey(serviceId, userId, query.normalized()),
+            () -> consentHistoryRepository.getServiceUserHistory(serviceId, userId, query));
+    }
+
+    /**
+     * Retrieve a single page of the change events of a given service user after a watermark.
+     *
+     * Change feed reads are not shared with identical in-flight queries, as a feed is read to pick up the latest change events.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for the data store's default page size
+     * @throws BadRequestException if the watermark is invalid
+     */
+    @Override
+    public ChangeFeedPage getServiceUserChanges(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        return consentHistoryRepository.getServiceUserChanges(serviceId, userId, after, limit);
+    }
+
+    /**
+     * Return the number of queries which shared the result of an identical in-flight query.
+     *
+     * @return number of coalesced queries
+     */
+    public long coalescedQueryCount() {
+        return inFlightQueries.coalescedCallCount();
+    }
+
+    private Object call(final QueryKey queryKey, final Callable<Object> query) throws BadRequestException, ResourceNotFoundException {
+        try {
+            return inFlightQueries.call(queryKey, query);
+        } catch (final BadRequestException | ResourceNotFoundException | RuntimeException exception) {
+            throw exception;
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(interruptedException);
+        } catch (final Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private sealed interface QueryKey permits ConsentHistoryKey, LatestConsentChangeEventKey, ServiceUserHistoryKey {}
+
+    private record ConsentHistoryKey(String serviceId, String userId, String consentId, EventTimeWindow eventTimeWindow,
+        ConsentHistoryView view) implements QueryKey {}
+
+    private record LatestConsentChangeEventKey(String serviceId, String userId, String consentId, EventTimeWindow eventTimeWindow)
+        implements QueryKey {}
+
+    private record ServiceUserHistoryKey(String serviceId, String userId, ServiceUserHistoryQuery query) implements QueryKey {}
+}
@@ -1,36 +1,71 @@
 package com.consentframework.consenthistory.api.infrastructure.repositories;
 
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestDeadline;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
-import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentChangeEventMapper;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.PagePrefetchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.Prefetcher;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbChangeFeedPosition;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbEventTimeParser;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbPageTokenMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbQueryRequestMapper;
+import com.consentframework.consenthistory.api.infrastructure.metrics.DynamoDbPageMetrics;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.google.common.base.Suppliers;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.awssdk.core.pagination.sync.SdkIterable;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * DynamoDB implementation of the ServiceUserConsentHistory repository.
+ *
+ * Time spent in each query, and the pages, items, and read capacity each query reads, are recorded into the current
+ * request's metrics.
+ *
+ * Reads of every page of a query's results can prefetch the next pages in the background while the current page is mapped,
+ * so that a multi-page history takes about the longer of its page fetches and its mapping rather than their sum.
+ *
+ * Reads of a consent's history which may return a partial result stop paging once the current request's deadline has passed,
+ * so that a very long history is returned in parts rather than running the request into its timeout.
+ *
+ * Reads of a service user's history given a budget end at the last change event the budget accepts, continuing the next
+ * page from that change event's record rather than from the end of the query's page.
+ *
+ * Reads of a service user's change feed query only the records after the watermark, bounding the GSI's eventTime sort key
+ * from below, and return the key of the last record read as the next watermark.
  */
 public class DynamoDbServiceUserConsentHistoryRepository implements ServiceUserConsentHistoryRepository {
     private static final Logger logger = LogManager.getLogger(DynamoDbServiceUserConsentHistoryRepository.class);
 
-    private final DynamoDbTable<DynamoDbConsentHistory> consentHistoryTable;
+    private final Supplier<DynamoDbTable<DynamoDbConsentHistory>> consentHistoryTable;
+    private final PagePrefetchConfiguration pagePrefetchConfiguration;
 
     /**
      * Construct the DynamoDB consent history repository.
@@ -38,139 +73,339 @@ public class DynamoDbServiceUserConsentHistoryRepository implements ServiceUserC
      * @param consentHistoryTable DynamoDB table storing consent history records.
      */
     public DynamoDbServiceUserConsentHistoryRepository(final DynamoDbTable<DynamoDbConsentHistory> consentHistoryTable) {
-        this.consentHistoryTable = consentHistoryTable;
+        this(consentHistoryTable, PagePrefetchConfiguration.DISABLED);
     }
 
     /**
-     * Retrieve history for a given service user consent.
+     * Construct the DynamoDB consent history repository with page prefetching.
+     *
+     * @param consentHistoryTable DynamoDB table storing consent history records.
+     * @param pagePrefetchConfiguration whether, and how many, query result pages are fetched ahead of the page being mapped
+     */
+    public DynamoDbServiceUserConsentHistoryRepository(final DynamoDbTable<DynamoDbConsentHistory> consentHistoryTable,
+            final PagePrefetchConfiguration pagePrefetchConfiguration) {
+        this.consentHistoryTable = () -> consentHistoryTable;
+        this.pagePrefetchConfiguration = pagePrefetchConfiguration;
+    }
+
+    /**
+     * Construct the DynamoDB consent history repository, creating the table and its client on first use rather than
+     * up front, so that constructing the repository does not add the DynamoDB client's initialization to cold start.
+     *
+     * @param consentHistoryTableFactory creates the DynamoDB table storing consent history records, called at most once
+     */
+    public DynamoDbServiceUserConsentHistoryRepository(
+            final Supplier<DynamoDbTable<DynamoDbConsentHistory>> consentHistoryTableFactory) {
+        this(consentHistoryTableFactory, PagePrefetchConfiguration.DISABLED);
+    }
+
+    /**
+     * Construct the DynamoDB consent history repository with page prefetching, creating the table and its client on first use.
+     *
+     * @param consentHistoryTableFactory creates the DynamoDB table storing consent history records, called at most once
+     * @param pagePrefetchConfiguration whether, and how many, query result pages are fetched ahead of the page being mapped
+     */
+    public DynamoDbServiceUserConsentHistoryRepository(
+            final Supplier<DynamoDbTable<DynamoDbConsentHistory>> consentHistoryTableFactory,
+            final PagePrefetchConfiguration pagePrefetchConfiguration) {
+        this.consentHistoryTable = Suppliers.memoize(consentHistoryTableFactory::get);
+        this.pagePrefetchConfiguration = pagePrefetchConfiguration;
+    }
+
+    /**
+     * Create the DynamoDB table and its client if not yet created, eg. to initialize them before a SnapStart snapshot.
+     */
+    public void initialize() {
+        consentHistoryTable.get();
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window.
      *
      * @param serviceId service identifier
      * @param userId user identifier
      * @param consentId consent ID, specific to the service-user pair
-     * @throws ResourceNotFoundException if no history is found for the given service-user-consent ID
+     * @param eventTimeWindow range of event times to retrieve
+     * @throws ResourceNotFoundException if no history is found for the given service-user-consent ID and event time window
      */
     @Override
-    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId)
-            throws ResourceNotFoundException {
-        final QueryEnhancedRequest queryRequest = buildGetConsentHistoryQueryRequest(serviceId, userId, consentId);
-        final PageIterable<DynamoDbConsentHistory> queryResults = consentHistoryTable.query(queryRequest);
-        if (queryResults == null) {
-            throwNotFoundError(serviceId, userId, consentId);
-        }
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+        return getConsentHistory(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window, reading only the attributes of the view.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws ResourceNotFoundException if no history is found for the given service-user-consent ID and event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+        final long startNanos = System.nanoTime();
+        try {
+            final QueryEnhancedRequest queryRequest = DynamoDbQueryRequestMapper.toConsentHistoryQueryRequest(serviceId, userId,
+                consentId, eventTimeWindow, view);
+            final PageIterable<DynamoDbConsentHistory> queryResults = consentHistoryTable.get().query(queryRequest);
+            if (queryResults == null) {
+                throwNotFoundError(serviceId, userId, consentId);
+            }
 
-        final List<ConsentChangeEvent> consentHistoryRecords = parseConsentHistoryRecords(queryResults).toList();
-        if (consentHistoryRecords.isEmpty()) {
-            throwNotFoundError(serviceId, userId, consentId);
+            final List<ConsentChangeEvent> consentHistoryRecords;
+            try (Stream<Page<DynamoDbConsentHistory>> pages = allPages(queryResults)) {
+                consentHistoryRecords = DynamoDbConsentHistoryMapper.toConsentChangeEvents(
+                    pages.flatMap(page -> page.items().stream()), eventTimeWindow).toList();
+            }
+            if (consentHistoryRecords.isEmpty()) {
+                throwNotFoundError(serviceId, userId, consentId);
+            }
+            return consentHistoryRecords;
+        } finally {
+            recordRepositoryTime(startNanos);
         }
-        return consentHistoryRecords;
     }
 
     /**
-     * Retrieve history for a given service user.
+     * Retrieve history for a given service user consent within an event time window in the requested view, stopping once
+     * the current request's deadline has passed.
+     *
+     * Pages are read until the consent's history is exhausted or the deadline has passed, in which case the change events
+     * read so far are returned with a page token to continue from the following page.  At least one page is read,
+     * so every continuation makes progress.
      *
      * @param serviceId service identifier
      * @param userId user identifier
-     * @throws ResourceNotFoundException if no history is found for the given service user
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the given service-user-consent ID and event time window
      */
     @Override
-    public List<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId) throws ResourceNotFoundException {
-        final QueryEnhancedRequest queryRequest = buildGetConsentHistoryByServiceUserQueryRequest(serviceId, userId);
-        final SdkIterable<Page<DynamoDbConsentHistory>> queryResults = consentHistoryTable
-            .index(DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME)
-            .query(queryRequest);
+    public ListPage<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, ResourceNotFoundException {
+        final long startNanos = System.nanoTime();
+        try {
+            final Map<String, AttributeValue> exclusiveStartKey = DynamoDbPageTokenMapper.toConsentHistoryExclusiveStartKey(pageToken,
+                serviceId, userId, consentId);
+            final QueryEnhancedRequest queryRequest = DynamoDbQueryRequestMapper.toConsentHistoryQueryRequest(serviceId, userId,
+                consentId, exclusiveStartKey, eventTimeWindow, view);
+            final PageIterable<DynamoDbConsentHistory> queryResults = consentHistoryTable.get().query(queryRequest);
+            if (queryResults == null) {
+                throwNotFoundError(serviceId, userId, consentId);
+            }
 
-        final Map<String, List<ConsentChangeEvent>> consentHistoryByConsentId = parseConsentIdsToChangeEvents(
-            serviceId, userId, queryResults);
+            final List<ConsentChangeEvent> consentHistoryRecords;
+            final DeadlineBoundPages deadlineBoundPages;
+            try (Stream<Page<DynamoDbConsentHistory>> pages = allPages(queryResults)) {
+                deadlineBoundPages = new DeadlineBoundPages(pages.iterator(), RequestDeadline.current());
+                consentHistoryRecords = DynamoDbConsentHistoryMapper.toConsentChangeEvents(
+                    deadlineBoundPages.stream().flatMap(page -> page.items().stream()), eventTimeWindow).toList();
+            }
 
-        final List<ConsentHistory> consentHistories = consentHistoryByConsentId.entrySet()
-            .stream()
-            .map(this::parseConsentHistory)
-            .collect(Collectors.toList());
+            // A continuation may legitimately be empty, eg. if the previous result ended on the last change event
+            if (consentHistoryRecords.isEmpty() && pageToken == null) {
+                throwNotFoundError(serviceId, userId, consentId);
+            }
 
-        logger.info("getConsentHistory({}, {}) retrieved {} consent histories",
-            serviceId, userId, consentHistories.size());
-        if (consentHistories.isEmpty()) {
-            throwNotFoundError(serviceId, userId);
+            final String nextPageToken = DynamoDbPageTokenMapper.toPageToken(deadlineBoundPages.continuationKey());
+            if (nextPageToken != null) {
+                logger.warn("getConsentHistory({}, {}, {}) reached the request deadline after {} change events, "
+                    + "returning a partial result", serviceId, userId, consentId, consentHistoryRecords.size());
+                RequestMetrics.current().recordPartialResult();
+            }
+            return new ListPage<>(consentHistoryRecords, Optional.ofNullable(nextPageToken));
+        } finally {
+            recordRepositoryTime(startNanos);
         }
-        return consentHistories;
     }
 
     /**
-     * Parse consent history query results into a map of consent IDs to consent change events.
+     * Retrieve the latest change event for a given service user consent within an event time window.
      *
-     * @param queryResults ConsentHistory DynamoDB query results
-     * @return Map of consent ID to list of consent change events
-     * @throws ResourceNotFoundException if no history was found for the given service user
+     * Event times omit zero seconds, so sort keys only order records by minute.  Reads the record with the largest sort key,
+     * querying the consent's partition in descending order with a limit of one, to find the latest minute, then reads every
+     * record of that minute and returns the one with the latest instant.  Since the eventTime sort key bounds are widened
+     * to whole minutes, the latest minute's records may all fall outside the window, in which case no event is returned.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
      */
-    private Map<String, List<ConsentChangeEvent>> parseConsentIdsToChangeEvents(final String serviceId, final String userId,
-            final SdkIterable<Page<DynamoDbConsentHistory>> queryResults) throws ResourceNotFoundException {
-        if (queryResults == null) {
-            throwNotFoundError(serviceId, userId);
+    @Override
+    public Optional<ConsentChangeEvent> getLatestConsentChangeEvent(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        final long startNanos = System.nanoTime();
+        try {
+            final QueryEnhancedRequest queryRequest = DynamoDbQueryRequestMapper.toLatestConsentChangeEventQueryRequest(serviceId,
+                userId, consentId, eventTimeWindow);
+            final PageIterable<DynamoDbConsentHistory> queryResults = consentHistoryTable.get().query(queryRequest);
+            if (queryResults == null) {
+                return Optional.empty();
+            }
+
+            final Optional<DynamoDbConsentHistory> lastSortedRecord = recordingPages(queryResults)
+                .findFirst()
+                .flatMap(page -> page.items().stream().findFirst());
+            if (lastSortedRecord.isEmpty()) {
+                return Optional.empty();
+            }
+
+            final QueryEnhancedRequest minuteQueryRequest = DynamoDbQueryRequestMapper.toConsentChangeEventsInMinuteQueryRequest(
+                serviceId, userId, consentId, DynamoDbEventTimeParser.parse(lastSortedRecord.get().eventTime()));
+            final PageIterable<DynamoDbConsentHistory> minuteQueryResults = consentHistoryTable.get().query(minuteQueryRequest);
+            try (Stream<Page<DynamoDbConsentHistory>> latestMinutePages = allPages(minuteQueryResults)) {
+                return DynamoDbConsentHistoryMapper.toLatestConsentChangeEvent(
+                    latestMinutePages.flatMap(page -> page.items().stream()), eventTimeWindow);
+            }
+        } finally {
+            recordRepositoryTime(startNanos);
         }
+    }
 
-        final Map<String, List<ConsentChangeEvent>> consentHistoryByConsentId = new HashMap<>();
+    /**
+     * Retrieve history for a given service user, in full or a single page of it, reading only the attributes of the view
+     * and ending the result at the last change event the budget accepts.
+     *
+     * A page is read as a single page of the ConsentHistoryByServiceUser GSI, subsequent pages are retrieved by passing
+     * the returned page token back as the query's exclusive start key.  If the budget rejects a change event, the result
+     * ends with the change event before it, and the returned page token continues from the record of that change event,
+     * so the next page starts with the rejected change event.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the given service user and event time window
+     */
+    @Override
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+        final long startNanos = System.nanoTime();
+        try {
+            final Map<String, AttributeValue> exclusiveStartKey = DynamoDbPageTokenMapper.toServiceUserHistoryExclusiveStartKey(
+                query.pageToken(), serviceId, userId);
+            final QueryEnhancedRequest queryRequest = DynamoDbQueryRequestMapper.toServiceUserHistoryQueryRequest(serviceId, userId,
+                query.limit(), exclusiveStartKey, query.eventTimeWindow(), query.view());
+            final SdkIterable<Page<DynamoDbConsentHistory>> queryResults = queryConsentHistoryByServiceUser(queryRequest);
 
-        final Stream<ConsentChangeEvent> consentHistoryRecords = parseConsentHistoryRecords(queryResults);
-        consentHistoryRecords.forEach(consentChangeEvent -> {
-            final String consentId = consentChangeEvent.getConsentId();
-            logger.info("getConsentHistory({}, {}) retrieved consent change event with consentId: {}, eventId: {}",
-                serviceId, userId, consentId, consentChangeEvent.getEventId());
-            if (consentHistoryByConsentId.containsKey(consentId)) {
-                consentHistoryByConsentId.get(consentId).add(consentChangeEvent);
+            final BudgetedRecords budgetedRecords = new BudgetedRecords(query.budget());
+            final List<ConsentHistory> consentHistories;
+            Map<String, AttributeValue> lastEvaluatedKey = null;
+            if (queryResults == null) {
+                consentHistories = List.of();
+            } else if (query.isPaged()) {
+                final Optional<Page<DynamoDbConsentHistory>> queryResultsPage = recordingPages(queryResults).findFirst();
+                lastEvaluatedKey = queryResultsPage.map(Page::lastEvaluatedKey).orElse(null);
+                consentHistories = DynamoDbConsentHistoryMapper.toConsentHistories(serviceId, userId, budgetedRecords.acceptedEvents(
+                    queryResultsPage.stream().flatMap(page -> page.items().stream()), query.eventTimeWindow()));
             } else {
-                final List<ConsentChangeEvent> consentHistory = new ArrayList<>();
-                consentHistory.add(consentChangeEvent);
-                consentHistoryByConsentId.put(consentId, consentHistory);
+                try (Stream<Page<DynamoDbConsentHistory>> pages = allPages(queryResults)) {
+                    consentHistories = DynamoDbConsentHistoryMapper.toConsentHistories(serviceId, userId, budgetedRecords.acceptedEvents(
+                        pages.flatMap(page -> page.items().stream()), query.eventTimeWindow()));
+                }
             }
-        });
 
-        return consentHistoryByConsentId;
+            // A page following a previous page may legitimately be empty, eg. if the previous page ended on the last item
+            if (consentHistories.isEmpty() && query.pageToken() == null) {
+                throwNotFoundError(serviceId, userId);
+            }
+
+            final String nextPageToken;
+            if (budgetedRecords.budgetExhausted()) {
+                logger.info("getServiceUserHistory({}, {}) ended the page at the response budget", serviceId, userId);
+                nextPageToken = DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(budgetedRecords.lastAcceptedRecord());
+            } else {
+                nextPageToken = DynamoDbPageTokenMapper.toPageToken(lastEvaluatedKey);
+            }
+            return new ListPage<>(consentHistories, Optional.ofNullable(nextPageToken));
+        } finally {
+            recordRepositoryTime(startNanos);
+        }
     }
 
     /**
-     * Parse the consent history records into a stream of ConsentChangeEvent objects, sorted ascending by event time.
+     * Retrieve a single page of the change events of a given service user after a watermark.
      *
-     * @param queryResults ConsentHistory DynamoDB query results
-     * @return Stream of consent change events
+     * An event time watermark reads records from the start of its minute, filtering out change events before it.
+     * A position watermark reads records from the start of its minute, or after the last record read while a read has
+     * more pages, skipping the change events it has delivered already, see DynamoDbChangeFeedPosition.  Once a read has
+     * caught up, the next watermark resumes shortly before the latest change event read, so change events of the same
+     * minute which sort before the records read, or which reach the GSI late, are still delivered.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for DynamoDB's default page size
+     * @throws BadRequestException if the watermark is an invalid position, or a position of another service user
      */
-    private Stream<ConsentChangeEvent> parseConsentHistoryRecords(
-            final SdkIterable<Page<DynamoDbConsentHistory>> queryResults) {
-        return queryResults.stream()
-            .flatMap(page -> page.items().stream())
-            .map(DynamoDbConsentChangeEventMapper::toConsentChangeEvent)
-            .sorted(Comparator.comparing(ConsentChangeEvent::getEventTime));
-    }
+    @Override
+    public ChangeFeedPage getServiceUserChanges(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        final long startNanos = System.nanoTime();
+        try {
+            final DynamoDbChangeFeedPosition position = DynamoDbChangeFeedPosition.fromWatermark(after, serviceId, userId);
+            final QueryEnhancedRequest queryRequest = DynamoDbQueryRequestMapper.toServiceUserChangesQueryRequest(serviceId, userId,
+                limit, position.since(), position.exclusiveStartKey());
+            final SdkIterable<Page<DynamoDbConsentHistory>> queryResults = queryConsentHistoryByServiceUser(queryRequest);
+            final Page<DynamoDbConsentHistory> queryResultsPage = queryResults == null
+                ? null
+                : recordingPages(queryResults).findFirst().orElse(null);
+            if (queryResultsPage == null || queryResultsPage.items().isEmpty()) {
+                final String nextWatermark = position.startAfter() == null
+                    ? after.value()
+                    : position.resumingBeforeStartAfter().toWatermark();
+                return new ChangeFeedPage(List.of(), nextWatermark, false);
+            }
 
-    private ConsentHistory parseConsentHistory(final Map.Entry<String, List<ConsentChangeEvent>> consentIdAndChangeEvents) {
-        return new ConsentHistory()
-            .consentId(consentIdAndChangeEvents.getKey())
-            .history(consentIdAndChangeEvents.getValue());
+            final List<DynamoDbConsentHistory> consentHistoryRecords = queryResultsPage.items();
+            final List<ConsentChangeEvent> readChanges = DynamoDbConsentHistoryMapper.toConsentChangeEvents(
+                consentHistoryRecords.stream(), EventTimeWindow.UNBOUNDED).toList();
+            final List<ConsentChangeEvent> changes = readChanges.stream()
+                .filter(position::isUndelivered)
+                .toList();
+            final boolean hasMore = queryResultsPage.lastEvaluatedKey() != null && !queryResultsPage.lastEvaluatedKey().isEmpty();
+            final DynamoDbChangeFeedPosition nextPosition = hasMore
+                ? position.continuingAfter(changes, consentHistoryRecords.get(consentHistoryRecords.size() - 1))
+                : position.resumingBefore(changes, readChanges.get(readChanges.size() - 1).getEventTime());
+            return new ChangeFeedPage(changes, nextPosition.toWatermark(), hasMore);
+        } finally {
+            recordRepositoryTime(startNanos);
+        }
     }
 
-    private QueryEnhancedRequest buildGetConsentHistoryQueryRequest(final String serviceId, final String userId, final String consentId) {
-        final String partitionKey = String.format("%s|%s|%s", serviceId, userId, consentId);
-
-        final Key queryKey = Key.builder()
-            .partitionValue(partitionKey)
-            .build();
-        logger.info("Built DDB query Key with partitionValue {}", partitionKey);
-
-        return QueryEnhancedRequest.builder()
-            .queryConditional(QueryConditional.keyEqualTo(queryKey))
-            .build();
+    private static Stream<Page<DynamoDbConsentHistory>> recordingPages(final SdkIterable<Page<DynamoDbConsentHistory>> queryResults) {
+        return DynamoDbPageMetrics.recording(queryResults.stream());
     }
 
-    private QueryEnhancedRequest buildGetConsentHistoryByServiceUserQueryRequest(final String serviceId, final String userId) {
-        final String serviceUserId = String.format("%s|%s", serviceId, userId);
+    /**
+     * Read every page of the query results, fetching the next pages in the background while the current page is mapped
+     * if prefetching is enabled, whereas pages are otherwise only fetched once the previous page has been mapped.
+     * Reads of a single page do not prefetch, as that would query DynamoDB for pages that are never read.
+     */
+    private Stream<Page<DynamoDbConsentHistory>> allPages(final SdkIterable<Page<DynamoDbConsentHistory>> queryResults) {
+        if (!pagePrefetchConfiguration.enabled()) {
+            return recordingPages(queryResults);
+        }
+        return DynamoDbPageMetrics.recording(Prefetcher.prefetching(queryResults.stream(), pagePrefetchConfiguration.prefetchDepth()));
+    }
 
-        final Key queryKey = Key.builder()
-            .partitionValue(serviceUserId)
-            .build();
-        logger.info("Built ConsentHistoryByServiceUser GSI query Key with partitionValue {}", serviceUserId);
+    private static void recordRepositoryTime(final long startNanos) {
+        RequestMetrics.current().addRepositoryNanos(System.nanoTime() - startNanos);
+    }
 
-        return QueryEnhancedRequest.builder()
-            .queryConditional(QueryConditional.keyEqualTo(queryKey))
-            .build();
+    private SdkIterable<Page<DynamoDbConsentHistory>> queryConsentHistoryByServiceUser(final QueryEnhancedRequest queryRequest) {
+        return consentHistoryTable.get()
+            .index(DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME)
+            .query(queryRequest);
     }
 
     private void throwNotFoundError(final String serviceId, final String userId, final String consentId)
@@ -187,4 +422,91 @@ public class DynamoDbServiceUserConsentHistoryRepository implements ServiceUserC
         logger.warn(notFoundMessage);
         throw new ResourceNotFoundException(notFoundMessage);
     }
+
+    /**
+     * Change events of a page's records which end at the first change event the budget rejects, keeping the record
+     * of the last accepted change event to continue from.
+     */
+    private static final class BudgetedRecords {
+        private final ConsentChangeEventBudget budget;
+        private DynamoDbConsentHistory currentRecord;
+        private DynamoDbConsentHistory lastAcceptedRecord;
+        private boolean budgetExhausted;
+
+        private BudgetedRecords(final ConsentChangeEventBudget budget) {
+            this.budget = budget;
+        }
+
+        private Stream<ConsentChangeEvent> acceptedEvents(final Stream<DynamoDbConsentHistory> consentHistoryRecords,
+                final EventTimeWindow eventTimeWindow) {
+            return DynamoDbConsentHistoryMapper.toConsentChangeEventsInReadOrder(
+                consentHistoryRecords.peek(consentHistoryRecord -> currentRecord = consentHistoryRecord), eventTimeWindow)
+                .takeWhile(this::tryAdd);
+        }
+
+        /**
+         * Offer the change event to the budget, keeping the first change event even if rejected so every page makes progress.
+         */
+        private boolean tryAdd(final ConsentChangeEvent consentChangeEvent) {
+            if (!budget.tryAdd(consentChangeEvent) && lastAcceptedRecord != null) {
+                budgetExhausted = true;
+                return false;
+            }
+            lastAcceptedRecord = currentRecord;
+            return true;
+        }
+
+        /**
+         * Return whether the budget rejected a change event, ending the page before the end of the query's page.
+         */
+        private boolean budgetExhausted() {
+            return budgetExhausted;
+        }
+
+        private DynamoDbConsentHistory lastAcceptedRecord() {
+            return lastAcceptedRecord;
+        }
+    }
+
+    /**
+     * Query result pages which end early once the request's deadline has passed, keeping the key to continue from.
+     */
+    private static final class DeadlineBoundPages implements Iterator<Page<DynamoDbConsentHistory>> {
+        private final Iterator<Page<DynamoDbConsentHistory>> pages;
+        private final RequestDeadline requestDeadline;
+        private Page<DynamoDbConsentHistory> lastPage;
+        private Map<String, AttributeValue> continuationKey;
+
+        private DeadlineBoundPages(final Iterator<Page<DynamoDbConsentHistory>> pages, final RequestDeadline requestDeadline) {
+            this.pages = pages;
+            this.requestDeadline = requestDeadline;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (lastPage != null && lastPage.lastEvaluatedKey() != null && !lastPage.lastEvaluatedKey().isEmpty()
+                    && requestDeadline.hasPassed()) {
+                continuationKey = lastPage.lastEvaluatedKey();
+                return false;
+            }
+            return pages.hasNext();
+        }
+
+        @Override
+        public Page<DynamoDbConsentHistory> next() {
+            lastPage = pages.next();
+            return lastPage;
+        }
+
+        private Stream<Page<DynamoDbConsentHistory>> stream() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+        }
+
+        /**
+         * Return the last evaluated key of the last page read if the deadline ended the pages early, otherwise null.
+         */
+        private Map<String, AttributeValue> continuationKey() {
+            return continuationKey;
+        }
+    }
 }
@@ -0,0 +1,346 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ParallelReader;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.BoundedParallelReader;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ServiceUserHistoryFanOutConfiguration;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Decorator for a ServiceUserConsentHistory repository which reads the full history of a service user with many consents
+ * as parallel per-consent queries, rather than as a single query of the service user's history paged serially.
+ *
+ * The data store has no cheap way to list a service user's consent IDs, so they are learned from reading the service user's
+ * full history: once a read finds at least the configured number of consents, the consent IDs are remembered along with
+ * the time the read started.  Following reads of that service user's history then only query the change events since
+ * that time, less a lag allowing for change events recorded after they occurred, to discover consents created since,
+ * and query every known consent's history in parallel on virtual threads, with at most the configured number of
+ * queries in flight.  Consent histories are merged in ascending consent ID order, as the underlying repository returns them.
+ *
+ * Whether fanning out pays off depends on how many pages the service user's history spans as well as on its consent count,
+ * since a history fitting in a single page is read in a single query either way.  So each fan-out read is timed against
+ * the serial read the consent IDs were learned from, and once consecutive fan-out reads were slower the service user's
+ * history is read serially until the consent IDs expire.  Remembered consent IDs expire the configured time-to-live after
+ * the full history read they were learned from, so the full history is periodically read serially again.  Service users
+ * with fewer consents, and all other reads, are passed through to the underlying repository.
+ */
+public class FanOutServiceUserConsentHistoryRepository implements ServiceUserConsentHistoryRepository {
+    /**
+     * How long before a previous read change events are queried from to discover new consents.
+     */
+    public static final Duration CONSENT_DISCOVERY_LAG = Duration.ofMinutes(5);
+
+    /**
+     * Number of consecutive fan-out reads slower than the serial read after which a service user's history is read serially,
+     * so that a single slow read, eg. before the fan-out code is compiled, does not decide.
+     */
+    public static final int SLOWER_FAN_OUT_READ_LIMIT = 2;
+
+    private static final Logger logger = LogManager.getLogger(FanOutServiceUserConsentHistoryRepository.class);
+
+    private final ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private final ServiceUserHistoryFanOutConfiguration fanOutConfiguration;
+    private final ParallelReader parallelReader;
+    private final Clock clock;
+    private final Ticker ticker;
+    private final Cache<ServiceUserKey, ConsentIdIndexEntry> consentIdIndex;
+
+    /**
+     * Construct the fan-out consent history repository.
+     *
+     * @param consentHistoryRepository repository to query
+     * @param fanOutConfiguration consent count threshold, concurrency, and consent ID index configuration
+     */
+    public FanOutServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ServiceUserHistoryFanOutConfiguration fanOutConfiguration) {
+        this(consentHistoryRepository, fanOutConfiguration, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    /**
+     * Construct the fan-out consent history repository with custom time sources.
+     *
+     * @param consentHistoryRepository repository to query
+     * @param fanOutConfiguration consent count threshold, concurrency, and consent ID index configuration
+     * @param clock time source used to discover new consents and expire remembered consent IDs
+     * @param ticker time source used to time serial and fan-out reads against each other
+     */
+    public FanOutServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ServiceUserHistoryFanOutConfiguration fanOutConfiguration, final Clock clock, final Ticker ticker) {
+        this.consentHistoryRepository = consentHistoryRepository;
+        this.fanOutConfiguration = fanOutConfiguration;
+        this.parallelReader = new BoundedParallelReader(fanOutConfiguration.maxConcurrency());
+        this.clock = clock;
+        this.ticker = ticker;
+        this.consentIdIndex = CacheBuilder.newBuilder()
+            .maximumSize(fanOutConfiguration.maximumIndexedServiceUsers())
+            .build();
+    }
+
+    /**
+     * Retrieve the latest change event for a given service user consent within an event time window.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     */
+    @Override
+    public Optional<ConsentChangeEvent> getLatestConsentChangeEvent(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        return consentHistoryRepository.getLatestConsentChangeEvent(serviceId, userId, consentId, eventTimeWindow);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+        return getConsentHistory(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+        return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, eventTimeWindow, view);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view, continuing from
+     * a page token returned with a previous partial result.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public ListPage<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, ResourceNotFoundException {
+        return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, pageToken, eventTimeWindow, view);
+    }
+
+    /**
+     * Retrieve history for a given service user, in full or a single page of it.
+     *
+     * A read of the full history queries each consent in parallel if the service user is known to have at least
+     * the threshold number of consents, and fanning out was not slower than a serial read.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the service user within the event time window
+     */
+    @Override
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+        if (!query.isFullHistory()) {
+            return consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+        }
+
+        final ServiceUserKey serviceUserKey = new ServiceUserKey(serviceId, userId);
+        final Instant readStartTime = clock.instant();
+        final ConsentIdIndexEntry indexEntry = consentIdIndex.getIfPresent(serviceUserKey);
+        final boolean indexed = indexEntry != null
+            && readStartTime.isBefore(indexEntry.indexedAt().plus(fanOutConfiguration.indexTimeToLive()));
+        if (indexed && indexEntry.fanOut()) {
+            return new ListPage<>(getServiceUserHistoryByConsent(serviceUserKey, indexEntry, readStartTime), Optional.empty());
+        }
+
+        final long startNanos = ticker.read();
+        final ListPage<ConsentHistory> consentHistories;
+        try {
+            consentHistories = consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            consentIdIndex.invalidate(serviceUserKey);
+            throw resourceNotFoundException;
+        }
+        if (!indexed) {
+            index(serviceUserKey, consentHistories.resultsOnPage(), readStartTime, readStartTime, ticker.read() - startNanos, 0);
+        }
+        return consentHistories;
+    }
+
+    /**
+     * Retrieve a single page of the change events of a given service user after a watermark.
+     *
+     * Change feeds are read with a single GSI query, as their change events are returned in event time order across consents.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for the data store's default page size
+     * @throws BadRequestException if the watermark is invalid
+     */
+    @Override
+    public ChangeFeedPage getServiceUserChanges(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        return consentHistoryRepository.getServiceUserChanges(serviceId, userId, after, limit);
+    }
+
+    /**
+     * Return the number of service users whose consent IDs are remembered.
+     *
+     * @return number of indexed service users
+     */
+    public long indexedServiceUserCount() {
+        consentIdIndex.cleanUp();
+        return consentIdIndex.size();
+    }
+
+    private List<ConsentHistory> getServiceUserHistoryByConsent(final ServiceUserKey serviceUserKey,
+            final ConsentIdIndexEntry indexEntry, final Instant readStartTime) throws ResourceNotFoundException {
+        final long startNanos = ticker.read();
+        final SortedSet<String> consentIds = new TreeSet<>(indexEntry.consentIds());
+        consentIds.addAll(discoverConsentIds(serviceUserKey, indexEntry.readStartTime().minus(CONSENT_DISCOVERY_LAG)));
+
+        final List<ConsentHistory> consentHistories = readConsentHistories(serviceUserKey, consentIds);
+        if (consentHistories.isEmpty()) {
+            consentIdIndex.invalidate(serviceUserKey);
+            throw new ResourceNotFoundException(String.format(SERVICE_USER_CONSENTS_NOT_FOUND,
+                serviceUserKey.serviceId(), serviceUserKey.userId()));
+        }
+
+        final int slowerFanOutReads = ticker.read() - startNanos <= indexEntry.serialReadNanos()
+            ? 0
+            : indexEntry.slowerFanOutReads() + 1;
+        if (slowerFanOutReads >= SLOWER_FAN_OUT_READ_LIMIT) {
+            logger.info("getServiceUserHistory({}, {}) was slower fanning out than reading serially, reading serially until {}",
+                serviceUserKey.serviceId(), serviceUserKey.userId(), indexEntry.indexedAt().plus(fanOutConfiguration.indexTimeToLive()));
+        }
+        index(serviceUserKey, consentHistories, readStartTime, indexEntry.indexedAt(), indexEntry.serialReadNanos(),
+            slowerFanOutReads);
+        return consentHistories;
+    }
+
+    private Set<String> discoverConsentIds(final ServiceUserKey serviceUserKey, final Instant since) {
+        final ServiceUserHistoryQuery discoveryQuery = ServiceUserHistoryQuery.FULL_HISTORY
+            .withEventTimeWindow(new EventTimeWindow(since.atOffset(ZoneOffset.UTC), null))
+            .withView(ConsentHistoryView.SUMMARY);
+        final Set<String> consentIds = new TreeSet<>();
+        try {
+            consentHistoryRepository.getServiceUserHistory(serviceUserKey.serviceId(), serviceUserKey.userId(), discoveryQuery)
+                .resultsOnPage()
+                .forEach(consentHistory -> consentIds.add(consentHistory.getConsentId()));
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            // No change events since the previous read, so no new consents
+        } catch (final BadRequestException badRequestException) {
+            // A discovery query has no page token to reject
+            throw new IllegalStateException(badRequestException);
+        }
+        return consentIds;
+    }
+
+    private List<ConsentHistory> readConsentHistories(final ServiceUserKey serviceUserKey, final SortedSet<String> consentIds) {
+        final List<ConsentHistory> consentHistories = parallelReader.readAll(List.copyOf(consentIds),
+                consentId -> readConsentHistory(serviceUserKey, consentId))
+            .stream()
+            .flatMap(Optional::stream)
+            .toList();
+        logger.info("getServiceUserHistory({}, {}) read {} consent histories of {} known consents in parallel",
+            serviceUserKey.serviceId(), serviceUserKey.userId(), consentHistories.size(), consentIds.size());
+        return consentHistories;
+    }
+
+    private Optional<ConsentHistory> readConsentHistory(final ServiceUserKey serviceUserKey, final String consentId) {
+        try {
+            final List<ConsentChangeEvent> consentChangeEvents = consentHistoryRepository.getConsentHistory(serviceUserKey.serviceId(),
+                serviceUserKey.userId(), serviceUserKey.toUnqualifiedConsentId(consentId), EventTimeWindow.UNBOUNDED);
+            return Optional.of(new ConsentHistory().consentId(consentId).history(consentChangeEvents));
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            // The consent's history expired since its ID was learned
+            return Optional.empty();
+        }
+    }
+
+    private void index(final ServiceUserKey serviceUserKey, final List<ConsentHistory> consentHistories, final Instant readStartTime,
+            final Instant indexedAt, final long serialReadNanos, final int slowerFanOutReads) {
+        if (consentHistories.size() < fanOutConfiguration.consentCountThreshold()) {
+            consentIdIndex.invalidate(serviceUserKey);
+            return;
+        }
+
+        final List<String> consentIds = consentHistories.stream().map(ConsentHistory::getConsentId).toList();
+        consentIdIndex.put(serviceUserKey, new ConsentIdIndexEntry(consentIds, readStartTime, indexedAt, serialReadNanos,
+            slowerFanOutReads));
+    }
+
+    /**
+     * Service user whose consent IDs are remembered.
+     */
+    private record ServiceUserKey(String serviceId, String userId) {
+        /**
+         * Return the consent ID as passed to consent history queries, given a consent ID as returned with consent histories,
+         * which may be qualified with the service and user IDs.
+         */
+        private String toUnqualifiedConsentId(final String consentId) {
+            final String qualifiedPrefix = serviceId + "|" + userId + "|";
+            return consentId.startsWith(qualifiedPrefix) ? consentId.substring(qualifiedPrefix.length()) : consentId;
+        }
+    }
+
+    /**
+     * Consent IDs of a service user, known from a read of its history.
+     *
+     * @param consentIds consent IDs as returned with consent histories
+     * @param readStartTime time the read which found the consent IDs started
+     * @param indexedAt time the full history read which first found the service user's consents started
+     * @param serialReadNanos time taken by that full history read in nanoseconds
+     * @param slowerFanOutReads number of consecutive fan-out reads slower than that full history read
+     */
+    private record ConsentIdIndexEntry(List<String> consentIds, Instant readStartTime, Instant indexedAt, long serialReadNanos,
+            int slowerFanOutReads) {
+        /**
+         * Return whether following reads fan out, ie. unless consecutive fan-out reads were slower than the full history read.
+         */
+        private boolean fanOut() {
+            return slowerFanOutReads < SLOWER_FAN_OUT_READ_LIMIT;
+        }
+    }
+}
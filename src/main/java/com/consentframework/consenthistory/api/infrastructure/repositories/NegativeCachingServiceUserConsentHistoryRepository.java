@@ -0,0 +1,236 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.caches.NegativeResultCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.caches.ServiceUserExistenceFilter;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decorator for a ServiceUserConsentHistory repository which answers repeated not-found lookups without querying it.
+ *
+ * Not-found results are cached for a short time-to-live, keyed by service user or by service user consent.
+ * A service user with no history has no history for any of its consents, so a cached service user miss also
+ * answers consent lookups for that service user.  Misses restricted to an event time window or following a page token
+ * say nothing about other windows or pages, so they are not cached.
+ *
+ * If an existence filter is provided, service users it reports as having no history are answered as not found
+ * without consulting the cache or the underlying repository.
+ */
+public class NegativeCachingServiceUserConsentHistoryRepository implements ServiceUserConsentHistoryRepository {
+    private final ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private final Optional<ServiceUserExistenceFilter> existenceFilter;
+    private final Cache<NotFoundKey, Boolean> notFoundCache;
+
+    /**
+     * Construct the negative caching consent history repository.
+     *
+     * @param consentHistoryRepository repository to query on cache misses
+     * @param cacheConfiguration not-found cache time-to-live and size configuration
+     * @param existenceFilter optional filter of service users which might have consent history
+     */
+    public NegativeCachingServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final NegativeResultCacheConfiguration cacheConfiguration, final Optional<ServiceUserExistenceFilter> existenceFilter) {
+        this(consentHistoryRepository, cacheConfiguration, existenceFilter, Ticker.systemTicker());
+    }
+
+    /**
+     * Construct the negative caching consent history repository with a custom time source.
+     *
+     * @param consentHistoryRepository repository to query on cache misses
+     * @param cacheConfiguration not-found cache time-to-live and size configuration
+     * @param existenceFilter optional filter of service users which might have consent history
+     * @param ticker time source used to expire cached not-found results
+     */
+    NegativeCachingServiceUserConsentHistoryRepository(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final NegativeResultCacheConfiguration cacheConfiguration, final Optional<ServiceUserExistenceFilter> existenceFilter,
+            final Ticker ticker) {
+        this.consentHistoryRepository = consentHistoryRepository;
+        this.existenceFilter = existenceFilter;
+        this.notFoundCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(cacheConfiguration.timeToLive())
+            .maximumSize(cacheConfiguration.maximumSize())
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Retrieve the latest change event for a given service user consent within an event time window, unless known not to exist.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     */
+    @Override
+    public Optional<ConsentChangeEvent> getLatestConsentChangeEvent(final String serviceId, final String userId,
+            final String consentId, final EventTimeWindow eventTimeWindow) {
+        if (isKnownNotFound(serviceId, userId) || isCached(new NotFoundKey(serviceId, userId, consentId))) {
+            return Optional.empty();
+        }
+        return consentHistoryRepository.getLatestConsentChangeEvent(serviceId, userId, consentId, eventTimeWindow);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window, unless known not to exist.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+        return getConsentHistory(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view,
+     * unless known not to exist.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+        if (isKnownNotFound(serviceId, userId) || isCached(new NotFoundKey(serviceId, userId, consentId))) {
+            throw new ResourceNotFoundException(String.format(CONSENT_NOT_FOUND_MESSAGE, serviceId, userId, consentId));
+        }
+
+        try {
+            return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, eventTimeWindow, view);
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            if (eventTimeWindow.isUnbounded()) {
+                notFoundCache.put(new NotFoundKey(serviceId, userId, consentId), Boolean.TRUE);
+            }
+            throw resourceNotFoundException;
+        }
+    }
+
+    /**
+     * Retrieve history for a given service user consent within an event time window in the requested view, continuing from
+     * a page token returned with a previous partial result, unless known not to exist.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the consent within the event time window
+     */
+    @Override
+    public ListPage<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, ResourceNotFoundException {
+        if (isKnownNotFound(serviceId, userId) || isCached(new NotFoundKey(serviceId, userId, consentId))) {
+            throw new ResourceNotFoundException(String.format(CONSENT_NOT_FOUND_MESSAGE, serviceId, userId, consentId));
+        }
+
+        try {
+            return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, pageToken, eventTimeWindow, view);
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            if (eventTimeWindow.isUnbounded() && pageToken == null) {
+                notFoundCache.put(new NotFoundKey(serviceId, userId, consentId), Boolean.TRUE);
+            }
+            throw resourceNotFoundException;
+        }
+    }
+
+    /**
+     * Retrieve history for a given service user, in full or a single page of it, unless known not to exist.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @throws BadRequestException if the page token is invalid
+     * @throws ResourceNotFoundException if no history is found for the service user within the event time window
+     */
+    @Override
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+        throwIfKnownNotFound(serviceId, userId);
+
+        try {
+            return consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            if (query.pageToken() == null && query.eventTimeWindow().isUnbounded()) {
+                notFoundCache.put(new NotFoundKey(serviceId, userId, null), Boolean.TRUE);
+            }
+            throw resourceNotFoundException;
+        }
+    }
+
+    /**
+     * Retrieve a single page of the change events of a given service user after a watermark.
+     *
+     * Change feeds are not checked against service users known not to exist, as a feed is read to pick up change events
+     * written since, including a service user's first.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for the data store's default page size
+     * @throws BadRequestException if the watermark is invalid
+     */
+    @Override
+    public ChangeFeedPage getServiceUserChanges(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        return consentHistoryRepository.getServiceUserChanges(serviceId, userId, after, limit);
+    }
+
+    /**
+     * Retrieve not-found cache hit, miss, and eviction counts since the cache was created.
+     *
+     * @return not-found cache statistics
+     */
+    public CacheStats stats() {
+        return notFoundCache.stats();
+    }
+
+    private void throwIfKnownNotFound(final String serviceId, final String userId) throws ResourceNotFoundException {
+        if (isKnownNotFound(serviceId, userId)) {
+            throw new ResourceNotFoundException(String.format(SERVICE_USER_CONSENTS_NOT_FOUND, serviceId, userId));
+        }
+    }
+
+    private boolean isKnownNotFound(final String serviceId, final String userId) {
+        if (existenceFilter.isPresent() && !existenceFilter.get().mightHaveHistory(serviceId, userId)) {
+            return true;
+        }
+        return isCached(new NotFoundKey(serviceId, userId, null));
+    }
+
+    private boolean isCached(final NotFoundKey notFoundKey) {
+        return notFoundCache.getIfPresent(notFoundKey) != null;
+    }
+
+    /**
+     * Key of a cached not-found result, consentId is null for service user misses.
+     */
+    private record NotFoundKey(String serviceId, String userId, String consentId) {}
+}
@@ -0,0 +1,202 @@
+package com.consentframework.consenthistory.api.infrastructure.server;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiProxyResponseParameterName;
+import com.consentframework.consenthistory.api.usecases.routing.ApiRouteHandler;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Adapts exchanges of the JDK's HTTP server to API requests and responses in the shape API Gateway passes to and expects
+ * from the Lambda function, so the standalone server dispatches to the same request handlers.
+ *
+ * Requests carry their path rather than a resource, and are routed by path.  At most maxConcurrency API requests are
+ * handled at a time, requests beyond it are rejected with 503 Service Unavailable rather than queued, so that an
+ * overloaded server sheds load instead of accumulating latency.  The health endpoint is exempt from the limit, and
+ * reports 503 once the server starts draining for shutdown.
+ */
+public class ApiHttpExchangeHandler implements HttpHandler {
+    public static final String HEALTH_PATH = "/health";
+    public static final int SERVICE_UNAVAILABLE_STATUS_CODE = 503;
+    public static final String HEALTHY_RESPONSE_BODY = "{\"status\":\"UP\"}";
+    public static final String DRAINING_RESPONSE_BODY = "{\"status\":\"DRAINING\"}";
+    public static final String OVERLOADED_MESSAGE = "Server is handling its maximum of %d concurrent requests";
+    public static final String DRAINING_MESSAGE = "Server is shutting down";
+    public static final String INTERNAL_ERROR_MESSAGE = "Internal server error";
+
+    static final String CONTENT_TYPE_HEADER_NAME = "Content-Type";
+    static final String JSON_CONTENT_TYPE = "application/json";
+    static final String RETRY_AFTER_HEADER_NAME = "Retry-After";
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final Logger logger = LogManager.getLogger(ApiHttpExchangeHandler.class);
+    private static final String HEAD_METHOD = "HEAD";
+
+    private final ApiRouteHandler requestHandler;
+    private final int maxConcurrency;
+    private final Semaphore concurrencyPermits;
+    private volatile boolean draining;
+
+    /**
+     * Construct the exchange handler.
+     *
+     * @param requestHandler handles API requests
+     * @param maxConcurrency maximum number of API requests handled concurrently
+     */
+    public ApiHttpExchangeHandler(final ApiRouteHandler requestHandler, final int maxConcurrency) {
+        this.requestHandler = requestHandler;
+        this.maxConcurrency = maxConcurrency;
+        this.concurrencyPermits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Start draining for shutdown, rejecting new API requests and reporting unhealthy.
+     */
+    public void startDraining() {
+        draining = true;
+    }
+
+    /**
+     * Return the number of API requests being handled.
+     *
+     * @return number of in-flight API requests
+     */
+    public int getInFlightRequestCount() {
+        return maxConcurrency - concurrencyPermits.availablePermits();
+    }
+
+    /**
+     * Handle an exchange, answering health checks or dispatching it as an API request.
+     *
+     * @param exchange HTTP exchange
+     * @throws IOException if the request cannot be read or the response cannot be written
+     */
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (HEALTH_PATH.equals(exchange.getRequestURI().getPath())) {
+                writeHealthResponse(exchange);
+            } else if (draining) {
+                writeResponse(exchange, buildErrorResponse(SERVICE_UNAVAILABLE_STATUS_CODE, DRAINING_MESSAGE));
+            } else if (!concurrencyPermits.tryAcquire()) {
+                logger.warn("Rejecting {} request for path {}, {} requests in flight", exchange.getRequestMethod(),
+                    exchange.getRequestURI().getPath(), maxConcurrency);
+                exchange.getResponseHeaders().set(RETRY_AFTER_HEADER_NAME, RETRY_AFTER_SECONDS);
+                writeResponse(exchange, buildErrorResponse(SERVICE_UNAVAILABLE_STATUS_CODE, String.format(OVERLOADED_MESSAGE,
+                    maxConcurrency)));
+            } else {
+                try {
+                    writeResponse(exchange, handleApiRequest(exchange));
+                } finally {
+                    concurrencyPermits.release();
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Map<String, Object> handleApiRequest(final HttpExchange exchange) throws IOException {
+        final ApiRequest request = toApiRequest(exchange);
+        try {
+            return requestHandler.handleRequest(request);
+        } catch (final RuntimeException exception) {
+            logger.error("Failed to handle {} request for path {}", request.httpMethod(), request.path(), exception);
+            return buildErrorResponse(HttpStatusCode.INTERNAL_SERVER_ERROR.getValue(), INTERNAL_ERROR_MESSAGE);
+        }
+    }
+
+    private void writeHealthResponse(final HttpExchange exchange) throws IOException {
+        writeResponse(exchange, draining
+            ? Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), SERVICE_UNAVAILABLE_STATUS_CODE,
+                ApiResponseParameterName.BODY.getValue(), DRAINING_RESPONSE_BODY)
+            : Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), HttpStatusCode.SUCCESS.getValue(),
+                ApiResponseParameterName.BODY.getValue(), HEALTHY_RESPONSE_BODY));
+    }
+
+    /**
+     * Convert an exchange to an API request, with single-valued query string parameters and headers as API Gateway passes
+     * them, keeping the last value of repeated query string parameters and the first value of repeated headers.
+     */
+    static ApiRequest toApiRequest(final HttpExchange exchange) throws IOException {
+        final URI requestUri = exchange.getRequestURI();
+        final Map<String, String> headers = new HashMap<>();
+        exchange.getRequestHeaders().forEach((headerName, headerValues) -> {
+            if (!headerValues.isEmpty()) {
+                headers.put(headerName, headerValues.get(0));
+            }
+        });
+        final byte[] bodyBytes = exchange.getRequestBody().readAllBytes();
+        return new ApiRequest(exchange.getRequestMethod(), null, requestUri.getPath(), null, parseQueryString(requestUri.getRawQuery()),
+            headers, false, bodyBytes.length == 0 ? null : new String(bodyBytes, StandardCharsets.UTF_8));
+    }
+
+    static Map<String, Object> parseQueryString(final String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return null;
+        }
+        final Map<String, Object> queryStringParameters = new HashMap<>();
+        for (final String parameter : rawQuery.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            final int separatorIndex = parameter.indexOf('=');
+            final String name = separatorIndex < 0 ? parameter : parameter.substring(0, separatorIndex);
+            final String value = separatorIndex < 0 ? "" : parameter.substring(separatorIndex + 1);
+            queryStringParameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return queryStringParameters;
+    }
+
+    private static void writeResponse(final HttpExchange exchange, final Map<String, Object> response) throws IOException {
+        final int statusCode = response.get(ApiResponseParameterName.STATUS_CODE.getValue()) instanceof Number number
+            ? number.intValue()
+            : HttpStatusCode.INTERNAL_SERVER_ERROR.getValue();
+        if (response.get(ApiProxyResponseParameterName.HEADERS.getValue()) instanceof Map<?, ?> headers) {
+            headers.forEach((headerName, headerValue) -> exchange.getResponseHeaders().set(String.valueOf(headerName),
+                String.valueOf(headerValue)));
+        }
+
+        final byte[] bodyBytes = toBodyBytes(response);
+        if (bodyBytes.length == 0 || HEAD_METHOD.equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        if (!exchange.getResponseHeaders().containsKey(CONTENT_TYPE_HEADER_NAME)) {
+            exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER_NAME, JSON_CONTENT_TYPE);
+        }
+        exchange.sendResponseHeaders(statusCode, bodyBytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bodyBytes);
+        }
+    }
+
+    private static byte[] toBodyBytes(final Map<String, Object> response) {
+        if (!(response.get(ApiResponseParameterName.BODY.getValue()) instanceof String body)) {
+            return new byte[0];
+        }
+        return Boolean.TRUE.equals(response.get(ApiProxyResponseParameterName.IS_BASE64_ENCODED.getValue()))
+            ? Base64.getDecoder().decode(body)
+            : body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> buildErrorResponse(final int statusCode, final String message) {
+        return Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), statusCode,
+            ApiResponseParameterName.BODY.getValue(), String.format(ApiRequestHandler.ERROR_RESPONSE_BODY, message));
+    }
+}
@@ -0,0 +1,46 @@
+package com.consentframework.consenthistory.api.infrastructure.server;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration for the standalone HTTP server, which serves the API outside Lambda.
+ *
+ * @param port port the server listens on
+ * @param maxConcurrency maximum number of API requests handled concurrently, requests beyond it are rejected
+ * @param shutdownGracePeriod how long in-flight requests are given to complete on shutdown
+ */
+public record HttpServerConfiguration(int port, int maxConcurrency, Duration shutdownGracePeriod) {
+    public static final String PORT_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_SERVER_PORT";
+    public static final String MAX_CONCURRENCY_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_SERVER_MAX_CONCURRENCY";
+    public static final String SHUTDOWN_GRACE_PERIOD_SECONDS_ENVIRONMENT_VARIABLE = "CONSENT_HISTORY_SERVER_SHUTDOWN_GRACE_PERIOD_SECONDS";
+
+    public static final String INVALID_PORT_MESSAGE = "Environment variable %s must be a port number, received '%d'";
+
+    public static final int MAX_PORT = 65_535;
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_CONCURRENCY = 1000;
+    public static final Duration DEFAULT_SHUTDOWN_GRACE_PERIOD = Duration.ofSeconds(10);
+
+    /**
+     * Parse the HTTP server configuration from environment variables.
+     *
+     * @param environment environment variables, eg. System.getenv()
+     * @return HTTP server configuration
+     * @throws IllegalArgumentException if the port is not a port number, or the maximum concurrency or shutdown grace period is
+     *     not a positive integer
+     */
+    public static HttpServerConfiguration fromEnvironment(final Map<String, String> environment) {
+        final long port = EnvironmentVariableParser.parsePositiveLong(environment, PORT_ENVIRONMENT_VARIABLE, DEFAULT_PORT);
+        if (port > MAX_PORT) {
+            throw new IllegalArgumentException(String.format(INVALID_PORT_MESSAGE, PORT_ENVIRONMENT_VARIABLE, port));
+        }
+        final long maxConcurrency = EnvironmentVariableParser.parsePositiveLong(environment, MAX_CONCURRENCY_ENVIRONMENT_VARIABLE,
+            DEFAULT_MAX_CONCURRENCY);
+        final Duration shutdownGracePeriod = Duration.ofSeconds(EnvironmentVariableParser.parsePositiveLong(environment,
+            SHUTDOWN_GRACE_PERIOD_SECONDS_ENVIRONMENT_VARIABLE, DEFAULT_SHUTDOWN_GRACE_PERIOD.toSeconds()));
+        return new HttpServerConfiguration((int) port, (int) Math.min(maxConcurrency, Integer.MAX_VALUE), shutdownGracePeriod);
+    }
+}
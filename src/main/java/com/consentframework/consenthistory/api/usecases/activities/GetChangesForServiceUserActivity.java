@@ -0,0 +1,37 @@
+package com.consentframework.consenthistory.api.usecases.activities;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+
+/**
+ * GetChangesForServiceUser API activity.
+ */
+public class GetChangesForServiceUserActivity {
+    private final ServiceUserConsentHistoryRepository consentHistoryRepository;
+
+    /**
+     * Constructor for GetChangesForServiceUserActivity.
+     *
+     * @param consentHistoryRepository the repository to access consent history data
+     */
+    public GetChangesForServiceUserActivity(final ServiceUserConsentHistoryRepository consentHistoryRepository) {
+        this.consentHistoryRepository = consentHistoryRepository;
+    }
+
+    /**
+     * Handle request to retrieve the change events of a given service user after a watermark.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param after watermark after which to retrieve change events
+     * @param limit maximum number of consent change events to retrieve, or null for the repository default
+     * @return page of change events after the watermark, with the watermark to continue from
+     * @throws BadRequestException exception thrown if the watermark is invalid
+     */
+    public ChangeFeedPage handleRequest(final String serviceId, final String userId, final ChangeFeedWatermark after,
+            final Integer limit) throws BadRequestException {
+        return consentHistoryRepository.getServiceUserChanges(serviceId, userId, after, limit);
+    }
+}
@@ -0,0 +1,51 @@
+package com.consentframework.consenthistory.api.usecases.activities;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchKey;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchResult;
+import com.consentframework.consenthistory.api.domain.repositories.ParallelReader;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+
+import java.util.List;
+
+/**
+ * GetConsentHistoryBatch API activity.
+ *
+ * Each key's history is read by its own query through the parallel reader, so a batch takes about as long as its slowest
+ * queries rather than the sum of them.
+ */
+public class GetConsentHistoryBatchActivity {
+    private final ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private final ParallelReader parallelReader;
+
+    /**
+     * Constructor for GetConsentHistoryBatchActivity.
+     *
+     * @param consentHistoryRepository the repository to access consent history data
+     * @param parallelReader reader running the per-consent queries of a batch in parallel
+     */
+    public GetConsentHistoryBatchActivity(final ServiceUserConsentHistoryRepository consentHistoryRepository,
+            final ParallelReader parallelReader) {
+        this.consentHistoryRepository = consentHistoryRepository;
+        this.parallelReader = parallelReader;
+    }
+
+    /**
+     * Handle request to retrieve the histories of many consents.
+     *
+     * @param keys consents to retrieve the histories of
+     * @return result for each key, in the order of the keys, with no history for keys whose history was not found
+     */
+    public List<ConsentHistoryBatchResult> handleRequest(final List<ConsentHistoryBatchKey> keys) {
+        return parallelReader.readAll(keys, this::readConsentHistory);
+    }
+
+    private ConsentHistoryBatchResult readConsentHistory(final ConsentHistoryBatchKey key) {
+        try {
+            return ConsentHistoryBatchResult.found(key,
+                consentHistoryRepository.getConsentHistory(key.serviceId(), key.userId(), key.consentId()));
+        } catch (final ResourceNotFoundException resourceNotFoundException) {
+            return ConsentHistoryBatchResult.notFound(key);
+        }
+    }
+}
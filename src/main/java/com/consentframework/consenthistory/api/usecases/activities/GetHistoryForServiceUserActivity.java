@@ -1,8 +1,11 @@
 package com.consentframework.consenthistory.api.usecases.activities;
 
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
 import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserResponseContent;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.InternalServiceException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 
@@ -37,4 +40,20 @@ public class GetHistoryForServiceUserActivity {
         final List<ConsentHistory> consentHistory = consentHistoryRepository.getServiceUserHistory(serviceId, userId);
         return new GetHistoryForServiceUserResponseContent().data(consentHistory);
     }
+
+    /**
+     * Handle request to retrieve history for a given service user, in full or a single page of it, as the query requests.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param query limit, page token, event time window, view, and budget of the read
+     * @return history for a service user if exists, with a token for the next page if more results exist
+     * @throws BadRequestException exception thrown if the page token is invalid
+     * @throws InternalServiceException exception thrown if unexpected error querying repository
+     * @throws ResourceNotFoundException exception thrown if no consent history exists for the service user within the window
+     */
+    public ListPage<ConsentHistory> handleRequest(final String serviceId, final String userId, final ServiceUserHistoryQuery query)
+            throws BadRequestException, InternalServiceException, ResourceNotFoundException {
+        return consentHistoryRepository.getServiceUserHistory(serviceId, userId, query);
+    }
 }
@@ -1,12 +1,18 @@
 package com.consentframework.consenthistory.api.usecases.activities;
 
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EntityTag;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserConsentResponseContent;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.InternalServiceException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * GetHistoryForServiceUserConsent API activity.
@@ -35,7 +41,79 @@ public class GetHistoryForServiceUserConsentActivity {
      */
     public GetHistoryForServiceUserConsentResponseContent handleRequest(final String serviceId, final String userId, final String consentId)
             throws InternalServiceException, ResourceNotFoundException {
-        final List<ConsentChangeEvent> consentHistory = consentHistoryRepository.getConsentHistory(serviceId, userId, consentId);
+        return handleRequest(serviceId, userId, consentId, EventTimeWindow.UNBOUNDED);
+    }
+
+    /**
+     * Handle request to retrieve history for a given ServiceUserConsent within an event time window.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @return history for a service-user-consent ID tuple within the event time window if exists
+     * @throws InternalServiceException exception thrown if unexpected error querying repository
+     * @throws ResourceNotFoundException exception thrown if no history exists for the consent within the event time window
+     */
+    public GetHistoryForServiceUserConsentResponseContent handleRequest(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws InternalServiceException, ResourceNotFoundException {
+        return handleRequest(serviceId, userId, consentId, eventTimeWindow, ConsentHistoryView.FULL);
+    }
+
+    /**
+     * Handle request to retrieve history for a given ServiceUserConsent within an event time window in the requested view.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return history for a service-user-consent ID tuple within the event time window if exists
+     * @throws InternalServiceException exception thrown if unexpected error querying repository
+     * @throws ResourceNotFoundException exception thrown if no history exists for the consent within the event time window
+     */
+    public GetHistoryForServiceUserConsentResponseContent handleRequest(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws InternalServiceException, ResourceNotFoundException {
+        final List<ConsentChangeEvent> consentHistory = consentHistoryRepository.getConsentHistory(serviceId, userId, consentId,
+            eventTimeWindow, view);
         return new GetHistoryForServiceUserConsentResponseContent().data(consentHistory);
     }
+
+    /**
+     * Handle request to retrieve history for a given ServiceUserConsent within an event time window in the requested view,
+     * continuing from a page token returned with a previous partial result.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param pageToken token returned with a previous partial result, or null to read from the start of the history
+     * @param eventTimeWindow range of event times to retrieve
+     * @param view consent history representation to retrieve
+     * @return history for a service-user-consent ID tuple, with a token to continue from if the request's deadline cut it short
+     * @throws BadRequestException exception thrown if the page token is invalid
+     * @throws InternalServiceException exception thrown if unexpected error querying repository
+     * @throws ResourceNotFoundException exception thrown if no history exists for the consent within the event time window
+     */
+    public ListPage<ConsentChangeEvent> handleRequest(final String serviceId, final String userId, final String consentId,
+            final String pageToken, final EventTimeWindow eventTimeWindow, final ConsentHistoryView view)
+            throws BadRequestException, InternalServiceException, ResourceNotFoundException {
+        return consentHistoryRepository.getConsentHistory(serviceId, userId, consentId, pageToken, eventTimeWindow, view);
+    }
+
+    /**
+     * Retrieve the entity tag of the history for a given ServiceUserConsent within an event time window,
+     * reading only its latest change event.
+     *
+     * @param serviceId service identifier
+     * @param userId user identifier
+     * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to consider
+     * @return entity tag of the history within the event time window, or empty if it cannot be determined
+     */
+    public Optional<EntityTag> getEntityTag(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) {
+        return consentHistoryRepository.getLatestConsentChangeEvent(serviceId, userId, consentId, eventTimeWindow)
+            .map(EntityTag::of);
+    }
 }
@@ -0,0 +1,99 @@
+package com.consentframework.consenthistory.api.usecases.requesthandlers;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.parsers.ApiQueryStringParameterParser;
+import com.consentframework.consenthistory.api.usecases.activities.GetChangesForServiceUserActivity;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.parsers.ApiPathParameterParser;
+import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+/**
+ * Handles requests to retrieve the change events of a given service user after a watermark.
+ *
+ * Consumers keeping a copy of a service user's consents poll the change feed with the next watermark of their previous
+ * page, so each poll reads only the change events written since, rather than the service user's full history.
+ */
+public class GetChangesForServiceUserRequestHandler extends ApiRequestHandler {
+    public static final int DEFAULT_PAGE_LIMIT = 100;
+    public static final int MAX_PAGE_LIMIT = GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT;
+
+    private static final Logger logger = LogManager.getLogger(GetChangesForServiceUserRequestHandler.class);
+    private static final ConsentHistoryJsonWriter jsonWriter = new ConsentHistoryJsonWriter(new JSON().getMapper());
+
+    final GetChangesForServiceUserActivity activity;
+
+    /**
+     * Request handler constructor.
+     *
+     * @param activity GetChangesForServiceUser activity
+     */
+    public GetChangesForServiceUserRequestHandler(final GetChangesForServiceUserActivity activity) {
+        super(ApiPathParameterName.CONSENTS_PATH_PARAM_NAMES);
+        this.activity = activity;
+    }
+
+    /**
+     * Handle GetChangesForServiceUser API requests.
+     *
+     * @param request API request
+     * @return API response
+     */
+    @Override
+    public Map<String, Object> handleRequest(final ApiRequest request) {
+        final String serviceId;
+        final String userId;
+        try {
+            serviceId = ApiPathParameterParser.parsePathParameter(request, ApiPathParameterName.SERVICE_ID.getValue());
+            userId = ApiPathParameterParser.parsePathParameter(request, ApiPathParameterName.USER_ID.getValue());
+        } catch (final BadRequestException badRequestException) {
+            return logAndBuildMissingPathParamResponse(badRequestException);
+        }
+
+        final ChangeFeedPage activityResponse;
+        final String responseBodyString;
+        try {
+            final ChangeFeedWatermark after = ApiQueryStringParameterParser.parseChangeFeedWatermark(request);
+            final Integer limit = parseLimit(request);
+            activityResponse = activity.handleRequest(serviceId, userId, after, limit);
+            responseBodyString = writeResponseBody(activityResponse);
+        } catch (final BadRequestException | IOException exception) {
+            return logAndBuildErrorResponse(exception);
+        }
+
+        logger.info("Successfully retrieved {} consent change events for path {}", activityResponse.changes().size(), request.path());
+        return buildApiSuccessResponse(responseBodyString);
+    }
+
+    private Integer parseLimit(final ApiRequest request) throws BadRequestException {
+        final Integer limit = ApiQueryStringParameterParser.parsePositiveIntQueryStringParameter(request,
+            ApiQueryStringParameterName.LIMIT.getValue());
+        if (limit == null) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        return Math.min(limit, MAX_PAGE_LIMIT);
+    }
+
+    private String writeResponseBody(final ChangeFeedPage changeFeedPage) throws IOException {
+        final long startNanos = System.nanoTime();
+        try {
+            final StringWriter responseBodyWriter = new StringWriter();
+            jsonWriter.writeChangeFeedPage(responseBodyWriter, changeFeedPage);
+            return responseBodyWriter.toString();
+        } finally {
+            RequestMetrics.current().addSerializationNanos(System.nanoTime() - startNanos);
+        }
+    }
+}
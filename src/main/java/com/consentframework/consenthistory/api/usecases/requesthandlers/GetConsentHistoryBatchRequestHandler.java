@@ -0,0 +1,133 @@
+package com.consentframework.consenthistory.api.usecases.requesthandlers;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchKey;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchResult;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.usecases.activities.GetConsentHistoryBatchActivity;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles requests to retrieve the histories of many service user consents in a single invocation.
+ *
+ * The request body lists the consents to read as {"keys":[{"serviceId":"...","userId":"...","consentId":"..."}]}, and
+ * the response holds a result for each key in the same order, with either the consent's history or a not-found marker.
+ */
+public class GetConsentHistoryBatchRequestHandler extends ApiRequestHandler {
+    public static final String KEYS_FIELD_NAME = "keys";
+    public static final String INVALID_BODY_MESSAGE = "Request body must be a JSON object with a non-empty keys array";
+    public static final String TOO_MANY_KEYS_MESSAGE = "Request body may include at most %d keys, received %d";
+    public static final String INVALID_KEY_MESSAGE = "Key %d must have a non-blank serviceId, userId, and consentId";
+
+    private static final Logger logger = LogManager.getLogger(GetConsentHistoryBatchRequestHandler.class);
+    private static final ObjectMapper objectMapper = new JSON().getMapper();
+    private static final ConsentHistoryJsonWriter jsonWriter = new ConsentHistoryJsonWriter(objectMapper);
+
+    final GetConsentHistoryBatchActivity activity;
+    final int maximumKeys;
+
+    /**
+     * Request handler constructor.
+     *
+     * @param activity GetConsentHistoryBatch activity
+     * @param maximumKeys maximum number of keys a single request may include
+     */
+    public GetConsentHistoryBatchRequestHandler(final GetConsentHistoryBatchActivity activity, final int maximumKeys) {
+        super(List.of());
+        this.activity = activity;
+        this.maximumKeys = maximumKeys;
+    }
+
+    /**
+     * Handle GetConsentHistoryBatch API requests.
+     *
+     * @param request API request
+     * @return API response
+     */
+    @Override
+    public Map<String, Object> handleRequest(final ApiRequest request) {
+        final List<ConsentHistoryBatchResult> activityResponse;
+        final String responseBodyString;
+        try {
+            final List<ConsentHistoryBatchKey> keys = parseKeys(request);
+            activityResponse = activity.handleRequest(keys);
+            responseBodyString = writeResponseBody(activityResponse);
+        } catch (final BadRequestException | IOException exception) {
+            return logAndBuildErrorResponse(exception);
+        }
+
+        logger.info("Successfully retrieved consent history for {} of {} keys",
+            activityResponse.stream().filter(result -> result.history().isPresent()).count(), activityResponse.size());
+        return buildApiSuccessResponse(responseBodyString);
+    }
+
+    private List<ConsentHistoryBatchKey> parseKeys(final ApiRequest request) throws BadRequestException {
+        final JsonNode keysNode = parseBody(request).path(KEYS_FIELD_NAME);
+        if (!keysNode.isArray() || keysNode.isEmpty()) {
+            throw new BadRequestException(INVALID_BODY_MESSAGE);
+        }
+        if (keysNode.size() > maximumKeys) {
+            throw new BadRequestException(String.format(TOO_MANY_KEYS_MESSAGE, maximumKeys, keysNode.size()));
+        }
+
+        final List<ConsentHistoryBatchKey> keys = new ArrayList<>(keysNode.size());
+        for (int index = 0; index < keysNode.size(); index++) {
+            final JsonNode keyNode = keysNode.get(index);
+            final String serviceId = parseKeyField(keyNode, ConsentHistoryJsonWriter.SERVICE_ID_FIELD_NAME, index);
+            final String userId = parseKeyField(keyNode, ConsentHistoryJsonWriter.USER_ID_FIELD_NAME, index);
+            final String consentId = parseKeyField(keyNode, ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME, index);
+            keys.add(new ConsentHistoryBatchKey(serviceId, userId, consentId));
+        }
+        return keys;
+    }
+
+    private static JsonNode parseBody(final ApiRequest request) throws BadRequestException {
+        if (request == null || request.body() == null) {
+            throw new BadRequestException(INVALID_BODY_MESSAGE);
+        }
+
+        final String body = request.isBase64Encoded()
+            ? new String(Base64.getDecoder().decode(request.body()), StandardCharsets.UTF_8)
+            : request.body();
+        try {
+            return objectMapper.readTree(body);
+        } catch (final JsonProcessingException | IllegalArgumentException exception) {
+            throw new BadRequestException(INVALID_BODY_MESSAGE);
+        }
+    }
+
+    private static String parseKeyField(final JsonNode keyNode, final String fieldName, final int index) throws BadRequestException {
+        final JsonNode fieldNode = keyNode.get(fieldName);
+        if (fieldNode == null || !fieldNode.isTextual() || fieldNode.asText().isBlank()) {
+            throw new BadRequestException(String.format(INVALID_KEY_MESSAGE, index));
+        }
+        return fieldNode.asText();
+    }
+
+    private String writeResponseBody(final List<ConsentHistoryBatchResult> results) throws IOException {
+        final long startNanos = System.nanoTime();
+        try {
+            final StringWriter responseBodyWriter = new StringWriter();
+            jsonWriter.writeConsentHistoryBatch(responseBodyWriter, results);
+            return responseBodyWriter.toString();
+        } finally {
+            RequestMetrics.current().addSerializationNanos(System.nanoTime() - startNanos);
+        }
+    }
+}
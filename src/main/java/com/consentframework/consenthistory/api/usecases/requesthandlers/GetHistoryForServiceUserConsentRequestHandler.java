@@ -1,10 +1,22 @@
 package com.consentframework.consenthistory.api.usecases.requesthandlers;
 
 import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpHeaderName;
 import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiProxyResponseParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EntityTag;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.parsers.ApiHeaderParser;
+import com.consentframework.consenthistory.api.domain.parsers.ApiQueryStringParameterParser;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserConsentResponseContent;
 import com.consentframework.consenthistory.api.usecases.activities.GetHistoryForServiceUserConsentActivity;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
 import com.consentframework.shared.api.domain.entities.ApiRequest;
 import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.InternalServiceException;
@@ -13,16 +25,29 @@ import com.consentframework.shared.api.domain.parsers.ApiPathParameterParser;
 import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Handles requests to retrieve history for a given service user consent.
+ *
+ * Responses carry an ETag derived from the latest change event in the requested event time window.  Conditional requests
+ * whose If-None-Match header matches the current ETag are answered with 304 Not Modified after reading only that event.
+ *
+ * If the request's deadline cuts reading the history short, the response holds the change events read so far, flagged as
+ * partial, with a page token to request the rest of the history with.  Partial results and their continuations carry no ETag.
  */
 public class GetHistoryForServiceUserConsentRequestHandler extends ApiRequestHandler {
+    public static final int NOT_MODIFIED_STATUS_CODE = 304;
+    public static final String NEXT_PAGE_TOKEN_FIELD_NAME = ConsentHistoryJsonWriter.NEXT_PAGE_TOKEN_FIELD_NAME;
+    public static final String PARTIAL_FIELD_NAME = "partial";
+
     private static final Logger logger = LogManager.getLogger(GetHistoryForServiceUserConsentRequestHandler.class);
     private static final ObjectMapper objectMapper = new JSON().getMapper();
 
@@ -55,20 +80,66 @@ public class GetHistoryForServiceUserConsentRequestHandler extends ApiRequestHan
             return logAndBuildMissingPathParamResponse(badRequestException);
         }
 
-        final GetHistoryForServiceUserConsentResponseContent activityResponse;
+        final ListPage<ConsentChangeEvent> activityResponse;
+        final String pageToken;
+        final ConsentHistoryView view;
         final String responseBodyString;
         try {
-            activityResponse = activity.handleRequest(serviceId, userId, consentId);
-            final List<ConsentChangeEvent> consentHistory = activityResponse.getData();
-            final GetHistoryForServiceUserConsentResponseContent responseContent = new GetHistoryForServiceUserConsentResponseContent()
-                .data(consentHistory);
-            responseBodyString = toJsonString(objectMapper, responseContent);
-        } catch (final InternalServiceException | JsonProcessingException | ResourceNotFoundException exception) {
+            pageToken = ApiQueryStringParameterParser.parseStringQueryStringParameter(request,
+                ApiQueryStringParameterName.PAGE_TOKEN.getValue());
+            final EventTimeWindow eventTimeWindow = ApiQueryStringParameterParser.parseEventTimeWindow(request);
+            view = ApiQueryStringParameterParser.parseView(request);
+            final String ifNoneMatch = ApiHeaderParser.parseHeader(request, ApiHttpHeaderName.IF_NONE_MATCH.getValue());
+            if (ifNoneMatch != null && pageToken == null) {
+                final Optional<EntityTag> currentEntityTag = activity.getEntityTag(serviceId, userId, consentId, eventTimeWindow)
+                    .map(entityTag -> entityTag.forView(view));
+                if (currentEntityTag.isPresent() && currentEntityTag.get().matchesAny(ifNoneMatch)) {
+                    logger.info("Consent history not modified for path {}", request.path());
+                    return buildNotModifiedResponse(currentEntityTag.get());
+                }
+            }
+
+            activityResponse = activity.handleRequest(serviceId, userId, consentId, pageToken, eventTimeWindow, view);
+            final long serializationStartNanos = System.nanoTime();
+            responseBodyString = writeResponseBody(activityResponse);
+            RequestMetrics.current().addSerializationNanos(System.nanoTime() - serializationStartNanos);
+        } catch (final BadRequestException | InternalServiceException | JsonProcessingException
+                | ResourceNotFoundException exception) {
             return logAndBuildErrorResponse(exception);
         }
 
-        logger.info("Successfully retrieved {} consent history records for path {}",
-            activityResponse.getData().size(), request.path());
-        return buildApiSuccessResponse(responseBodyString);
+        final List<ConsentChangeEvent> consentHistory = activityResponse.resultsOnPage();
+        logger.info("Successfully retrieved {} consent history records for path {}", consentHistory.size(), request.path());
+        final Map<String, Object> response = buildApiSuccessResponse(responseBodyString);
+        if (consentHistory.isEmpty() || pageToken != null || activityResponse.nextPageToken().isPresent()) {
+            return response;
+        }
+        return withEntityTag(response, EntityTag.ofLatest(consentHistory).forView(view));
+    }
+
+    private String writeResponseBody(final ListPage<ConsentChangeEvent> consentHistoryPage) throws JsonProcessingException {
+        final GetHistoryForServiceUserConsentResponseContent responseContent = new GetHistoryForServiceUserConsentResponseContent()
+            .data(consentHistoryPage.resultsOnPage());
+        if (consentHistoryPage.nextPageToken().isEmpty()) {
+            return toJsonString(objectMapper, responseContent);
+        }
+
+        final ObjectNode partialResponseContent = objectMapper.valueToTree(responseContent);
+        partialResponseContent.put(NEXT_PAGE_TOKEN_FIELD_NAME, consentHistoryPage.nextPageToken().get());
+        partialResponseContent.put(PARTIAL_FIELD_NAME, true);
+        return toJsonString(objectMapper, partialResponseContent);
+    }
+
+    private static Map<String, Object> buildNotModifiedResponse(final EntityTag entityTag) {
+        final Map<String, Object> response = new HashMap<>();
+        response.put(ApiResponseParameterName.STATUS_CODE.getValue(), NOT_MODIFIED_STATUS_CODE);
+        return withEntityTag(response, entityTag);
+    }
+
+    private static Map<String, Object> withEntityTag(final Map<String, Object> response, final EntityTag entityTag) {
+        final Map<String, Object> taggedResponse = new HashMap<>(response);
+        taggedResponse.put(ApiProxyResponseParameterName.HEADERS.getValue(),
+            Map.of(ApiHttpHeaderName.ETAG.getValue(), entityTag.toHeaderValue()));
+        return taggedResponse;
     }
 }
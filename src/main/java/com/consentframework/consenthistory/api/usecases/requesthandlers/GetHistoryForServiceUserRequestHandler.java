@@ -2,38 +2,70 @@ package com.consentframework.consenthistory.api.usecases.requesthandlers;
 
 import com.consentframework.consenthistory.api.JSON;
 import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.parsers.ApiQueryStringParameterParser;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
-import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserResponseContent;
 import com.consentframework.consenthistory.api.usecases.activities.GetHistoryForServiceUserActivity;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryResponseBudget;
 import com.consentframework.shared.api.domain.entities.ApiRequest;
 import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.InternalServiceException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 import com.consentframework.shared.api.domain.parsers.ApiPathParameterParser;
 import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.OptionalLong;
 
 /**
  * Handles requests to retrieve history for a given service user.
+ *
+ * A request without a limit or page token returns the service user's full history, otherwise a single page of at most
+ * limit change events.
+ *
+ * Given a maximum response size, each page ends once its response body would exceed it, returning a token to continue
+ * from the first change event left out, so that a page of large change events stays within the Lambda response payload limit.
  */
 public class GetHistoryForServiceUserRequestHandler extends ApiRequestHandler {
+    public static final String NEXT_PAGE_TOKEN_FIELD_NAME = ConsentHistoryJsonWriter.NEXT_PAGE_TOKEN_FIELD_NAME;
+    public static final int MAX_PAGE_LIMIT = 1000;
+
     private static final Logger logger = LogManager.getLogger(GetHistoryForServiceUserRequestHandler.class);
     private static final ObjectMapper objectMapper = new JSON().getMapper();
+    private static final ConsentHistoryJsonWriter jsonWriter = new ConsentHistoryJsonWriter(objectMapper);
 
     final GetHistoryForServiceUserActivity activity;
+    private final OptionalLong maximumResponseBytes;
 
     /**
      * Request handler constructor.
      */
     public GetHistoryForServiceUserRequestHandler(final GetHistoryForServiceUserActivity activity) {
+        this(activity, OptionalLong.empty());
+    }
+
+    /**
+     * Request handler constructor with a maximum response size.
+     *
+     * @param activity GetHistoryForServiceUser activity
+     * @param maximumResponseBytes maximum size of a response in bytes, or empty for pages bounded only by their limit
+     */
+    public GetHistoryForServiceUserRequestHandler(final GetHistoryForServiceUserActivity activity,
+            final OptionalLong maximumResponseBytes) {
         super(ApiPathParameterName.CONSENTS_PATH_PARAM_NAMES);
         this.activity = activity;
+        this.maximumResponseBytes = maximumResponseBytes;
     }
 
     /**
@@ -53,20 +85,51 @@ public class GetHistoryForServiceUserRequestHandler extends ApiRequestHandler {
             return logAndBuildMissingPathParamResponse(badRequestException);
         }
 
-        final GetHistoryForServiceUserResponseContent activityResponse;
+        final ListPage<ConsentHistory> activityResponse;
         final String responseBodyString;
         try {
-            activityResponse = activity.handleRequest(serviceId, userId);
-            final List<ConsentHistory> consentHistory = activityResponse.getData();
-            final GetHistoryForServiceUserResponseContent responseContent = new GetHistoryForServiceUserResponseContent()
-                .data(consentHistory);
-            responseBodyString = toJsonString(objectMapper, responseContent);
-        } catch (final InternalServiceException | JsonProcessingException | ResourceNotFoundException exception) {
+            final ServiceUserHistoryQuery query = ServiceUserHistoryQuery.FULL_HISTORY
+                .withLimit(parseLimit(request))
+                .withPageToken(ApiQueryStringParameterParser.parseStringQueryStringParameter(request,
+                    ApiQueryStringParameterName.PAGE_TOKEN.getValue()))
+                .withEventTimeWindow(ApiQueryStringParameterParser.parseEventTimeWindow(request))
+                .withView(ApiQueryStringParameterParser.parseView(request));
+            if (maximumResponseBytes.isEmpty()) {
+                activityResponse = activity.handleRequest(serviceId, userId, query);
+                responseBodyString = writeResponseBody(activityResponse, Map.of());
+            } else {
+                final ConsentHistoryResponseBudget responseBudget = new ConsentHistoryResponseBudget(objectMapper,
+                    maximumResponseBytes.getAsLong());
+                activityResponse = activity.handleRequest(serviceId, userId, query.withBudget(responseBudget));
+                responseBodyString = writeResponseBody(activityResponse, responseBudget.serializedEvents());
+            }
+        } catch (final BadRequestException | InternalServiceException | IOException | ResourceNotFoundException exception) {
             return logAndBuildErrorResponse(exception);
+        } catch (final UncheckedIOException uncheckedIOException) {
+            return logAndBuildErrorResponse(uncheckedIOException.getCause());
         }
 
         logger.info("Successfully retrieved {} consent histories for path {}",
-            activityResponse.getData().size(), request.path());
+            activityResponse.resultsOnPage().size(), request.path());
         return buildApiSuccessResponse(responseBodyString);
     }
+
+    private Integer parseLimit(final ApiRequest request) throws BadRequestException {
+        final Integer limit = ApiQueryStringParameterParser.parsePositiveIntQueryStringParameter(request,
+            ApiQueryStringParameterName.LIMIT.getValue());
+        return limit == null ? null : Math.min(limit, MAX_PAGE_LIMIT);
+    }
+
+    private String writeResponseBody(final ListPage<ConsentHistory> consentHistoryPage,
+            final Map<ConsentChangeEvent, String> serializedEvents) throws IOException {
+        final long startNanos = System.nanoTime();
+        try {
+            final StringWriter responseBodyWriter = new StringWriter();
+            jsonWriter.writeConsentHistories(responseBodyWriter, consentHistoryPage.resultsOnPage(), consentHistoryPage.nextPageToken(),
+                serializedEvents);
+            return responseBodyWriter.toString();
+        } finally {
+            RequestMetrics.current().addSerializationNanos(System.nanoTime() - startNanos);
+        }
+    }
 }
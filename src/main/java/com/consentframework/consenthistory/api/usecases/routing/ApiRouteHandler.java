@@ -0,0 +1,19 @@
+package com.consentframework.consenthistory.api.usecases.routing;
+
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+
+import java.util.Map;
+
+/**
+ * Handles the requests of a route.
+ */
+@FunctionalInterface
+public interface ApiRouteHandler {
+    /**
+     * Handle an API request.
+     *
+     * @param request API request, whose resource and path parameters have been resolved
+     * @return API response
+     */
+    Map<String, Object> handleRequest(ApiRequest request);
+}
@@ -0,0 +1,131 @@
+package com.consentframework.consenthistory.api.usecases.routing;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Routes API requests to handlers by HTTP method and resource, from a route table built once at initialization.
+ *
+ * API Gateway requests carry their resource template, and are dispatched with two map lookups and no allocation beyond
+ * the handler's response.  Requests without a resource, eg. from servers other than API Gateway, have their raw path
+ * resolved to a resource template and path parameters first, see {@link #resolve(ApiRequest)}.
+ */
+public final class ApiRouter {
+    public static final String DUPLICATE_ROUTE_MESSAGE = "Route %s %s is already defined";
+    public static final String MISSING_UNMATCHED_REQUEST_HANDLER_MESSAGE = "Handler of requests matching no route is required";
+
+    private final Map<String, Map<String, ApiRouteHandler>> handlersByResourceByMethod;
+    private final PathTemplateTrie resourceTemplates;
+    private final ApiRouteHandler unmatchedRequestHandler;
+
+    private ApiRouter(final Builder builder) {
+        this.handlersByResourceByMethod = builder.handlersByResourceByMethod;
+        this.resourceTemplates = builder.resourceTemplates;
+        this.unmatchedRequestHandler = builder.unmatchedRequestHandler;
+    }
+
+    /**
+     * Resolve the resource template and path parameters of a request without a resource from its path.
+     *
+     * @param request API request
+     * @return input request if it has a resource or its path matches no route, otherwise a copy with the matched resource
+     *     template and the path parameters extracted from the path
+     */
+    public ApiRequest resolve(final ApiRequest request) {
+        if (request.resource() != null) {
+            return request;
+        }
+        final Optional<PathTemplateTrie.PathTemplateMatch> match = resourceTemplates.match(request.path());
+        if (match.isEmpty()) {
+            return request;
+        }
+        return new ApiRequest(request.httpMethod(), match.get().template(), request.path(), match.get().pathParameters(),
+            request.queryStringParameters(), request.headers(), request.isBase64Encoded(), request.body());
+    }
+
+    /**
+     * Dispatch a request to the handler of its HTTP method and resource.
+     *
+     * @param request API request, with a resource, see {@link #resolve(ApiRequest)}
+     * @return response of the route's handler, or of the unmatched request handler if no route matches
+     */
+    public Map<String, Object> handleRequest(final ApiRequest request) {
+        final Map<String, ApiRouteHandler> handlersByResource = handlersByResourceByMethod.get(request.httpMethod());
+        final ApiRouteHandler handler = handlersByResource == null ? null : handlersByResource.get(request.resource());
+        return handler == null ? unmatchedRequestHandler.handleRequest(request) : handler.handleRequest(request);
+    }
+
+    /**
+     * Return a builder of an API router.
+     *
+     * @return API router builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds the route table of an API router, which shares it, so each builder builds a single router.
+     */
+    public static final class Builder {
+        private final Map<String, Map<String, ApiRouteHandler>> handlersByResourceByMethod = new HashMap<>();
+        private final PathTemplateTrie resourceTemplates = new PathTemplateTrie();
+        private final Set<ApiHttpResource> routedResources = EnumSet.noneOf(ApiHttpResource.class);
+        private ApiRouteHandler unmatchedRequestHandler;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a route.
+         *
+         * @param httpMethod HTTP method of the route
+         * @param resource resource of the route
+         * @param handler handler of the route's requests
+         * @return this builder
+         * @throws IllegalArgumentException if the route is already defined
+         */
+        public Builder route(final HttpMethod httpMethod, final ApiHttpResource resource, final ApiRouteHandler handler) {
+            final Map<String, ApiRouteHandler> handlersByResource = handlersByResourceByMethod.computeIfAbsent(httpMethod.name(),
+                ignored -> new HashMap<>());
+            if (handlersByResource.putIfAbsent(resource.getValue(), handler) != null) {
+                throw new IllegalArgumentException(String.format(DUPLICATE_ROUTE_MESSAGE, httpMethod.name(), resource.getValue()));
+            }
+            if (routedResources.add(resource)) {
+                resourceTemplates.add(resource.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * Set the handler of requests matching no route.
+         *
+         * @param handler handler of unmatched requests
+         * @return this builder
+         */
+        public Builder unmatchedRequestHandler(final ApiRouteHandler handler) {
+            this.unmatchedRequestHandler = handler;
+            return this;
+        }
+
+        /**
+         * Build the API router.
+         *
+         * @return API router
+         * @throws IllegalStateException if no unmatched request handler is set
+         */
+        public ApiRouter build() {
+            if (unmatchedRequestHandler == null) {
+                throw new IllegalStateException(MISSING_UNMATCHED_REQUEST_HANDLER_MESSAGE);
+            }
+            return new ApiRouter(this);
+        }
+    }
+}
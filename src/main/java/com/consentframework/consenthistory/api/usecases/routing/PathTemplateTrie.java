@@ -0,0 +1,176 @@
+package com.consentframework.consenthistory.api.usecases.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Trie of resource path templates, eg. /v1/consent-history/services/{serviceId}/users/{userId}/consents, matching raw
+ * request paths to the template they instantiate and extracting the path parameters.
+ *
+ * Literal segments take precedence over path parameters at the same position, and matching backtracks to a path parameter
+ * if the literal branch does not lead to a template.  Literal segments are compared in place, so matching allocates only
+ * the extracted path parameter values.  Paths must already be percent-decoded, trailing slashes are ignored, and empty
+ * segments never match a path parameter.
+ */
+public final class PathTemplateTrie {
+    public static final String DUPLICATE_TEMPLATE_MESSAGE = "Path template %s is already added";
+    public static final String CONFLICTING_PATH_PARAMETER_MESSAGE = "Path template %s names path parameter {%s} where another "
+        + "template names {%s}";
+
+    private static final char SEPARATOR = '/';
+
+    private final Node root = new Node();
+
+    /**
+     * Add a path template, in which path parameters are segments of the form {name}.
+     *
+     * @param template path template
+     * @throws IllegalArgumentException if the template is already added, or names a path parameter differently from another
+     *     template at the same position
+     */
+    public void add(final String template) {
+        Node node = root;
+        for (final String segment : splitSegments(template)) {
+            if (isPathParameter(segment)) {
+                final String pathParameterName = segment.substring(1, segment.length() - 1);
+                if (node.pathParameterChild == null) {
+                    node.pathParameterChild = new Node();
+                    node.pathParameterName = pathParameterName;
+                } else if (!node.pathParameterName.equals(pathParameterName)) {
+                    throw new IllegalArgumentException(String.format(CONFLICTING_PATH_PARAMETER_MESSAGE, template, pathParameterName,
+                        node.pathParameterName));
+                }
+                node = node.pathParameterChild;
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.template != null) {
+            throw new IllegalArgumentException(String.format(DUPLICATE_TEMPLATE_MESSAGE, template));
+        }
+        node.template = template;
+        node.templateSegments = splitSegments(template);
+    }
+
+    /**
+     * Match a request path to the template it instantiates.
+     *
+     * @param path percent-decoded request path
+     * @return matched template and path parameters, or empty if the path matches no template
+     */
+    public Optional<PathTemplateMatch> match(final String path) {
+        if (path == null) {
+            return Optional.empty();
+        }
+        final int pathEnd = trimTrailingSeparators(path);
+        final Node matchedNode = match(root, path, skipSeparator(path, 0, pathEnd), pathEnd);
+        if (matchedNode == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new PathTemplateMatch(matchedNode.template, extractPathParameters(matchedNode, path, pathEnd)));
+    }
+
+    private static Node match(final Node node, final String path, final int segmentStart, final int pathEnd) {
+        if (segmentStart >= pathEnd) {
+            return node.template == null ? null : node;
+        }
+        int segmentEnd = path.indexOf(SEPARATOR, segmentStart);
+        if (segmentEnd < 0 || segmentEnd > pathEnd) {
+            segmentEnd = pathEnd;
+        }
+        final int segmentLength = segmentEnd - segmentStart;
+        final int nextSegmentStart = skipSeparator(path, segmentEnd, pathEnd);
+
+        for (int literalIndex = 0; literalIndex < node.literalSegments.size(); literalIndex++) {
+            final String literal = node.literalSegments.get(literalIndex);
+            if (literal.length() == segmentLength && path.regionMatches(segmentStart, literal, 0, segmentLength)) {
+                final Node matchedNode = match(node.literalChildren.get(literalIndex), path, nextSegmentStart, pathEnd);
+                if (matchedNode != null) {
+                    return matchedNode;
+                }
+            }
+        }
+        if (node.pathParameterChild != null && segmentLength > 0) {
+            return match(node.pathParameterChild, path, nextSegmentStart, pathEnd);
+        }
+        return null;
+    }
+
+    private static Map<String, String> extractPathParameters(final Node matchedNode, final String path, final int pathEnd) {
+        final Map<String, String> pathParameters = new HashMap<>();
+        int segmentStart = skipSeparator(path, 0, pathEnd);
+        for (final String templateSegment : matchedNode.templateSegments) {
+            int segmentEnd = path.indexOf(SEPARATOR, segmentStart);
+            if (segmentEnd < 0 || segmentEnd > pathEnd) {
+                segmentEnd = pathEnd;
+            }
+            if (isPathParameter(templateSegment)) {
+                pathParameters.put(templateSegment.substring(1, templateSegment.length() - 1), path.substring(segmentStart, segmentEnd));
+            }
+            segmentStart = skipSeparator(path, segmentEnd, pathEnd);
+        }
+        return pathParameters;
+    }
+
+    private static int skipSeparator(final String path, final int index, final int pathEnd) {
+        return index < pathEnd && path.charAt(index) == SEPARATOR ? index + 1 : index;
+    }
+
+    private static int trimTrailingSeparators(final String path) {
+        int pathEnd = path.length();
+        while (pathEnd > 0 && path.charAt(pathEnd - 1) == SEPARATOR) {
+            pathEnd--;
+        }
+        return pathEnd;
+    }
+
+    private static List<String> splitSegments(final String template) {
+        final List<String> segments = new ArrayList<>();
+        for (final String segment : template.split(String.valueOf(SEPARATOR))) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static boolean isPathParameter(final String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    /**
+     * Trie node, one per distinct template prefix.
+     *
+     * Literal children are held in lists rather than a map, so that matching iterates them without allocating.
+     */
+    private static final class Node {
+        private final List<String> literalSegments = new ArrayList<>();
+        private final List<Node> literalChildren = new ArrayList<>();
+        private Node pathParameterChild;
+        private String pathParameterName;
+        private String template;
+        private List<String> templateSegments;
+
+        private Node literalChild(final String segment) {
+            final int literalIndex = literalSegments.indexOf(segment);
+            if (literalIndex >= 0) {
+                return literalChildren.get(literalIndex);
+            }
+            final Node literalChild = new Node();
+            literalSegments.add(segment);
+            literalChildren.add(literalChild);
+            return literalChild;
+        }
+    }
+
+    /**
+     * Template matched by a request path.
+     *
+     * @param template matched path template
+     * @param pathParameters path parameter values by name
+     */
+    public record PathTemplateMatch(String template, Map<String, String> pathParameters) {}
+}
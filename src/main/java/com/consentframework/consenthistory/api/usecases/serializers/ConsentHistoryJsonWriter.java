@@ -0,0 +1,172 @@
+package com.consentframework.consenthistory.api.usecases.serializers;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchResult;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes GetHistoryForServiceUser, GetChangesForServiceUser, and GetConsentHistoryBatch response bodies with a
+ * JsonGenerator.
+ *
+ * Responses are written straight to the output rather than first converting them into a JSON tree, so no intermediate JSON
+ * tree is held on the heap.  The histories passed in are already fully read from the repository; events are not written
+ * as repository pages arrive.
+ */
+public final class ConsentHistoryJsonWriter {
+    public static final String DATA_FIELD_NAME = "data";
+    public static final String CONSENT_ID_FIELD_NAME = "consentId";
+    public static final String HISTORY_FIELD_NAME = "history";
+    public static final String NEXT_PAGE_TOKEN_FIELD_NAME = "nextPageToken";
+    public static final String NEXT_WATERMARK_FIELD_NAME = "nextWatermark";
+    public static final String HAS_MORE_FIELD_NAME = "hasMore";
+    public static final String SERVICE_ID_FIELD_NAME = "serviceId";
+    public static final String USER_ID_FIELD_NAME = "userId";
+    public static final String NOT_FOUND_FIELD_NAME = "notFound";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter consentChangeEventWriter;
+
+    /**
+     * Construct the consent history JSON writer.
+     *
+     * @param objectMapper object mapper used to serialize consent change events
+     */
+    public ConsentHistoryJsonWriter(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.consentChangeEventWriter = objectMapper.writerFor(ConsentChangeEvent.class);
+    }
+
+    /**
+     * Write a page of consent histories which have already been grouped by consent ID.
+     *
+     * @param writer output to write the response body to, left open
+     * @param consentHistories consent histories on the page
+     * @param nextPageToken token to retrieve the following page, if any
+     * @throws IOException if the response body cannot be written
+     */
+    public void writeConsentHistories(final Writer writer, final List<ConsentHistory> consentHistories,
+            final Optional<String> nextPageToken) throws IOException {
+        try (JsonGenerator generator = createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(DATA_FIELD_NAME);
+            for (final ConsentHistory consentHistory : consentHistories) {
+                objectMapper.writeValue(generator, consentHistory);
+            }
+            generator.writeEndArray();
+            writeNextPageToken(generator, nextPageToken);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write a page of consent histories which have already been grouped by consent ID, writing change events which
+     * were serialized while the page was read as-is rather than serializing them again.
+     *
+     * @param writer output to write the response body to, left open
+     * @param consentHistories consent histories on the page
+     * @param nextPageToken token to retrieve the following page, if any
+     * @param serializedEvents JSON of change events serialized by the same object mapper, by identity of the change event
+     * @throws IOException if the response body cannot be written
+     */
+    public void writeConsentHistories(final Writer writer, final List<ConsentHistory> consentHistories,
+            final Optional<String> nextPageToken, final Map<ConsentChangeEvent, String> serializedEvents) throws IOException {
+        try (JsonGenerator generator = createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(DATA_FIELD_NAME);
+            for (final ConsentHistory consentHistory : consentHistories) {
+                generator.writeStartObject();
+                generator.writeStringField(CONSENT_ID_FIELD_NAME, consentHistory.getConsentId());
+                generator.writeArrayFieldStart(HISTORY_FIELD_NAME);
+                for (final ConsentChangeEvent consentChangeEvent : consentHistory.getHistory()) {
+                    final String serializedEvent = serializedEvents.get(consentChangeEvent);
+                    if (serializedEvent == null) {
+                        consentChangeEventWriter.writeValue(generator, consentChangeEvent);
+                    } else {
+                        generator.writeRawValue(serializedEvent);
+                    }
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            writeNextPageToken(generator, nextPageToken);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write a page of a service user's change feed, as a flat array of change events followed by the next watermark.
+     *
+     * @param writer output to write the response body to, left open
+     * @param changeFeedPage change feed page
+     * @throws IOException if the response body cannot be written
+     */
+    public void writeChangeFeedPage(final Writer writer, final ChangeFeedPage changeFeedPage) throws IOException {
+        try (JsonGenerator generator = createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(DATA_FIELD_NAME);
+            for (final ConsentChangeEvent consentChangeEvent : changeFeedPage.changes()) {
+                consentChangeEventWriter.writeValue(generator, consentChangeEvent);
+            }
+            generator.writeEndArray();
+            generator.writeStringField(NEXT_WATERMARK_FIELD_NAME, changeFeedPage.nextWatermark());
+            generator.writeBooleanField(HAS_MORE_FIELD_NAME, changeFeedPage.hasMore());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write the results of a batch consent history request, each holding its key and either the consent's history
+     * or a not-found marker.
+     *
+     * @param writer output to write the response body to, left open
+     * @param results result for each key of the batch, in the order of the keys
+     * @throws IOException if the response body cannot be written
+     */
+    public void writeConsentHistoryBatch(final Writer writer, final List<ConsentHistoryBatchResult> results) throws IOException {
+        try (JsonGenerator generator = createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(DATA_FIELD_NAME);
+            for (final ConsentHistoryBatchResult result : results) {
+                generator.writeStartObject();
+                generator.writeStringField(SERVICE_ID_FIELD_NAME, result.key().serviceId());
+                generator.writeStringField(USER_ID_FIELD_NAME, result.key().userId());
+                generator.writeStringField(CONSENT_ID_FIELD_NAME, result.key().consentId());
+                if (result.history().isPresent()) {
+                    generator.writeArrayFieldStart(HISTORY_FIELD_NAME);
+                    for (final ConsentChangeEvent consentChangeEvent : result.history().get()) {
+                        consentChangeEventWriter.writeValue(generator, consentChangeEvent);
+                    }
+                    generator.writeEndArray();
+                } else {
+                    generator.writeBooleanField(NOT_FOUND_FIELD_NAME, true);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private JsonGenerator createGenerator(final Writer writer) throws IOException {
+        return objectMapper.getFactory()
+            .createGenerator(writer)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void writeNextPageToken(final JsonGenerator generator, final Optional<String> nextPageToken) throws IOException {
+        if (nextPageToken.isPresent()) {
+            generator.writeStringField(NEXT_PAGE_TOKEN_FIELD_NAME, nextPageToken.get());
+        }
+    }
+}
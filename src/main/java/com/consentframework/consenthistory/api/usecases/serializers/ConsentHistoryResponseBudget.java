@@ -0,0 +1,137 @@
+package com.consentframework.consenthistory.api.usecases.serializers;
+
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounds a GetHistoryForServiceUser response body to a maximum number of bytes, by serializing each change event
+ * as it is read and adding its size to the size of the response so far.
+ *
+ * Response bodies are returned as a JSON string within the Lambda proxy response, so sizes are counted as UTF-8 bytes
+ * with an extra byte for each character escaped within that string.  A fixed number of bytes is reserved for the response's
+ * envelope and page token.  Accepted change events keep their serialized form, so the response body is written without
+ * serializing them again.
+ */
+public final class ConsentHistoryResponseBudget implements ConsentChangeEventBudget {
+    /**
+     * Bytes reserved for the response body's data array and next page token, and the Lambda proxy response around it.
+     */
+    public static final long RESERVED_BYTES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter consentChangeEventWriter;
+    private final long maximumBytes;
+    private final Map<ConsentChangeEvent, String> serializedEvents = new IdentityHashMap<>();
+    private final Set<String> consentIds = new HashSet<>();
+    private long responseBytes = RESERVED_BYTES;
+
+    /**
+     * Construct the response budget.
+     *
+     * @param objectMapper object mapper used to serialize consent change events, as for the response body
+     * @param maximumBytes maximum size of the response in bytes
+     */
+    public ConsentHistoryResponseBudget(final ObjectMapper objectMapper, final long maximumBytes) {
+        this.objectMapper = objectMapper;
+        this.consentChangeEventWriter = objectMapper.writerFor(ConsentChangeEvent.class);
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Add the change event to the response if it fits within the maximum size, the first change event is always added.
+     *
+     * @param consentChangeEvent change event read
+     * @return true if the change event was added, false if the response is full
+     * @throws UncheckedIOException if the change event cannot be serialized
+     */
+    @Override
+    public boolean tryAdd(final ConsentChangeEvent consentChangeEvent) {
+        final String serializedEvent = serialize(consentChangeEvent);
+
+        // Each event is followed by a comma, bar the last, which is outweighed by the reserved bytes
+        long eventBytes = countResponseBytes(serializedEvent) + 1;
+        final boolean firstEventOfConsent = !consentIds.contains(consentChangeEvent.getConsentId());
+        if (firstEventOfConsent) {
+            eventBytes += countConsentHistoryBytes(consentChangeEvent.getConsentId());
+        }
+        if (!serializedEvents.isEmpty() && responseBytes + eventBytes > maximumBytes) {
+            return false;
+        }
+
+        responseBytes += eventBytes;
+        serializedEvents.put(consentChangeEvent, serializedEvent);
+        if (firstEventOfConsent) {
+            consentIds.add(consentChangeEvent.getConsentId());
+        }
+        return true;
+    }
+
+    /**
+     * Return the serialized form of each change event added, by identity of the change event.
+     *
+     * @return unmodifiable map of added change events to their serialized JSON
+     */
+    public Map<ConsentChangeEvent, String> serializedEvents() {
+        return Collections.unmodifiableMap(serializedEvents);
+    }
+
+    /**
+     * Return the size of the response so far, including the reserved bytes.
+     *
+     * @return response size in bytes
+     */
+    public long responseBytes() {
+        return responseBytes;
+    }
+
+    private String serialize(final Object value) {
+        try {
+            return value instanceof ConsentChangeEvent
+                ? consentChangeEventWriter.writeValueAsString(value)
+                : objectMapper.writeValueAsString(value);
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new UncheckedIOException(jsonProcessingException);
+        }
+    }
+
+    /**
+     * Count the bytes of a consent history holding no events, eg. {"consentId":"...","history":[]}, and its separating comma.
+     */
+    private long countConsentHistoryBytes(final String consentId) {
+        return countResponseBytes("{\"" + ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME + "\":" + serialize(consentId)
+            + ",\"" + ConsentHistoryJsonWriter.HISTORY_FIELD_NAME + "\":[]},");
+    }
+
+    /**
+     * Count the UTF-8 bytes of the JSON, plus a byte for each quote or backslash escaped within the Lambda proxy response.
+     */
+    static long countResponseBytes(final String json) {
+        long bytes = 0;
+        for (int index = 0; index < json.length(); index++) {
+            final char character = json.charAt(index);
+            if (character == '"' || character == '\\') {
+                bytes += 2;
+            } else if (character < 0x80) {
+                bytes += 1;
+            } else if (character < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(character)) {
+                // Surrogate pairs encode to four bytes, counted as two for each half
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,118 @@
+package com.consentframework.consenthistory.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.infrastructure.repositories.CoalescingServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.server.ApiHttpExchangeHandler;
+import com.consentframework.consenthistory.api.infrastructure.server.HttpServerConfiguration;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConsentHistoryApiServerTest {
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void testServesRoutesUntilStopped() throws Exception {
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            ConsentChangeEventGenerator.generate());
+        final ConsentHistoryApiServer server = new ConsentHistoryApiServer(new ConsentHistoryApiService(repository),
+            new HttpServerConfiguration(0, 10, Duration.ofSeconds(1)));
+        server.start();
+
+        try {
+            final HttpResponse<String> consentHistoryResponse = get(server, TestConstants.TEST_CONSENT_HISTORY_PATH);
+            assertEquals(HttpStatusCode.SUCCESS.getValue(), consentHistoryResponse.statusCode());
+            assertTrue(consentHistoryResponse.body().contains(TestConstants.TEST_CONSENT_ID));
+
+            final HttpResponse<String> unsupportedResponse = get(server, "/v1/consent-history");
+            assertEquals(HttpStatusCode.BAD_REQUEST.getValue(), unsupportedResponse.statusCode());
+
+            assertEquals(HttpStatusCode.SUCCESS.getValue(), get(server, ApiHttpExchangeHandler.HEALTH_PATH).statusCode());
+        } finally {
+            server.stop();
+        }
+        assertThrows(ConnectException.class, () -> get(server, ApiHttpExchangeHandler.HEALTH_PATH));
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsShareRepositoryCall() throws Exception {
+        final AtomicInteger repositoryCallCount = new AtomicInteger();
+        final CountDownLatch releaseQuery = new CountDownLatch(1);
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository() {
+            @Override
+            public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                    final EventTimeWindow eventTimeWindow, final ConsentHistoryView view) throws ResourceNotFoundException {
+                repositoryCallCount.incrementAndGet();
+                try {
+                    releaseQuery.await();
+                } catch (final InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getConsentHistory(serviceId, userId, consentId, eventTimeWindow, view);
+            }
+        };
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            ConsentChangeEventGenerator.generate());
+        final CoalescingServiceUserConsentHistoryRepository serverRepository = assertInstanceOf(
+            CoalescingServiceUserConsentHistoryRepository.class, ConsentHistoryApiService.buildConsentHistoryRepository(repository,
+                Map.of(), ConsentHistoryApiServer.DEFAULT_QUERY_COALESCING_CONFIGURATION));
+        final ConsentHistoryApiServer server = new ConsentHistoryApiServer(new ConsentHistoryApiService(serverRepository),
+            new HttpServerConfiguration(0, 10, Duration.ofSeconds(1)));
+        server.start();
+
+        try {
+            final List<CompletableFuture<HttpResponse<String>>> responses = List.of(
+                getAsync(server, TestConstants.TEST_CONSENT_HISTORY_PATH), getAsync(server, TestConstants.TEST_CONSENT_HISTORY_PATH));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (serverRepository.coalescedQueryCount() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            releaseQuery.countDown();
+
+            for (final CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(HttpStatusCode.SUCCESS.getValue(), response.get(5, TimeUnit.SECONDS).statusCode());
+            }
+            assertEquals(1, serverRepository.coalescedQueryCount());
+            assertEquals(1, repositoryCallCount.get());
+        } finally {
+            releaseQuery.countDown();
+            server.stop();
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> getAsync(final ConsentHistoryApiServer server, final String path) {
+        return httpClient.sendAsync(
+            HttpRequest.newBuilder(URI.create(String.format("http://localhost:%d%s", server.getPort(), path))).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(final ConsentHistoryApiServer server, final String path) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(String.format("http://localhost:%d%s", server.getPort(), path))).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,60 @@
+package com.consentframework.consenthistory.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressionConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ConsentHistoryBatchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.RequestDeadlineConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.ResponseSizeBudgetConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.metrics.EmfMetricsPublisher;
+import com.consentframework.consenthistory.api.infrastructure.metrics.MetricsConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+class ConsentHistoryApiServiceConfigurationTest {
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final ConsentHistoryApiServiceConfiguration configuration = ConsentHistoryApiServiceConfiguration.fromEnvironment(Map.of());
+        assertEquals(ConsentHistoryApiServiceConfiguration.DEFAULT.withMetricsPublisher(configuration.metricsPublisher()),
+            configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        final ConsentHistoryApiServiceConfiguration configuration = ConsentHistoryApiServiceConfiguration.fromEnvironment(Map.of(
+            ResponseCompressionConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            RequestDeadlineConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            ResponseSizeBudgetConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            ConsentHistoryBatchConfiguration.MAXIMUM_KEYS_ENVIRONMENT_VARIABLE, "10"));
+        assertEquals(ResponseCompressionConfiguration.fromEnvironment(Map.of(
+            ResponseCompressionConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true")), configuration.responseCompressionConfiguration());
+        assertEquals(RequestDeadlineConfiguration.fromEnvironment(Map.of(
+            RequestDeadlineConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true")), configuration.deadlineConfiguration());
+        assertEquals(ResponseSizeBudgetConfiguration.fromEnvironment(Map.of(
+            ResponseSizeBudgetConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true")), configuration.responseBudgetConfiguration());
+        assertEquals(10, configuration.batchConfiguration().maximumKeys());
+    }
+
+    @Test
+    void testWithReplacesSingleConfiguration() {
+        final EmfMetricsPublisher metricsPublisher = new EmfMetricsPublisher(MetricsConfiguration.DISABLED);
+        final ResponseCompressionConfiguration compressionConfiguration = new ResponseCompressionConfiguration(true, 100);
+        final RequestDeadlineConfiguration deadlineConfiguration = new RequestDeadlineConfiguration(true, Duration.ofSeconds(2));
+        final ResponseSizeBudgetConfiguration budgetConfiguration = new ResponseSizeBudgetConfiguration(true, 1_000_000);
+        final ConsentHistoryBatchConfiguration batchConfiguration = new ConsentHistoryBatchConfiguration(1, 1);
+
+        final ConsentHistoryApiServiceConfiguration configuration = ConsentHistoryApiServiceConfiguration.DEFAULT
+            .withResponseCompressionConfiguration(compressionConfiguration)
+            .withMetricsPublisher(metricsPublisher)
+            .withDeadlineConfiguration(deadlineConfiguration)
+            .withResponseBudgetConfiguration(budgetConfiguration)
+            .withBatchConfiguration(batchConfiguration);
+        assertEquals(new ConsentHistoryApiServiceConfiguration(compressionConfiguration, metricsPublisher, deadlineConfiguration,
+            budgetConfiguration, batchConfiguration), configuration);
+        assertSame(ConsentHistoryApiServiceConfiguration.DEFAULT.metricsPublisher(),
+            ConsentHistoryApiServiceConfiguration.DEFAULT.withBatchConfiguration(batchConfiguration).metricsPublisher());
+    }
+}
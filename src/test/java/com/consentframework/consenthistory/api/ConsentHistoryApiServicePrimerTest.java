@@ -0,0 +1,44 @@
+package com.consentframework.consenthistory.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressionConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConsentHistoryApiServicePrimerTest {
+    private static final int PRIMING_REQUEST_COUNT = ConsentHistoryApiServicePrimer.PRIMING_ROUNDS * 3 * ConsentHistoryView.values().length;
+
+    private final AtomicInteger clientInitializationCount = new AtomicInteger();
+
+    @Test
+    void testPrimeHandlesAllRequestsSuccessfully() {
+        final ConsentHistoryApiServicePrimer primer = new ConsentHistoryApiServicePrimer(clientInitializationCount::incrementAndGet,
+            ResponseCompressionConfiguration.DISABLED);
+
+        assertEquals(PRIMING_REQUEST_COUNT, primer.prime());
+        assertEquals(1, clientInitializationCount.get());
+    }
+
+    @Test
+    void testPrimeWithCompressionEnabled() {
+        final ConsentHistoryApiServicePrimer primer = new ConsentHistoryApiServicePrimer(clientInitializationCount::incrementAndGet,
+            new ResponseCompressionConfiguration(true, 1));
+
+        assertEquals(PRIMING_REQUEST_COUNT, primer.prime());
+    }
+
+    @Test
+    void testCheckpointAndRestore() {
+        final ConsentHistoryApiServicePrimer primer = new ConsentHistoryApiServicePrimer(clientInitializationCount::incrementAndGet,
+            ResponseCompressionConfiguration.DISABLED);
+
+        primer.beforeCheckpoint(null);
+        assertEquals(1, clientInitializationCount.get());
+
+        primer.afterRestore(null);
+        assertEquals(1, clientInitializationCount.get());
+    }
+}
@@ -1,23 +1,78 @@
 package com.consentframework.consenthistory.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.amazonaws.services.lambda.runtime.Context;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpHeaderName;
 import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestDeadline;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.caches.ConsentHistoryCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.caches.NegativeResultCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressionConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.compression.ResponseCompressor;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ConsentHistoryBatchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.QueryCoalescingConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ServiceUserHistoryFanOutConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.RequestDeadlineConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.configuration.ResponseSizeBudgetConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.metrics.EmfMetricsPublisher;
+import com.consentframework.consenthistory.api.infrastructure.repositories.CachingServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.CoalescingServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.FanOutServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.NegativeCachingServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
 import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
 import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.consenthistory.api.usecases.requesthandlers.GetHistoryForServiceUserConsentRequestHandler;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryResponseBudget;
 import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
 import com.consentframework.shared.api.domain.constants.HttpMethod;
 import com.consentframework.shared.api.domain.constants.HttpStatusCode;
 import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 
 class ConsentHistoryApiServiceTest {
     @Test
@@ -34,6 +89,37 @@ class ConsentHistoryApiServiceTest {
         );
     }
 
+    @Test
+    void handleNullRequestWithDefaultConstructor() {
+        final ConsentHistoryApiService service = new ConsentHistoryApiService();
+
+        final Map<String, Object> response = service.handleRequest(null, null);
+        assertEquals(HttpStatusCode.BAD_REQUEST.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+    }
+
+    @Test
+    void handleRequestPublishesMetrics() {
+        final ApiRequest request = new ApiRequest(
+            HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(),
+            TestConstants.TEST_CONSENT_HISTORY_PATH,
+            TestConstants.TEST_CONSENT_HISTORY_PATH_PARAMS,
+            null,
+            null,
+            false,
+            null
+        );
+        final EmfMetricsPublisher metricsPublisher = mock(EmfMetricsPublisher.class);
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(new InMemoryServiceUserConsentHistoryRepository(),
+            ConsentHistoryApiServiceConfiguration.DEFAULT.withMetricsPublisher(metricsPublisher));
+
+        service.handleRequest(request, null);
+
+        verify(metricsPublisher).publish(eq(ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue()),
+            eq(HttpStatusCode.NOT_FOUND.getValue()), longThat(latencyNanos -> latencyNanos > 0), any(RequestMetrics.class));
+        assertNotSame(RequestMetrics.current(), getPublishedRequestMetrics(metricsPublisher));
+    }
+
     @Test
     void handleRequestForUnsupportedResource() {
         final String unsupportedResource = "/v1/consent-history/services";
@@ -112,6 +198,135 @@ class ConsentHistoryApiServiceTest {
         );
     }
 
+    @Test
+    void handleRequestGetConsentHistoryByPath() {
+        final ApiRequest request = new ApiRequest(HttpMethod.GET.name(), null, TestConstants.TEST_CONSENT_HISTORY_PATH, null, null, null,
+            false, null);
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            ConsentChangeEventGenerator.generate());
+        final EmfMetricsPublisher metricsPublisher = mock(EmfMetricsPublisher.class);
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(repository,
+            ConsentHistoryApiServiceConfiguration.DEFAULT.withMetricsPublisher(metricsPublisher));
+
+        final Map<String, Object> response = service.handleRequest(request, null);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        verify(metricsPublisher).publish(eq(ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue()),
+            eq(HttpStatusCode.SUCCESS.getValue()), anyLong(), any(RequestMetrics.class));
+    }
+
+    @Test
+    void handleRequestStartsDeadlineFromRemainingTime() {
+        final ApiRequest request = new ApiRequest(HttpMethod.GET.name(), null, TestConstants.TEST_CONSENT_HISTORY_PATH, null, null, null,
+            false, null);
+        final AtomicBoolean deadlineHadPassed = new AtomicBoolean();
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository() {
+            @Override
+            public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                    final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+                deadlineHadPassed.set(RequestDeadline.current().hasPassed());
+                return super.getConsentHistory(serviceId, userId, consentId, eventTimeWindow);
+            }
+        };
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            ConsentChangeEventGenerator.generate());
+        final Context context = mock(Context.class);
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(repository, ConsentHistoryApiServiceConfiguration.DEFAULT
+            .withDeadlineConfiguration(new RequestDeadlineConfiguration(true, Duration.ofSeconds(1))));
+
+        when(context.getRemainingTimeInMillis()).thenReturn(500);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), service.handleRequest(request, context)
+            .get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertTrue(deadlineHadPassed.get());
+        assertFalse(RequestDeadline.current().hasPassed());
+
+        when(context.getRemainingTimeInMillis()).thenReturn(60_000);
+        service.handleRequest(request, context);
+        assertFalse(deadlineHadPassed.get());
+
+        deadlineHadPassed.set(true);
+        service.handleRequest(request, null);
+        assertFalse(deadlineHadPassed.get());
+    }
+
+    @Test
+    void handleRequestBoundsServiceUserHistoryByResponseBudget() {
+        final ApiRequest request = new ApiRequest(HttpMethod.GET.name(), null, TestConstants.TEST_SERVICE_USER_HISTORY_PATH, null, null,
+            null, false, null);
+        final AtomicReference<ConsentChangeEventBudget> readBudget = new AtomicReference<>();
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository() {
+            @Override
+            public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+                    final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+                readBudget.set(query.budget());
+                return super.getServiceUserHistory(serviceId, userId, query);
+            }
+        };
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            ConsentChangeEventGenerator.generate());
+
+        new ConsentHistoryApiService(repository).handleRequest(request, null);
+        assertSame(ConsentChangeEventBudget.UNLIMITED, readBudget.get());
+
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(repository, ConsentHistoryApiServiceConfiguration.DEFAULT
+            .withResponseBudgetConfiguration(new ResponseSizeBudgetConfiguration(true, 1_000_000)));
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), service.handleRequest(request, null)
+            .get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertInstanceOf(ConsentHistoryResponseBudget.class, readBudget.get());
+    }
+
+    @Test
+    void handleRequestGetServiceUserChanges() throws Exception {
+        final ApiRequest request = new ApiRequest(HttpMethod.GET.name(), null, TestConstants.TEST_SERVICE_USER_CHANGES_PATH, null,
+            Map.of(ApiQueryStringParameterName.AFTER.getValue(), "2000-01-01T00:00:00Z"), null, false, null);
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent);
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(repository);
+
+        final Map<String, Object> response = service.handleRequest(request, null);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        final JsonNode responseBody = new JSON().getMapper().readTree((String) response.get(ApiResponseParameterName.BODY.getValue()));
+        assertEquals(consentChangeEvent.getEventId(), responseBody.get(ConsentHistoryJsonWriter.DATA_FIELD_NAME).get(0).get("eventId")
+            .asText());
+        assertFalse(responseBody.get(ConsentHistoryJsonWriter.HAS_MORE_FIELD_NAME).asBoolean());
+    }
+
+    @Test
+    void handleRequestGetConsentHistoryBatch() throws Exception {
+        final String body = String.format("{\"keys\":[%s,%s]}",
+            buildBatchKeyJson(TestConstants.TEST_CONSENT_ID), buildBatchKeyJson(TestConstants.TEST_CONSENT_ID_2));
+        final ApiRequest request = new ApiRequest(HttpMethod.POST.name(), ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(),
+            ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(), null, null, null, false, body);
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent);
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(repository);
+
+        final Map<String, Object> response = service.handleRequest(request, null);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        final JsonNode data = new JSON().getMapper().readTree((String) response.get(ApiResponseParameterName.BODY.getValue()))
+            .get(ConsentHistoryJsonWriter.DATA_FIELD_NAME);
+        assertEquals(consentChangeEvent.getEventId(),
+            data.get(0).get(ConsentHistoryJsonWriter.HISTORY_FIELD_NAME).get(0).get("eventId").asText());
+        assertTrue(data.get(1).get(ConsentHistoryJsonWriter.NOT_FOUND_FIELD_NAME).asBoolean());
+    }
+
+    @Test
+    void handleRequestGetConsentHistoryBatchWithTooManyKeys() {
+        final String body = String.format("{\"keys\":[%s,%s]}",
+            buildBatchKeyJson(TestConstants.TEST_CONSENT_ID), buildBatchKeyJson(TestConstants.TEST_CONSENT_ID_2));
+        final ApiRequest request = new ApiRequest(HttpMethod.POST.name(), null, ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(),
+            null, null, null, false, body);
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(new InMemoryServiceUserConsentHistoryRepository(),
+            ConsentHistoryApiServiceConfiguration.DEFAULT.withBatchConfiguration(new ConsentHistoryBatchConfiguration(1, 1)));
+
+        final Map<String, Object> response = service.handleRequest(request, null);
+        assertEquals(HttpStatusCode.BAD_REQUEST.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+    }
+
     @Test
     void handleRequestGetServiceUserHistoryWhenNotFound() {
         final ApiRequest request = new ApiRequest(
@@ -176,6 +391,198 @@ class ConsentHistoryApiServiceTest {
         );
     }
 
+    @Test
+    void handleRequestGetServiceUserHistoryFansOutAboveConsentThreshold() {
+        final int consentCount = 3;
+        final AtomicInteger consentHistoryReads = new AtomicInteger();
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository() {
+            @Override
+            public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                    final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+                consentHistoryReads.incrementAndGet();
+                return super.getConsentHistory(serviceId, userId, consentId, eventTimeWindow);
+            }
+        };
+        for (int consentIndex = 0; consentIndex < consentCount; consentIndex++) {
+            final String consentId = "Consent" + consentIndex;
+            repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, consentId,
+                ConsentChangeEventGenerator.generate().consentId(InMemoryServiceUserConsentHistoryRepository.getPartitionKey(
+                    TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, consentId)));
+        }
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(ConsentHistoryApiService.buildConsentHistoryRepository(
+            repository, Map.of(
+                ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                ServiceUserHistoryFanOutConfiguration.CONSENT_COUNT_THRESHOLD_ENVIRONMENT_VARIABLE, String.valueOf(consentCount)),
+            QueryCoalescingConfiguration.DISABLED));
+        final ApiRequest request = new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_HISTORY.getValue(),
+            TestConstants.TEST_SERVICE_USER_HISTORY_PATH, TestConstants.TEST_SERVICE_USER_HISTORY_PATH_PARAMS, null, null, false, null);
+
+        // The first read learns the service user's consent IDs from a single query of its full history
+        final Map<String, Object> serialResponse = service.handleRequest(request, null);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), serialResponse.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertEquals(0, consentHistoryReads.get());
+
+        final Map<String, Object> fanOutResponse = service.handleRequest(request, null);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), fanOutResponse.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertEquals(consentCount, consentHistoryReads.get());
+        assertEquals(serialResponse.get(ApiResponseParameterName.BODY.getValue()),
+            fanOutResponse.get(ApiResponseParameterName.BODY.getValue()));
+    }
+
+    @Test
+    void handleRequestGetConsentHistoryNotModifiedVariesByAcceptEncoding() {
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        for (int eventIndex = 0; eventIndex < 10; eventIndex++) {
+            repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                ConsentChangeEventGenerator.generate());
+        }
+        final ConsentHistoryApiService service = new ConsentHistoryApiService(repository, ConsentHistoryApiServiceConfiguration.DEFAULT
+            .withResponseCompressionConfiguration(new ResponseCompressionConfiguration(true, 100)));
+
+        final Map<String, Object> response = service.handleRequest(buildConsentHistoryRequest(Map.of("Accept-Encoding", "gzip")), null);
+        final Map<?, ?> headers = (Map<?, ?>) response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME);
+        assertEquals(ResponseCompressor.ACCEPT_ENCODING_HEADER_NAME, headers.get(ResponseCompressor.VARY_HEADER_NAME));
+        final String entityTag = (String) headers.get(ResponseCompressor.ETAG_HEADER_NAME);
+        assertTrue(entityTag.endsWith("-gzip\""));
+
+        final Map<String, Object> notModifiedResponse = service.handleRequest(buildConsentHistoryRequest(Map.of(
+            "Accept-Encoding", "gzip", ApiHttpHeaderName.IF_NONE_MATCH.getValue(), entityTag)), null);
+        assertEquals(GetHistoryForServiceUserConsentRequestHandler.NOT_MODIFIED_STATUS_CODE,
+            notModifiedResponse.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertEquals(ResponseCompressor.ACCEPT_ENCODING_HEADER_NAME, ((Map<?, ?>) notModifiedResponse
+            .get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME)).get(ResponseCompressor.VARY_HEADER_NAME));
+    }
+
+    @Test
+    void handleRequestGetServiceUserHistoryCompressesWhenAccepted() throws Exception {
+        final ApiRequest request = new ApiRequest(
+            HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_HISTORY.getValue(),
+            TestConstants.TEST_SERVICE_USER_HISTORY_PATH,
+            TestConstants.TEST_SERVICE_USER_HISTORY_PATH_PARAMS,
+            null,
+            Map.of("accept-encoding", "gzip, deflate"),
+            false,
+            null
+        );
+        final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        for (int eventIndex = 0; eventIndex < 10; eventIndex++) {
+            repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                ConsentChangeEventGenerator.generate());
+        }
+        final ConsentHistoryApiService uncompressedService = new ConsentHistoryApiService(repository);
+        final ConsentHistoryApiService compressingService = new ConsentHistoryApiService(repository,
+            ConsentHistoryApiServiceConfiguration.DEFAULT.withResponseCompressionConfiguration(
+                new ResponseCompressionConfiguration(true, 100)));
+
+        final String uncompressedBody = (String) uncompressedService.handleRequest(request, null)
+            .get(ApiResponseParameterName.BODY.getValue());
+        final Map<String, Object> response = compressingService.handleRequest(request, null);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertEquals(true, response.get(ResponseCompressor.IS_BASE64_ENCODED_RESPONSE_PARAMETER_NAME));
+        assertEquals("gzip", ((Map<?, ?>) response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME))
+            .get(ResponseCompressor.CONTENT_ENCODING_HEADER_NAME));
+
+        final byte[] compressedBody = Base64.getDecoder().decode((String) response.get(ApiResponseParameterName.BODY.getValue()));
+        try (GZIPInputStream decompressedBody = new GZIPInputStream(new ByteArrayInputStream(compressedBody))) {
+            assertEquals(uncompressedBody, new String(decompressedBody.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void withCacheWhenCacheDisabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        assertSame(repository, ConsentHistoryApiService.withCache(repository, ConsentHistoryCacheConfiguration.DISABLED));
+    }
+
+    @Test
+    void withCacheWhenCacheEnabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        final ConsentHistoryCacheConfiguration cacheConfiguration = ConsentHistoryCacheConfiguration.fromEnvironment(Map.of(
+            ConsentHistoryCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true"));
+        assertInstanceOf(CachingServiceUserConsentHistoryRepository.class,
+            ConsentHistoryApiService.withCache(repository, cacheConfiguration));
+    }
+
+    @Test
+    void withFanOutWhenDisabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        assertSame(repository, ConsentHistoryApiService.withFanOut(repository, ServiceUserHistoryFanOutConfiguration.DISABLED));
+    }
+
+    @Test
+    void withFanOutWhenEnabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        final ServiceUserHistoryFanOutConfiguration fanOutConfiguration = ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of(
+            ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true"));
+        assertInstanceOf(FanOutServiceUserConsentHistoryRepository.class,
+            ConsentHistoryApiService.withFanOut(repository, fanOutConfiguration));
+    }
+
+    @Test
+    void withCoalescingWhenDisabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        assertSame(repository, ConsentHistoryApiService.withCoalescing(repository, QueryCoalescingConfiguration.DISABLED));
+    }
+
+    @Test
+    void withCoalescingWhenEnabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        assertInstanceOf(CoalescingServiceUserConsentHistoryRepository.class,
+            ConsentHistoryApiService.withCoalescing(repository, QueryCoalescingConfiguration.ENABLED));
+    }
+
+    @Test
+    void buildConsentHistoryRepositoryCoalescesByDefaultConfiguration() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        assertSame(repository, ConsentHistoryApiService.buildConsentHistoryRepository(repository, Map.of(),
+            QueryCoalescingConfiguration.DISABLED));
+        assertInstanceOf(CoalescingServiceUserConsentHistoryRepository.class, ConsentHistoryApiService.buildConsentHistoryRepository(
+            repository, Map.of(), QueryCoalescingConfiguration.ENABLED));
+        assertSame(repository, ConsentHistoryApiService.buildConsentHistoryRepository(repository,
+            Map.of(QueryCoalescingConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false"), QueryCoalescingConfiguration.ENABLED));
+    }
+
+    @Test
+    void withNegativeResultCacheWhenDisabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        assertSame(repository, ConsentHistoryApiService.withNegativeResultCache(repository, NegativeResultCacheConfiguration.DISABLED));
+    }
+
+    @Test
+    void withNegativeResultCacheWhenEnabled() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        final NegativeResultCacheConfiguration cacheConfiguration = NegativeResultCacheConfiguration.fromEnvironment(Map.of(
+            NegativeResultCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true"));
+        assertInstanceOf(NegativeCachingServiceUserConsentHistoryRepository.class,
+            ConsentHistoryApiService.withNegativeResultCache(repository, cacheConfiguration));
+    }
+
+    @Test
+    void withNegativeResultCacheWhenExistenceFilterSnapshotMissing() {
+        final ServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+        final NegativeResultCacheConfiguration cacheConfiguration = NegativeResultCacheConfiguration.fromEnvironment(Map.of(
+            NegativeResultCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            NegativeResultCacheConfiguration.EXISTENCE_FILTER_PATH_ENVIRONMENT_VARIABLE, "/nonexistent/existence-filter.bin"));
+        assertThrows(UncheckedIOException.class, () -> ConsentHistoryApiService.withNegativeResultCache(repository, cacheConfiguration));
+    }
+
+    private static String buildBatchKeyJson(final String consentId) {
+        return String.format("{\"serviceId\":\"%s\",\"userId\":\"%s\",\"consentId\":\"%s\"}",
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, consentId);
+    }
+
+    private static RequestMetrics getPublishedRequestMetrics(final EmfMetricsPublisher metricsPublisher) {
+        final ArgumentCaptor<RequestMetrics> requestMetricsCaptor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(metricsPublisher).publish(any(), anyInt(), anyLong(), requestMetricsCaptor.capture());
+        return requestMetricsCaptor.getValue();
+    }
+
+    private static ApiRequest buildConsentHistoryRequest(final Map<String, String> headers) {
+        return new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(),
+            TestConstants.TEST_CONSENT_HISTORY_PATH, TestConstants.TEST_CONSENT_HISTORY_PATH_PARAMS, null, headers, false, null);
+    }
+
     private void validateUnsupportedOperation(final HttpMethod httpMethod, final String resource, final String path,
             final String requestBody) {
         final ApiRequest request = new ApiRequest(
@@ -0,0 +1,22 @@
+package com.consentframework.consenthistory.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerConfig;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.jupiter.api.Test;
+
+class LoggingConfigurationTest {
+    @Test
+    void testRootLoggerIsAsynchronousWithoutLocation() {
+        final LoggerConfig rootLoggerConfig = ((LoggerContext) LogManager.getContext(false)).getConfiguration().getRootLogger();
+        assertInstanceOf(AsyncLoggerConfig.class, rootLoggerConfig);
+        assertEquals(Level.INFO, rootLoggerConfig.getLevel());
+        assertFalse(rootLoggerConfig.isIncludeLocation());
+    }
+}
@@ -0,0 +1,70 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.models.Consent;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+class ConsentHistoryViewTest {
+    private static final Consent CONSENT = new Consent().consentId("consent-1").consentVersion(1);
+    private static final ConsentChangeEvent CONSENT_CHANGE_EVENT = new ConsentChangeEvent()
+        .consentId("consent-1")
+        .eventId("event-1")
+        .eventTime(OffsetDateTime.parse("2024-01-01T00:00:00Z"))
+        .eventType(ConsentEventType.MODIFY)
+        .oldImage(CONSENT)
+        .newImage(CONSENT);
+
+    @Test
+    void fromValue() {
+        assertEquals(Optional.of(ConsentHistoryView.FULL), ConsentHistoryView.fromValue("full"));
+        assertEquals(Optional.of(ConsentHistoryView.SUMMARY), ConsentHistoryView.fromValue("summary"));
+        assertTrue(ConsentHistoryView.fromValue("Summary").isEmpty());
+        assertTrue(ConsentHistoryView.fromValue(null).isEmpty());
+    }
+
+    @Test
+    void projectFullReturnsEvent() {
+        assertSame(CONSENT_CHANGE_EVENT, ConsentHistoryView.FULL.project(CONSENT_CHANGE_EVENT));
+    }
+
+    @Test
+    void projectSummaryOmitsImages() {
+        final ConsentChangeEvent summaryEvent = ConsentHistoryView.SUMMARY.project(CONSENT_CHANGE_EVENT);
+        assertEquals(CONSENT_CHANGE_EVENT.getConsentId(), summaryEvent.getConsentId());
+        assertEquals(CONSENT_CHANGE_EVENT.getEventId(), summaryEvent.getEventId());
+        assertEquals(CONSENT_CHANGE_EVENT.getEventTime(), summaryEvent.getEventTime());
+        assertEquals(CONSENT_CHANGE_EVENT.getEventType(), summaryEvent.getEventType());
+        assertNull(summaryEvent.getOldImage());
+        assertNull(summaryEvent.getNewImage());
+        assertEquals(CONSENT, CONSENT_CHANGE_EVENT.getNewImage());
+    }
+
+    @Test
+    void projectSummaryReturnsEventWithoutImages() {
+        final ConsentChangeEvent summaryEvent = ConsentHistoryView.SUMMARY.project(CONSENT_CHANGE_EVENT);
+        assertSame(summaryEvent, ConsentHistoryView.SUMMARY.project(summaryEvent));
+    }
+
+    @Test
+    void projectPage() {
+        final ConsentHistory consentHistory = new ConsentHistory().consentId("consent-1").history(List.of(CONSENT_CHANGE_EVENT));
+        final ListPage<ConsentHistory> page = new ListPage<>(List.of(consentHistory), Optional.of("token"));
+        assertSame(page, ConsentHistoryView.FULL.projectPage(page));
+
+        final ListPage<ConsentHistory> summaryPage = ConsentHistoryView.SUMMARY.projectPage(page);
+        assertEquals(Optional.of("token"), summaryPage.nextPageToken());
+        assertEquals("consent-1", summaryPage.resultsOnPage().get(0).getConsentId());
+        assertEquals(List.of(ConsentHistoryView.SUMMARY.project(CONSENT_CHANGE_EVENT)), summaryPage.resultsOnPage().get(0).getHistory());
+    }
+}
@@ -0,0 +1,76 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class EntityTagTest {
+    private static final OffsetDateTime EVENT_TIME = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+    private static final ConsentChangeEvent CONSENT_CHANGE_EVENT = new ConsentChangeEvent().eventId("event-1").eventTime(EVENT_TIME);
+    private static final EntityTag ENTITY_TAG = EntityTag.of(CONSENT_CHANGE_EVENT);
+
+    @Test
+    void ofIsDeterministicAcrossOffsets() {
+        final ConsentChangeEvent offsetConsentChangeEvent = new ConsentChangeEvent()
+            .eventId("event-1")
+            .eventTime(EVENT_TIME.withOffsetSameInstant(ZoneOffset.ofHours(2)));
+        assertEquals(ENTITY_TAG, EntityTag.of(offsetConsentChangeEvent));
+    }
+
+    @Test
+    void ofDiffersByLatestEvent() {
+        assertNotEquals(ENTITY_TAG, EntityTag.of(new ConsentChangeEvent().eventId("event-2").eventTime(EVENT_TIME)));
+        assertNotEquals(ENTITY_TAG, EntityTag.of(new ConsentChangeEvent().eventId("event-1").eventTime(EVENT_TIME.plusSeconds(1))));
+        assertNotEquals(ENTITY_TAG, EntityTag.of(new ConsentChangeEvent().eventId("event-1")));
+    }
+
+    @Test
+    void ofLatestUsesEventWithLatestEventTime() {
+        final ConsentChangeEvent earlierConsentChangeEvent = new ConsentChangeEvent()
+            .eventId("event-0")
+            .eventTime(EVENT_TIME.minusSeconds(30));
+        assertEquals(ENTITY_TAG, EntityTag.ofLatest(List.of(CONSENT_CHANGE_EVENT, earlierConsentChangeEvent)));
+        assertEquals(ENTITY_TAG, EntityTag.ofLatest(List.of(earlierConsentChangeEvent, CONSENT_CHANGE_EVENT)));
+    }
+
+    @Test
+    void forViewQualifiesOnlyPartialViews() {
+        final EntityTag summaryEntityTag = ENTITY_TAG.forView(ConsentHistoryView.SUMMARY);
+        assertEquals(ENTITY_TAG, ENTITY_TAG.forView(ConsentHistoryView.FULL));
+        assertEquals(ENTITY_TAG.value() + ".summary", summaryEntityTag.value());
+        assertFalse(ENTITY_TAG.matchesAny(summaryEntityTag.toHeaderValue()));
+        assertTrue(summaryEntityTag.matchesAny("\"" + summaryEntityTag.value() + "-gzip\""));
+    }
+
+    @Test
+    void toHeaderValueIsQuoted() {
+        assertEquals("\"" + ENTITY_TAG.value() + "\"", ENTITY_TAG.toHeaderValue());
+    }
+
+    @Test
+    void matchesAny() {
+        final String headerValue = ENTITY_TAG.toHeaderValue();
+        assertTrue(ENTITY_TAG.matchesAny(headerValue));
+        assertTrue(ENTITY_TAG.matchesAny("*"));
+        assertTrue(ENTITY_TAG.matchesAny("\"other\" , " + headerValue));
+        assertTrue(ENTITY_TAG.matchesAny("W/" + headerValue));
+        assertTrue(ENTITY_TAG.matchesAny("\"" + ENTITY_TAG.value() + "-gzip\""));
+        assertTrue(ENTITY_TAG.matchesAny(ENTITY_TAG.value()));
+    }
+
+    @Test
+    void matchesAnyWhenNotListed() {
+        assertFalse(ENTITY_TAG.matchesAny(null));
+        assertFalse(ENTITY_TAG.matchesAny(""));
+        assertFalse(ENTITY_TAG.matchesAny("\"other\""));
+        assertFalse(ENTITY_TAG.matchesAny("\""));
+    }
+}
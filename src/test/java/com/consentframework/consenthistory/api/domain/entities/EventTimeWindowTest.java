@@ -0,0 +1,65 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+class EventTimeWindowTest {
+    private static final OffsetDateTime SINCE = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+    private static final OffsetDateTime UNTIL = OffsetDateTime.parse("2024-01-31T00:00:00Z");
+
+    @Test
+    void ofWhenNoBounds() throws Exception {
+        final EventTimeWindow eventTimeWindow = EventTimeWindow.of(null, null);
+        assertSame(EventTimeWindow.UNBOUNDED, eventTimeWindow);
+        assertTrue(eventTimeWindow.isUnbounded());
+        assertTrue(eventTimeWindow.contains(SINCE));
+    }
+
+    @Test
+    void ofWhenSinceAfterUntil() {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () -> EventTimeWindow.of(UNTIL, SINCE));
+        assertEquals(String.format(EventTimeWindow.INVALID_EVENT_TIME_WINDOW_MESSAGE, UNTIL, SINCE), exception.getMessage());
+    }
+
+    @Test
+    void containsWhenBounded() throws Exception {
+        final EventTimeWindow eventTimeWindow = EventTimeWindow.of(SINCE, UNTIL);
+        assertFalse(eventTimeWindow.isUnbounded());
+        assertTrue(eventTimeWindow.contains(SINCE));
+        assertTrue(eventTimeWindow.contains(UNTIL));
+        assertFalse(eventTimeWindow.contains(SINCE.minusNanos(1)));
+        assertFalse(eventTimeWindow.contains(UNTIL.plusNanos(1)));
+    }
+
+    @Test
+    void containsWhenOnlyLowerBound() throws Exception {
+        final EventTimeWindow eventTimeWindow = EventTimeWindow.of(SINCE, null);
+        assertFalse(eventTimeWindow.contains(SINCE.minusSeconds(1)));
+        assertTrue(eventTimeWindow.contains(UNTIL.plusYears(1)));
+    }
+
+    @Test
+    void containsWhenOnlyUpperBound() throws Exception {
+        final EventTimeWindow eventTimeWindow = EventTimeWindow.of(null, UNTIL);
+        assertTrue(eventTimeWindow.contains(SINCE.minusYears(1)));
+        assertFalse(eventTimeWindow.contains(UNTIL.plusSeconds(1)));
+    }
+
+    @Test
+    void normalized() throws Exception {
+        final EventTimeWindow eventTimeWindow = EventTimeWindow.of(SINCE.withOffsetSameInstant(ZoneOffset.ofHours(2)), null);
+        final EventTimeWindow normalizedWindow = eventTimeWindow.normalized();
+        assertEquals(new EventTimeWindow(SINCE.withOffsetSameInstant(ZoneOffset.UTC), null), normalizedWindow);
+        assertEquals(normalizedWindow, EventTimeWindow.of(SINCE.withOffsetSameInstant(ZoneOffset.ofHours(-5)), null).normalized());
+        assertSame(EventTimeWindow.UNBOUNDED, new EventTimeWindow(null, null).normalized());
+    }
+}
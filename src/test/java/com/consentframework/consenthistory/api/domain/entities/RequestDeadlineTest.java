@@ -0,0 +1,69 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class RequestDeadlineTest {
+    @Test
+    void testStartedDeadlineIsCurrent() {
+        final RequestDeadline requestDeadline = RequestDeadline.start(Duration.ofHours(1));
+        try {
+            assertSame(requestDeadline, RequestDeadline.current());
+            assertFalse(RequestDeadline.current().hasPassed());
+            assertTrue(RequestDeadline.current().isBounded());
+        } finally {
+            requestDeadline.stop();
+        }
+        assertNotSame(requestDeadline, RequestDeadline.current());
+    }
+
+    @Test
+    void testDeadlineWithoutTimeRemainingHasPassed() {
+        final RequestDeadline requestDeadline = RequestDeadline.start(Duration.ZERO);
+        try {
+            assertTrue(requestDeadline.hasPassed());
+        } finally {
+            requestDeadline.stop();
+        }
+
+        final RequestDeadline negativeRequestDeadline = RequestDeadline.start(Duration.ofMillis(-1));
+        negativeRequestDeadline.stop();
+        assertTrue(negativeRequestDeadline.hasPassed());
+    }
+
+    @Test
+    void testCurrentNeverPassesWhenNoDeadlineStarted() {
+        assertFalse(RequestDeadline.current().hasPassed());
+        assertFalse(RequestDeadline.current().isBounded());
+    }
+
+    @Test
+    void testUnboundedDeadlineNeverPassesAndIsNotCurrent() {
+        final RequestDeadline requestDeadline = RequestDeadline.start(Duration.ofHours(1));
+        try {
+            assertFalse(RequestDeadline.unbounded().hasPassed());
+            RequestDeadline.unbounded().stop();
+            assertSame(requestDeadline, RequestDeadline.current());
+        } finally {
+            requestDeadline.stop();
+        }
+    }
+
+    @Test
+    void testStopOfEarlierDeadlineKeepsLaterDeadlineCurrent() {
+        final RequestDeadline earlierDeadline = RequestDeadline.start(Duration.ZERO);
+        final RequestDeadline laterDeadline = RequestDeadline.start(Duration.ofHours(1));
+        try {
+            earlierDeadline.stop();
+            assertSame(laterDeadline, RequestDeadline.current());
+        } finally {
+            laterDeadline.stop();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.consentframework.consenthistory.api.domain.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RequestMetricsTest {
+    @Test
+    void testRecordIntoStartedRequest() {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            assertSame(requestMetrics, RequestMetrics.current());
+            RequestMetrics.current().addRepositoryNanos(100);
+            RequestMetrics.current().addRepositoryNanos(50);
+            RequestMetrics.current().addSerializationNanos(20);
+            RequestMetrics.current().addDynamoDbPage(3, 0.5, 40);
+            RequestMetrics.current().addDynamoDbPage(2, null, 30);
+            assertFalse(requestMetrics.partialResult());
+            RequestMetrics.current().recordPartialResult();
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(150, requestMetrics.repositoryNanos());
+        assertEquals(20, requestMetrics.serializationNanos());
+        assertEquals(70, requestMetrics.dynamoDbReadNanos());
+        assertEquals(80, requestMetrics.mappingNanos());
+        assertEquals(2, requestMetrics.dynamoDbPageCount());
+        assertEquals(5, requestMetrics.dynamoDbItemCount());
+        assertEquals(0.5, requestMetrics.consumedReadCapacityUnits());
+        assertTrue(requestMetrics.partialResult());
+    }
+
+    @Test
+    void testAddDynamoDbPagesRecordedConcurrently() {
+        final RequestMetrics concurrentMetrics = RequestMetrics.start();
+        concurrentMetrics.addDynamoDbPage(3, 0.5, 40);
+        concurrentMetrics.stop();
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            requestMetrics.addDynamoDbPage(1, 1.0, 10);
+            requestMetrics.addDynamoDbPages(concurrentMetrics);
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(2, requestMetrics.dynamoDbPageCount());
+        assertEquals(4, requestMetrics.dynamoDbItemCount());
+        assertEquals(1.5, requestMetrics.consumedReadCapacityUnits());
+        assertEquals(10, requestMetrics.dynamoDbReadNanos());
+
+        RequestMetrics.current().addDynamoDbPages(concurrentMetrics);
+        assertEquals(0, RequestMetrics.current().dynamoDbPageCount());
+    }
+
+    @Test
+    void testCurrentDiscardsWhenNoRequestStarted() {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        requestMetrics.stop();
+
+        final RequestMetrics discardedMetrics = RequestMetrics.current();
+        assertNotSame(requestMetrics, discardedMetrics);
+        discardedMetrics.addRepositoryNanos(100);
+        discardedMetrics.addSerializationNanos(100);
+        discardedMetrics.addDynamoDbPage(1, 1.0, 100);
+        discardedMetrics.recordPartialResult();
+        assertEquals(0, discardedMetrics.repositoryNanos());
+        assertEquals(0, discardedMetrics.serializationNanos());
+        assertEquals(0, discardedMetrics.dynamoDbPageCount());
+        assertEquals(0, discardedMetrics.consumedReadCapacityUnits());
+        assertFalse(discardedMetrics.partialResult());
+    }
+
+    @Test
+    void testStopOfEarlierRequestKeepsLaterRequestCurrent() {
+        final RequestMetrics earlierMetrics = RequestMetrics.start();
+        final RequestMetrics laterMetrics = RequestMetrics.start();
+        try {
+            earlierMetrics.stop();
+            assertSame(laterMetrics, RequestMetrics.current());
+        } finally {
+            laterMetrics.stop();
+        }
+    }
+}
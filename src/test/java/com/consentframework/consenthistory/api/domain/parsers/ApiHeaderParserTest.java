@@ -0,0 +1,31 @@
+package com.consentframework.consenthistory.api.domain.parsers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpHeaderName;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class ApiHeaderParserTest {
+    @Test
+    void parseHeaderMatchesNameCaseInsensitively() {
+        final ApiRequest request = buildApiRequest(Map.of("if-none-match", "\"tag\""));
+        assertEquals("\"tag\"", ApiHeaderParser.parseHeader(request, ApiHttpHeaderName.IF_NONE_MATCH.getValue()));
+    }
+
+    @Test
+    void parseHeaderWhenNotPresent() {
+        assertNull(ApiHeaderParser.parseHeader(null, ApiHttpHeaderName.IF_NONE_MATCH.getValue()));
+        assertNull(ApiHeaderParser.parseHeader(buildApiRequest(null), ApiHttpHeaderName.IF_NONE_MATCH.getValue()));
+        assertNull(ApiHeaderParser.parseHeader(buildApiRequest(Map.of("Accept-Encoding", "gzip")),
+            ApiHttpHeaderName.IF_NONE_MATCH.getValue()));
+    }
+
+    private ApiRequest buildApiRequest(final Map<String, String> headers) {
+        return new ApiRequest(HttpMethod.GET.name(), null, null, null, null, headers, false, null);
+    }
+}
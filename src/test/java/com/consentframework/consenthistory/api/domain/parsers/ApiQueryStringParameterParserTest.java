@@ -0,0 +1,189 @@
+package com.consentframework.consenthistory.api.domain.parsers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+class ApiQueryStringParameterParserTest {
+    private static final String AFTER = ApiQueryStringParameterName.AFTER.getValue();
+    private static final String LIMIT = ApiQueryStringParameterName.LIMIT.getValue();
+    private static final String PAGE_TOKEN = ApiQueryStringParameterName.PAGE_TOKEN.getValue();
+    private static final String SINCE = ApiQueryStringParameterName.SINCE.getValue();
+    private static final String UNTIL = ApiQueryStringParameterName.UNTIL.getValue();
+    private static final String VIEW = ApiQueryStringParameterName.VIEW.getValue();
+
+    @Test
+    void parseStringParameterWhenNullRequest() {
+        assertNull(ApiQueryStringParameterParser.parseStringQueryStringParameter(null, PAGE_TOKEN));
+    }
+
+    @Test
+    void parseStringParameterWhenNoQueryStringParameters() {
+        assertNull(ApiQueryStringParameterParser.parseStringQueryStringParameter(buildApiRequest(null), PAGE_TOKEN));
+    }
+
+    @Test
+    void parseStringParameterWhenMissing() {
+        final ApiRequest request = buildApiRequest(Map.of(LIMIT, "10"));
+        assertNull(ApiQueryStringParameterParser.parseStringQueryStringParameter(request, PAGE_TOKEN));
+    }
+
+    @Test
+    void parseStringParameterWhenBlank() {
+        final ApiRequest request = buildApiRequest(Map.of(PAGE_TOKEN, " "));
+        assertNull(ApiQueryStringParameterParser.parseStringQueryStringParameter(request, PAGE_TOKEN));
+    }
+
+    @Test
+    void parseStringParameterWhenPresent() {
+        final ApiRequest request = buildApiRequest(Map.of(PAGE_TOKEN, "testPageToken"));
+        assertEquals("testPageToken", ApiQueryStringParameterParser.parseStringQueryStringParameter(request, PAGE_TOKEN));
+    }
+
+    @Test
+    void parsePositiveIntParameterWhenMissing() throws Exception {
+        final ApiRequest request = buildApiRequest(Map.of());
+        assertNull(ApiQueryStringParameterParser.parsePositiveIntQueryStringParameter(request, LIMIT));
+    }
+
+    @Test
+    void parsePositiveIntParameterWhenValid() throws Exception {
+        final ApiRequest request = buildApiRequest(Map.of(LIMIT, "25"));
+        assertEquals(25, ApiQueryStringParameterParser.parsePositiveIntQueryStringParameter(request, LIMIT));
+    }
+
+    @Test
+    void parsePositiveIntParameterWhenNotNumeric() {
+        validateInvalidIntParameter("abc");
+    }
+
+    @Test
+    void parsePositiveIntParameterWhenZero() {
+        validateInvalidIntParameter("0");
+    }
+
+    @Test
+    void parsePositiveIntParameterWhenNegative() {
+        validateInvalidIntParameter("-5");
+    }
+
+    @Test
+    void parseOffsetDateTimeParameterWhenMissing() throws Exception {
+        assertNull(ApiQueryStringParameterParser.parseOffsetDateTimeQueryStringParameter(buildApiRequest(Map.of()), SINCE));
+    }
+
+    @Test
+    void parseOffsetDateTimeParameterWhenValid() throws Exception {
+        final ApiRequest request = buildApiRequest(Map.of(SINCE, "2024-01-01T10:00:00+02:00"));
+        assertEquals(OffsetDateTime.parse("2024-01-01T08:00:00Z").toInstant(),
+            ApiQueryStringParameterParser.parseOffsetDateTimeQueryStringParameter(request, SINCE).toInstant());
+    }
+
+    @Test
+    void parseOffsetDateTimeParameterWhenInvalid() {
+        final ApiRequest request = buildApiRequest(Map.of(SINCE, "2024-01-01"));
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            ApiQueryStringParameterParser.parseOffsetDateTimeQueryStringParameter(request, SINCE));
+        assertEquals(String.format(ApiQueryStringParameterParser.INVALID_DATE_TIME_PARAMETER_MESSAGE, SINCE, "2024-01-01"),
+            exception.getMessage());
+    }
+
+    @Test
+    void parseEventTimeWindowWhenNoBounds() throws Exception {
+        assertEquals(EventTimeWindow.UNBOUNDED, ApiQueryStringParameterParser.parseEventTimeWindow(buildApiRequest(null)));
+    }
+
+    @Test
+    void parseEventTimeWindowWhenBounded() throws Exception {
+        final ApiRequest request = buildApiRequest(Map.of(SINCE, "2024-01-01T00:00:00Z", UNTIL, "2024-02-01T00:00:00Z"));
+        assertEquals(
+            new EventTimeWindow(OffsetDateTime.parse("2024-01-01T00:00:00Z"), OffsetDateTime.parse("2024-02-01T00:00:00Z")),
+            ApiQueryStringParameterParser.parseEventTimeWindow(request));
+    }
+
+    @Test
+    void parseEventTimeWindowWhenSinceAfterUntil() {
+        final ApiRequest request = buildApiRequest(Map.of(SINCE, "2024-02-01T00:00:00Z", UNTIL, "2024-01-01T00:00:00Z"));
+        assertThrows(BadRequestException.class, () -> ApiQueryStringParameterParser.parseEventTimeWindow(request));
+    }
+
+    @Test
+    void parseViewWhenMissing() throws Exception {
+        assertEquals(ConsentHistoryView.FULL, ApiQueryStringParameterParser.parseView(buildApiRequest(Map.of())));
+    }
+
+    @Test
+    void parseViewWhenPresent() throws Exception {
+        final ApiRequest request = buildApiRequest(Map.of(VIEW, " summary "));
+        assertEquals(ConsentHistoryView.SUMMARY, ApiQueryStringParameterParser.parseView(request));
+    }
+
+    @Test
+    void parseViewWhenInvalid() {
+        final ApiRequest request = buildApiRequest(Map.of(VIEW, "SUMMARY"));
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            ApiQueryStringParameterParser.parseView(request));
+        assertEquals(String.format(ApiQueryStringParameterParser.INVALID_VIEW_PARAMETER_MESSAGE, VIEW, "full, summary", "SUMMARY"),
+            exception.getMessage());
+    }
+
+    @Test
+    void parseChangeFeedWatermarkWhenMissing() {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            ApiQueryStringParameterParser.parseChangeFeedWatermark(buildApiRequest(Map.of())));
+        assertEquals(String.format(ApiQueryStringParameterParser.MISSING_PARAMETER_MESSAGE, AFTER), exception.getMessage());
+    }
+
+    @Test
+    void parseChangeFeedWatermarkWhenEventTime() throws Exception {
+        final ApiRequest request = buildApiRequest(Map.of(AFTER, "2024-01-01T00:00:00Z"));
+        assertEquals(ChangeFeedWatermark.ofEventTime("2024-01-01T00:00:00Z", OffsetDateTime.parse("2024-01-01T00:00:00Z")),
+            ApiQueryStringParameterParser.parseChangeFeedWatermark(request));
+    }
+
+    @Test
+    void parseChangeFeedWatermarkWhenPosition() throws Exception {
+        final ChangeFeedWatermark watermark = ApiQueryStringParameterParser.parseChangeFeedWatermark(
+            buildApiRequest(Map.of(AFTER, " eyJpZCI6IngifQ ")));
+        assertEquals(ChangeFeedWatermark.ofPosition("eyJpZCI6IngifQ"), watermark);
+        assertFalse(watermark.isEventTime());
+    }
+
+    @Test
+    void parseChangeFeedWatermarkWhenInvalidEventTime() {
+        final ApiRequest request = buildApiRequest(Map.of(AFTER, "2024-01-01 00:00"));
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            ApiQueryStringParameterParser.parseChangeFeedWatermark(request));
+        assertEquals(String.format(ApiQueryStringParameterParser.INVALID_DATE_TIME_PARAMETER_MESSAGE, AFTER, "2024-01-01 00:00"),
+            exception.getMessage());
+    }
+
+    private void validateInvalidIntParameter(final String parameterValue) {
+        final ApiRequest request = buildApiRequest(Map.of(LIMIT, parameterValue));
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            ApiQueryStringParameterParser.parsePositiveIntQueryStringParameter(request, LIMIT));
+        assertEquals(String.format(ApiQueryStringParameterParser.INVALID_INTEGER_PARAMETER_MESSAGE, LIMIT, parameterValue),
+            exception.getMessage());
+    }
+
+    private ApiRequest buildApiRequest(final Map<String, Object> queryStringParameters) {
+        return new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_HISTORY.getValue(),
+            TestConstants.TEST_SERVICE_USER_HISTORY_PATH, TestConstants.TEST_SERVICE_USER_HISTORY_PATH_PARAMS,
+            queryStringParameters, null, false, null);
+    }
+}
@@ -0,0 +1,50 @@
+package com.consentframework.consenthistory.api.domain.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+class ServiceUserHistoryQueryTest {
+    private static final OffsetDateTime SINCE = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void fullHistoryQuery() {
+        final ServiceUserHistoryQuery query = ServiceUserHistoryQuery.FULL_HISTORY;
+        assertFalse(query.isPaged());
+        assertFalse(query.isBudgeted());
+        assertTrue(query.isFullHistory());
+    }
+
+    @Test
+    void pagedQueryIsNotFullHistory() {
+        assertTrue(ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).isPaged());
+        assertTrue(ServiceUserHistoryQuery.FULL_HISTORY.withPageToken("token").isPaged());
+        assertFalse(ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).isFullHistory());
+    }
+
+    @Test
+    void narrowedQueryIsNotFullHistory() {
+        final ServiceUserHistoryQuery budgetedQuery = ServiceUserHistoryQuery.FULL_HISTORY.withBudget(consentChangeEvent -> true);
+        assertTrue(budgetedQuery.isBudgeted());
+        assertFalse(budgetedQuery.isPaged());
+        assertFalse(budgetedQuery.isFullHistory());
+        assertFalse(ServiceUserHistoryQuery.FULL_HISTORY.withView(ConsentHistoryView.SUMMARY).isFullHistory());
+        assertFalse(ServiceUserHistoryQuery.FULL_HISTORY.withEventTimeWindow(new EventTimeWindow(SINCE, null)).isFullHistory());
+    }
+
+    @Test
+    void normalizedQueriesForSameInstantsAreEqual() {
+        final ServiceUserHistoryQuery utcQuery = ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10)
+            .withEventTimeWindow(new EventTimeWindow(SINCE, null));
+        final ServiceUserHistoryQuery offsetQuery = ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10)
+            .withEventTimeWindow(new EventTimeWindow(SINCE.withOffsetSameInstant(ZoneOffset.ofHours(2)), null));
+        assertEquals(utcQuery.normalized(), offsetQuery.normalized());
+    }
+}
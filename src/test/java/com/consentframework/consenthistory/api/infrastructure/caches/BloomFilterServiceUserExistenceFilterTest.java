@@ -0,0 +1,48 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class BloomFilterServiceUserExistenceFilterTest {
+    @TempDir
+    private Path snapshotDirectory;
+
+    @Test
+    void testMightHaveHistory() {
+        final BloomFilterServiceUserExistenceFilter existenceFilter = BloomFilterServiceUserExistenceFilter.create(100, 0.001);
+        assertFalse(existenceFilter.mightHaveHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+
+        existenceFilter.add(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertTrue(existenceFilter.mightHaveHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertFalse(existenceFilter.mightHaveHistory(TestConstants.TEST_SERVICE_ID, "unknownUserId"));
+    }
+
+    @Test
+    void testReadFromSnapshot() throws Exception {
+        final BloomFilterServiceUserExistenceFilter existenceFilter = BloomFilterServiceUserExistenceFilter.create(100, 0.001);
+        existenceFilter.add(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final Path snapshotPath = snapshotDirectory.resolve("existence-filter.bin");
+        try (OutputStream outputStream = Files.newOutputStream(snapshotPath)) {
+            existenceFilter.writeTo(outputStream);
+        }
+
+        final BloomFilterServiceUserExistenceFilter loadedExistenceFilter = BloomFilterServiceUserExistenceFilter.readFrom(snapshotPath);
+        assertTrue(loadedExistenceFilter.mightHaveHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertFalse(loadedExistenceFilter.mightHaveHistory(TestConstants.TEST_SERVICE_ID, "unknownUserId"));
+    }
+
+    @Test
+    void testReadFromMissingSnapshot() {
+        assertThrows(IOException.class, () -> BloomFilterServiceUserExistenceFilter.readFrom(snapshotDirectory.resolve("missing.bin")));
+    }
+}
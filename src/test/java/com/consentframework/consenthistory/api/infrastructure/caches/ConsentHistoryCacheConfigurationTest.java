@@ -0,0 +1,51 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+class ConsentHistoryCacheConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(ConsentHistoryCacheConfiguration.DISABLED, ConsentHistoryCacheConfiguration.fromEnvironment(Map.of()));
+        assertEquals(ConsentHistoryCacheConfiguration.DISABLED, ConsentHistoryCacheConfiguration.fromEnvironment(Map.of(
+            ConsentHistoryCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            ConsentHistoryCacheConfiguration.TTL_SECONDS_ENVIRONMENT_VARIABLE, "invalid")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final ConsentHistoryCacheConfiguration configuration = ConsentHistoryCacheConfiguration.fromEnvironment(Map.of(
+            ConsentHistoryCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            ConsentHistoryCacheConfiguration.TTL_SECONDS_ENVIRONMENT_VARIABLE, " "));
+        assertEquals(new ConsentHistoryCacheConfiguration(true, ConsentHistoryCacheConfiguration.DEFAULT_TIME_TO_LIVE,
+            ConsentHistoryCacheConfiguration.DEFAULT_MAXIMUM_SIZE_BYTES), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        final ConsentHistoryCacheConfiguration configuration = ConsentHistoryCacheConfiguration.fromEnvironment(Map.of(
+            ConsentHistoryCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            ConsentHistoryCacheConfiguration.TTL_SECONDS_ENVIRONMENT_VARIABLE, "5",
+            ConsentHistoryCacheConfiguration.MAXIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE, "1024"));
+        assertEquals(new ConsentHistoryCacheConfiguration(true, Duration.ofSeconds(5), 1024), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidValues() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            ConsentHistoryCacheConfiguration.fromEnvironment(Map.of(
+                ConsentHistoryCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                ConsentHistoryCacheConfiguration.TTL_SECONDS_ENVIRONMENT_VARIABLE, "soon")));
+        assertEquals(String.format(ConsentHistoryCacheConfiguration.INVALID_CONFIGURATION_MESSAGE,
+            ConsentHistoryCacheConfiguration.TTL_SECONDS_ENVIRONMENT_VARIABLE, "soon"), exception.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> ConsentHistoryCacheConfiguration.fromEnvironment(Map.of(
+            ConsentHistoryCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            ConsentHistoryCacheConfiguration.MAXIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE, "0")));
+    }
+}
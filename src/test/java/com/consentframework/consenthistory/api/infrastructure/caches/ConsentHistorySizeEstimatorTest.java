@@ -0,0 +1,63 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.models.Consent;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.models.ConsentStatus;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+class ConsentHistorySizeEstimatorTest {
+    @Test
+    void testEstimateNull() {
+        assertEquals(0, ConsentHistorySizeEstimator.estimateSizeBytes(null));
+    }
+
+    @Test
+    void testEstimateGrowsWithResults() {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        final long singleEventSizeBytes = ConsentHistorySizeEstimator.estimateSizeBytes(List.of(consentChangeEvent));
+        final long twoEventsSizeBytes = ConsentHistorySizeEstimator.estimateSizeBytes(List.of(consentChangeEvent, consentChangeEvent));
+        assertTrue(singleEventSizeBytes > ConsentHistorySizeEstimator.estimateSizeBytes(List.of()));
+        assertTrue(twoEventsSizeBytes > singleEventSizeBytes);
+    }
+
+    @Test
+    void testEstimateIncludesConsentImages() {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        final long sizeBytesWithoutImages = ConsentHistorySizeEstimator.estimateSizeBytes(consentChangeEvent);
+        final Consent consent = new Consent()
+            .serviceId(TestConstants.TEST_SERVICE_ID)
+            .userId(TestConstants.TEST_USER_ID)
+            .consentId(TestConstants.TEST_CONSENT_ID)
+            .consentVersion(1)
+            .status(ConsentStatus.ACTIVE)
+            .consentData(Map.of("testKey", "testValue"))
+            .expiryTime(OffsetDateTime.now());
+        consentChangeEvent.oldImage(consent).newImage(consent);
+        assertTrue(ConsentHistorySizeEstimator.estimateSizeBytes(consentChangeEvent) > sizeBytesWithoutImages);
+    }
+
+    @Test
+    void testEstimatePageIncludesHistoriesAndToken() {
+        final ConsentHistory consentHistory = new ConsentHistory()
+            .consentId(TestConstants.TEST_PARTITION_KEY)
+            .history(List.of(ConsentChangeEventGenerator.generate()));
+        final long historiesSizeBytes = ConsentHistorySizeEstimator.estimateSizeBytes(List.of(consentHistory));
+        final long pageSizeBytes = ConsentHistorySizeEstimator.estimateSizeBytes(
+            new ListPage<>(List.of(consentHistory), Optional.of("token")));
+        assertTrue(historiesSizeBytes > ConsentHistorySizeEstimator.estimateSizeBytes(consentHistory.getHistory()));
+        assertEquals(historiesSizeBytes + ConsentHistorySizeEstimator.OBJECT_OVERHEAD_BYTES
+            + ConsentHistorySizeEstimator.STRING_OVERHEAD_BYTES + "token".length(), pageSizeBytes);
+    }
+}
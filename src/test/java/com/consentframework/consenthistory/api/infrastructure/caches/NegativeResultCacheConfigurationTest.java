@@ -0,0 +1,45 @@
+package com.consentframework.consenthistory.api.infrastructure.caches;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+class NegativeResultCacheConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(NegativeResultCacheConfiguration.DISABLED, NegativeResultCacheConfiguration.fromEnvironment(Map.of()));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final NegativeResultCacheConfiguration configuration = NegativeResultCacheConfiguration.fromEnvironment(Map.of(
+            NegativeResultCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            NegativeResultCacheConfiguration.EXISTENCE_FILTER_PATH_ENVIRONMENT_VARIABLE, ""));
+        assertEquals(new NegativeResultCacheConfiguration(true, NegativeResultCacheConfiguration.DEFAULT_TIME_TO_LIVE,
+            NegativeResultCacheConfiguration.DEFAULT_MAXIMUM_SIZE, Optional.empty()), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        final NegativeResultCacheConfiguration configuration = NegativeResultCacheConfiguration.fromEnvironment(Map.of(
+            NegativeResultCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            NegativeResultCacheConfiguration.TTL_SECONDS_ENVIRONMENT_VARIABLE, "2",
+            NegativeResultCacheConfiguration.MAXIMUM_SIZE_ENVIRONMENT_VARIABLE, "10",
+            NegativeResultCacheConfiguration.EXISTENCE_FILTER_PATH_ENVIRONMENT_VARIABLE, "/opt/existence-filter.bin"));
+        assertEquals(new NegativeResultCacheConfiguration(true, Duration.ofSeconds(2), 10,
+            Optional.of(Path.of("/opt/existence-filter.bin"))), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> NegativeResultCacheConfiguration.fromEnvironment(Map.of(
+            NegativeResultCacheConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            NegativeResultCacheConfiguration.MAXIMUM_SIZE_ENVIRONMENT_VARIABLE, "-1")));
+    }
+}
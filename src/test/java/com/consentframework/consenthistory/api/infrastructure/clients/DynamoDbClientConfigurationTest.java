@@ -0,0 +1,40 @@
+package com.consentframework.consenthistory.api.infrastructure.clients;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+class DynamoDbClientConfigurationTest {
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final DynamoDbClientConfiguration expectedConfiguration = new DynamoDbClientConfiguration(
+            DynamoDbClientConfiguration.DEFAULT_HTTP_CLIENT_TYPE, Optional.empty());
+        assertEquals(expectedConfiguration, DynamoDbClientConfiguration.fromEnvironment(Map.of()));
+        assertEquals(expectedConfiguration, DynamoDbClientConfiguration.fromEnvironment(Map.of(
+            DynamoDbClientConfiguration.HTTP_CLIENT_ENVIRONMENT_VARIABLE, " ",
+            DynamoDbClientConfiguration.REGION_ENVIRONMENT_VARIABLE, "")));
+    }
+
+    @Test
+    void testFromEnvironmentWithHttpClientAndRegion() {
+        assertEquals(new DynamoDbClientConfiguration(DynamoDbHttpClientType.URL_CONNECTION, Optional.of("us-west-2")),
+            DynamoDbClientConfiguration.fromEnvironment(Map.of(
+                DynamoDbClientConfiguration.HTTP_CLIENT_ENVIRONMENT_VARIABLE, " URL-Connection ",
+                DynamoDbClientConfiguration.REGION_ENVIRONMENT_VARIABLE, "us-west-2 ")));
+        assertEquals(new DynamoDbClientConfiguration(DynamoDbHttpClientType.APACHE, Optional.empty()),
+            DynamoDbClientConfiguration.fromEnvironment(Map.of(DynamoDbClientConfiguration.HTTP_CLIENT_ENVIRONMENT_VARIABLE, "apache")));
+    }
+
+    @Test
+    void testFromEnvironmentWithUnsupportedHttpClient() {
+        final IllegalArgumentException thrownException = assertThrows(IllegalArgumentException.class,
+            () -> DynamoDbClientConfiguration.fromEnvironment(Map.of(
+                DynamoDbClientConfiguration.HTTP_CLIENT_ENVIRONMENT_VARIABLE, "netty")));
+        assertEquals(String.format(DynamoDbClientConfiguration.INVALID_HTTP_CLIENT_MESSAGE,
+            DynamoDbClientConfiguration.HTTP_CLIENT_ENVIRONMENT_VARIABLE, "netty"), thrownException.getMessage());
+    }
+}
@@ -0,0 +1,44 @@
+package com.consentframework.consenthistory.api.infrastructure.clients;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentHistoryTableSchema;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+import java.util.Optional;
+
+class DynamoDbClientFactoryTest {
+    @Test
+    void testCreateConsentHistoryTable() {
+        for (final DynamoDbHttpClientType httpClientType : DynamoDbHttpClientType.values()) {
+            final DynamoDbTable<DynamoDbConsentHistory> table = DynamoDbClientFactory.createConsentHistoryTable(
+                new DynamoDbClientConfiguration(httpClientType, Optional.of("us-west-2")));
+            assertEquals(DynamoDbConsentHistory.TABLE_NAME, table.tableName());
+            assertSame(DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA, table.tableSchema());
+        }
+    }
+
+    @Test
+    void testCreateHttpClient() {
+        try (SdkHttpClient httpClient = DynamoDbClientFactory.createHttpClient(DynamoDbHttpClientType.APACHE)) {
+            assertInstanceOf(ApacheHttpClient.class, httpClient);
+        }
+        try (SdkHttpClient httpClient = DynamoDbClientFactory.createHttpClient(DynamoDbHttpClientType.URL_CONNECTION)) {
+            assertInstanceOf(UrlConnectionHttpClient.class, httpClient);
+        }
+    }
+
+    @Test
+    void testHttpClientTypeFromValue() {
+        assertEquals(Optional.of(DynamoDbHttpClientType.APACHE), DynamoDbHttpClientType.fromValue("Apache"));
+        assertEquals(Optional.of(DynamoDbHttpClientType.URL_CONNECTION), DynamoDbHttpClientType.fromValue("url-connection"));
+        assertEquals(Optional.empty(), DynamoDbHttpClientType.fromValue("netty"));
+    }
+}
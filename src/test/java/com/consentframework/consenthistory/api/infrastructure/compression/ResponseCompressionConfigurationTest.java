@@ -0,0 +1,46 @@
+package com.consentframework.consenthistory.api.infrastructure.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.consentframework.consenthistory.api.infrastructure.configuration.EnvironmentVariableParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class ResponseCompressionConfigurationTest {
+    @Test
+    void testFromEnvironmentWhenNotEnabled() {
+        assertSame(ResponseCompressionConfiguration.DISABLED, ResponseCompressionConfiguration.fromEnvironment(Map.of()));
+        assertSame(ResponseCompressionConfiguration.DISABLED, ResponseCompressionConfiguration.fromEnvironment(Map.of(
+            ResponseCompressionConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            ResponseCompressionConfiguration.MINIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE, "10")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final ResponseCompressionConfiguration configuration = ResponseCompressionConfiguration.fromEnvironment(Map.of(
+            ResponseCompressionConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true"));
+        assertEquals(new ResponseCompressionConfiguration(true, ResponseCompressionConfiguration.DEFAULT_MINIMUM_SIZE_BYTES),
+            configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithMinimumSize() {
+        final ResponseCompressionConfiguration configuration = ResponseCompressionConfiguration.fromEnvironment(Map.of(
+            ResponseCompressionConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            ResponseCompressionConfiguration.MINIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE, "4096"));
+        assertEquals(new ResponseCompressionConfiguration(true, 4096), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidMinimumSize() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            ResponseCompressionConfiguration.fromEnvironment(Map.of(
+                ResponseCompressionConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                ResponseCompressionConfiguration.MINIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE, "0")));
+        assertEquals(String.format(EnvironmentVariableParser.INVALID_CONFIGURATION_MESSAGE,
+            ResponseCompressionConfiguration.MINIMUM_SIZE_BYTES_ENVIRONMENT_VARIABLE, "0"), exception.getMessage());
+    }
+}
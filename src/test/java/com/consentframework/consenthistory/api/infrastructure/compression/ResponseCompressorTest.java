@@ -0,0 +1,186 @@
+package com.consentframework.consenthistory.api.infrastructure.compression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+class ResponseCompressorTest {
+    private static final String LARGE_BODY = "{\"data\":[" + "{\"consentData\":{\"key\":\"value\"}},".repeat(100) + "{}]}";
+    private static final Map<String, Object> LARGE_RESPONSE = Map.of(
+        ApiResponseParameterName.STATUS_CODE.getValue(), HttpStatusCode.SUCCESS.getValue(),
+        ApiResponseParameterName.BODY.getValue(), LARGE_BODY);
+
+    private final ResponseCompressor compressor = new ResponseCompressor(new ResponseCompressionConfiguration(true, 1024));
+
+    @Test
+    void testCompressWithGzip() throws IOException {
+        final Map<String, Object> response = compressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")), LARGE_RESPONSE);
+
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertEquals(true, response.get(ResponseCompressor.IS_BASE64_ENCODED_RESPONSE_PARAMETER_NAME));
+        assertEquals(Map.of(
+            ResponseCompressor.CONTENT_ENCODING_HEADER_NAME, "gzip",
+            ResponseCompressor.VARY_HEADER_NAME, ResponseCompressor.ACCEPT_ENCODING_HEADER_NAME
+        ), response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME));
+        assertEquals(LARGE_BODY, decode(response, GZIPInputStream::new));
+    }
+
+    @Test
+    void testCompressWithDeflate() throws IOException {
+        final Map<String, Object> response = compressor.compress(buildRequest(Map.of("accept-encoding", "deflate")), LARGE_RESPONSE);
+
+        assertEquals("deflate", ((Map<?, ?>) response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME))
+            .get(ResponseCompressor.CONTENT_ENCODING_HEADER_NAME));
+        assertEquals(LARGE_BODY, decode(response, InflaterInputStream::new));
+    }
+
+    @Test
+    void testCompressRetainsExistingHeaders() {
+        final Map<String, Object> existingResponse = Map.of(
+            ApiResponseParameterName.BODY.getValue(), LARGE_BODY,
+            ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME, Map.of("Cache-Control", "no-cache"));
+        final Map<String, Object> response = compressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")), existingResponse);
+
+        final Map<?, ?> headers = (Map<?, ?>) response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME);
+        assertEquals("no-cache", headers.get("Cache-Control"));
+        assertEquals("gzip", headers.get(ResponseCompressor.CONTENT_ENCODING_HEADER_NAME));
+    }
+
+    @Test
+    void testCompressSuffixesEntityTagWithContentCoding() {
+        final Map<String, Object> taggedResponse = Map.of(
+            ApiResponseParameterName.BODY.getValue(), LARGE_BODY,
+            ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME, Map.of(ResponseCompressor.ETAG_HEADER_NAME, "\"tag\""));
+
+        final Map<String, Object> compressedResponse = compressor.compress(buildRequest(Map.of("Accept-Encoding", "deflate")),
+            taggedResponse);
+        final Map<?, ?> compressedHeaders = (Map<?, ?>) compressedResponse.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME);
+        assertEquals("\"tag-deflate\"", compressedHeaders.get(ResponseCompressor.ETAG_HEADER_NAME));
+
+        final Map<String, Object> uncompressedResponse = compressor.compress(buildRequest(Map.of("Accept-Encoding", "identity")),
+            taggedResponse);
+        final Map<?, ?> uncompressedHeaders = (Map<?, ?>) uncompressedResponse.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME);
+        assertEquals("\"tag\"", uncompressedHeaders.get(ResponseCompressor.ETAG_HEADER_NAME));
+    }
+
+    @Test
+    void testCompressWhenDisabled() {
+        final ResponseCompressor disabledCompressor = new ResponseCompressor(ResponseCompressionConfiguration.DISABLED);
+        assertSame(LARGE_RESPONSE, disabledCompressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")), LARGE_RESPONSE));
+    }
+
+    @Test
+    void testCompressWhenBodyUnderMinimumSize() {
+        final Map<String, Object> smallResponse = Map.of(ApiResponseParameterName.BODY.getValue(), "{\"data\":[]}");
+        assertSame(smallResponse, compressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")), smallResponse));
+    }
+
+    @Test
+    void testCompressWhenNoBody() {
+        final Map<String, Object> emptyResponse = Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), 204);
+        assertSame(emptyResponse, compressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")), emptyResponse));
+    }
+
+    @Test
+    void testCompressVariesNotModifiedResponseByAcceptEncoding() {
+        final Map<String, Object> notModifiedResponse = Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), 304,
+            ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME, Map.of(ResponseCompressor.ETAG_HEADER_NAME, "\"tag\""));
+        final Map<String, Object> response = compressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")),
+            notModifiedResponse);
+
+        assertEquals(304, response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertFalse(response.containsKey(ApiResponseParameterName.BODY.getValue()));
+        assertEquals(Map.of(
+            ResponseCompressor.ETAG_HEADER_NAME, "\"tag\"",
+            ResponseCompressor.VARY_HEADER_NAME, ResponseCompressor.ACCEPT_ENCODING_HEADER_NAME
+        ), response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME));
+    }
+
+    @Test
+    void testCompressWhenNoAcceptableEncoding() {
+        for (final Map<String, String> headers : List.of(Map.<String, String>of(), Map.of("Accept-Encoding", "br"))) {
+            final Map<String, Object> response = compressor.compress(buildRequest(headers), LARGE_RESPONSE);
+            assertEquals(LARGE_BODY, response.get(ApiResponseParameterName.BODY.getValue()));
+            assertEquals(Map.of(ResponseCompressor.VARY_HEADER_NAME, ResponseCompressor.ACCEPT_ENCODING_HEADER_NAME),
+                response.get(ResponseCompressor.HEADERS_RESPONSE_PARAMETER_NAME));
+        }
+    }
+
+    @Test
+    void testCompressWhenNullRequestOrHeaders() {
+        assertSame(LARGE_RESPONSE, compressor.compress(null, LARGE_RESPONSE));
+        assertEquals(LARGE_BODY, compressor.compress(buildRequest(null), LARGE_RESPONSE).get(ApiResponseParameterName.BODY.getValue()));
+    }
+
+    @Test
+    void testCompressWhenCompressionDoesNotShrinkBody() {
+        final ResponseCompressor minimalSizeCompressor = new ResponseCompressor(new ResponseCompressionConfiguration(true, 1));
+        final Map<String, Object> response = minimalSizeCompressor.compress(buildRequest(Map.of("Accept-Encoding", "gzip")),
+            Map.of(ApiResponseParameterName.BODY.getValue(), "{}"));
+
+        assertEquals("{}", response.get(ApiResponseParameterName.BODY.getValue()));
+        assertFalse(response.containsKey(ResponseCompressor.IS_BASE64_ENCODED_RESPONSE_PARAMETER_NAME));
+    }
+
+    @Test
+    void testNegotiate() {
+        assertEquals(Optional.empty(), ResponseCompressor.negotiate(null));
+        assertEquals(Optional.empty(), ResponseCompressor.negotiate(" "));
+        assertEquals(Optional.of(ContentEncoding.GZIP), ResponseCompressor.negotiate("gzip, deflate, br"));
+        assertEquals(Optional.of(ContentEncoding.GZIP), ResponseCompressor.negotiate("x-gzip"));
+        assertEquals(Optional.of(ContentEncoding.GZIP), ResponseCompressor.negotiate("*"));
+        assertEquals(Optional.of(ContentEncoding.DEFLATE), ResponseCompressor.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals(Optional.of(ContentEncoding.DEFLATE), ResponseCompressor.negotiate("gzip;q=0, *"));
+        assertEquals(Optional.of(ContentEncoding.GZIP), ResponseCompressor.negotiate("GZIP; Q=1.0"));
+        assertEquals(Optional.empty(), ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+        assertEquals(Optional.empty(), ResponseCompressor.negotiate("*;q=0"));
+        assertEquals(Optional.empty(), ResponseCompressor.negotiate("gzip;q=0.5, identity"));
+        assertEquals(Optional.of(ContentEncoding.DEFLATE), ResponseCompressor.negotiate("gzip;q=invalid, deflate;q=2, deflate"));
+        assertEquals(Optional.empty(), ResponseCompressor.negotiate("gzip;q=1.5"));
+    }
+
+    @Test
+    void testContentEncodingRoundTrip() throws IOException {
+        final byte[] input = LARGE_BODY.getBytes(StandardCharsets.UTF_8);
+        try (InputStream gzipInput = new GZIPInputStream(new ByteArrayInputStream(ContentEncoding.GZIP.encode(input)))) {
+            assertArrayEquals(input, gzipInput.readAllBytes());
+        }
+        try (InputStream deflateInput = new InflaterInputStream(new ByteArrayInputStream(ContentEncoding.DEFLATE.encode(input)))) {
+            assertArrayEquals(input, deflateInput.readAllBytes());
+        }
+    }
+
+    private static ApiRequest buildRequest(final Map<String, String> headers) {
+        return new ApiRequest("GET", null, null, null, null, headers, false, null);
+    }
+
+    private static String decode(final Map<String, Object> response, final DecodingStreamFactory decodingStreamFactory)
+            throws IOException {
+        final byte[] compressedBody = Base64.getDecoder().decode((String) response.get(ApiResponseParameterName.BODY.getValue()));
+        try (InputStream decodedBody = decodingStreamFactory.create(new ByteArrayInputStream(compressedBody))) {
+            return new String(decodedBody.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @FunctionalInterface
+    private interface DecodingStreamFactory {
+        InputStream create(InputStream compressedInput) throws IOException;
+    }
+}
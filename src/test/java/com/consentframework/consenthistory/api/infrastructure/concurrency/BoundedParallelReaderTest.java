@@ -0,0 +1,90 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class BoundedParallelReaderTest {
+    private static final int MAX_CONCURRENCY = 3;
+
+    private final BoundedParallelReader reader = new BoundedParallelReader(MAX_CONCURRENCY);
+
+    @Test
+    void testReadAllReturnsResultsInInputOrder() {
+        final List<Integer> inputs = IntStream.range(0, 20).boxed().toList();
+        assertEquals(inputs.stream().map(input -> input * 2).toList(), reader.readAll(inputs, input -> {
+            sleep(20 - input);
+            return input * 2;
+        }));
+    }
+
+    @Test
+    void testReadAllBoundsReadsInFlight() {
+        final AtomicInteger inFlightReads = new AtomicInteger();
+        final AtomicInteger maxInFlightReads = new AtomicInteger();
+
+        reader.readAll(IntStream.range(0, 20).boxed().toList(), input -> {
+            maxInFlightReads.accumulateAndGet(inFlightReads.incrementAndGet(), Math::max);
+            try {
+                sleep(5);
+                return input;
+            } finally {
+                inFlightReads.decrementAndGet();
+            }
+        });
+        assertEquals(MAX_CONCURRENCY, maxInFlightReads.get());
+    }
+
+    @Test
+    void testReadAllMergesReadMetrics() {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            reader.readAll(List.of(1, 2), itemCount -> {
+                RequestMetrics.current().addDynamoDbPage(itemCount, 0.5, 1);
+                return itemCount;
+            });
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(2, requestMetrics.dynamoDbPageCount());
+        assertEquals(3, requestMetrics.dynamoDbItemCount());
+        assertEquals(1.0, requestMetrics.consumedReadCapacityUnits());
+        assertTrue(requestMetrics.repositoryNanos() > 0);
+    }
+
+    @Test
+    void testReadAllPropagatesReadFailure() {
+        final IllegalStateException readFailure = new IllegalStateException("Read failed");
+        assertSame(readFailure, assertThrows(IllegalStateException.class, () -> reader.readAll(List.of(1, 2), input -> {
+            throw readFailure;
+        })));
+    }
+
+    @Test
+    void testReadAllWrapsReadError() {
+        final AssertionError readError = new AssertionError("Read failed");
+        final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> reader.readAll(List.of(1), input -> {
+            throw readError;
+        }));
+        assertSame(readError, exception.getCause());
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(interruptedException);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class ConsentHistoryBatchConfigurationTest {
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        assertEquals(ConsentHistoryBatchConfiguration.DEFAULT, ConsentHistoryBatchConfiguration.fromEnvironment(Map.of()));
+        assertEquals(new ConsentHistoryBatchConfiguration(ConsentHistoryBatchConfiguration.DEFAULT_MAXIMUM_KEYS,
+            ConsentHistoryBatchConfiguration.DEFAULT_MAX_CONCURRENCY), ConsentHistoryBatchConfiguration.fromEnvironment(Map.of(
+                ConsentHistoryBatchConfiguration.MAXIMUM_KEYS_ENVIRONMENT_VARIABLE, " ")));
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        assertEquals(new ConsentHistoryBatchConfiguration(25, 4), ConsentHistoryBatchConfiguration.fromEnvironment(Map.of(
+            ConsentHistoryBatchConfiguration.MAXIMUM_KEYS_ENVIRONMENT_VARIABLE, "25",
+            ConsentHistoryBatchConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "4")));
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidMaxConcurrency() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            ConsentHistoryBatchConfiguration.fromEnvironment(Map.of(
+                ConsentHistoryBatchConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "0")));
+        assertEquals(String.format(ConsentHistoryBatchConfiguration.INVALID_CONFIGURATION_MESSAGE,
+            ConsentHistoryBatchConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "0"), exception.getMessage());
+    }
+}
@@ -0,0 +1,41 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class PagePrefetchConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(PagePrefetchConfiguration.DISABLED, PagePrefetchConfiguration.fromEnvironment(Map.of()));
+        assertEquals(PagePrefetchConfiguration.DISABLED, PagePrefetchConfiguration.fromEnvironment(Map.of(
+            PagePrefetchConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            PagePrefetchConfiguration.PREFETCH_DEPTH_ENVIRONMENT_VARIABLE, "invalid")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        assertEquals(new PagePrefetchConfiguration(true, PagePrefetchConfiguration.DEFAULT_PREFETCH_DEPTH),
+            PagePrefetchConfiguration.fromEnvironment(Map.of(PagePrefetchConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true")));
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        assertEquals(new PagePrefetchConfiguration(true, 3), PagePrefetchConfiguration.fromEnvironment(Map.of(
+            PagePrefetchConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            PagePrefetchConfiguration.PREFETCH_DEPTH_ENVIRONMENT_VARIABLE, "3")));
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidPrefetchDepth() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            PagePrefetchConfiguration.fromEnvironment(Map.of(
+                PagePrefetchConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                PagePrefetchConfiguration.PREFETCH_DEPTH_ENVIRONMENT_VARIABLE, "0")));
+        assertEquals(String.format(PagePrefetchConfiguration.INVALID_CONFIGURATION_MESSAGE,
+            PagePrefetchConfiguration.PREFETCH_DEPTH_ENVIRONMENT_VARIABLE, "0"), exception.getMessage());
+    }
+}
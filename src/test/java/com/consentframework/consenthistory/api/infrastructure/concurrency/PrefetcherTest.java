@@ -0,0 +1,146 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class PrefetcherTest {
+    private static final int PREFETCH_DEPTH = 2;
+
+    private final AtomicInteger producedCount = new AtomicInteger();
+    private final CountDownLatch sourceClosed = new CountDownLatch(1);
+
+    @Test
+    void testPrefetchingReturnsElementsInOrder() {
+        final List<Integer> elements = IntStream.range(0, 100).boxed().toList();
+        try (Stream<Integer> prefetchedElements = Prefetcher.prefetching(elements.stream(), PREFETCH_DEPTH)) {
+            assertEquals(elements, prefetchedElements.toList());
+        }
+    }
+
+    @Test
+    void testPrefetchingReadsAtMostPrefetchDepthAhead() throws Exception {
+        final Stream<Integer> source = Stream.iterate(0, element -> element + 1)
+            .peek(element -> producedCount.incrementAndGet());
+        try (Stream<Integer> prefetchedElements = Prefetcher.prefetching(source, PREFETCH_DEPTH)) {
+            final Iterator<Integer> iterator = prefetchedElements.iterator();
+            assertEquals(0, iterator.next());
+
+            // The consumed element, the buffered elements, and the element waiting to be buffered
+            final int expectedProducedCount = 1 + PREFETCH_DEPTH + 1;
+            awaitProducedCount(expectedProducedCount);
+            Thread.sleep(50);
+            assertEquals(expectedProducedCount, producedCount.get());
+
+            assertEquals(1, iterator.next());
+            awaitProducedCount(expectedProducedCount + 1);
+        }
+    }
+
+    @Test
+    void testPrefetchingRethrowsProducerExceptionAfterPrecedingElements() {
+        final IllegalStateException producerException = new IllegalStateException("Failed to produce element");
+        final Stream<Integer> source = Stream.of(0, 1, 2).map(element -> {
+            if (element == 2) {
+                throw producerException;
+            }
+            return element;
+        });
+        try (Stream<Integer> prefetchedElements = Prefetcher.prefetching(source, PREFETCH_DEPTH)) {
+            final Iterator<Integer> iterator = prefetchedElements.iterator();
+            assertEquals(0, iterator.next());
+            assertEquals(1, iterator.next());
+            assertSame(producerException, assertThrows(IllegalStateException.class, iterator::hasNext));
+            assertSame(producerException, assertThrows(IllegalStateException.class, iterator::next));
+        }
+    }
+
+    @Test
+    void testPrefetchingRethrowsProducerError() {
+        final Stream<Integer> source = Stream.generate(() -> {
+            throw new AssertionError("Failed to produce element");
+        });
+        try (Stream<Integer> prefetchedElements = Prefetcher.prefetching(source, PREFETCH_DEPTH)) {
+            final AssertionError error = assertThrows(AssertionError.class, () -> prefetchedElements.iterator().hasNext());
+            assertEquals("Failed to produce element", error.getMessage());
+        }
+    }
+
+    @Test
+    void testPrefetchingEndsAfterLastElement() {
+        try (Stream<Integer> prefetchedElements = Prefetcher.prefetching(Stream.of(0), PREFETCH_DEPTH)) {
+            final Iterator<Integer> iterator = prefetchedElements.iterator();
+            assertEquals(0, iterator.next());
+            assertFalse(iterator.hasNext());
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+    }
+
+    @Test
+    void testClosingStopsPrefetchingAndClosesSource() throws Exception {
+        final Stream<Integer> source = Stream.iterate(0, element -> element + 1).onClose(sourceClosed::countDown);
+        final Stream<Integer> prefetchedElements = Prefetcher.prefetching(source, PREFETCH_DEPTH);
+        assertEquals(0, prefetchedElements.iterator().next());
+
+        prefetchedElements.close();
+        assertTrue(sourceClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testClosingWhileProducerIsBlockedInSourceClosesSource() throws Exception {
+        final CountDownLatch producerBlocked = new CountDownLatch(1);
+        final Stream<Integer> source = Stream.generate(() -> blockUntilInterrupted(producerBlocked)).onClose(sourceClosed::countDown);
+        final Stream<Integer> prefetchedElements = Prefetcher.prefetching(source, PREFETCH_DEPTH);
+        assertTrue(producerBlocked.await(5, TimeUnit.SECONDS));
+
+        prefetchedElements.close();
+        assertTrue(sourceClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testInterruptedConsumerStopsPrefetching() throws Exception {
+        final Stream<Integer> source = Stream.generate(() -> blockUntilInterrupted(new CountDownLatch(1)))
+            .onClose(sourceClosed::countDown);
+        try (Stream<Integer> prefetchedElements = Prefetcher.prefetching(source, PREFETCH_DEPTH)) {
+            final Iterator<Integer> iterator = prefetchedElements.iterator();
+            Thread.currentThread().interrupt();
+            final IllegalStateException exception = assertThrows(IllegalStateException.class, iterator::hasNext);
+            assertInstanceOf(InterruptedException.class, exception.getCause());
+            assertTrue(Thread.interrupted());
+        }
+        assertTrue(sourceClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitProducedCount(final int expectedProducedCount) throws InterruptedException {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (producedCount.get() < expectedProducedCount && System.nanoTime() < deadlineNanos) {
+            Thread.sleep(1);
+        }
+        assertEquals(expectedProducedCount, producedCount.get());
+    }
+
+    private static Integer blockUntilInterrupted(final CountDownLatch blocked) {
+        blocked.countDown();
+        try {
+            new CountDownLatch(1).await();
+            return 0;
+        } catch (final InterruptedException interruptedException) {
+            throw new IllegalStateException(interruptedException);
+        }
+    }
+}
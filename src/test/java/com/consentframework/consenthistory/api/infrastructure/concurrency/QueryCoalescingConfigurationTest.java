@@ -0,0 +1,32 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class QueryCoalescingConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(QueryCoalescingConfiguration.DISABLED, QueryCoalescingConfiguration.fromEnvironment(Map.of()));
+        assertEquals(QueryCoalescingConfiguration.DISABLED, QueryCoalescingConfiguration.fromEnvironment(Map.of(
+            QueryCoalescingConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false")));
+    }
+
+    @Test
+    void testFromEnvironmentWhenEnabled() {
+        assertEquals(QueryCoalescingConfiguration.ENABLED, QueryCoalescingConfiguration.fromEnvironment(Map.of(
+            QueryCoalescingConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaultConfiguration() {
+        assertEquals(QueryCoalescingConfiguration.ENABLED, QueryCoalescingConfiguration.fromEnvironment(Map.of(),
+            QueryCoalescingConfiguration.ENABLED));
+        assertEquals(QueryCoalescingConfiguration.ENABLED, QueryCoalescingConfiguration.fromEnvironment(Map.of(
+            QueryCoalescingConfiguration.ENABLED_ENVIRONMENT_VARIABLE, " "), QueryCoalescingConfiguration.ENABLED));
+        assertEquals(QueryCoalescingConfiguration.DISABLED, QueryCoalescingConfiguration.fromEnvironment(Map.of(
+            QueryCoalescingConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false"), QueryCoalescingConfiguration.ENABLED));
+    }
+}
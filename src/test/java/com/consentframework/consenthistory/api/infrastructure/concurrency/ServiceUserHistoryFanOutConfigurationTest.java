@@ -0,0 +1,55 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+class ServiceUserHistoryFanOutConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(ServiceUserHistoryFanOutConfiguration.DISABLED, ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of()));
+        assertEquals(ServiceUserHistoryFanOutConfiguration.DISABLED, ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of(
+            ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            ServiceUserHistoryFanOutConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "invalid")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final ServiceUserHistoryFanOutConfiguration configuration = ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of(
+            ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            ServiceUserHistoryFanOutConfiguration.CONSENT_COUNT_THRESHOLD_ENVIRONMENT_VARIABLE, " "));
+        assertEquals(new ServiceUserHistoryFanOutConfiguration(true, ServiceUserHistoryFanOutConfiguration.DEFAULT_CONSENT_COUNT_THRESHOLD,
+            ServiceUserHistoryFanOutConfiguration.DEFAULT_MAX_CONCURRENCY,
+            ServiceUserHistoryFanOutConfiguration.DEFAULT_MAXIMUM_INDEXED_SERVICE_USERS,
+            ServiceUserHistoryFanOutConfiguration.DEFAULT_INDEX_TIME_TO_LIVE), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        final ServiceUserHistoryFanOutConfiguration configuration = ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of(
+            ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            ServiceUserHistoryFanOutConfiguration.CONSENT_COUNT_THRESHOLD_ENVIRONMENT_VARIABLE, "50",
+            ServiceUserHistoryFanOutConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "4",
+            ServiceUserHistoryFanOutConfiguration.MAXIMUM_INDEXED_SERVICE_USERS_ENVIRONMENT_VARIABLE, "1000",
+            ServiceUserHistoryFanOutConfiguration.INDEX_TTL_SECONDS_ENVIRONMENT_VARIABLE, "60"));
+        assertEquals(new ServiceUserHistoryFanOutConfiguration(true, 50, 4, 1000, Duration.ofSeconds(60)), configuration);
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidValues() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of(
+                ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                ServiceUserHistoryFanOutConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "many")));
+        assertEquals(String.format(ServiceUserHistoryFanOutConfiguration.INVALID_CONFIGURATION_MESSAGE,
+            ServiceUserHistoryFanOutConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "many"), exception.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> ServiceUserHistoryFanOutConfiguration.fromEnvironment(Map.of(
+            ServiceUserHistoryFanOutConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+            ServiceUserHistoryFanOutConfiguration.CONSENT_COUNT_THRESHOLD_ENVIRONMENT_VARIABLE, "0")));
+    }
+}
@@ -0,0 +1,119 @@
+package com.consentframework.consenthistory.api.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+    private static final String KEY = "key";
+
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AtomicInteger callCount = new AtomicInteger();
+    private final CountDownLatch callStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseCall = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCallSharesResultOfInFlightCall() throws Exception {
+        final Object result = new Object();
+        final Future<Object> leader = executor.submit(() -> singleFlight.call(KEY, () -> blockingCall(result)));
+        callStarted.await();
+        final Future<Object> follower = executor.submit(() -> singleFlight.call(KEY, () -> blockingCall(new Object())));
+        awaitCoalescedCalls(1);
+        releaseCall.countDown();
+
+        assertSame(result, leader.get(5, TimeUnit.SECONDS));
+        assertSame(result, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, callCount.get());
+        assertEquals(0, singleFlight.inFlightCallCount());
+    }
+
+    @Test
+    void testCallSharesExceptionOfInFlightCall() throws Exception {
+        final Future<Object> leader = executor.submit(() -> singleFlight.call(KEY, () -> {
+            blockingCall(null);
+            throw new IOException("failed");
+        }));
+        callStarted.await();
+        final Future<Object> follower = executor.submit(() -> singleFlight.call(KEY, () -> blockingCall(new Object())));
+        awaitCoalescedCalls(1);
+        releaseCall.countDown();
+
+        for (final Future<Object> caller : List.of(leader, follower)) {
+            final ExecutionException exception = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, exception.getCause());
+            assertEquals("failed", exception.getCause().getMessage());
+        }
+        assertEquals(1, callCount.get());
+        assertEquals(0, singleFlight.inFlightCallCount());
+    }
+
+    @Test
+    void testCallSharesErrorOfInFlightCall() throws Exception {
+        final Future<Object> leader = executor.submit(() -> singleFlight.call(KEY, () -> {
+            blockingCall(null);
+            throw new AssertionError("failed");
+        }));
+        callStarted.await();
+        final Future<Object> follower = executor.submit(() -> singleFlight.call(KEY, () -> blockingCall(new Object())));
+        awaitCoalescedCalls(1);
+        releaseCall.countDown();
+
+        assertInstanceOf(AssertionError.class, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(AssertionError.class, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void testCallDoesNotShareCompletedCall() throws Exception {
+        releaseCall.countDown();
+        final Object firstResult = singleFlight.call(KEY, () -> blockingCall(new Object()));
+        final Object secondResult = singleFlight.call(KEY, () -> blockingCall(new Object()));
+
+        assertFalse(firstResult == secondResult);
+        assertEquals(2, callCount.get());
+        assertEquals(0, singleFlight.coalescedCallCount());
+    }
+
+    @Test
+    void testCallDoesNotShareDifferentKeys() throws Exception {
+        releaseCall.countDown();
+        singleFlight.call(KEY, () -> blockingCall(new Object()));
+        singleFlight.call("other key", () -> blockingCall(new Object()));
+        assertEquals(2, callCount.get());
+    }
+
+    private Object blockingCall(final Object result) throws InterruptedException {
+        callCount.incrementAndGet();
+        callStarted.countDown();
+        releaseCall.await();
+        return result;
+    }
+
+    private void awaitCoalescedCalls(final long expectedCount) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.coalescedCallCount() < expectedCount && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expectedCount, singleFlight.coalescedCallCount());
+    }
+}
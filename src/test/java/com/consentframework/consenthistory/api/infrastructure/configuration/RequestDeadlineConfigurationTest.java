@@ -0,0 +1,42 @@
+package com.consentframework.consenthistory.api.infrastructure.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+class RequestDeadlineConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(RequestDeadlineConfiguration.DISABLED, RequestDeadlineConfiguration.fromEnvironment(Map.of()));
+        assertEquals(RequestDeadlineConfiguration.DISABLED, RequestDeadlineConfiguration.fromEnvironment(Map.of(
+            RequestDeadlineConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            RequestDeadlineConfiguration.RESPONSE_TIME_RESERVE_MILLIS_ENVIRONMENT_VARIABLE, "invalid")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        assertEquals(new RequestDeadlineConfiguration(true, RequestDeadlineConfiguration.DEFAULT_RESPONSE_TIME_RESERVE),
+            RequestDeadlineConfiguration.fromEnvironment(Map.of(RequestDeadlineConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true")));
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        assertEquals(new RequestDeadlineConfiguration(true, Duration.ofMillis(250)), RequestDeadlineConfiguration.fromEnvironment(Map.of(
+            RequestDeadlineConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            RequestDeadlineConfiguration.RESPONSE_TIME_RESERVE_MILLIS_ENVIRONMENT_VARIABLE, "250")));
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidResponseTimeReserve() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            RequestDeadlineConfiguration.fromEnvironment(Map.of(
+                RequestDeadlineConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                RequestDeadlineConfiguration.RESPONSE_TIME_RESERVE_MILLIS_ENVIRONMENT_VARIABLE, "-1")));
+        assertEquals(String.format(RequestDeadlineConfiguration.INVALID_CONFIGURATION_MESSAGE,
+            RequestDeadlineConfiguration.RESPONSE_TIME_RESERVE_MILLIS_ENVIRONMENT_VARIABLE, "-1"), exception.getMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package com.consentframework.consenthistory.api.infrastructure.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+class ResponseSizeBudgetConfigurationTest {
+    @Test
+    void testFromEnvironmentDisabledByDefault() {
+        assertEquals(ResponseSizeBudgetConfiguration.DISABLED, ResponseSizeBudgetConfiguration.fromEnvironment(Map.of()));
+        assertEquals(ResponseSizeBudgetConfiguration.DISABLED, ResponseSizeBudgetConfiguration.fromEnvironment(Map.of(
+            ResponseSizeBudgetConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            ResponseSizeBudgetConfiguration.MAXIMUM_BYTES_ENVIRONMENT_VARIABLE, "invalid")));
+        assertEquals(OptionalLong.empty(), ResponseSizeBudgetConfiguration.DISABLED.maximumResponseBytes());
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        final ResponseSizeBudgetConfiguration configuration = ResponseSizeBudgetConfiguration.fromEnvironment(Map.of(
+            ResponseSizeBudgetConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true"));
+        assertEquals(new ResponseSizeBudgetConfiguration(true, ResponseSizeBudgetConfiguration.DEFAULT_MAXIMUM_BYTES), configuration);
+        assertEquals(OptionalLong.of(ResponseSizeBudgetConfiguration.DEFAULT_MAXIMUM_BYTES), configuration.maximumResponseBytes());
+    }
+
+    @Test
+    void testFromEnvironmentWithOverrides() {
+        assertEquals(new ResponseSizeBudgetConfiguration(true, 1_000_000), ResponseSizeBudgetConfiguration.fromEnvironment(Map.of(
+            ResponseSizeBudgetConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            ResponseSizeBudgetConfiguration.MAXIMUM_BYTES_ENVIRONMENT_VARIABLE, "1000000")));
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidMaximumBytes() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            ResponseSizeBudgetConfiguration.fromEnvironment(Map.of(
+                ResponseSizeBudgetConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true",
+                ResponseSizeBudgetConfiguration.MAXIMUM_BYTES_ENVIRONMENT_VARIABLE, "0")));
+        assertEquals(String.format(ResponseSizeBudgetConfiguration.INVALID_CONFIGURATION_MESSAGE,
+            ResponseSizeBudgetConfiguration.MAXIMUM_BYTES_ENVIRONMENT_VARIABLE, "0"), exception.getMessage());
+    }
+}
@@ -0,0 +1,47 @@
+package com.consentframework.consenthistory.api.infrastructure.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+class LogSamplerTest {
+    @Test
+    void testSampleEveryInterval() {
+        final LogSampler logSampler = new LogSampler(3);
+        final List<Boolean> samples = IntStream.range(0, 7).mapToObj(ignored -> logSampler.sample()).toList();
+        assertEquals(List.of(true, false, false, true, false, false, true), samples);
+    }
+
+    @Test
+    void testSampleEveryCallWhenIntervalIsOne() {
+        final LogSampler logSampler = new LogSampler(1);
+        assertEquals(List.of(true, true, true), IntStream.range(0, 3).mapToObj(ignored -> logSampler.sample()).toList());
+    }
+
+    @Test
+    void testConstructorWhenIntervalNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new LogSampler(0));
+    }
+
+    @Test
+    void testFromEnvironmentWhenUnset() {
+        assertEquals(LogSampler.DEFAULT_SAMPLE_INTERVAL, LogSampler.consentChangeEventSamplerFromEnvironment(Map.of()).sampleInterval());
+    }
+
+    @Test
+    void testFromEnvironmentWhenSet() {
+        final Map<String, String> environment = Map.of(LogSampler.CONSENT_CHANGE_EVENT_SAMPLE_INTERVAL_ENVIRONMENT_VARIABLE, "10");
+        assertEquals(10, LogSampler.consentChangeEventSamplerFromEnvironment(environment).sampleInterval());
+    }
+
+    @Test
+    void testFromEnvironmentWhenInvalid() {
+        final Map<String, String> environment = Map.of(LogSampler.CONSENT_CHANGE_EVENT_SAMPLE_INTERVAL_ENVIRONMENT_VARIABLE, "-1");
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.consentChangeEventSamplerFromEnvironment(environment));
+    }
+}
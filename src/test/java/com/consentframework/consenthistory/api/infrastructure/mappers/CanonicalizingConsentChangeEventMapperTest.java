@@ -0,0 +1,85 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+class CanonicalizingConsentChangeEventMapperTest {
+    private static final OffsetDateTime EVENT_TIME = OffsetDateTime.parse("2024-01-01T00:00:30.5Z");
+
+    private final CanonicalizingConsentChangeEventMapper mapper = new CanonicalizingConsentChangeEventMapper();
+
+    @Test
+    void applyWhenNull() {
+        assertNull(mapper.apply(null));
+    }
+
+    @Test
+    void applyMatchesStatelessMapper() {
+        final DynamoDbConsentHistory record = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        assertEquals(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record), mapper.apply(record));
+    }
+
+    @Test
+    void applyReusesPreviousNewImageAsOldImage() {
+        final StoredConsentImage consentV1 = DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1");
+        final StoredConsentImage consentV2 = DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("2");
+        final StoredConsentImage consentV1Copy = DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1");
+
+        final ConsentChangeEvent insertEvent = mapper.apply(DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            null, consentV1, ConsentEventType.INSERT, EVENT_TIME));
+        final ConsentChangeEvent modifyEvent = mapper.apply(DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            consentV1Copy, consentV2, ConsentEventType.MODIFY, EVENT_TIME.plusSeconds(1)));
+        final ConsentChangeEvent removeEvent = mapper.apply(DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            consentV1, null, ConsentEventType.REMOVE, EVENT_TIME.plusSeconds(2)));
+
+        assertSame(insertEvent.getNewImage(), modifyEvent.getOldImage());
+        assertNotSame(modifyEvent.getNewImage(), removeEvent.getOldImage());
+        assertEquals(insertEvent.getNewImage(), removeEvent.getOldImage());
+        assertEquals(EVENT_TIME.plusSeconds(1), modifyEvent.getEventTime());
+    }
+
+    @Test
+    void applySharesRepeatedValues() {
+        final ConsentChangeEvent firstEvent = mapper.apply(generateRecord("1", new HashMap<>(TestConstants.TEST_CONSENT_DATA)));
+        final ConsentChangeEvent secondEvent = mapper.apply(generateRecord("2", new HashMap<>(TestConstants.TEST_CONSENT_DATA)));
+
+        assertSame(firstEvent.getConsentId(), secondEvent.getConsentId());
+        assertSame(firstEvent.getNewImage().getConsentType(), secondEvent.getNewImage().getConsentType());
+        assertSame(firstEvent.getNewImage().getConsentData(), secondEvent.getNewImage().getConsentData());
+        assertEquals(TestConstants.TEST_CONSENT_DATA, secondEvent.getNewImage().getConsentData());
+    }
+
+    @Test
+    void applyStopsRetainingValuesBeyondMaximum() {
+        for (int index = 0; index < CanonicalizingConsentChangeEventMapper.MAXIMUM_CANONICAL_VALUES; index++) {
+            mapper.apply(generateRecord("1", Map.of("key", "value-" + index)));
+        }
+
+        final ConsentChangeEvent firstEvent = mapper.apply(generateRecord("1", new HashMap<>(Map.of("key", "new"))));
+        final ConsentChangeEvent secondEvent = mapper.apply(generateRecord("1", new HashMap<>(Map.of("key", "new"))));
+        assertNotSame(firstEvent.getNewImage().getConsentData(), secondEvent.getNewImage().getConsentData());
+        assertEquals(firstEvent.getNewImage().getConsentData(), secondEvent.getNewImage().getConsentData());
+    }
+
+    private static DynamoDbConsentHistory generateRecord(final String consentVersion, final Map<String, String> consentData) {
+        final StoredConsentImage consent = DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage(consentVersion,
+            consentData, null);
+        return DynamoDbServiceUserConsentHistoryRecordGenerator.generate(null, consent, ConsentEventType.INSERT,
+            EVENT_TIME.withOffsetSameInstant(ZoneOffset.UTC));
+    }
+}
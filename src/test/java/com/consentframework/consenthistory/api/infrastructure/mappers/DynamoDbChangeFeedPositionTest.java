@@ -0,0 +1,149 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+class DynamoDbChangeFeedPositionTest {
+    private static final OffsetDateTime SINCE = OffsetDateTime.parse("2024-01-01T12:00:20Z");
+
+    @Test
+    void fromEventTimeWatermarkDeliversEventsAtOrAfterIt() throws Exception {
+        final DynamoDbChangeFeedPosition position = fromWatermark(ChangeFeedWatermark.ofEventTime(SINCE.toString(), SINCE));
+        assertEquals(new DynamoDbChangeFeedPosition(SINCE, null, new TreeMap<>()), position);
+        assertNull(position.exclusiveStartKey());
+
+        assertTrue(position.isUndelivered(buildChange("2024-01-01T12:00:20Z")));
+        assertTrue(position.isUndelivered(buildChange("2024-01-01T12:00:21Z")));
+        assertFalse(position.isUndelivered(buildChange("2024-01-01T12:00:19Z")));
+    }
+
+    @Test
+    void continuingAfterRecordSkipsDeliveredEvents() throws Exception {
+        final DynamoDbChangeFeedPosition position = fromWatermark(ChangeFeedWatermark.ofEventTime(SINCE.toString(), SINCE));
+        final ConsentChangeEvent deliveredChange = buildChange("2024-01-01T12:00:30Z");
+        final DynamoDbConsentHistory lastRecord = buildRecord("2024-01-01T12:00:30Z");
+
+        final DynamoDbChangeFeedPosition nextPosition = fromWatermark(ChangeFeedWatermark.ofPosition(
+            position.continuingAfter(List.of(deliveredChange), lastRecord).toWatermark()));
+        assertEquals(SINCE, nextPosition.since());
+        assertEquals(DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(lastRecord), nextPosition.startAfter());
+        assertEquals(DynamoDbPageTokenMapper.toExclusiveStartKey(nextPosition.startAfter()), nextPosition.exclusiveStartKey());
+        assertFalse(nextPosition.isUndelivered(deliveredChange));
+        assertTrue(nextPosition.isUndelivered(buildChange("2024-01-01T12:00:30Z")));
+    }
+
+    @Test
+    void continuingAfterRecordForgetsEventsBeforeIt() throws Exception {
+        final DynamoDbChangeFeedPosition position = new DynamoDbChangeFeedPosition(SINCE, null, new TreeMap<>());
+        final ConsentChangeEvent earlierChange = buildChange("2024-01-01T12:00:30Z");
+        final ConsentChangeEvent laterChange = buildChange("2024-01-01T12:02:05Z");
+        final DynamoDbConsentHistory lastRecord = buildRecord("2024-01-01T12:02:05Z");
+
+        final DynamoDbChangeFeedPosition nextPosition = position.continuingAfter(List.of(earlierChange, laterChange), lastRecord);
+        // The start of 12:01:55Z's minute is after since, so the read moves its start up behind the record
+        assertEquals(OffsetDateTime.parse("2024-01-01T12:01Z"), nextPosition.since());
+        assertEquals(DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(lastRecord), nextPosition.startAfter());
+        assertEquals(List.of("2024-01-01T12:02"), List.copyOf(nextPosition.deliveredEventIds().keySet()));
+        assertFalse(nextPosition.isUndelivered(laterChange));
+    }
+
+    @Test
+    void resumingBeforeLatestEventForgetsEarlierEvents() throws Exception {
+        final DynamoDbChangeFeedPosition position = new DynamoDbChangeFeedPosition(SINCE, null, new TreeMap<>());
+        final ConsentChangeEvent earlierChange = buildChange("2024-01-01T12:00:30Z");
+        final ConsentChangeEvent latestChange = buildChange("2024-01-01T12:01:05Z");
+
+        final DynamoDbChangeFeedPosition nextPosition = fromWatermark(ChangeFeedWatermark.ofPosition(
+            position.resumingBefore(List.of(earlierChange, latestChange), latestChange.getEventTime()).toWatermark()));
+        // The start of 12:00:55Z's minute is before since, so since is kept
+        assertEquals(SINCE, nextPosition.since());
+        assertNull(nextPosition.startAfter());
+        assertEquals(List.of("2024-01-01T12:00", "2024-01-01T12:01"), List.copyOf(nextPosition.deliveredEventIds().keySet()));
+        assertFalse(nextPosition.isUndelivered(earlierChange));
+        assertFalse(nextPosition.isUndelivered(latestChange));
+
+        final DynamoDbChangeFeedPosition laterPosition = nextPosition.resumingBefore(List.of(),
+            OffsetDateTime.parse("2024-01-01T12:01:15Z"));
+        assertEquals(OffsetDateTime.parse("2024-01-01T12:01Z"), laterPosition.since());
+        assertEquals(new TreeSet<>(List.of(latestChange.getEventId())), laterPosition.deliveredEventIds().get("2024-01-01T12:01"));
+        assertEquals(1, laterPosition.deliveredEventIds().size());
+    }
+
+    @Test
+    void resumingBeforeStartAfterWhenNotContinuingAfterRecord() {
+        final DynamoDbChangeFeedPosition position = new DynamoDbChangeFeedPosition(SINCE, null, new TreeMap<>());
+        assertThrows(IllegalStateException.class, position::resumingBeforeStartAfter);
+    }
+
+    @Test
+    void positionWatermarkNeverContainsColon() {
+        final DynamoDbChangeFeedPosition position = new DynamoDbChangeFeedPosition(SINCE, null, new TreeMap<>())
+            .continuingAfter(List.of(buildChange("2024-01-01T12:00:30Z")), buildRecord("2024-01-01T12:00:30Z"));
+        assertFalse(position.toWatermark().contains(":"));
+    }
+
+    @Test
+    void fromWatermarkWhenInvalidPosition() {
+        final String otherUserPageToken = DynamoDbPageTokenMapper.toPageToken(Map.of(
+            DynamoDbPageTokenMapper.ID_ATTRIBUTE_NAME, AttributeValue.fromS(TestConstants.TEST_PARTITION_KEY),
+            DynamoDbPageTokenMapper.EVENT_TIME_ATTRIBUTE_NAME, AttributeValue.fromS("2024-01-01T12:00Z"),
+            DynamoDbPageTokenMapper.SERVICE_USER_ID_ATTRIBUTE_NAME, AttributeValue.fromS("OtherServiceUserId")));
+
+        validateInvalidWatermark("not a valid watermark!");
+        validateInvalidWatermark(encode("null"));
+        validateInvalidWatermark(encode("[]"));
+        validateInvalidWatermark(encode("{\"delivered\":{}}"));
+        validateInvalidWatermark(encode("{\"since\":\"2024-01-01T12:00Z\"}"));
+        validateInvalidWatermark(encode("{\"since\":\"noon\",\"delivered\":{}}"));
+        validateInvalidWatermark(encode("{\"since\":\"2024-01-01T12:00Z\",\"delivered\":{\"2024-01-01T12:00\":null}}"));
+        validateInvalidWatermark(encode("{\"since\":\"2024-01-01T12:00Z\",\"delivered\":{\"2024-01-01T12:00\":[null]}}"));
+        validateInvalidWatermark(encode("{\"since\":\"2024-01-01T12:00Z\",\"startAfter\":\"" + otherUserPageToken
+            + "\",\"delivered\":{}}"));
+    }
+
+    private static void validateInvalidWatermark(final String watermark) {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            fromWatermark(ChangeFeedWatermark.ofPosition(watermark)));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, watermark), exception.getMessage());
+    }
+
+    private static DynamoDbChangeFeedPosition fromWatermark(final ChangeFeedWatermark watermark) throws BadRequestException {
+        return DynamoDbChangeFeedPosition.fromWatermark(watermark, TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+    }
+
+    private static String encode(final String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DynamoDbConsentHistory buildRecord(final String eventTime) {
+        return DynamoDbServiceUserConsentHistoryRecordGenerator.generate(null,
+            DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1"), ConsentEventType.INSERT,
+            OffsetDateTime.parse(eventTime));
+    }
+
+    private static ConsentChangeEvent buildChange(final String eventTime) {
+        return DynamoDbConsentChangeEventMapper.toConsentChangeEvent(buildRecord(eventTime));
+    }
+}
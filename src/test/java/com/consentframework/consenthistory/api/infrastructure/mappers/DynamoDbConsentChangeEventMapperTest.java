@@ -3,6 +3,7 @@ package com.consentframework.consenthistory.api.infrastructure.mappers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.consentframework.consenthistory.api.models.Consent;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
@@ -74,6 +75,21 @@ class DynamoDbConsentChangeEventMapperTest {
         validateConsentImage(ddbRecord.newImage(), result.getNewImage(), null, null);
     }
 
+    @Test
+    void toConsentChangeEventWhenUnknownEnumValues() {
+        final DynamoDbConsentHistory unknownEventType = DynamoDbConsentHistory.builder()
+            .id(TestConstants.TEST_PARTITION_KEY)
+            .eventTime(TestConstants.TEST_EVENT_TIME)
+            .eventType("UNKNOWN")
+            .build();
+        assertThrows(IllegalArgumentException.class, () -> DynamoDbConsentChangeEventMapper.toConsentChangeEvent(unknownEventType));
+
+        final DynamoDbConsentHistory unknownConsentStatus = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            null, DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1").consentStatus(null),
+            ConsentEventType.INSERT);
+        assertThrows(IllegalArgumentException.class, () -> DynamoDbConsentChangeEventMapper.toConsentChangeEvent(unknownConsentStatus));
+    }
+
     private void validateConvertedConsentChangeEvent(final DynamoDbConsentHistory ddbRecord) {
         final ConsentChangeEvent result = DynamoDbConsentChangeEventMapper.toConsentChangeEvent(ddbRecord);
         assertNotNull(result);
@@ -0,0 +1,134 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+class DynamoDbConsentHistoryMapperTest {
+    @Test
+    void testToConsentHistoriesOrdersConsentsById() {
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY_2, "event-1", "2024-01-01T00:00:00Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-2", "2024-01-01T00:00:01Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY_2, "event-3", "2024-01-01T00:00:02Z"));
+
+        final List<ConsentHistory> consentHistories = toConsentHistories(records);
+        assertEquals(List.of(TestConstants.TEST_PARTITION_KEY, TestConstants.TEST_PARTITION_KEY_2),
+            consentHistories.stream().map(ConsentHistory::getConsentId).toList());
+        assertEquals(List.of("event-2"), getEventIds(consentHistories.get(0)));
+        assertEquals(List.of("event-1", "event-3"), getEventIds(consentHistories.get(1)));
+        assertEquals(consentHistories, toConsentHistories(List.of(records.get(1), records.get(0), records.get(2))));
+    }
+
+    @Test
+    void testToConsentHistoriesOrdersEventsByInstant() {
+        // Sort keys order "00:00:00.5Z" before "00:00:00Z"
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-2", "2024-01-01T00:00:00.5Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-1", "2024-01-01T00:00:00Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-3", "2024-01-01T00:00:01Z"));
+
+        final List<ConsentHistory> consentHistories = toConsentHistories(records);
+        assertEquals(1, consentHistories.size());
+        assertEquals(List.of("event-1", "event-2", "event-3"), getEventIds(consentHistories.get(0)));
+    }
+
+    @Test
+    void testToConsentHistoriesKeepsOrderOfEqualEventTimes() {
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-b", "2024-01-01T00:00:00Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-a", "2024-01-01T00:00:00Z"));
+
+        assertEquals(List.of("event-b", "event-a"), getEventIds(toConsentHistories(records).get(0)));
+    }
+
+    @Test
+    void testToConsentHistoriesWithinEventTimeWindow() {
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-1", "2024-01-01T00:00:00Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY_2, "event-2", "2024-01-01T00:00:30Z"));
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(OffsetDateTime.parse("2024-01-01T00:00:10Z"), null);
+
+        final List<ConsentHistory> consentHistories = DynamoDbConsentHistoryMapper.toConsentHistories(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, records.stream(), eventTimeWindow);
+        assertEquals(1, consentHistories.size());
+        assertEquals(List.of("event-2"), getEventIds(consentHistories.get(0)));
+    }
+
+    @Test
+    void testToConsentChangeEventsOrdersSameMinuteEventsByInstant() {
+        // Sort keys order "12:00:30.5Z" before "12:00:30Z" before "12:00Z"
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-3", "2024-01-01T12:00:30.5Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-2", "2024-01-01T12:00:30Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-1", "2024-01-01T12:00Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-4", "2024-01-01T12:01Z"));
+
+        assertEquals(List.of("event-1", "event-2", "event-3", "event-4"), DynamoDbConsentHistoryMapper.toConsentChangeEvents(
+            records.stream(), EventTimeWindow.UNBOUNDED).map(ConsentChangeEvent::getEventId).toList());
+        assertEquals(List.of("event-3", "event-2", "event-1", "event-4"), DynamoDbConsentHistoryMapper.toConsentChangeEventsInReadOrder(
+            records.stream(), EventTimeWindow.UNBOUNDED).map(ConsentChangeEvent::getEventId).toList());
+    }
+
+    @Test
+    void testToConsentChangeEventsKeepsOrderOfEqualEventTimes() {
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-b", "2024-01-01T12:00:30Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-a", "2024-01-01T12:00:30Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-c", "2024-01-01T12:00Z"));
+
+        assertEquals(List.of("event-c", "event-b", "event-a"), DynamoDbConsentHistoryMapper.toConsentChangeEvents(
+            records.stream(), EventTimeWindow.UNBOUNDED).map(ConsentChangeEvent::getEventId).toList());
+    }
+
+    @Test
+    void testToLatestConsentChangeEventUsesLatestInstant() {
+        // Sort keys order "12:00:30Z" before "12:00Z"
+        final List<DynamoDbConsentHistory> records = List.of(
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-2", "2024-01-01T12:00:30Z"),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, "event-1", "2024-01-01T12:00Z"));
+
+        assertEquals(Optional.of("event-2"), DynamoDbConsentHistoryMapper.toLatestConsentChangeEvent(records.stream(),
+            EventTimeWindow.UNBOUNDED).map(ConsentChangeEvent::getEventId));
+        assertEquals(Optional.of("event-1"), DynamoDbConsentHistoryMapper.toLatestConsentChangeEvent(records.stream(),
+            new EventTimeWindow(null, OffsetDateTime.parse("2024-01-01T12:00:10Z"))).map(ConsentChangeEvent::getEventId));
+        assertTrue(DynamoDbConsentHistoryMapper.toLatestConsentChangeEvent(Stream.empty(), EventTimeWindow.UNBOUNDED).isEmpty());
+    }
+
+    @Test
+    void testToConsentHistoriesWhenNoRecords() {
+        assertTrue(DynamoDbConsentHistoryMapper.toConsentHistories(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            Stream.empty(), EventTimeWindow.UNBOUNDED).isEmpty());
+    }
+
+    private static List<ConsentHistory> toConsentHistories(final List<DynamoDbConsentHistory> records) {
+        return DynamoDbConsentHistoryMapper.toConsentHistories(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            records.stream(), EventTimeWindow.UNBOUNDED);
+    }
+
+    private static List<String> getEventIds(final ConsentHistory consentHistory) {
+        return consentHistory.getHistory().stream().map(ConsentChangeEvent::getEventId).toList();
+    }
+
+    private static DynamoDbConsentHistory buildRecord(final String consentId, final String eventId, final String eventTime) {
+        return DynamoDbConsentHistory.builder()
+            .id(consentId)
+            .eventId(eventId)
+            .eventType(ConsentEventType.INSERT.name())
+            .eventTime(eventTime)
+            .serviceUserId(TestConstants.TEST_SERVICE_USER_ID)
+            .build();
+    }
+}
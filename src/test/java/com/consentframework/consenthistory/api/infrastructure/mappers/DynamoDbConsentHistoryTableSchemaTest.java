@@ -0,0 +1,53 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.Set;
+
+class DynamoDbConsentHistoryTableSchemaTest {
+    private static final TableSchema<DynamoDbConsentHistory> INTROSPECTED_TABLE_SCHEMA =
+        TableSchema.fromImmutableClass(DynamoDbConsentHistory.class);
+
+    private final DynamoDbConsentHistory record = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+    private final DynamoDbConsentHistory insertRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(null,
+        DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1", null, null), ConsentEventType.INSERT);
+
+    @Test
+    void testItemToMapMatchesIntrospectedSchema() {
+        assertEquals(INTROSPECTED_TABLE_SCHEMA.itemToMap(record, true),
+            DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.itemToMap(record, true));
+        assertEquals(INTROSPECTED_TABLE_SCHEMA.itemToMap(insertRecord, true),
+            DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.itemToMap(insertRecord, true));
+    }
+
+    @Test
+    void testMapToItemReadsIntrospectedSchemaItems() {
+        final Map<String, AttributeValue> item = INTROSPECTED_TABLE_SCHEMA.itemToMap(record, true);
+        assertEquals(record, DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.mapToItem(item));
+        assertEquals(insertRecord, DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.mapToItem(
+            INTROSPECTED_TABLE_SCHEMA.itemToMap(insertRecord, true)));
+    }
+
+    @Test
+    void testTableMetadataMatchesIntrospectedSchema() {
+        final TableMetadata expectedMetadata = INTROSPECTED_TABLE_SCHEMA.tableMetadata();
+        final TableMetadata tableMetadata = DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.tableMetadata();
+        final String gsiName = DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME;
+
+        assertEquals(expectedMetadata.primaryPartitionKey(), tableMetadata.primaryPartitionKey());
+        assertEquals(expectedMetadata.primarySortKey(), tableMetadata.primarySortKey());
+        assertEquals(expectedMetadata.indexPartitionKey(gsiName), tableMetadata.indexPartitionKey(gsiName));
+        assertEquals(expectedMetadata.indexSortKey(gsiName), tableMetadata.indexSortKey(gsiName));
+        assertEquals(Set.copyOf(INTROSPECTED_TABLE_SCHEMA.attributeNames()),
+            Set.copyOf(DynamoDbConsentHistoryTableSchema.TABLE_SCHEMA.attributeNames()));
+    }
+}
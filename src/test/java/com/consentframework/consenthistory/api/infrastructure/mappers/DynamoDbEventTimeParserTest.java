@@ -0,0 +1,61 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+class DynamoDbEventTimeParserTest {
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "2024-01-01T00:00Z",
+        "2024-02-29T23:59:59Z",
+        "2024-01-01T00:00:30.5Z",
+        "2024-01-01T00:00:30.123Z",
+        "2024-01-01T00:00:30.123456Z",
+        "2024-01-01T00:00:30.123456789Z",
+        "2024-01-01T00:00:30.12Z"
+    })
+    void parseMatchesGeneralPurposeParserForUtcTimes(final String eventTime) {
+        final OffsetDateTime parsedEventTime = DynamoDbEventTimeParser.parse(eventTime);
+        assertEquals(OffsetDateTime.parse(eventTime), parsedEventTime);
+        assertEquals(ZoneOffset.UTC, parsedEventTime.getOffset());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "2024-01-01T00:00+02:00",
+        "2024-01-01T00:00:30.5+01:00",
+        "+12024-01-01T00:00Z",
+        "2024-01-01T00:00:30.Z"
+    })
+    void parseFallsBackForOtherShapes(final String eventTime) {
+        assertEquals(OffsetDateTime.parse(eventTime).withOffsetSameLocal(ZoneOffset.UTC), DynamoDbEventTimeParser.parse(eventTime));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "2024-01-01",
+        "2024-13-01T00:00Z",
+        "2024-02-30T00:00Z",
+        "2024-01-01T24:00Z",
+        "2024-01-01T00:00:6xZ",
+        "2024-01-01T00:00:30.1234567890Z",
+        "2024-01-01T00:00:30,5Z",
+        "2024-01-01T00:00:3Z",
+        "2024-01-01T00:00;30Z",
+        "2024-01-01T00:00:30.5xZ",
+        "2024-01-01 00:00Z",
+        "2024/01/01T00:00Z",
+        "2024-01-01T00-00Z"
+    })
+    void parseWhenInvalid(final String eventTime) {
+        assertThrows(DateTimeParseException.class, () -> DynamoDbEventTimeParser.parse(eventTime));
+    }
+}
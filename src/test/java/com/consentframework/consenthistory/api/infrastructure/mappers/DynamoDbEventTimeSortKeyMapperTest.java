@@ -0,0 +1,51 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class DynamoDbEventTimeSortKeyMapperTest {
+    private static final OffsetDateTime EVENT_TIME = OffsetDateTime.parse("2024-03-15T10:20:30.123Z");
+
+    @Test
+    void toLowerBoundTruncatesToMinute() {
+        assertEquals("2024-03-15T10:20", DynamoDbEventTimeSortKeyMapper.toLowerBound(EVENT_TIME));
+    }
+
+    @Test
+    void toUpperBoundTruncatesToMinute() {
+        assertEquals("2024-03-15T10:20~", DynamoDbEventTimeSortKeyMapper.toUpperBound(EVENT_TIME));
+    }
+
+    @Test
+    void boundsAreConvertedToUtc() {
+        final OffsetDateTime eventTimeWithOffset = EVENT_TIME.withOffsetSameInstant(ZoneOffset.ofHours(-5));
+        assertEquals("2024-03-15T10:20", DynamoDbEventTimeSortKeyMapper.toLowerBound(eventTimeWithOffset));
+        assertEquals("2024-03-15T10:20~", DynamoDbEventTimeSortKeyMapper.toUpperBound(eventTimeWithOffset));
+    }
+
+    @Test
+    void boundsIncludeEveryStoredRepresentationWithinMinute() {
+        final String lowerBound = DynamoDbEventTimeSortKeyMapper.toLowerBound(EVENT_TIME);
+        final String upperBound = DynamoDbEventTimeSortKeyMapper.toUpperBound(EVENT_TIME);
+        final List<OffsetDateTime> eventTimesWithinMinute = List.of(
+            OffsetDateTime.parse("2024-03-15T10:20:00Z"),
+            OffsetDateTime.parse("2024-03-15T10:20:00.001Z"),
+            OffsetDateTime.parse("2024-03-15T10:20:30Z"),
+            OffsetDateTime.parse("2024-03-15T10:20:59.999999999Z")
+        );
+        eventTimesWithinMinute.forEach(eventTime -> {
+            final String storedEventTime = eventTime.toString();
+            assertTrue(storedEventTime.compareTo(lowerBound) >= 0, storedEventTime);
+            assertTrue(storedEventTime.compareTo(upperBound) <= 0, storedEventTime);
+        });
+
+        assertTrue(OffsetDateTime.parse("2024-03-15T10:19:59.999Z").toString().compareTo(lowerBound) < 0);
+        assertTrue(OffsetDateTime.parse("2024-03-15T10:21:00Z").toString().compareTo(upperBound) > 0);
+    }
+}
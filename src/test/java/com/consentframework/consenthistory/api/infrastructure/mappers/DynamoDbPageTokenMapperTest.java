@@ -0,0 +1,165 @@
+package com.consentframework.consenthistory.api.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+class DynamoDbPageTokenMapperTest {
+    private static final Map<String, AttributeValue> LAST_EVALUATED_KEY = Map.of(
+        "id", AttributeValue.fromS(TestConstants.TEST_PARTITION_KEY),
+        "eventId", AttributeValue.fromS("TestEventId"),
+        "serviceUserId", AttributeValue.fromS(TestConstants.TEST_SERVICE_USER_ID)
+    );
+
+    @Test
+    void toPageTokenWhenNoLastEvaluatedKey() {
+        assertNull(DynamoDbPageTokenMapper.toPageToken(null));
+        assertNull(DynamoDbPageTokenMapper.toPageToken(Map.of()));
+    }
+
+    @Test
+    void toExclusiveStartKeyWhenNoPageToken() throws Exception {
+        assertNull(DynamoDbPageTokenMapper.toExclusiveStartKey(null));
+    }
+
+    @Test
+    void roundTripLastEvaluatedKey() throws Exception {
+        final String pageToken = DynamoDbPageTokenMapper.toPageToken(LAST_EVALUATED_KEY);
+        assertFalse(pageToken.contains("="));
+        assertEquals(LAST_EVALUATED_KEY, DynamoDbPageTokenMapper.toExclusiveStartKey(pageToken));
+    }
+
+    @Test
+    void toServiceUserHistoryPageTokenHoldsRecordKey() throws Exception {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        final String pageToken = DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(consentHistoryRecord);
+        assertEquals(Map.of(
+            "id", AttributeValue.fromS(consentHistoryRecord.id()),
+            "eventTime", AttributeValue.fromS(consentHistoryRecord.eventTime()),
+            "serviceUserId", AttributeValue.fromS(consentHistoryRecord.serviceUserId())
+        ), DynamoDbPageTokenMapper.toExclusiveStartKey(pageToken));
+    }
+
+    @Test
+    void toExclusiveStartKeyWhenNotBase64() {
+        validateInvalidPageToken("not a valid token!");
+    }
+
+    @Test
+    void toExclusiveStartKeyWhenNotJson() {
+        validateInvalidPageToken(encode("not json"));
+    }
+
+    @Test
+    void toExclusiveStartKeyWhenEmptyKey() {
+        validateInvalidPageToken(encode("{}"));
+    }
+
+    @Test
+    void toExclusiveStartKeyWhenNullAttributeValue() {
+        validateInvalidPageToken(encode("{\"id\":null}"));
+    }
+
+    @Test
+    void toConsentHistoryExclusiveStartKeyHoldsTableKey() throws Exception {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        final Map<String, AttributeValue> tableKey = Map.of(
+            "id", AttributeValue.fromS(consentHistoryRecord.id()),
+            "eventTime", AttributeValue.fromS(consentHistoryRecord.eventTime())
+        );
+        assertEquals(tableKey, DynamoDbPageTokenMapper.toConsentHistoryExclusiveStartKey(DynamoDbPageTokenMapper.toPageToken(tableKey),
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+        assertNull(DynamoDbPageTokenMapper.toConsentHistoryExclusiveStartKey(null, TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+    }
+
+    @Test
+    void toConsentHistoryExclusiveStartKeyWhenInvalidPageToken() {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        validateInvalidConsentHistoryPageToken(DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(consentHistoryRecord),
+            TestConstants.TEST_CONSENT_ID);
+        validateInvalidConsentHistoryPageToken(DynamoDbPageTokenMapper.toPageToken(Map.of(
+            "id", AttributeValue.fromS(consentHistoryRecord.id()),
+            "eventTime", AttributeValue.fromS(consentHistoryRecord.eventTime())
+        )), "OtherConsentId");
+    }
+
+    @Test
+    void toServiceUserHistoryExclusiveStartKeyHoldsRecordKey() throws Exception {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        final String pageToken = DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(consentHistoryRecord);
+        assertEquals(DynamoDbPageTokenMapper.toExclusiveStartKey(pageToken), DynamoDbPageTokenMapper.toServiceUserHistoryExclusiveStartKey(
+            pageToken, TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertNull(DynamoDbPageTokenMapper.toServiceUserHistoryExclusiveStartKey(null, TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID));
+    }
+
+    @Test
+    void toServiceUserHistoryExclusiveStartKeyWhenInvalidPageToken() {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        final String pageToken = DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(consentHistoryRecord);
+        validateInvalidServiceUserHistoryPageToken("not a valid token!", TestConstants.TEST_USER_ID);
+        validateInvalidServiceUserHistoryPageToken(DynamoDbPageTokenMapper.toPageToken(LAST_EVALUATED_KEY), TestConstants.TEST_USER_ID);
+        validateInvalidServiceUserHistoryPageToken(pageToken, "OtherUserId");
+    }
+
+    @Test
+    void toServiceUserChangesExclusiveStartKeyHoldsRecordKey() throws Exception {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        final String watermark = DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(consentHistoryRecord);
+        assertEquals(DynamoDbPageTokenMapper.toExclusiveStartKey(watermark), DynamoDbPageTokenMapper.toServiceUserChangesExclusiveStartKey(
+            watermark, TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+    }
+
+    @Test
+    void toServiceUserChangesExclusiveStartKeyWhenInvalidWatermark() {
+        final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate();
+        final String watermark = DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(consentHistoryRecord);
+        validateInvalidWatermark("not a valid token!", TestConstants.TEST_USER_ID);
+        validateInvalidWatermark(DynamoDbPageTokenMapper.toPageToken(LAST_EVALUATED_KEY), TestConstants.TEST_USER_ID);
+        validateInvalidWatermark(watermark, "OtherUserId");
+        validateInvalidWatermark(null, TestConstants.TEST_USER_ID);
+    }
+
+    private void validateInvalidWatermark(final String watermark, final String userId) {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            DynamoDbPageTokenMapper.toServiceUserChangesExclusiveStartKey(watermark, TestConstants.TEST_SERVICE_ID, userId));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, watermark), exception.getMessage());
+    }
+
+    private void validateInvalidConsentHistoryPageToken(final String pageToken, final String consentId) {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            DynamoDbPageTokenMapper.toConsentHistoryExclusiveStartKey(pageToken, TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, consentId));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken), exception.getMessage());
+    }
+
+    private void validateInvalidServiceUserHistoryPageToken(final String pageToken, final String userId) {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            DynamoDbPageTokenMapper.toServiceUserHistoryExclusiveStartKey(pageToken, TestConstants.TEST_SERVICE_ID, userId));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken), exception.getMessage());
+    }
+
+    private void validateInvalidPageToken(final String pageToken) {
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            DynamoDbPageTokenMapper.toExclusiveStartKey(pageToken));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken), exception.getMessage());
+    }
+
+    private String encode(final String rawToken) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(rawToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
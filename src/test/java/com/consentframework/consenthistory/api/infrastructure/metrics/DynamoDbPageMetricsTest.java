@@ -0,0 +1,55 @@
+package com.consentframework.consenthistory.api.infrastructure.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+class DynamoDbPageMetricsTest {
+    @Test
+    void testRecordingPagesAsRead() {
+        final Page<String> firstPage = Page.builder(String.class)
+            .items(List.of("item-1", "item-2"))
+            .consumedCapacity(ConsumedCapacity.builder().capacityUnits(1.5).build())
+            .build();
+        final Page<String> secondPage = Page.create(List.of("item-3"));
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            final List<Page<String>> pages = DynamoDbPageMetrics.recording(Stream.of(firstPage, secondPage)).toList();
+            assertEquals(List.of(firstPage, secondPage), pages);
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(2, requestMetrics.dynamoDbPageCount());
+        assertEquals(3, requestMetrics.dynamoDbItemCount());
+        assertEquals(1.5, requestMetrics.consumedReadCapacityUnits());
+        assertTrue(requestMetrics.dynamoDbReadNanos() >= 0);
+    }
+
+    @Test
+    void testRecordingOnlyPagesRead() {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            DynamoDbPageMetrics.recording(Stream.of(Page.create(List.of("item-1")), Page.create(List.of("item-2")))).findFirst();
+        } finally {
+            requestMetrics.stop();
+        }
+        assertEquals(1, requestMetrics.dynamoDbPageCount());
+    }
+
+    @Test
+    void testCloseClosesPages() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        DynamoDbPageMetrics.recording(Stream.<Page<String>>empty().onClose(() -> closed.set(true))).close();
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.consentframework.consenthistory.api.infrastructure.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class EmfMetricsPublisherTest {
+    private static final String TEST_ROUTE = "/v1/consent-history/services/{serviceId}/users/{userId}/consents";
+    private static final Instant TEST_TIMESTAMP = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Test
+    void testPublishWhenDisabled() {
+        buildPublisher(MetricsConfiguration.DISABLED).publish(TEST_ROUTE, 200, 1, RequestMetrics.current());
+        assertEquals(0, output.size());
+    }
+
+    @Test
+    void testPublishSingleEmfLogLine() throws Exception {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        requestMetrics.addRepositoryNanos(TimeUnit.MILLISECONDS.toNanos(30));
+        requestMetrics.addDynamoDbPage(10, 2.5, TimeUnit.MILLISECONDS.toNanos(20));
+        requestMetrics.addSerializationNanos(TimeUnit.MICROSECONDS.toNanos(1500));
+        requestMetrics.stop();
+
+        buildPublisher(new MetricsConfiguration(true, "TestNamespace"))
+            .publish(TEST_ROUTE, 200, TimeUnit.MILLISECONDS.toNanos(40), requestMetrics);
+
+        final String[] logLines = output.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(1, logLines.length);
+        final JsonNode logLine = objectMapper.readTree(logLines[0]);
+        assertEquals(TEST_ROUTE, logLine.get(EmfMetricsPublisher.ROUTE_DIMENSION).asText());
+        assertEquals("200", logLine.get(EmfMetricsPublisher.STATUS_CODE_DIMENSION).asText());
+        assertEquals(40.0, logLine.get(EmfMetricsPublisher.LATENCY_METRIC).asDouble());
+        assertEquals(30.0, logLine.get(EmfMetricsPublisher.REPOSITORY_LATENCY_METRIC).asDouble());
+        assertEquals(20.0, logLine.get(EmfMetricsPublisher.DYNAMODB_READ_LATENCY_METRIC).asDouble());
+        assertEquals(10.0, logLine.get(EmfMetricsPublisher.MAPPING_LATENCY_METRIC).asDouble());
+        assertEquals(1.5, logLine.get(EmfMetricsPublisher.SERIALIZATION_LATENCY_METRIC).asDouble());
+        assertEquals(1, logLine.get(EmfMetricsPublisher.DYNAMODB_PAGES_METRIC).asLong());
+        assertEquals(10, logLine.get(EmfMetricsPublisher.DYNAMODB_ITEMS_METRIC).asLong());
+        assertEquals(2.5, logLine.get(EmfMetricsPublisher.CONSUMED_READ_CAPACITY_UNITS_METRIC).asDouble());
+        assertEquals(0, logLine.get(EmfMetricsPublisher.PARTIAL_RESULTS_METRIC).asLong());
+
+        final JsonNode metadata = logLine.get("_aws");
+        assertEquals(TEST_TIMESTAMP.toEpochMilli(), metadata.get("Timestamp").asLong());
+        final JsonNode metricDirective = metadata.get("CloudWatchMetrics").get(0);
+        assertEquals("TestNamespace", metricDirective.get("Namespace").asText());
+        assertEquals(objectMapper.readTree("[[\"Route\"],[\"Route\",\"StatusCode\"]]"), metricDirective.get("Dimensions"));
+
+        final List<String> metricNames = new ArrayList<>();
+        metricDirective.get("Metrics").forEach(metric -> {
+            metricNames.add(metric.get("Name").asText());
+            // Every declared metric must have a value in the log line for CloudWatch to extract it
+            assertTrue(logLine.has(metric.get("Name").asText()));
+        });
+        assertEquals(9, metricNames.size());
+    }
+
+    @Test
+    void testPublishPartialResult() throws Exception {
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        requestMetrics.recordPartialResult();
+        requestMetrics.stop();
+
+        buildPublisher(new MetricsConfiguration(true, "TestNamespace")).publish(TEST_ROUTE, 200, 1, requestMetrics);
+
+        final JsonNode logLine = objectMapper.readTree(output.toString(StandardCharsets.UTF_8).trim());
+        assertEquals(1, logLine.get(EmfMetricsPublisher.PARTIAL_RESULTS_METRIC).asLong());
+    }
+
+    private EmfMetricsPublisher buildPublisher(final MetricsConfiguration configuration) {
+        return new EmfMetricsPublisher(configuration, new PrintStream(output, true, StandardCharsets.UTF_8),
+            Clock.fixed(TEST_TIMESTAMP, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,31 @@
+package com.consentframework.consenthistory.api.infrastructure.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class MetricsConfigurationTest {
+    @Test
+    void testFromEnvironmentWhenNotEnabled() {
+        assertSame(MetricsConfiguration.DISABLED, MetricsConfiguration.fromEnvironment(Map.of()));
+        assertSame(MetricsConfiguration.DISABLED, MetricsConfiguration.fromEnvironment(Map.of(
+            MetricsConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "false",
+            MetricsConfiguration.NAMESPACE_ENVIRONMENT_VARIABLE, "TestNamespace")));
+    }
+
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        assertEquals(new MetricsConfiguration(true, MetricsConfiguration.DEFAULT_NAMESPACE), MetricsConfiguration.fromEnvironment(
+            Map.of(MetricsConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "true", MetricsConfiguration.NAMESPACE_ENVIRONMENT_VARIABLE, " ")));
+    }
+
+    @Test
+    void testFromEnvironmentWithNamespace() {
+        assertEquals(new MetricsConfiguration(true, "TestNamespace"), MetricsConfiguration.fromEnvironment(Map.of(
+            MetricsConfiguration.ENABLED_ENVIRONMENT_VARIABLE, "TRUE",
+            MetricsConfiguration.NAMESPACE_ENVIRONMENT_VARIABLE, "TestNamespace")));
+    }
+}
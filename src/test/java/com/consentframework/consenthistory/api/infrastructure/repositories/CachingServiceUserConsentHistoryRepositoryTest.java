@@ -0,0 +1,278 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.caches.ConsentHistoryCacheConfiguration;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CachingServiceUserConsentHistoryRepositoryTest {
+    private static final ConsentHistoryCacheConfiguration CACHE_CONFIGURATION = new ConsentHistoryCacheConfiguration(
+        true, Duration.ofSeconds(30), ConsentHistoryCacheConfiguration.DEFAULT_MAXIMUM_SIZE_BYTES);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanoTime.get();
+        }
+    };
+
+    private final List<ConsentChangeEvent> consentHistory = List.of(ConsentChangeEventGenerator.generate());
+    private final List<ConsentHistory> consentHistories = List.of(new ConsentHistory()
+        .consentId(TestConstants.TEST_PARTITION_KEY)
+        .history(consentHistory));
+    private ServiceUserConsentHistoryRepository consentHistoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        consentHistoryRepository = mock(ServiceUserConsentHistoryRepository.class);
+    }
+
+    @Test
+    void testGetConsentHistoryReadsThroughOnce() throws Exception {
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)).thenReturn(consentHistory);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        assertSame(consentHistory, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+        assertSame(consentHistory, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+
+        verify(consentHistoryRepository, times(1)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        final CacheStats stats = repository.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    void testGetConsentHistoryExpiresAfterTimeToLive() throws Exception {
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)).thenReturn(consentHistory);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            EventTimeWindow.UNBOUNDED);
+        nanoTime.addAndGet(CACHE_CONFIGURATION.timeToLive().toNanos());
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            EventTimeWindow.UNBOUNDED);
+
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        assertEquals(0, repository.stats().hitCount());
+    }
+
+    @Test
+    void testGetConsentHistoryDoesNotCacheNotFound() throws Exception {
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL))
+            .thenThrow(new ResourceNotFoundException("Not found"));
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+        }
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+    }
+
+    @Test
+    void testGetConsentHistoryCachedPerView() throws Exception {
+        final List<ConsentChangeEvent> summaryHistory = ConsentHistoryView.SUMMARY.project(consentHistory);
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)).thenReturn(consentHistory);
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.SUMMARY)).thenReturn(summaryHistory);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(consentHistory, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+            assertSame(summaryHistory, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.SUMMARY));
+        }
+        assertEquals(2, repository.stats().missCount());
+        assertEquals(2, repository.stats().hitCount());
+    }
+
+    @Test
+    void testGetConsentHistoryPageCachesOnlyCompleteResults() throws Exception {
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL))
+            .thenReturn(new ListPage<>(consentHistory, Optional.of("nextPage")))
+            .thenReturn(new ListPage<>(consentHistory, Optional.empty()));
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        assertEquals(Optional.of("nextPage"), repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL).nextPageToken());
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final ListPage<ConsentChangeEvent> consentHistoryPage = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+            assertSame(consentHistory, consentHistoryPage.resultsOnPage());
+            assertEquals(Optional.empty(), consentHistoryPage.nextPageToken());
+        }
+        assertSame(consentHistory, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        assertEquals(2, repository.stats().hitCount());
+    }
+
+    @Test
+    void testGetConsentHistoryPageContinuationIsNotCached() throws Exception {
+        final ListPage<ConsentChangeEvent> continuation = new ListPage<>(consentHistory, Optional.empty());
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, "nextPage", EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)).thenReturn(continuation);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(continuation, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, "nextPage", EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+        }
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, "nextPage", EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        assertEquals(0, repository.stats().requestCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryReadsThroughOnce() throws Exception {
+        when(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY)).thenReturn(new ListPage<>(consentHistories, Optional.empty()));
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        assertSame(consentHistories, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertSame(consentHistories, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY);
+    }
+
+    @Test
+    void testGetServiceUserChangesIsNotCached() throws Exception {
+        final ChangeFeedWatermark after = ChangeFeedWatermark.ofPosition("position");
+        final ChangeFeedPage page = new ChangeFeedPage(List.of(), "position", false);
+        when(consentHistoryRepository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 1))
+            .thenReturn(page);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(page, repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 1));
+        }
+        verify(consentHistoryRepository, times(2)).getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            after, 1);
+        assertEquals(0, repository.stats().requestCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithBudgetIsNotCached() throws Exception {
+        final ConsentChangeEventBudget budget = consentChangeEvent -> true;
+        final ListPage<ConsentHistory> page = new ListPage<>(consentHistories, Optional.of("nextPage"));
+        when(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withBudget(budget))).thenReturn(page);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(page, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withBudget(budget)));
+        }
+        verify(consentHistoryRepository, times(2)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withBudget(budget));
+        assertEquals(0, repository.stats().requestCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageCachedPerPageToken() throws Exception {
+        final ListPage<ConsentHistory> firstPage = new ListPage<>(consentHistories, Optional.of("nextPage"));
+        final ListPage<ConsentHistory> secondPage = new ListPage<>(consentHistories, Optional.empty());
+        when(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1))).thenReturn(firstPage);
+        when(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withPageToken("nextPage"))).thenReturn(secondPage);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(firstPage, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1)));
+            assertSame(secondPage, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withPageToken("nextPage")));
+        }
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1));
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withPageToken("nextPage"));
+        assertEquals(2, repository.stats().hitCount());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedBeyondMaximumSize() throws Exception {
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)).thenReturn(consentHistory);
+        when(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID_2, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)).thenReturn(consentHistory);
+        final ConsentHistoryCacheConfiguration singleEntryConfiguration = new ConsentHistoryCacheConfiguration(
+            true, Duration.ofSeconds(30), 1);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, singleEntryConfiguration, ticker);
+
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            EventTimeWindow.UNBOUNDED);
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID_2,
+            EventTimeWindow.UNBOUNDED);
+        assertEquals(2, repository.stats().evictionCount());
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventIsNotCached() throws Exception {
+        final Optional<ConsentChangeEvent> latestConsentChangeEvent = Optional.of(consentHistory.get(0));
+        when(consentHistoryRepository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED)).thenReturn(latestConsentChangeEvent);
+        final CachingServiceUserConsentHistoryRepository repository = new CachingServiceUserConsentHistoryRepository(
+            consentHistoryRepository, CACHE_CONFIGURATION, ticker);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertEquals(latestConsentChangeEvent, repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+        }
+        verify(consentHistoryRepository, times(2)).getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+    }
+}
@@ -0,0 +1,325 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestDeadline;
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class CoalescingServiceUserConsentHistoryRepositoryTest {
+    private final CountDownLatch queryStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseQuery = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private CoalescingServiceUserConsentHistoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        consentHistoryRepository = mock(ServiceUserConsentHistoryRepository.class);
+        repository = new CoalescingServiceUserConsentHistoryRepository(consentHistoryRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testGetConsentHistoryCoalescesWindowsCoveringSameInstants() throws Exception {
+        final List<ConsentChangeEvent> consentHistory = List.of(new ConsentChangeEvent());
+        when(consentHistoryRepository.getConsentHistory(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            awaitRelease();
+            return consentHistory;
+        });
+
+        final OffsetDateTime since = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+        final EventTimeWindow utcWindow = new EventTimeWindow(since, null);
+        final EventTimeWindow offsetWindow = new EventTimeWindow(since.withOffsetSameInstant(ZoneOffset.ofHours(2)), null);
+        final List<Object> results = runConcurrently(
+            () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                utcWindow),
+            () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                offsetWindow));
+
+        assertSame(consentHistory, results.get(0));
+        assertSame(consentHistory, results.get(1));
+        verify(consentHistoryRepository, times(1)).getConsentHistory(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetServiceUserHistoryCoalescesNotFound() throws Exception {
+        when(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY)).thenAnswer(
+            invocation -> {
+                awaitRelease();
+                throw new ResourceNotFoundException("not found");
+            });
+
+        final Callable<Object> query = () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final Future<Object> leader = executor.submit(query);
+        queryStarted.await();
+        final Future<Object> follower = executor.submit(query);
+        awaitCoalescedQueries();
+        releaseQuery.countDown();
+
+        for (final Future<Object> caller : List.of(leader, follower)) {
+            final ExecutionException exception = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, exception.getCause());
+        }
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY);
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageCoalescesIdenticalQueries() throws Exception {
+        final ListPage<ConsentHistory> page = new ListPage<>(List.of(new ConsentHistory()), Optional.empty());
+        when(consentHistoryRepository.getServiceUserHistory(any(), any(), any())).thenAnswer(invocation -> {
+            awaitRelease();
+            return page;
+        });
+
+        final Callable<Object> query = () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2));
+        final List<Object> results = runConcurrently(query, query);
+
+        assertSame(page, results.get(0));
+        assertSame(page, results.get(1));
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(any(), any(), any());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageDoesNotCoalesceDifferentPages() throws Exception {
+        when(consentHistoryRepository.getServiceUserHistory(any(), any(), any())).thenReturn(
+            new ListPage<>(List.of(), Optional.empty()));
+
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withPageToken("token"));
+        verify(consentHistoryRepository, times(2)).getServiceUserHistory(any(), any(), any());
+        assertEquals(0, repository.coalescedQueryCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageDoesNotCoalesceDifferentViews() throws Exception {
+        when(consentHistoryRepository.getServiceUserHistory(any(), any(), any())).thenReturn(
+            new ListPage<>(List.of(), Optional.empty()));
+
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withView(ConsentHistoryView.SUMMARY));
+        verify(consentHistoryRepository).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2));
+        verify(consentHistoryRepository).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withView(ConsentHistoryView.SUMMARY));
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageRethrowsBadRequest() throws Exception {
+        when(consentHistoryRepository.getServiceUserHistory(any(), any(), any())).thenThrow(
+            new BadRequestException("invalid token"));
+
+        assertThrows(BadRequestException.class, () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withPageToken("invalid token")));
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventCoalescesIdenticalQueries() throws Exception {
+        final Optional<ConsentChangeEvent> latestConsentChangeEvent = Optional.of(new ConsentChangeEvent());
+        when(consentHistoryRepository.getLatestConsentChangeEvent(any(), any(), any(), any())).thenAnswer(invocation -> {
+            awaitRelease();
+            return latestConsentChangeEvent;
+        });
+
+        final Callable<Object> query = () -> repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+        final List<Object> results = runConcurrently(query, query);
+
+        assertSame(latestConsentChangeEvent, results.get(0));
+        assertSame(latestConsentChangeEvent, results.get(1));
+        verify(consentHistoryRepository, times(1)).getLatestConsentChangeEvent(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetConsentHistoryFromStartWithoutDeadlineCoalescesFullHistory() throws Exception {
+        final List<ConsentChangeEvent> consentHistory = List.of(new ConsentChangeEvent());
+        when(consentHistoryRepository.getConsentHistory(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            awaitRelease();
+            return consentHistory;
+        });
+
+        final Callable<Object> query = () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        final List<Object> results = runConcurrently(query, query);
+
+        assertEquals(new ListPage<>(consentHistory, Optional.empty()), results.get(0));
+        assertEquals(new ListPage<>(consentHistory, Optional.empty()), results.get(1));
+        verify(consentHistoryRepository, times(1)).getConsentHistory(any(), any(), any(), any(), any());
+        verify(consentHistoryRepository, never()).getConsentHistory(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetConsentHistoryPageIsNotCoalesced() throws Exception {
+        final ListPage<ConsentChangeEvent> consentHistoryPage = new ListPage<>(List.of(new ConsentChangeEvent()), Optional.of("next"));
+        when(consentHistoryRepository.getConsentHistory(any(), any(), any(), any(), any(), any())).thenReturn(consentHistoryPage);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(consentHistoryPage, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, "token", EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+        }
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, "token", EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+    }
+
+    @Test
+    void testGetConsentHistoryWithDeadlineIsNotCoalesced() throws Exception {
+        final ListPage<ConsentChangeEvent> consentHistoryPage = new ListPage<>(List.of(new ConsentChangeEvent()), Optional.of("next"));
+        when(consentHistoryRepository.getConsentHistory(any(), any(), any(), any(), any(), any())).thenReturn(consentHistoryPage);
+
+        final RequestDeadline requestDeadline = RequestDeadline.start(Duration.ofMinutes(1));
+        try {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                assertSame(consentHistoryPage, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                    TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+            }
+        } finally {
+            requestDeadline.stop();
+        }
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+    }
+
+    @Test
+    void testGetServiceUserChangesIsNotCoalesced() throws Exception {
+        final ChangeFeedWatermark after = ChangeFeedWatermark.ofPosition("position");
+        final ChangeFeedPage page = new ChangeFeedPage(List.of(), "position", false);
+        when(consentHistoryRepository.getServiceUserChanges(any(), any(), any(), any())).thenReturn(page);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(page, repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 1));
+        }
+        verify(consentHistoryRepository, times(2)).getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            after, 1);
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithBudgetIsNotCoalesced() throws Exception {
+        final ConsentChangeEventBudget budget = consentChangeEvent -> true;
+        final ListPage<ConsentHistory> page = new ListPage<>(List.of(new ConsentHistory()), Optional.of("next"));
+        when(consentHistoryRepository.getServiceUserHistory(any(), any(), any())).thenReturn(page);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertSame(page, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withBudget(budget)));
+        }
+        verify(consentHistoryRepository, times(2)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withBudget(budget));
+    }
+
+    @Test
+    void testGetConsentHistoryRethrowsRuntimeException() throws Exception {
+        when(consentHistoryRepository.getConsentHistory(any(), any(), any(), any(), any())).thenThrow(new IllegalStateException("failed"));
+
+        assertThrows(IllegalStateException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+    }
+
+    @Test
+    void testGetServiceUserHistoryWhenInterruptedWhileWaiting() throws Exception {
+        when(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY)).thenAnswer(
+            invocation -> {
+                awaitRelease();
+                return new ListPage<>(List.of(), Optional.empty());
+            });
+
+        final Future<Object> leader = executor.submit(
+            () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        queryStarted.await();
+        final AtomicReference<Throwable> followerFailure = new AtomicReference<>();
+        final AtomicBoolean followerInterrupted = new AtomicBoolean();
+        final Thread follower = new Thread(() -> {
+            try {
+                repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+            } catch (final Exception exception) {
+                followerFailure.set(exception);
+                followerInterrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        follower.start();
+        awaitCoalescedQueries();
+        follower.interrupt();
+        follower.join(5000);
+        releaseQuery.countDown();
+
+        assertInstanceOf(IllegalStateException.class, followerFailure.get());
+        assertInstanceOf(InterruptedException.class, followerFailure.get().getCause());
+        assertTrue(followerInterrupted.get());
+        assertEquals(List.of(), leader.get(5, TimeUnit.SECONDS));
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY);
+    }
+
+    private List<Object> runConcurrently(final Callable<Object> leaderQuery, final Callable<Object> followerQuery) throws Exception {
+        final Future<Object> leader = executor.submit(leaderQuery);
+        queryStarted.await();
+        final Future<Object> follower = executor.submit(followerQuery);
+        awaitCoalescedQueries();
+        releaseQuery.countDown();
+        return List.of(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitRelease() throws InterruptedException {
+        queryStarted.countDown();
+        releaseQuery.await();
+    }
+
+    private void awaitCoalescedQueries() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (repository.coalescedQueryCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, repository.coalescedQueryCount());
+    }
+}
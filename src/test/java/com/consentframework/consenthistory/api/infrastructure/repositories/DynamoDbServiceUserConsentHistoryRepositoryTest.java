@@ -1,37 +1,73 @@
 package com.consentframework.consenthistory.api.infrastructure.repositories;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.entities.RequestDeadline;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.PagePrefetchConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbChangeFeedPosition;
 import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbConsentChangeEventMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbEventTimeSortKeyMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbPageTokenMapper;
+import com.consentframework.consenthistory.api.infrastructure.mappers.DynamoDbQueryRequestMapper;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentEventType;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
 import com.consentframework.consenthistory.api.models.ConsentStatus;
 import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
 import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
 import com.consentframework.shared.api.infrastructure.entities.StoredConsentImage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 class DynamoDbServiceUserConsentHistoryRepositoryTest {
@@ -98,6 +134,111 @@ class DynamoDbServiceUserConsentHistoryRepositoryTest {
         assertEquals(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record3), retrievedConsentHistory.get(2));
     }
 
+    @Test
+    void testTableCreatedOnceOnFirstUse() throws Exception {
+        when(queryResults.stream()).thenAnswer(invocation -> List.of(page1, page2).stream());
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        final AtomicInteger tableCreationCount = new AtomicInteger();
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(() -> {
+            tableCreationCount.incrementAndGet();
+            return consentHistoryTable;
+        });
+        assertEquals(0, tableCreationCount.get());
+
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+        repository.initialize();
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+        assertEquals(1, tableCreationCount.get());
+    }
+
+    @Test
+    void testInitializeCreatesTableBeforeFirstUse() {
+        final AtomicInteger tableCreationCount = new AtomicInteger();
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(() -> {
+            tableCreationCount.incrementAndGet();
+            return consentHistoryTable;
+        });
+
+        repository.initialize();
+        assertEquals(1, tableCreationCount.get());
+    }
+
+    @Test
+    void testGetConsentHistoryRecordsRequestMetrics() throws Exception {
+        final Page<DynamoDbConsentHistory> pageWithCapacity = Page.builder(DynamoDbConsentHistory.class)
+            .items(List.of(record1, record2))
+            .consumedCapacity(ConsumedCapacity.builder().capacityUnits(1.0).build())
+            .build();
+        when(queryResults.stream()).thenReturn(List.of(pageWithCapacity, page2).stream());
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(2, requestMetrics.dynamoDbPageCount());
+        assertEquals(3, requestMetrics.dynamoDbItemCount());
+        assertEquals(1.0, requestMetrics.consumedReadCapacityUnits());
+        assertTrue(requestMetrics.repositoryNanos() >= requestMetrics.dynamoDbReadNanos());
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(consentHistoryTable).query(queryRequestCaptor.capture());
+        assertEquals(ReturnConsumedCapacity.TOTAL.toString(), queryRequestCaptor.getValue().returnConsumedCapacityAsString());
+    }
+
+    @Test
+    void testGetConsentHistoryProjectsFullView() throws Exception {
+        when(queryResults.stream()).thenReturn(List.of(page1).stream());
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(consentHistoryTable).query(queryRequestCaptor.capture());
+        assertNull(queryRequestCaptor.getValue().attributesToProject());
+    }
+
+    @Test
+    void testGetConsentHistoryProjectsSummaryView() throws Exception {
+        final DynamoDbConsentHistory projectedRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            null, null, ConsentEventType.INSERT, OffsetDateTime.now().withOffsetSameInstant(ZoneOffset.UTC));
+        final Page<DynamoDbConsentHistory> projectedPage = Page.builder(DynamoDbConsentHistory.class)
+            .items(List.of(projectedRecord))
+            .build();
+        when(queryResults.stream()).thenReturn(Stream.of(projectedPage));
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final List<ConsentChangeEvent> retrievedConsentHistory = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED, ConsentHistoryView.SUMMARY);
+        assertEquals(projectedRecord.eventId(), retrievedConsentHistory.get(0).getEventId());
+        assertNull(retrievedConsentHistory.get(0).getNewImage());
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(consentHistoryTable).query(queryRequestCaptor.capture());
+        assertEquals(DynamoDbQueryRequestMapper.SUMMARY_ATTRIBUTE_NAMES, queryRequestCaptor.getValue().attributesToProject());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageProjectsSummaryView() throws Exception {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        when(queryResults.stream()).thenReturn(Stream.of(page1));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withView(ConsentHistoryView.SUMMARY));
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(index).query(queryRequestCaptor.capture());
+        assertEquals(DynamoDbQueryRequestMapper.SUMMARY_ATTRIBUTE_NAMES, queryRequestCaptor.getValue().attributesToProject());
+    }
+
     @Test
     void testGetServiceUserHistoryWhenNullResults() throws Exception {
         @SuppressWarnings("unchecked")
@@ -170,6 +311,802 @@ class DynamoDbServiceUserConsentHistoryRepositoryTest {
         assertEquals(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(historyRecordForDistinctConsent), secondConsentEvents.get(0));
     }
 
+    @Test
+    void testGetConsentHistoryWithinEventTimeWindow() throws Exception {
+        final OffsetDateTime since = OffsetDateTime.parse(record2.eventTime());
+        final OffsetDateTime until = OffsetDateTime.parse(record3.eventTime());
+        when(queryResults.stream()).thenReturn(List.of(page1, page2).stream());
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final List<ConsentChangeEvent> retrievedConsentHistory = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, new EventTimeWindow(since, until));
+        assertEquals(List.of(
+            DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record2),
+            DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record3)
+        ), retrievedConsentHistory);
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(consentHistoryTable).query(queryRequestCaptor.capture());
+        assertTrue(queryRequestCaptor.getValue().scanIndexForward());
+        final Expression keyExpression = buildKeyExpression(queryRequestCaptor.getValue(), TableMetadata.primaryIndexName());
+        assertTrue(keyExpression.expression().contains("BETWEEN"));
+        assertTrue(keyExpression.expressionValues().values().containsAll(List.of(
+            AttributeValue.fromS(TestConstants.TEST_PARTITION_KEY),
+            AttributeValue.fromS(DynamoDbEventTimeSortKeyMapper.toLowerBound(since)),
+            AttributeValue.fromS(DynamoDbEventTimeSortKeyMapper.toUpperBound(until))
+        )));
+    }
+
+    @Test
+    void testGetConsentHistoryWhenNoEventsWithinEventTimeWindow() throws Exception {
+        final OffsetDateTime until = OffsetDateTime.parse(record1.eventTime()).minusNanos(1);
+        when(queryResults.stream()).thenReturn(List.of(page1).stream());
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, new EventTimeWindow(null, until)));
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(consentHistoryTable).query(queryRequestCaptor.capture());
+        final Expression keyExpression = buildKeyExpression(queryRequestCaptor.getValue(), TableMetadata.primaryIndexName());
+        assertTrue(keyExpression.expression().contains("<="));
+        assertTrue(keyExpression.expressionValues().containsValue(
+            AttributeValue.fromS(DynamoDbEventTimeSortKeyMapper.toUpperBound(until))));
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageSinceEventTime() throws Exception {
+        final OffsetDateTime since = OffsetDateTime.parse(record3.eventTime());
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        final Page<DynamoDbConsentHistory> pageWithinMinute = Page.builder(DynamoDbConsentHistory.class)
+            .items(List.of(record1, record2, record3))
+            .build();
+        when(queryResults.stream()).thenReturn(Stream.of(pageWithinMinute));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final ListPage<ConsentHistory> retrievedPage = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withEventTimeWindow(new EventTimeWindow(since, null)));
+        assertEquals(List.of(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record3)),
+            retrievedPage.resultsOnPage().get(0).getHistory());
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(index).query(queryRequestCaptor.capture());
+        assertTrue(queryRequestCaptor.getValue().scanIndexForward());
+        final Expression keyExpression = buildKeyExpression(queryRequestCaptor.getValue(),
+            DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME);
+        assertTrue(keyExpression.expression().contains(">="));
+        assertTrue(keyExpression.expressionValues().values().containsAll(List.of(
+            AttributeValue.fromS(TestConstants.TEST_SERVICE_USER_ID),
+            AttributeValue.fromS(DynamoDbEventTimeSortKeyMapper.toLowerBound(since))
+        )));
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWhenNullResults() throws Exception {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(null);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        validateServiceUserHistoryPageNotFoundResult(repository);
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWhenEmptyFirstPage() throws Exception {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        when(queryResults.stream()).thenReturn(Stream.empty());
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        validateServiceUserHistoryPageNotFoundResult(repository);
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWhenEmptyFollowingPage() throws Exception {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        final Page<DynamoDbConsentHistory> emptyPage = Page.builder(DynamoDbConsentHistory.class)
+            .items(List.of())
+            .build();
+        when(queryResults.stream()).thenReturn(Stream.of(emptyPage));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final String pageToken = DynamoDbPageTokenMapper.toPageToken(buildLastEvaluatedKey(record3));
+        final ListPage<ConsentHistory> retrievedPage = repository.getServiceUserHistory(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withPageToken(pageToken));
+        assertTrue(retrievedPage.resultsOnPage().isEmpty());
+        assertTrue(retrievedPage.nextPageToken().isEmpty());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWhenInvalidPageToken() throws Exception {
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withPageToken("invalid token")));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, "invalid token"),
+            exception.getMessage());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWhenPageTokenOfAnotherServiceUser() {
+        final String pageToken = DynamoDbPageTokenMapper.toPageToken(Map.of(
+            "id", AttributeValue.fromS(record1.id()),
+            "eventTime", AttributeValue.fromS(record1.eventTime()),
+            "serviceUserId", AttributeValue.fromS(String.format("%s|%s", TestConstants.TEST_SERVICE_ID, "OtherUserId"))
+        ));
+        validateInvalidServiceUserHistoryPageToken(pageToken);
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWhenPageTokenHasWrongAttributes() {
+        final String pageToken = DynamoDbPageTokenMapper.toPageToken(Map.of(
+            "id", AttributeValue.fromS(record1.id()),
+            "eventTime", AttributeValue.fromS(record1.eventTime())
+        ));
+        validateInvalidServiceUserHistoryPageToken(pageToken);
+    }
+
+    @Test
+    void testGetConsentHistoryPartialWhenPageTokenOfAnotherConsent() {
+        final String pageToken = DynamoDbPageTokenMapper.toPageToken(Map.of(
+            "id", AttributeValue.fromS(String.format("%s|%s|%s", TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                "OtherConsentId")),
+            "eventTime", AttributeValue.fromS(record1.eventTime())
+        ));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                pageToken, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken), exception.getMessage());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageReadsOnlyRequestedPage() throws Exception {
+        final Map<String, AttributeValue> lastEvaluatedKey = buildLastEvaluatedKey(record2);
+        final Page<DynamoDbConsentHistory> firstPage = Page.builder(DynamoDbConsentHistory.class)
+            .items(List.of(record1, record2))
+            .lastEvaluatedKey(lastEvaluatedKey)
+            .build();
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        when(queryResults.stream()).thenReturn(Stream.of(firstPage, page2));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final ListPage<ConsentHistory> retrievedPage = repository.getServiceUserHistory(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2));
+        assertEquals(1, retrievedPage.resultsOnPage().size());
+        final ConsentHistory consentHistory = retrievedPage.resultsOnPage().get(0);
+        assertEquals(TestConstants.TEST_PARTITION_KEY, consentHistory.getConsentId());
+        assertEquals(List.of(
+            DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record1),
+            DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record2)
+        ), consentHistory.getHistory());
+        assertEquals(lastEvaluatedKey, DynamoDbPageTokenMapper.toExclusiveStartKey(retrievedPage.nextPageToken().orElseThrow()));
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(index).query(queryRequestCaptor.capture());
+        assertEquals(2, queryRequestCaptor.getValue().limit());
+        assertNull(queryRequestCaptor.getValue().exclusiveStartKey());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageStartsAfterPageToken() throws Exception {
+        final Map<String, AttributeValue> exclusiveStartKey = buildLastEvaluatedKey(record1);
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        when(queryResults.stream()).thenReturn(Stream.of(page2));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final ListPage<ConsentHistory> retrievedPage = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withPageToken(DynamoDbPageTokenMapper.toPageToken(exclusiveStartKey)));
+        assertEquals(1, retrievedPage.resultsOnPage().size());
+        assertEquals(List.of(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record2)),
+            retrievedPage.resultsOnPage().get(0).getHistory());
+        assertTrue(retrievedPage.nextPageToken().isEmpty());
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(index).query(queryRequestCaptor.capture());
+        assertEquals(exclusiveStartKey, queryRequestCaptor.getValue().exclusiveStartKey());
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventReadsLargestSortKeyThenItsMinute() throws Exception {
+        final Page<DynamoDbConsentHistory> latestPage = Page.builder(DynamoDbConsentHistory.class).items(List.of(record3)).build();
+        when(queryResults.stream()).thenAnswer(invocation -> Stream.of(latestPage));
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final Optional<ConsentChangeEvent> latestConsentChangeEvent = repository.getLatestConsentChangeEvent(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+        assertEquals(Optional.of(DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record3)), latestConsentChangeEvent);
+
+        final ArgumentCaptor<QueryEnhancedRequest> queryRequestCaptor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(consentHistoryTable, times(2)).query(queryRequestCaptor.capture());
+        assertEquals(1, queryRequestCaptor.getAllValues().get(0).limit());
+        assertFalse(queryRequestCaptor.getAllValues().get(0).scanIndexForward());
+        assertNull(queryRequestCaptor.getAllValues().get(1).limit());
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventWhenUpdatedInSameMinute() throws Exception {
+        // Event times omit zero seconds, so "12:00:30Z" is stored with a sort key ordered before "12:00Z"
+        final OffsetDateTime minuteStart = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        final DynamoDbConsentHistory firstRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            null, consentV1, ConsentEventType.INSERT, minuteStart);
+        final DynamoDbConsentHistory secondRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            consentV1, consentV2, ConsentEventType.MODIFY, minuteStart.plusSeconds(30));
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(List.of(firstRecord, secondRecord));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final Optional<ConsentChangeEvent> latestConsentChangeEvent = repository.getLatestConsentChangeEvent(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+        assertEquals(Optional.of(secondRecord.eventId()), latestConsentChangeEvent.map(ConsentChangeEvent::getEventId));
+
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(null, minuteStart.plusSeconds(10));
+        assertEquals(Optional.of(firstRecord.eventId()), repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, eventTimeWindow).map(ConsentChangeEvent::getEventId));
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventWhenNoResults() throws Exception {
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(null, queryResults);
+        when(queryResults.stream()).thenReturn(Stream.empty());
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertTrue(repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED).isEmpty());
+        }
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventWhenLatestRecordOutsideEventTimeWindow() throws Exception {
+        final Page<DynamoDbConsentHistory> latestPage = Page.builder(DynamoDbConsentHistory.class).items(List.of(record3)).build();
+        when(queryResults.stream()).thenAnswer(invocation -> Stream.of(latestPage));
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(null, OffsetDateTime.parse(record2.eventTime()));
+        assertTrue(repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, eventTimeWindow).isEmpty());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPagesThroughInMemoryTable() throws Exception {
+        final List<DynamoDbConsentHistory> records = buildWideRecords(2000);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(records);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        final List<ConsentHistory> consentHistories;
+        try {
+            consentHistories = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        } finally {
+            requestMetrics.stop();
+        }
+        assertEquals(List.of(TestConstants.TEST_PARTITION_KEY, TestConstants.TEST_PARTITION_KEY_2),
+            consentHistories.stream().map(ConsentHistory::getConsentId).toList());
+        assertEquals(records.size(), consentHistories.stream().mapToInt(consentHistory -> consentHistory.getHistory().size()).sum());
+        assertTrue(requestMetrics.dynamoDbPageCount() > 1);
+        assertEquals(records.size(), requestMetrics.dynamoDbItemCount());
+        assertTrue(requestMetrics.consumedReadCapacityUnits() > 0);
+
+        int pagedEventCount = 0;
+        String pageToken = null;
+        do {
+            final ListPage<ConsentHistory> page = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withPageToken(pageToken));
+            pagedEventCount += page.resultsOnPage().stream().mapToInt(consentHistory -> consentHistory.getHistory().size()).sum();
+            pageToken = page.nextPageToken().orElse(null);
+        } while (pageToken != null);
+        assertEquals(records.size(), pagedEventCount);
+    }
+
+    @Test
+    void testGetConsentHistoryOrdersSameMinuteEventsByInstant() throws Exception {
+        // Event times omit zero seconds, so "12:00:30Z" is stored with a sort key ordered before "12:00Z"
+        final OffsetDateTime minuteStart = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        final DynamoDbConsentHistory firstRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            null, consentV1, ConsentEventType.INSERT, minuteStart);
+        final DynamoDbConsentHistory secondRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+            consentV1, consentV2, ConsentEventType.MODIFY, minuteStart.plusSeconds(30));
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(List.of(firstRecord, secondRecord));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final List<ConsentChangeEvent> consentHistory = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+        assertEquals(List.of(firstRecord.eventId(), secondRecord.eventId()),
+            consentHistory.stream().map(ConsentChangeEvent::getEventId).toList());
+    }
+
+    @Test
+    void testGetHistoryWithPagePrefetchingThroughInMemoryTable() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(buildWideRecords(2000));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+        final DynamoDbServiceUserConsentHistoryRepository prefetchingRepository = new DynamoDbServiceUserConsentHistoryRepository(
+            table, new PagePrefetchConfiguration(true, 1));
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        final List<ConsentHistory> consentHistories;
+        try {
+            consentHistories = prefetchingRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        } finally {
+            requestMetrics.stop();
+        }
+        assertEquals(repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID), consentHistories);
+        assertTrue(requestMetrics.dynamoDbPageCount() > 1);
+        assertEquals(2000, requestMetrics.dynamoDbItemCount());
+
+        assertEquals(repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID),
+            prefetchingRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID));
+    }
+
+    @Test
+    void testGetConsentHistoryReturnsPartialResultsOnceDeadlineHasPassed() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(buildWideRecords(2000));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+        final List<ConsentChangeEvent> fullConsentHistory = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+
+        final List<ConsentChangeEvent> continuedConsentHistory = new ArrayList<>();
+        int partialResultCount = 0;
+        String pageToken = null;
+        do {
+            final RequestMetrics requestMetrics = RequestMetrics.start();
+            final RequestDeadline requestDeadline = RequestDeadline.start(Duration.ZERO);
+            final ListPage<ConsentChangeEvent> consentHistoryPage;
+            try {
+                consentHistoryPage = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                    TestConstants.TEST_CONSENT_ID, pageToken, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+            } finally {
+                requestDeadline.stop();
+                requestMetrics.stop();
+            }
+            assertEquals(1, requestMetrics.dynamoDbPageCount());
+            assertEquals(consentHistoryPage.nextPageToken().isPresent(), requestMetrics.partialResult());
+            partialResultCount += requestMetrics.partialResult() ? 1 : 0;
+            continuedConsentHistory.addAll(consentHistoryPage.resultsOnPage());
+            pageToken = consentHistoryPage.nextPageToken().orElse(null);
+        } while (pageToken != null);
+
+        assertTrue(partialResultCount > 0);
+        assertEquals(fullConsentHistory, continuedConsentHistory);
+    }
+
+    @Test
+    void testGetConsentHistoryReadsFullHistoryBeforeDeadline() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(buildWideRecords(2000));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        final RequestDeadline requestDeadline = RequestDeadline.start(Duration.ofHours(1));
+        final ListPage<ConsentChangeEvent> consentHistoryPage;
+        try {
+            consentHistoryPage = repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        } finally {
+            requestDeadline.stop();
+            requestMetrics.stop();
+        }
+        assertTrue(requestMetrics.dynamoDbPageCount() > 1);
+        assertFalse(requestMetrics.partialResult());
+        assertEquals(Optional.empty(), consentHistoryPage.nextPageToken());
+        assertEquals(repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID), consentHistoryPage.resultsOnPage());
+    }
+
+    @Test
+    void testGetConsentHistoryPageWhenNotFound() {
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(
+            new InMemoryDynamoDbConsentHistoryTable());
+
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+            repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.CONSENT_NOT_FOUND_MESSAGE, TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID), exception.getMessage());
+    }
+
+    @Test
+    void testGetConsentHistoryPageWhenNullResults() {
+        when(consentHistoryTable.query(any(QueryEnhancedRequest.class))).thenReturn(null);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+    }
+
+    @Test
+    void testGetConsentHistoryPageWhenInvalidPageToken() {
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                "invalid token", EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, "invalid token"),
+            exception.getMessage());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageEndsAtBudgetThroughInMemoryTable() throws Exception {
+        final List<DynamoDbConsentHistory> records = buildWideRecords(50);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(records);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final List<String> pagedEventIds = new ArrayList<>();
+        int pageCount = 0;
+        String pageToken = null;
+        do {
+            final AtomicInteger remainingEventCount = new AtomicInteger(7);
+            final ListPage<ConsentHistory> page = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(20).withPageToken(pageToken)
+                    .withBudget(consentChangeEvent -> remainingEventCount.getAndDecrement() > 0));
+            final List<String> pageEventIds = page.resultsOnPage().stream()
+                .flatMap(consentHistory -> consentHistory.getHistory().stream())
+                .map(ConsentChangeEvent::getEventId)
+                .toList();
+            assertTrue(pageEventIds.size() <= 7);
+            pagedEventIds.addAll(pageEventIds);
+            pageCount++;
+            pageToken = page.nextPageToken().orElse(null);
+        } while (pageToken != null);
+
+        // Budgets end pages of 20 records at 7 events, continuing from the first event left out
+        assertEquals(8, pageCount);
+        assertEquals(records.stream().map(DynamoDbConsentHistory::eventId).sorted().toList(), pagedEventIds.stream().sorted().toList());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageKeepsFirstEventRejectedByBudget() throws Exception {
+        final List<DynamoDbConsentHistory> records = buildWideRecords(3);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(records);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final ListPage<ConsentHistory> page = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withBudget(consentChangeEvent -> false));
+        assertEquals(List.of(records.get(0).eventId()), page.resultsOnPage().stream()
+            .flatMap(consentHistory -> consentHistory.getHistory().stream())
+            .map(ConsentChangeEvent::getEventId)
+            .toList());
+        assertEquals(DynamoDbPageTokenMapper.toServiceUserHistoryPageToken(records.get(0)), page.nextPageToken().orElseThrow());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithinBudgetReturnsQueryPageToken() throws Exception {
+        final Map<String, AttributeValue> lastEvaluatedKey = buildLastEvaluatedKey(record2);
+        final Page<DynamoDbConsentHistory> firstPage = Page.builder(DynamoDbConsentHistory.class)
+            .items(List.of(record1, record2))
+            .lastEvaluatedKey(lastEvaluatedKey)
+            .build();
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(queryResults);
+        when(queryResults.stream()).thenReturn(Stream.of(firstPage, page2));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final ListPage<ConsentHistory> retrievedPage = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withBudget(consentChangeEvent -> true));
+        assertEquals(List.of(
+            DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record1),
+            DynamoDbConsentChangeEventMapper.toConsentChangeEvent(record2)
+        ), retrievedPage.resultsOnPage().get(0).getHistory());
+        assertEquals(lastEvaluatedKey, DynamoDbPageTokenMapper.toExclusiveStartKey(retrievedPage.nextPageToken().orElseThrow()));
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithBudgetWhenNullResults() throws Exception {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(null);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withBudget(consentChangeEvent -> true)));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND,
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID), exception.getMessage());
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithBudgetWhenEmptyFollowingPage() throws Exception {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mockServiceUserIndex();
+        when(index.query(any(QueryEnhancedRequest.class))).thenReturn(null);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final ListPage<ConsentHistory> retrievedPage = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2)
+                .withPageToken(DynamoDbPageTokenMapper.toPageToken(buildLastEvaluatedKey(record3)))
+                .withBudget(consentChangeEvent -> true));
+        assertTrue(retrievedPage.resultsOnPage().isEmpty());
+        assertTrue(retrievedPage.nextPageToken().isEmpty());
+    }
+
+    @Test
+    void testGetServiceUserHistoryWithPagePrefetchingWhenInMemoryTableThrottles() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable().withThrottleProbability(1);
+        table.putItems(buildWideRecords(1));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(() -> table,
+            new PagePrefetchConfiguration(true, 1));
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> repository.getServiceUserHistory(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertEquals(1, table.throttledQueryRequestCount());
+    }
+
+    @Test
+    void testGetConsentHistoryWhenInMemoryTableThrottles() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable().withThrottleProbability(1);
+        table.putItems(buildWideRecords(1));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+        assertEquals(1, table.throttledQueryRequestCount());
+    }
+
+    @Test
+    void testGetServiceUserChangesFollowsWatermarksThroughInMemoryTable() throws Exception {
+        final List<DynamoDbConsentHistory> records = buildWideRecords(300);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(records);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final List<String> changedEventIds = new ArrayList<>();
+        ChangeFeedWatermark after = ChangeFeedWatermark.ofEventTime("2023-12-31T23:59:59Z",
+            OffsetDateTime.parse("2023-12-31T23:59:59Z"));
+        ChangeFeedPage changeFeedPage;
+        int pageCount = 0;
+        do {
+            changeFeedPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 70);
+            changeFeedPage.changes().forEach(consentChangeEvent -> changedEventIds.add(consentChangeEvent.getEventId()));
+            after = ChangeFeedWatermark.ofPosition(changeFeedPage.nextWatermark());
+            pageCount++;
+        } while (changeFeedPage.hasMore());
+        assertEquals(records.stream().map(DynamoDbConsentHistory::eventId).toList(), changedEventIds);
+        assertEquals(5, pageCount);
+
+        final ChangeFeedPage caughtUpPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, after, 70);
+        assertEquals(new ChangeFeedPage(List.of(), after.value(), false), caughtUpPage);
+    }
+
+    @Test
+    void testGetServiceUserChangesKeepsWatermarksBoundedWhileCatchingUp() throws Exception {
+        final List<DynamoDbConsentHistory> records = buildWideRecords(3000);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(records);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final List<String> changedEventIds = new ArrayList<>();
+        ChangeFeedWatermark after = ChangeFeedWatermark.ofEventTime("2023-12-31T23:59:59Z",
+            OffsetDateTime.parse("2023-12-31T23:59:59Z"));
+        ChangeFeedPage changeFeedPage;
+        int maxWatermarkLength = 0;
+        do {
+            changeFeedPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 50);
+            changeFeedPage.changes().forEach(consentChangeEvent -> changedEventIds.add(consentChangeEvent.getEventId()));
+            maxWatermarkLength = Math.max(maxWatermarkLength, changeFeedPage.nextWatermark().length());
+            after = ChangeFeedWatermark.ofPosition(changeFeedPage.nextWatermark());
+        } while (changeFeedPage.hasMore());
+        assertEquals(records.stream().map(DynamoDbConsentHistory::eventId).toList(), changedEventIds);
+
+        // Watermarks only hold the event IDs of the minutes shortly before the last record read, not of the 50 minutes read
+        assertTrue(maxWatermarkLength < 5000, "Watermark length " + maxWatermarkLength);
+    }
+
+    @Test
+    void testGetServiceUserChangesAfterEventTime() throws Exception {
+        final List<DynamoDbConsentHistory> records = buildWideRecords(150);
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(records);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final String afterEventTime = records.get(100).eventTime();
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        final ChangeFeedPage changeFeedPage;
+        try {
+            changeFeedPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ChangeFeedWatermark.ofEventTime(afterEventTime, OffsetDateTime.parse(afterEventTime)), null);
+        } finally {
+            requestMetrics.stop();
+        }
+        // The change event at the watermark's time is included
+        assertEquals(records.subList(100, 150).stream().map(DynamoDbConsentHistory::eventId).toList(),
+            changeFeedPage.changes().stream().map(ConsentChangeEvent::getEventId).toList());
+        assertFalse(changeFeedPage.hasMore());
+
+        // The next read resumes from the start of the minute shortly before the last change event, 00:02:29
+        final DynamoDbChangeFeedPosition nextPosition = DynamoDbChangeFeedPosition.fromWatermark(
+            ChangeFeedWatermark.ofPosition(changeFeedPage.nextWatermark()), TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertEquals(OffsetDateTime.parse("2024-01-01T00:02Z"), nextPosition.since());
+        assertNull(nextPosition.startAfter());
+        assertEquals(new TreeSet<>(records.subList(120, 150).stream().map(DynamoDbConsentHistory::eventId).toList()),
+            nextPosition.deliveredEventIds().get("2024-01-01T00:02"));
+
+        // Only records from the start of the watermark's minute are read, rather than the service user's full history
+        assertEquals(150 - 60, requestMetrics.dynamoDbItemCount());
+    }
+
+    @Test
+    void testGetServiceUserChangesDeliversSameMinuteEventSortingBeforeLastRecordRead() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        final DynamoDbConsentHistory firstRecord = buildChangeRecord("2024-01-01T12:00Z");
+        table.putItem(firstRecord);
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final ChangeFeedWatermark after = ChangeFeedWatermark.ofEventTime("2024-01-01T12:00Z",
+            OffsetDateTime.parse("2024-01-01T12:00Z"));
+        final ChangeFeedPage firstPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            after, null);
+        assertEquals(List.of(firstRecord.eventId()), toEventIds(firstPage));
+
+        // 12:00:45Z is written later, with a sort key before 12:00Z
+        final DynamoDbConsentHistory laterRecord = buildChangeRecord("2024-01-01T12:00:45Z");
+        table.putItem(laterRecord);
+        final ChangeFeedPage secondPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ChangeFeedWatermark.ofPosition(firstPage.nextWatermark()), null);
+        assertEquals(List.of(laterRecord.eventId()), toEventIds(secondPage));
+
+        final ChangeFeedWatermark caughtUp = ChangeFeedWatermark.ofPosition(secondPage.nextWatermark());
+        assertEquals(new ChangeFeedPage(List.of(), caughtUp.value(), false), repository.getServiceUserChanges(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, caughtUp, null));
+    }
+
+    @Test
+    void testGetServiceUserChangesDeliversLateArrivingEventOnce() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        final DynamoDbConsentHistory firstRecord = buildChangeRecord("2024-01-01T12:00:30Z");
+        final DynamoDbConsentHistory secondRecord = buildChangeRecord("2024-01-01T12:00:40Z");
+        table.putItems(List.of(firstRecord, secondRecord));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final ChangeFeedPage firstPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ChangeFeedWatermark.ofEventTime("2024-01-01T12:00Z", OffsetDateTime.parse("2024-01-01T12:00Z")), null);
+        assertEquals(List.of(firstRecord.eventId(), secondRecord.eventId()), toEventIds(firstPage));
+
+        // 12:00:35Z reaches the GSI after 12:00:40Z was read, and 12:01:10Z is written after it
+        final DynamoDbConsentHistory lateRecord = buildChangeRecord("2024-01-01T12:00:35Z");
+        final DynamoDbConsentHistory nextMinuteRecord = buildChangeRecord("2024-01-01T12:01:10Z");
+        table.putItems(List.of(lateRecord, nextMinuteRecord));
+        final ChangeFeedPage secondPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ChangeFeedWatermark.ofPosition(firstPage.nextWatermark()), null);
+        assertEquals(List.of(lateRecord.eventId(), nextMinuteRecord.eventId()), toEventIds(secondPage));
+
+        final ChangeFeedPage thirdPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ChangeFeedWatermark.ofPosition(secondPage.nextWatermark()), null);
+        assertTrue(thirdPage.changes().isEmpty());
+        assertFalse(thirdPage.hasMore());
+    }
+
+    @Test
+    void testGetServiceUserChangesWhenReadEndsOnPageLimit() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        final DynamoDbConsentHistory firstRecord = buildChangeRecord("2024-01-01T12:00:30Z");
+        final DynamoDbConsentHistory secondRecord = buildChangeRecord("2024-01-01T12:00:40Z");
+        table.putItems(List.of(firstRecord, secondRecord));
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(table);
+
+        final ChangeFeedPage firstPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ChangeFeedWatermark.ofEventTime("2024-01-01T12:00Z", OffsetDateTime.parse("2024-01-01T12:00Z")), 2);
+        assertEquals(List.of(firstRecord.eventId(), secondRecord.eventId()), toEventIds(firstPage));
+        assertTrue(firstPage.hasMore());
+
+        final ChangeFeedPage emptyPage = repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ChangeFeedWatermark.ofPosition(firstPage.nextWatermark()), 2);
+        assertTrue(emptyPage.changes().isEmpty());
+        assertFalse(emptyPage.hasMore());
+        final DynamoDbChangeFeedPosition nextPosition = DynamoDbChangeFeedPosition.fromWatermark(
+            ChangeFeedWatermark.ofPosition(emptyPage.nextWatermark()), TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertNull(nextPosition.startAfter());
+        assertEquals(new TreeSet<>(List.of(firstRecord.eventId(), secondRecord.eventId())),
+            nextPosition.deliveredEventIds().get("2024-01-01T12:00"));
+    }
+
+    @Test
+    void testGetServiceUserChangesWhenNoChanges() throws Exception {
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(
+            new InMemoryDynamoDbConsentHistoryTable());
+        final ChangeFeedWatermark after = ChangeFeedWatermark.ofEventTime("2024-01-01T00:00:00Z",
+            OffsetDateTime.parse("2024-01-01T00:00:00Z"));
+
+        assertEquals(new ChangeFeedPage(List.of(), after.value(), false), repository.getServiceUserChanges(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, null));
+    }
+
+    @Test
+    void testGetServiceUserChangesWhenInvalidWatermark() {
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+
+        final BadRequestException exception = assertThrows(BadRequestException.class, () -> repository.getServiceUserChanges(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, ChangeFeedWatermark.ofPosition("invalid"), null));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, "invalid"), exception.getMessage());
+    }
+
+    private static DynamoDbConsentHistory buildChangeRecord(final String eventTime) {
+        return DynamoDbServiceUserConsentHistoryRecordGenerator.generate(null,
+            DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1"), ConsentEventType.INSERT,
+            OffsetDateTime.parse(eventTime));
+    }
+
+    private static List<String> toEventIds(final ChangeFeedPage changeFeedPage) {
+        return changeFeedPage.changes().stream().map(ConsentChangeEvent::getEventId).toList();
+    }
+
+    /**
+     * Build records of two consents with wide consent data, so that a few hundred records exceed a 1MB query page.
+     */
+    private static List<DynamoDbConsentHistory> buildWideRecords(final int recordCount) {
+        final Map<String, String> consentData = new HashMap<>();
+        for (int entryIndex = 0; entryIndex < 100; entryIndex++) {
+            consentData.put("key-" + entryIndex, "value-" + entryIndex);
+        }
+        final OffsetDateTime firstEventTime = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        final List<DynamoDbConsentHistory> records = new ArrayList<>();
+        for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+            records.add(DynamoDbConsentHistory.builder()
+                .id(recordIndex % 2 == 0 ? TestConstants.TEST_PARTITION_KEY : TestConstants.TEST_PARTITION_KEY_2)
+                .eventId(UUID.randomUUID().toString())
+                .eventType(ConsentEventType.MODIFY.name())
+                .eventTime(firstEventTime.plusSeconds(recordIndex).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                .serviceUserId(TestConstants.TEST_SERVICE_USER_ID)
+                .oldImage(DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1", consentData, null))
+                .newImage(DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("2", consentData, null))
+                .build());
+        }
+        return records;
+    }
+
+    private Expression buildKeyExpression(final QueryEnhancedRequest queryRequest, final String indexName) {
+        return queryRequest.queryConditional().expression(TableSchema.fromImmutableClass(DynamoDbConsentHistory.class), indexName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DynamoDbIndex<DynamoDbConsentHistory> mockServiceUserIndex() {
+        final DynamoDbIndex<DynamoDbConsentHistory> index = mock(DynamoDbIndex.class);
+        when(consentHistoryTable.index(DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME)).thenReturn(index);
+        return index;
+    }
+
+    private void validateInvalidServiceUserHistoryPageToken(final String pageToken) {
+        final DynamoDbServiceUserConsentHistoryRepository repository = new DynamoDbServiceUserConsentHistoryRepository(consentHistoryTable);
+        final BadRequestException exception = assertThrows(BadRequestException.class, () ->
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withPageToken(pageToken)));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken), exception.getMessage());
+    }
+
+    private Map<String, AttributeValue> buildLastEvaluatedKey(final DynamoDbConsentHistory lastEvaluatedRecord) {
+        return Map.of(
+            "id", AttributeValue.fromS(lastEvaluatedRecord.id()),
+            "eventTime", AttributeValue.fromS(lastEvaluatedRecord.eventTime()),
+            "serviceUserId", AttributeValue.fromS(lastEvaluatedRecord.serviceUserId())
+        );
+    }
+
+    private void validateServiceUserHistoryPageNotFoundResult(final DynamoDbServiceUserConsentHistoryRepository repository) {
+        final String expectedErrorMessage = String.format(ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND,
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2));
+        });
+        assertEquals(expectedErrorMessage, exception.getMessage());
+    }
+
     private void validateConsentHistoryNotFoundResult(final DynamoDbServiceUserConsentHistoryRepository repository) {
         final String expectedErrorMessage = String.format(ServiceUserConsentHistoryRepository.CONSENT_NOT_FOUND_MESSAGE,
             TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
@@ -0,0 +1,331 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.ServiceUserHistoryFanOutConfiguration;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class FanOutServiceUserConsentHistoryRepositoryTest {
+    private static final int CONSENT_COUNT_THRESHOLD = 3;
+    private static final int MAX_CONCURRENCY = 2;
+    private static final Duration INDEX_TIME_TO_LIVE = Duration.ofMinutes(15);
+    private static final ServiceUserHistoryFanOutConfiguration FAN_OUT_CONFIGURATION = new ServiceUserHistoryFanOutConfiguration(true,
+        CONSENT_COUNT_THRESHOLD, MAX_CONCURRENCY, 100, INDEX_TIME_TO_LIVE);
+    private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2025-01-01T00:00:00Z"));
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now.get();
+        }
+    };
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanoTime.get();
+        }
+    };
+
+    private final AtomicLong consentQueryNanos = new AtomicLong();
+    private final AtomicInteger inFlightConsentQueries = new AtomicInteger();
+    private final AtomicInteger maxInFlightConsentQueries = new AtomicInteger();
+    private final Set<String> expiredConsentIds = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<RuntimeException> consentQueryFailure = new AtomicReference<>();
+
+    private InMemoryDynamoDbConsentHistoryTable table;
+    private ServiceUserConsentHistoryRepository consentHistoryRepository;
+    private FanOutServiceUserConsentHistoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        table = new InMemoryDynamoDbConsentHistoryTable();
+        consentHistoryRepository = new DynamoDbServiceUserConsentHistoryRepository(table) {
+            @Override
+            public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                    final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+                maxInFlightConsentQueries.accumulateAndGet(inFlightConsentQueries.incrementAndGet(), Math::max);
+                nanoTime.addAndGet(consentQueryNanos.get());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                    if (consentQueryFailure.get() != null) {
+                        throw consentQueryFailure.get();
+                    }
+                    if (expiredConsentIds.contains(consentId)) {
+                        throw new ResourceNotFoundException(String.format(CONSENT_NOT_FOUND_MESSAGE, serviceId, userId, consentId));
+                    }
+                    return super.getConsentHistory(serviceId, userId, consentId, eventTimeWindow);
+                } catch (final InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(interruptedException);
+                } finally {
+                    inFlightConsentQueries.decrementAndGet();
+                }
+            }
+        };
+        repository = new FanOutServiceUserConsentHistoryRepository(consentHistoryRepository, FAN_OUT_CONFIGURATION, clock,
+            ticker);
+    }
+
+    @Test
+    void testGetServiceUserHistoryBelowThresholdReadsSerially() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD - 1, 4, FIRST_EVENT_TIME));
+
+        final List<ConsentHistory> firstRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final List<ConsentHistory> secondRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID);
+
+        assertEquals(CONSENT_COUNT_THRESHOLD - 1, secondRead.size());
+        assertEquals(firstRead, secondRead);
+        assertEquals(2, table.queryRequestCount());
+        assertEquals(0, repository.indexedServiceUserCount());
+        assertEquals(0, maxInFlightConsentQueries.get());
+    }
+
+    @Test
+    void testGetServiceUserHistoryFansOutOnceConsentIdsAreKnown() throws Exception {
+        final int consentCount = 6;
+        table.putItems(buildRecords(consentCount, 4, FIRST_EVENT_TIME));
+
+        final List<ConsentHistory> serialRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID);
+        assertEquals(1, table.queryRequestCount());
+        assertEquals(1, repository.indexedServiceUserCount());
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        final List<ConsentHistory> fanOutRead;
+        try {
+            fanOutRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(serialRead, fanOutRead);
+        // One query discovering consents created since the serial read, then one query per consent
+        assertEquals(1 + 1 + consentCount, table.queryRequestCount());
+        assertEquals(1 + consentCount, requestMetrics.dynamoDbPageCount());
+        assertEquals(consentCount * 4, requestMetrics.dynamoDbItemCount());
+        assertTrue(requestMetrics.repositoryNanos() > 0);
+        assertTrue(maxInFlightConsentQueries.get() <= MAX_CONCURRENCY);
+    }
+
+    @Test
+    void testGetServiceUserHistoryBoundsConcurrentConsentQueries() throws Exception {
+        table.putItems(buildRecords(20, 1, FIRST_EVENT_TIME));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+
+        assertEquals(20, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID).size());
+        assertEquals(MAX_CONCURRENCY, maxInFlightConsentQueries.get());
+    }
+
+    @Test
+    void testGetServiceUserHistoryDiscoversNewConsents() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD, 2, FIRST_EVENT_TIME));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+
+        // A new consent whose first change event is recorded shortly after it occurred, before the previous read
+        now.set(now.get().plusSeconds(60));
+        final List<DynamoDbConsentHistory> newConsentRecords = buildRecords(CONSENT_COUNT_THRESHOLD + 1, 1,
+            now.get().minusSeconds(120).atOffset(ZoneOffset.UTC));
+        table.putItem(newConsentRecords.get(CONSENT_COUNT_THRESHOLD));
+
+        final List<ConsentHistory> fanOutRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID);
+        assertEquals(CONSENT_COUNT_THRESHOLD + 1, fanOutRead.size());
+        assertEquals(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID),
+            fanOutRead);
+    }
+
+    @Test
+    void testGetServiceUserHistoryReadsSeriallyOnceIndexExpires() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD, 2, FIRST_EVENT_TIME));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final long queryRequestCount = table.queryRequestCount();
+
+        now.set(now.get().plus(INDEX_TIME_TO_LIVE));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertEquals(queryRequestCount + 1, table.queryRequestCount());
+        assertEquals(1, repository.indexedServiceUserCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryReadsSeriallyOnceFanningOutIsSlower() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD, 2, FIRST_EVENT_TIME));
+        final List<ConsentHistory> serialRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID);
+
+        consentQueryNanos.set(1);
+        for (int fanOutRead = 0; fanOutRead < FanOutServiceUserConsentHistoryRepository.SLOWER_FAN_OUT_READ_LIMIT; fanOutRead++) {
+            final long queryRequestCount = table.queryRequestCount();
+            assertEquals(serialRead, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+            assertEquals(queryRequestCount + 1 + CONSENT_COUNT_THRESHOLD, table.queryRequestCount());
+        }
+        final long queryRequestCount = table.queryRequestCount();
+
+        assertEquals(serialRead, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertEquals(queryRequestCount + 1, table.queryRequestCount());
+        assertEquals(1, repository.indexedServiceUserCount());
+
+        // Fanning out is retried once the consent IDs are learned again
+        consentQueryNanos.set(0);
+        now.set(now.get().plus(INDEX_TIME_TO_LIVE));
+        maxInFlightConsentQueries.set(0);
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertEquals(0, maxInFlightConsentQueries.get());
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertTrue(maxInFlightConsentQueries.get() > 0);
+    }
+
+    @Test
+    void testGetServiceUserHistoryOmitsExpiredConsents() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD + 1, 2, FIRST_EVENT_TIME));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+
+        expiredConsentIds.add(toConsentId(0));
+        final List<ConsentHistory> fanOutRead = repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID);
+        assertEquals(List.of(toPartitionKey(1), toPartitionKey(2), toPartitionKey(3)),
+            fanOutRead.stream().map(ConsentHistory::getConsentId).toList());
+
+        // Too few consents remain to fan out
+        expiredConsentIds.add(toConsentId(1));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        assertEquals(0, repository.indexedServiceUserCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryWhenAllConsentsExpired() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD, 2, FIRST_EVENT_TIME));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+
+        for (int consentIndex = 0; consentIndex < CONSENT_COUNT_THRESHOLD; consentIndex++) {
+            expiredConsentIds.add(toConsentId(consentIndex));
+        }
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertEquals(String.format(ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND, TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID), exception.getMessage());
+        assertEquals(0, repository.indexedServiceUserCount());
+    }
+
+    @Test
+    void testGetServiceUserHistoryWhenConsentQueryFails() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD, 2, FIRST_EVENT_TIME));
+        repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+
+        final IllegalStateException failure = new IllegalStateException("Throttled");
+        consentQueryFailure.set(failure);
+        assertEquals(failure, assertThrows(IllegalStateException.class, () ->
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID)));
+    }
+
+    @Test
+    void testGetServiceUserHistoryWhenNotFound() {
+        assertThrows(ResourceNotFoundException.class, () ->
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID));
+        assertEquals(0, repository.indexedServiceUserCount());
+    }
+
+    @Test
+    void testOtherReadsPassThrough() throws Exception {
+        table.putItems(buildRecords(CONSENT_COUNT_THRESHOLD, 2, FIRST_EVENT_TIME));
+
+        assertEquals(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            toConsentId(0)), repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, toConsentId(0)));
+        assertEquals(consentHistoryRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                toConsentId(0), null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL),
+            repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, toConsentId(0), null,
+                EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+        assertEquals(consentHistoryRepository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                toConsentId(0), EventTimeWindow.UNBOUNDED),
+            repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, toConsentId(0),
+                EventTimeWindow.UNBOUNDED));
+        assertEquals(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2)),
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2)));
+        assertEquals(consentHistoryRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withBudget(consentChangeEvent -> false)),
+            repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(2).withBudget(consentChangeEvent -> false)));
+        final ChangeFeedWatermark after = ChangeFeedWatermark.ofEventTime(FIRST_EVENT_TIME.toString(), FIRST_EVENT_TIME);
+        assertEquals(consentHistoryRepository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 2),
+            repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, after, 2));
+        assertEquals(0, repository.indexedServiceUserCount());
+    }
+
+    /**
+     * Build records of the given number of consents, with events assigned to consents round-robin one second apart.
+     */
+    private static List<DynamoDbConsentHistory> buildRecords(final int consentCount, final int eventsPerConsent,
+            final OffsetDateTime firstEventTime) {
+        final List<DynamoDbConsentHistory> records = new ArrayList<>();
+        for (int eventIndex = 0; eventIndex < consentCount * eventsPerConsent; eventIndex++) {
+            records.add(DynamoDbConsentHistory.builder()
+                .id(toPartitionKey(eventIndex % consentCount))
+                .eventId(UUID.randomUUID().toString())
+                .eventType(ConsentEventType.MODIFY.name())
+                .eventTime(firstEventTime.plusSeconds(eventIndex).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                .serviceUserId(TestConstants.TEST_SERVICE_USER_ID)
+                .newImage(DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1"))
+                .build());
+        }
+        return records;
+    }
+
+    private static String toConsentId(final int consentIndex) {
+        return "consent-" + consentIndex;
+    }
+
+    private static String toPartitionKey(final int consentIndex) {
+        return TestConstants.TEST_SERVICE_USER_ID + "|" + toConsentId(consentIndex);
+    }
+}
@@ -1,14 +1,20 @@
 package com.consentframework.consenthistory.api.infrastructure.repositories;
 
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.shared.api.domain.exceptions.BadRequestException;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * In-memory implementation of ServiceUserConsentHistoryRepository used for testing.
@@ -26,18 +32,22 @@ public class InMemoryServiceUserConsentHistoryRepository implements ServiceUserC
     }
 
     /**
-     * Retrieve history for a given service user consent.
+     * Retrieve history for a given service user consent within an event time window.
      *
      * @param serviceId service identifier
      * @param userId user identifier
      * @param consentId consent ID, specific to the service-user pair
+     * @param eventTimeWindow range of event times to retrieve
      */
     @Override
-    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId)
-            throws ResourceNotFoundException {
+    public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+            final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
         final String partitionKey = getPartitionKey(serviceId, userId, consentId);
-        final List<ConsentChangeEvent> consentHistory = consentHistoryStore.get(partitionKey);
-        if (consentHistory == null || consentHistory.isEmpty()) {
+        final List<ConsentChangeEvent> consentHistory = consentHistoryStore.getOrDefault(partitionKey, List.of())
+            .stream()
+            .filter(consentChangeEvent -> eventTimeWindow.contains(consentChangeEvent.getEventTime()))
+            .toList();
+        if (consentHistory.isEmpty()) {
             final String errorMessage = String.format(ServiceUserConsentHistoryRepository.CONSENT_NOT_FOUND_MESSAGE,
                 serviceId, userId, consentId);
             throw new ResourceNotFoundException(errorMessage);
@@ -46,23 +56,55 @@ public class InMemoryServiceUserConsentHistoryRepository implements ServiceUserC
     }
 
     /**
-     * Retrieve history for a given service user.
+     * Retrieve history for a given service user, in full or a single page of it.
+     *
+     * A full history query returns the stored consent histories.  Other queries return the change events within the
+     * event time window, where page tokens are the offset of the next consent change event to return.  Budgets are ignored.
      *
      * @param serviceId service identifier
      * @param userId user identifier
+     * @param query limit, page token, event time window, and view of the read
      */
     @Override
-    public List<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId) throws ResourceNotFoundException {
-        final String serviceUserId = getServiceUserId(serviceId, userId);
-        final List<ConsentHistory> consentHistories = consentHistoryByServiceUserStore.get(serviceUserId);
+    public ListPage<ConsentHistory> getServiceUserHistory(final String serviceId, final String userId,
+            final ServiceUserHistoryQuery query) throws BadRequestException, ResourceNotFoundException {
+        final List<ConsentHistory> storedConsentHistories = consentHistoryByServiceUserStore.getOrDefault(
+            getServiceUserId(serviceId, userId), List.of());
+        if (!query.isPaged() && query.eventTimeWindow().isUnbounded()) {
+            if (storedConsentHistories.isEmpty()) {
+                throw serviceUserNotFound(serviceId, userId);
+            }
+            return query.view().projectPage(new ListPage<>(storedConsentHistories, Optional.empty()));
+        }
 
-        if (consentHistories == null || consentHistories.isEmpty()) {
-            final String errorMessage = String.format(ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND,
-                serviceId, userId);
-            throw new ResourceNotFoundException(errorMessage);
+        final int startIndex = parsePageToken(query.pageToken());
+        final List<ConsentChangeEvent> consentChangeEvents = storedConsentHistories
+            .stream()
+            .flatMap(consentHistory -> consentHistory.getHistory().stream())
+            .filter(consentChangeEvent -> query.eventTimeWindow().contains(consentChangeEvent.getEventTime()))
+            .toList();
+        if (consentChangeEvents.isEmpty()) {
+            throw serviceUserNotFound(serviceId, userId);
+        }
+
+        final int endIndex = query.limit() == null
+            ? consentChangeEvents.size()
+            : Math.min(startIndex + query.limit(), consentChangeEvents.size());
+        final Map<String, List<ConsentChangeEvent>> consentHistoryByConsentId = new LinkedHashMap<>();
+        for (int index = startIndex; index < endIndex; index++) {
+            final ConsentChangeEvent consentChangeEvent = consentChangeEvents.get(index);
+            consentHistoryByConsentId.computeIfAbsent(consentChangeEvent.getConsentId(), consentId -> new ArrayList<>())
+                .add(consentChangeEvent);
         }
 
-        return consentHistories;
+        final List<ConsentHistory> consentHistories = consentHistoryByConsentId.entrySet()
+            .stream()
+            .map(entry -> new ConsentHistory().consentId(entry.getKey()).history(entry.getValue()))
+            .toList();
+        final Optional<String> nextPageToken = endIndex < consentChangeEvents.size()
+            ? Optional.of(String.valueOf(endIndex))
+            : Optional.empty();
+        return query.view().projectPage(new ListPage<>(consentHistories, nextPageToken));
     }
 
     /**
@@ -104,6 +146,22 @@ public class InMemoryServiceUserConsentHistoryRepository implements ServiceUserC
         consentHistoryByServiceUserStore.put(serviceUserId, consentHistories);
     }
 
+    private static ResourceNotFoundException serviceUserNotFound(final String serviceId, final String userId) {
+        return new ResourceNotFoundException(String.format(ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND,
+            serviceId, userId));
+    }
+
+    private static int parsePageToken(final String pageToken) throws BadRequestException {
+        if (pageToken == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(pageToken);
+        } catch (final NumberFormatException numberFormatException) {
+            throw new BadRequestException(String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, pageToken));
+        }
+    }
+
     /**
      * Generate a partition key for the given service ID, user ID, and consent ID.
      *
@@ -0,0 +1,259 @@
+package com.consentframework.consenthistory.api.infrastructure.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.caches.BloomFilterServiceUserExistenceFilter;
+import com.consentframework.consenthistory.api.infrastructure.caches.NegativeResultCacheConfiguration;
+import com.consentframework.consenthistory.api.infrastructure.caches.ServiceUserExistenceFilter;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+class NegativeCachingServiceUserConsentHistoryRepositoryTest {
+    private static final NegativeResultCacheConfiguration CACHE_CONFIGURATION = new NegativeResultCacheConfiguration(
+        true, Duration.ofSeconds(5), 100, Optional.empty());
+    private static final String CONSENT_NOT_FOUND_MESSAGE = String.format(ServiceUserConsentHistoryRepository.CONSENT_NOT_FOUND_MESSAGE,
+        TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+    private static final String SERVICE_USER_NOT_FOUND_MESSAGE = String.format(
+        ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND, TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanoTime.get();
+        }
+    };
+
+    private InMemoryServiceUserConsentHistoryRepository consentHistoryRepository;
+    private NegativeCachingServiceUserConsentHistoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        consentHistoryRepository = spy(new InMemoryServiceUserConsentHistoryRepository());
+        repository = new NegativeCachingServiceUserConsentHistoryRepository(consentHistoryRepository, CACHE_CONFIGURATION,
+            Optional.empty(), ticker);
+    }
+
+    @Test
+    void testGetConsentHistoryCachesNotFound() throws Exception {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+            assertEquals(CONSENT_NOT_FOUND_MESSAGE, exception.getMessage());
+        }
+        verify(consentHistoryRepository, times(1)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+        assertEquals(1, repository.stats().hitCount());
+    }
+
+    @Test
+    void testGetConsentHistoryNotFoundExpires() throws Exception {
+        assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, ConsentChangeEventGenerator.generate());
+        assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+
+        nanoTime.addAndGet(CACHE_CONFIGURATION.timeToLive().toNanos());
+        assertEquals(1, repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID).size());
+    }
+
+    @Test
+    void testGetConsentHistoryWithinWindowDoesNotCacheNotFound() throws Exception {
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(OffsetDateTime.now(), null);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, eventTimeWindow));
+        }
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, eventTimeWindow);
+    }
+
+    @Test
+    void testGetConsentHistoryPageCachesNotFound() throws Exception {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                    null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL));
+            assertEquals(CONSENT_NOT_FOUND_MESSAGE, exception.getMessage());
+        }
+        verify(consentHistoryRepository, times(1)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+        assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+        assertEquals(2, repository.stats().hitCount());
+    }
+
+    @Test
+    void testGetConsentHistoryPageWithinWindowDoesNotCacheNotFound() throws Exception {
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(OffsetDateTime.now(), null);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, null, eventTimeWindow, ConsentHistoryView.FULL));
+        }
+        verify(consentHistoryRepository, times(2)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, eventTimeWindow);
+    }
+
+    @Test
+    void testGetConsentHistoryPageWhenFound() throws Exception {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent);
+
+        assertEquals(List.of(consentChangeEvent), repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL)
+            .resultsOnPage());
+    }
+
+    @Test
+    void testServiceUserNotFoundAnswersConsentLookups() throws Exception {
+        assertThrows(ResourceNotFoundException.class, () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID));
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+            repository.getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+        assertEquals(CONSENT_NOT_FOUND_MESSAGE, exception.getMessage());
+        verify(consentHistoryRepository, times(0)).getConsentHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED);
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageCachesFirstPageNotFound() throws Exception {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                    ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10)));
+            assertEquals(SERVICE_USER_NOT_FOUND_MESSAGE, exception.getMessage());
+        }
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10));
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithinWindowDoesNotCacheNotFound() throws Exception {
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(null, OffsetDateTime.now());
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThrows(ResourceNotFoundException.class, () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+                TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withEventTimeWindow(eventTimeWindow)));
+        }
+        verify(consentHistoryRepository, times(2)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withEventTimeWindow(eventTimeWindow));
+    }
+
+    @Test
+    void testGetServiceUserHistoryPageWithBudgetCachesFirstPageNotFound() throws Exception {
+        final ConsentChangeEventBudget budget = consentChangeEvent -> true;
+        final EventTimeWindow eventTimeWindow = new EventTimeWindow(null, OffsetDateTime.now());
+        assertThrows(ResourceNotFoundException.class, () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withEventTimeWindow(eventTimeWindow).withBudget(budget)));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                    ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withBudget(budget)));
+            assertEquals(SERVICE_USER_NOT_FOUND_MESSAGE, exception.getMessage());
+        }
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withEventTimeWindow(eventTimeWindow).withBudget(budget));
+        verify(consentHistoryRepository, times(1)).getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10).withBudget(budget));
+    }
+
+    @Test
+    void testGetServiceUserHistoryWhenFound() throws Exception {
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, ConsentChangeEventGenerator.generate());
+        assertEquals(1, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID).size());
+        assertEquals(1, repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10)).resultsOnPage().size());
+    }
+
+    @Test
+    void testGetServiceUserChangesWhenKnownNotFound() throws Exception {
+        assertThrows(ResourceNotFoundException.class, () -> repository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID));
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent);
+
+        final ChangeFeedWatermark after = ChangeFeedWatermark.ofEventTime("2000-01-01T00:00Z", OffsetDateTime.parse("2000-01-01T00:00Z"));
+        assertEquals(List.of(consentChangeEvent), repository.getServiceUserChanges(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, after, null).changes());
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventWhenKnownNotFound() throws Exception {
+        assertThrows(ResourceNotFoundException.class, () -> repository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+
+        assertTrue(repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED).isEmpty());
+        verify(consentHistoryRepository, never()).getLatestConsentChangeEvent(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetLatestConsentChangeEventWhenFound() throws Exception {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent);
+
+        assertEquals(Optional.of(consentChangeEvent), repository.getLatestConsentChangeEvent(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, EventTimeWindow.UNBOUNDED));
+    }
+
+    @Test
+    void testExistenceFilterAnswersWithoutQuerying() throws Exception {
+        final ServiceUserConsentHistoryRepository mockRepository = spy(new InMemoryServiceUserConsentHistoryRepository());
+        final ServiceUserExistenceFilter existenceFilter = BloomFilterServiceUserExistenceFilter.create(100, 0.001);
+        final NegativeCachingServiceUserConsentHistoryRepository filteredRepository =
+            new NegativeCachingServiceUserConsentHistoryRepository(mockRepository, CACHE_CONFIGURATION, Optional.of(existenceFilter));
+
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+            filteredRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(10)));
+        assertEquals(SERVICE_USER_NOT_FOUND_MESSAGE, exception.getMessage());
+        assertThrows(ResourceNotFoundException.class, () -> filteredRepository.getConsentHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID));
+        verifyNoInteractions(mockRepository);
+    }
+
+    @Test
+    void testExistenceFilterPassesThroughKnownServiceUsers() throws Exception {
+        final BloomFilterServiceUserExistenceFilter existenceFilter = BloomFilterServiceUserExistenceFilter.create(100, 0.001);
+        existenceFilter.add(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final NegativeCachingServiceUserConsentHistoryRepository filteredRepository =
+            new NegativeCachingServiceUserConsentHistoryRepository(consentHistoryRepository, CACHE_CONFIGURATION,
+                Optional.of(existenceFilter));
+
+        assertThrows(ResourceNotFoundException.class, () -> filteredRepository.getServiceUserHistory(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID));
+        verify(consentHistoryRepository).getServiceUserHistory(any(), any(), any());
+    }
+}
@@ -0,0 +1,196 @@
+package com.consentframework.consenthistory.api.infrastructure.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiProxyResponseParameterName;
+import com.consentframework.consenthistory.api.usecases.routing.ApiRouteHandler;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.domain.requesthandlers.ApiRequestHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ApiHttpExchangeHandlerTest {
+    private static final String TEST_PATH = "/v1/consent-history/services/TestService/users/TestUser/consents";
+    private static final String TEST_BODY = "{\"data\":[]}";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private HttpServer httpServer;
+
+    @AfterEach
+    void tearDown() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    @Test
+    void testHandleConvertsExchangeToApiRequest() throws Exception {
+        final AtomicReference<ApiRequest> receivedRequest = new AtomicReference<>();
+        final ApiHttpExchangeHandler exchangeHandler = startServer(request -> {
+            receivedRequest.set(request);
+            return successResponse(TEST_BODY);
+        }, 10);
+
+        final URI requestUri = uri(TEST_PATH + "?limit=5&view=summary&pageToken=a%2Bb");
+        final HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(requestUri)
+            .header("Accept-Encoding", "gzip")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"key\":\"value\"}"))
+            .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), response.statusCode());
+        assertEquals(TEST_BODY, response.body());
+        assertEquals(ApiHttpExchangeHandler.JSON_CONTENT_TYPE,
+            response.headers().firstValue(ApiHttpExchangeHandler.CONTENT_TYPE_HEADER_NAME).orElseThrow());
+        final ApiRequest request = receivedRequest.get();
+        assertEquals("POST", request.httpMethod());
+        assertNull(request.resource());
+        assertEquals(TEST_PATH, request.path());
+        assertEquals(Map.of("limit", "5", "view", "summary", "pageToken", "a+b"), request.queryStringParameters());
+        assertEquals("gzip", request.headers().get("Accept-encoding"));
+        assertEquals("{\"key\":\"value\"}", request.body());
+        // The response is sent before the handler releases its concurrency permit
+        awaitInFlightRequestCount(exchangeHandler, 0);
+    }
+
+    @Test
+    void testHandleWritesResponseHeadersAndBase64EncodedBody() throws Exception {
+        startServer(request -> Map.of(
+            ApiResponseParameterName.STATUS_CODE.getValue(), HttpStatusCode.SUCCESS.getValue(),
+            ApiResponseParameterName.BODY.getValue(), Base64.getEncoder().encodeToString(TEST_BODY.getBytes(StandardCharsets.UTF_8)),
+            ApiProxyResponseParameterName.IS_BASE64_ENCODED.getValue(), true,
+            ApiProxyResponseParameterName.HEADERS.getValue(), Map.of("ETag", "\"tag\"", "Content-Type", "text/plain")), 10);
+
+        final HttpResponse<String> response = get(TEST_PATH);
+        assertEquals(TEST_BODY, response.body());
+        assertEquals("\"tag\"", response.headers().firstValue("ETag").orElseThrow());
+        assertEquals("text/plain", response.headers().firstValue("Content-Type").orElseThrow());
+    }
+
+    @Test
+    void testHandleResponseWithoutBody() throws Exception {
+        startServer(request -> Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), 304), 10);
+
+        final HttpResponse<String> response = get(TEST_PATH);
+        assertEquals(304, response.statusCode());
+        assertEquals("", response.body());
+    }
+
+    @Test
+    void testHandleWhenRequestHandlerThrows() throws Exception {
+        startServer(request -> {
+            throw new IllegalStateException("Test exception");
+        }, 10);
+
+        final HttpResponse<String> response = get(TEST_PATH);
+        assertEquals(HttpStatusCode.INTERNAL_SERVER_ERROR.getValue(), response.statusCode());
+        assertEquals(String.format(ApiRequestHandler.ERROR_RESPONSE_BODY, ApiHttpExchangeHandler.INTERNAL_ERROR_MESSAGE), response.body());
+    }
+
+    @Test
+    void testHandleRejectsRequestsBeyondMaxConcurrency() throws Exception {
+        final CountDownLatch requestStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRequest = new CountDownLatch(1);
+        final ApiHttpExchangeHandler exchangeHandler = startServer(request -> {
+            requestStarted.countDown();
+            try {
+                releaseRequest.await();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return successResponse(TEST_BODY);
+        }, 1);
+
+        final CompletableFuture<HttpResponse<String>> blockedResponse = httpClient.sendAsync(HttpRequest.newBuilder(uri(TEST_PATH)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertTrue(requestStarted.await(10, TimeUnit.SECONDS));
+        assertEquals(1, exchangeHandler.getInFlightRequestCount());
+
+        final HttpResponse<String> rejectedResponse = get(TEST_PATH);
+        assertEquals(ApiHttpExchangeHandler.SERVICE_UNAVAILABLE_STATUS_CODE, rejectedResponse.statusCode());
+        assertEquals(String.format(ApiRequestHandler.ERROR_RESPONSE_BODY, String.format(ApiHttpExchangeHandler.OVERLOADED_MESSAGE, 1)),
+            rejectedResponse.body());
+        assertEquals(ApiHttpExchangeHandler.RETRY_AFTER_SECONDS,
+            rejectedResponse.headers().firstValue(ApiHttpExchangeHandler.RETRY_AFTER_HEADER_NAME).orElseThrow());
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), get(ApiHttpExchangeHandler.HEALTH_PATH).statusCode());
+
+        releaseRequest.countDown();
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), blockedResponse.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), get(TEST_PATH).statusCode());
+    }
+
+    @Test
+    void testHealthAndDraining() throws Exception {
+        final ApiHttpExchangeHandler exchangeHandler = startServer(request -> successResponse(TEST_BODY), 10);
+
+        final HttpResponse<String> healthyResponse = get(ApiHttpExchangeHandler.HEALTH_PATH);
+        assertEquals(HttpStatusCode.SUCCESS.getValue(), healthyResponse.statusCode());
+        assertEquals(ApiHttpExchangeHandler.HEALTHY_RESPONSE_BODY, healthyResponse.body());
+
+        exchangeHandler.startDraining();
+        final HttpResponse<String> drainingResponse = get(ApiHttpExchangeHandler.HEALTH_PATH);
+        assertEquals(ApiHttpExchangeHandler.SERVICE_UNAVAILABLE_STATUS_CODE, drainingResponse.statusCode());
+        assertEquals(ApiHttpExchangeHandler.DRAINING_RESPONSE_BODY, drainingResponse.body());
+        final HttpResponse<String> rejectedResponse = get(TEST_PATH);
+        assertEquals(ApiHttpExchangeHandler.SERVICE_UNAVAILABLE_STATUS_CODE, rejectedResponse.statusCode());
+        assertEquals(String.format(ApiRequestHandler.ERROR_RESPONSE_BODY, ApiHttpExchangeHandler.DRAINING_MESSAGE),
+            rejectedResponse.body());
+    }
+
+    @Test
+    void testParseQueryString() {
+        assertNull(ApiHttpExchangeHandler.parseQueryString(null));
+        assertNull(ApiHttpExchangeHandler.parseQueryString(""));
+        assertEquals(Map.of("a", "2", "b", "", "c d", "e=f"), ApiHttpExchangeHandler.parseQueryString("a=1&a=2&&b&c+d=e%3Df"));
+    }
+
+    private static void awaitInFlightRequestCount(final ApiHttpExchangeHandler exchangeHandler, final int expectedCount)
+            throws InterruptedException {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (exchangeHandler.getInFlightRequestCount() != expectedCount && System.nanoTime() < deadlineNanos) {
+            Thread.sleep(1);
+        }
+        assertEquals(expectedCount, exchangeHandler.getInFlightRequestCount());
+    }
+
+    private ApiHttpExchangeHandler startServer(final ApiRouteHandler requestHandler, final int maxConcurrency) throws IOException {
+        final ApiHttpExchangeHandler exchangeHandler = new ApiHttpExchangeHandler(requestHandler, maxConcurrency);
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchangeHandler);
+        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        httpServer.start();
+        return exchangeHandler;
+    }
+
+    private HttpResponse<String> get(final String path) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(final String pathAndQuery) {
+        return URI.create(String.format("http://localhost:%d%s", httpServer.getAddress().getPort(), pathAndQuery));
+    }
+
+    private static Map<String, Object> successResponse(final String body) {
+        return Map.of(ApiResponseParameterName.STATUS_CODE.getValue(), HttpStatusCode.SUCCESS.getValue(),
+            ApiResponseParameterName.BODY.getValue(), body);
+    }
+}
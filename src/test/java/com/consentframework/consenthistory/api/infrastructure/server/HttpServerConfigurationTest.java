@@ -0,0 +1,39 @@
+package com.consentframework.consenthistory.api.infrastructure.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+class HttpServerConfigurationTest {
+    @Test
+    void testFromEnvironmentWithDefaults() {
+        assertEquals(new HttpServerConfiguration(HttpServerConfiguration.DEFAULT_PORT, HttpServerConfiguration.DEFAULT_MAX_CONCURRENCY,
+            HttpServerConfiguration.DEFAULT_SHUTDOWN_GRACE_PERIOD), HttpServerConfiguration.fromEnvironment(Map.of()));
+    }
+
+    @Test
+    void testFromEnvironment() {
+        assertEquals(new HttpServerConfiguration(9090, 50, Duration.ofSeconds(30)), HttpServerConfiguration.fromEnvironment(Map.of(
+            HttpServerConfiguration.PORT_ENVIRONMENT_VARIABLE, "9090",
+            HttpServerConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "50",
+            HttpServerConfiguration.SHUTDOWN_GRACE_PERIOD_SECONDS_ENVIRONMENT_VARIABLE, "30")));
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidPort() {
+        final IllegalArgumentException thrownException = assertThrows(IllegalArgumentException.class,
+            () -> HttpServerConfiguration.fromEnvironment(Map.of(HttpServerConfiguration.PORT_ENVIRONMENT_VARIABLE, "65536")));
+        assertEquals(String.format(HttpServerConfiguration.INVALID_PORT_MESSAGE, HttpServerConfiguration.PORT_ENVIRONMENT_VARIABLE, 65536),
+            thrownException.getMessage());
+    }
+
+    @Test
+    void testFromEnvironmentWithInvalidMaxConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> HttpServerConfiguration.fromEnvironment(Map.of(
+            HttpServerConfiguration.MAX_CONCURRENCY_ENVIRONMENT_VARIABLE, "0")));
+    }
+}
@@ -45,6 +45,10 @@ public final class TestConstants {
         "/v1/consent-history/services/%s/users/%s/consents",
         TEST_SERVICE_ID, TEST_USER_ID
     );
+    public static final String TEST_SERVICE_USER_CHANGES_PATH = String.format(
+        "/v1/consent-history/services/%s/users/%s/changes",
+        TEST_SERVICE_ID, TEST_USER_ID
+    );
     public static final Map<String, String> TEST_CONSENT_HISTORY_PATH_PARAMS = Map.of(
         ApiPathParameterName.SERVICE_ID.getValue(), TestConstants.TEST_SERVICE_ID,
         ApiPathParameterName.USER_ID.getValue(), TestConstants.TEST_USER_ID,
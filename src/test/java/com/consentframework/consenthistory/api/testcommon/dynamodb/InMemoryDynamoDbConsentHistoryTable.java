@@ -0,0 +1,506 @@
+package com.consentframework.consenthistory.api.testcommon.dynamodb;
+
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClientExtension;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory stand-in for the consent history DynamoDB table and its ConsentHistoryByServiceUser GSI.
+ *
+ * Supports queries by partition key with optional eventTime sort key conditions on the table and the GSI, in either
+ * direction, with limits, exclusive start keys, and attribute projections.  Each page of results is read as DynamoDB
+ * reads a Query response: it holds at most {@link #MAX_PAGE_BYTES} of items and ends with a last evaluated key if more
+ * items may follow, and it reports the read capacity it consumed.
+ *
+ * Each page read can be delayed by a simulated latency and fail with a ProvisionedThroughputExceededException, as after
+ * the SDK's retries are exhausted, so that repositories can be load tested against realistic paging and latency
+ * without a DynamoDB table.  Randomness is seeded, so a given seed and sequence of reads produce the same delays and
+ * failures.
+ */
+public class InMemoryDynamoDbConsentHistoryTable implements DynamoDbTable<DynamoDbConsentHistory> {
+    /**
+     * Maximum size of the items read into a single page of query results.
+     */
+    public static final int MAX_PAGE_BYTES = 1024 * 1024;
+
+    static final String THROTTLED_MESSAGE = "The level of configured provisioned throughput for the table was exceeded";
+    static final String INVALID_START_KEY_MESSAGE = "The provided starting key is invalid";
+
+    private static final TableSchema<DynamoDbConsentHistory> TABLE_SCHEMA = TableSchema.fromImmutableClass(DynamoDbConsentHistory.class);
+    private static final String ID_ATTRIBUTE = "id";
+    private static final String EVENT_TIME_ATTRIBUTE = "eventTime";
+    private static final String SERVICE_USER_ID_ATTRIBUTE = "serviceUserId";
+    private static final List<String> TABLE_KEY_ATTRIBUTES = List.of(ID_ATTRIBUTE, EVENT_TIME_ATTRIBUTE);
+    private static final List<String> INDEX_KEY_ATTRIBUTES = List.of(ID_ATTRIBUTE, EVENT_TIME_ATTRIBUTE, SERVICE_USER_ID_ATTRIBUTE);
+    private static final int READ_CAPACITY_UNIT_BYTES = 4096;
+    private static final int HTTP_BAD_REQUEST = 400;
+
+    // Matches the key condition expressions of the enhanced client's QueryConditionals, capturing their value placeholders
+    private static final Pattern KEY_CONDITION_PATTERN = Pattern.compile("#\\S+ = (:\\S+)(?: AND (?:#\\S+ (=|<|<=|>|>=) (:\\S+)"
+        + "|#\\S+ BETWEEN (:\\S+) AND (:\\S+)|begins_with \\( #\\S+, (:\\S+) \\)))?");
+
+    private final Map<String, NavigableMap<SortPosition, StoredItem>> itemsById = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<SortPosition, StoredItem>> itemsByServiceUserId = new ConcurrentHashMap<>();
+    private final DynamoDbIndex<DynamoDbConsentHistory> serviceUserIndex = new ServiceUserIndex();
+    private final AtomicLong queryRequestCount = new AtomicLong();
+    private final AtomicLong throttledQueryRequestCount = new AtomicLong();
+    private final Random random;
+
+    private volatile int maxPageBytes = MAX_PAGE_BYTES;
+    private volatile SimulatedLatency pageLatency = SimulatedLatency.NONE;
+    private volatile double throttleProbability;
+
+    /**
+     * Construct an empty table which reads pages without delay or failure.
+     */
+    public InMemoryDynamoDbConsentHistoryTable() {
+        this(0L);
+    }
+
+    /**
+     * Construct an empty table.
+     *
+     * @param seed seed of the randomness of simulated latencies and throttling
+     */
+    public InMemoryDynamoDbConsentHistoryTable(final long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Delay every page read by a latency sampled from the distribution.
+     *
+     * @param pageLatency latency distribution of page reads
+     * @return this table
+     */
+    public InMemoryDynamoDbConsentHistoryTable withPageLatency(final SimulatedLatency pageLatency) {
+        this.pageLatency = pageLatency;
+        return this;
+    }
+
+    /**
+     * Fail page reads with a ProvisionedThroughputExceededException at the given rate.
+     *
+     * @param throttleProbability probability in [0, 1] that a page read is throttled
+     * @return this table
+     */
+    public InMemoryDynamoDbConsentHistoryTable withThrottleProbability(final double throttleProbability) {
+        if (throttleProbability < 0 || throttleProbability > 1) {
+            throw new IllegalArgumentException("Throttle probability must be between 0 and 1");
+        }
+        this.throttleProbability = throttleProbability;
+        return this;
+    }
+
+    /**
+     * Limit the size of the items read into a page, eg. to page through small test data sets.
+     *
+     * @param maxPageBytes maximum page size in bytes, at least one item is read into every page
+     * @return this table
+     */
+    public InMemoryDynamoDbConsentHistoryTable withMaxPageBytes(final int maxPageBytes) {
+        if (maxPageBytes <= 0) {
+            throw new IllegalArgumentException("Maximum page size must be positive");
+        }
+        this.maxPageBytes = maxPageBytes;
+        return this;
+    }
+
+    /**
+     * Store an item, replacing any item with the same id and eventTime.
+     *
+     * @param item consent history record
+     */
+    @Override
+    public synchronized void putItem(final DynamoDbConsentHistory item) {
+        final Map<String, AttributeValue> attributes = TABLE_SCHEMA.itemToMap(item, true);
+        final StoredItem storedItem = new StoredItem(item, attributes, itemSizeBytes(attributes));
+        final SortPosition position = new SortPosition(item.eventTime(), item.id());
+
+        final StoredItem replacedItem = itemsById.computeIfAbsent(item.id(), id -> new ConcurrentSkipListMap<>())
+            .put(position, storedItem);
+        if (replacedItem != null && replacedItem.item().serviceUserId() != null) {
+            itemsByServiceUserId.get(replacedItem.item().serviceUserId()).remove(position);
+        }
+        if (item.serviceUserId() != null) {
+            itemsByServiceUserId.computeIfAbsent(item.serviceUserId(), serviceUserId -> new ConcurrentSkipListMap<>())
+                .put(position, storedItem);
+        }
+    }
+
+    /**
+     * Store items, replacing any items with the same id and eventTime.
+     *
+     * @param items consent history records
+     */
+    public void putItems(final Collection<DynamoDbConsentHistory> items) {
+        items.forEach(this::putItem);
+    }
+
+    /**
+     * Query the table's id partition key and eventTime sort key.
+     *
+     * @param queryRequest query request
+     * @return pages of query results, each read when iterated to
+     */
+    @Override
+    public PageIterable<DynamoDbConsentHistory> query(final QueryEnhancedRequest queryRequest) {
+        return PageIterable.create(query(queryRequest, TableMetadata.primaryIndexName(), itemsById, TABLE_KEY_ATTRIBUTES));
+    }
+
+    /**
+     * Return the ConsentHistoryByServiceUser GSI.
+     *
+     * @param indexName index name
+     * @return the index
+     * @throws IllegalArgumentException if the table has no index of the given name
+     */
+    @Override
+    public DynamoDbIndex<DynamoDbConsentHistory> index(final String indexName) {
+        if (!DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME.equals(indexName)) {
+            throw new IllegalArgumentException(String.format("Table %s has no index %s", tableName(), indexName));
+        }
+        return serviceUserIndex;
+    }
+
+    @Override
+    public DynamoDbEnhancedClientExtension mapperExtension() {
+        return null;
+    }
+
+    @Override
+    public TableSchema<DynamoDbConsentHistory> tableSchema() {
+        return TABLE_SCHEMA;
+    }
+
+    @Override
+    public String tableName() {
+        return DynamoDbConsentHistory.TABLE_NAME;
+    }
+
+    @Override
+    public Key keyFrom(final DynamoDbConsentHistory item) {
+        return Key.builder().partitionValue(item.id()).sortValue(item.eventTime()).build();
+    }
+
+    /**
+     * Return the number of pages requested from the table and its index, including throttled requests.
+     *
+     * @return query request count
+     */
+    public long queryRequestCount() {
+        return queryRequestCount.get();
+    }
+
+    /**
+     * Return the number of page requests which were throttled.
+     *
+     * @return throttled query request count
+     */
+    public long throttledQueryRequestCount() {
+        return throttledQueryRequestCount.get();
+    }
+
+    private SdkIterable<Page<DynamoDbConsentHistory>> query(final QueryEnhancedRequest queryRequest, final String indexName,
+            final Map<String, NavigableMap<SortPosition, StoredItem>> partitions, final List<String> keyAttributes) {
+        if (queryRequest.filterExpression() != null) {
+            throw new UnsupportedOperationException("Filter expressions are not supported");
+        }
+        final NavigableMap<SortPosition, StoredItem> matchingItems = selectItems(
+            queryRequest.queryConditional().expression(TABLE_SCHEMA, indexName), partitions);
+        final NavigableMap<SortPosition, StoredItem> orderedItems = Boolean.FALSE.equals(queryRequest.scanIndexForward())
+            ? matchingItems.descendingMap()
+            : matchingItems;
+        return () -> new PageIterator(orderedItems, queryRequest, keyAttributes);
+    }
+
+    private static NavigableMap<SortPosition, StoredItem> selectItems(final Expression keyCondition,
+            final Map<String, NavigableMap<SortPosition, StoredItem>> partitions) {
+        final Matcher matcher = KEY_CONDITION_PATTERN.matcher(keyCondition.expression());
+        if (!matcher.matches()) {
+            throw new UnsupportedOperationException("Unsupported key condition " + keyCondition.expression());
+        }
+        final Map<String, AttributeValue> values = keyCondition.expressionValues();
+        final NavigableMap<SortPosition, StoredItem> partition = partitions.getOrDefault(values.get(matcher.group(1)).s(),
+            Collections.emptyNavigableMap());
+
+        if (matcher.group(2) != null) {
+            final String sortValue = values.get(matcher.group(3)).s();
+            return switch (matcher.group(2)) {
+                case "=" -> partition.subMap(SortPosition.first(sortValue), true, SortPosition.after(sortValue), false);
+                case "<" -> partition.headMap(SortPosition.first(sortValue), false);
+                case "<=" -> partition.headMap(SortPosition.after(sortValue), false);
+                case ">" -> partition.tailMap(SortPosition.after(sortValue), true);
+                default -> partition.tailMap(SortPosition.first(sortValue), true);
+            };
+        }
+        if (matcher.group(4) != null) {
+            return partition.subMap(SortPosition.first(values.get(matcher.group(4)).s()), true,
+                SortPosition.after(values.get(matcher.group(5)).s()), false);
+        }
+        if (matcher.group(6) != null) {
+            final String prefix = values.get(matcher.group(6)).s();
+            return partition.subMap(SortPosition.first(prefix), true, SortPosition.first(prefix + Character.MAX_VALUE), false);
+        }
+        return partition;
+    }
+
+    private Page<DynamoDbConsentHistory> readPage(final NavigableMap<SortPosition, StoredItem> orderedItems,
+            final QueryEnhancedRequest queryRequest, final List<String> keyAttributes,
+            final Map<String, AttributeValue> exclusiveStartKey) {
+        queryRequestCount.incrementAndGet();
+        simulateLatency();
+        if (throttleProbability > 0 && random.nextDouble() < throttleProbability) {
+            throttledQueryRequestCount.incrementAndGet();
+            throw ProvisionedThroughputExceededException.builder()
+                .message(THROTTLED_MESSAGE)
+                .statusCode(HTTP_BAD_REQUEST)
+                .build();
+        }
+
+        final Map<SortPosition, StoredItem> remainingItems = exclusiveStartKey == null
+            ? orderedItems
+            : orderedItems.tailMap(SortPosition.fromKey(exclusiveStartKey), false);
+        final Integer limit = queryRequest.limit();
+        final List<DynamoDbConsentHistory> pageItems = new ArrayList<>();
+        int pageBytes = 0;
+        StoredItem lastItem = null;
+        boolean truncated = false;
+        for (final StoredItem storedItem : remainingItems.values()) {
+            if (!pageItems.isEmpty() && pageBytes + storedItem.sizeBytes() > maxPageBytes) {
+                truncated = true;
+                break;
+            }
+            pageItems.add(project(storedItem, queryRequest.attributesToProject()));
+            pageBytes += storedItem.sizeBytes();
+            lastItem = storedItem;
+            // As DynamoDB does, return a last evaluated key on reaching the limit even if no items follow
+            if (limit != null && pageItems.size() >= limit) {
+                truncated = true;
+                break;
+            }
+        }
+
+        final Page.Builder<DynamoDbConsentHistory> pageBuilder = Page.builder(DynamoDbConsentHistory.class)
+            .items(pageItems)
+            .count(pageItems.size())
+            .scannedCount(pageItems.size())
+            .consumedCapacity(toConsumedCapacity(queryRequest, pageBytes));
+        if (truncated) {
+            pageBuilder.lastEvaluatedKey(toKey(lastItem, keyAttributes));
+        }
+        return pageBuilder.build();
+    }
+
+    private void simulateLatency() {
+        final long latencyNanos = pageLatency.sampleNanos(random);
+        if (latencyNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw AbortedException.builder().message("Thread was interrupted").cause(interruptedException).build();
+        }
+    }
+
+    private static DynamoDbConsentHistory project(final StoredItem storedItem, final List<String> attributesToProject) {
+        if (attributesToProject == null || attributesToProject.isEmpty()) {
+            return storedItem.item();
+        }
+        final Map<String, AttributeValue> projectedAttributes = new LinkedHashMap<>();
+        for (final String attributeName : attributesToProject) {
+            final AttributeValue attributeValue = storedItem.attributes().get(attributeName);
+            if (attributeValue != null) {
+                projectedAttributes.put(attributeName, attributeValue);
+            }
+        }
+        return TABLE_SCHEMA.mapToItem(projectedAttributes);
+    }
+
+    private static Map<String, AttributeValue> toKey(final StoredItem storedItem, final List<String> keyAttributes) {
+        final Map<String, AttributeValue> key = new HashMap<>();
+        keyAttributes.forEach(attributeName -> key.put(attributeName, storedItem.attributes().get(attributeName)));
+        return key;
+    }
+
+    private static ConsumedCapacity toConsumedCapacity(final QueryEnhancedRequest queryRequest, final int pageBytes) {
+        if (queryRequest.returnConsumedCapacity() == null || queryRequest.returnConsumedCapacity() == ReturnConsumedCapacity.NONE) {
+            return null;
+        }
+        // Queries consume one read capacity unit per 4KB read, halved for eventually consistent reads
+        final int readUnits = Math.max(1, (pageBytes + READ_CAPACITY_UNIT_BYTES - 1) / READ_CAPACITY_UNIT_BYTES);
+        return ConsumedCapacity.builder()
+            .tableName(DynamoDbConsentHistory.TABLE_NAME)
+            .capacityUnits(Boolean.TRUE.equals(queryRequest.consistentRead()) ? readUnits : readUnits / 2.0)
+            .build();
+    }
+
+    /**
+     * Estimate an item's size as DynamoDB measures it, the lengths of its attribute names plus the sizes of their values.
+     *
+     * @param attributes item attributes
+     * @return item size in bytes
+     */
+    static int itemSizeBytes(final Map<String, AttributeValue> attributes) {
+        int sizeBytes = 0;
+        for (final Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            sizeBytes += utf8Length(attribute.getKey()) + attributeValueSizeBytes(attribute.getValue());
+        }
+        return sizeBytes;
+    }
+
+    private static int attributeValueSizeBytes(final AttributeValue value) {
+        return switch (value.type()) {
+            case S -> utf8Length(value.s());
+            case N -> value.n().length();
+            case B -> value.b().asByteArray().length;
+            case SS -> value.ss().stream().mapToInt(InMemoryDynamoDbConsentHistoryTable::utf8Length).sum();
+            case NS -> value.ns().stream().mapToInt(String::length).sum();
+            case BS -> value.bs().stream().mapToInt(bytes -> bytes.asByteArray().length).sum();
+            // Maps and lists take 3 bytes plus 1 byte per element in addition to their elements
+            case M -> 3 + value.m().entrySet().stream()
+                .mapToInt(entry -> utf8Length(entry.getKey()) + attributeValueSizeBytes(entry.getValue()) + 1)
+                .sum();
+            case L -> 3 + value.l().stream().mapToInt(element -> attributeValueSizeBytes(element) + 1).sum();
+            default -> 1;
+        };
+    }
+
+    private static int utf8Length(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private record StoredItem(DynamoDbConsentHistory item, Map<String, AttributeValue> attributes, int sizeBytes) {}
+
+    /**
+     * Position of an item within a partition, ordered by eventTime sort key and then by id, which orders GSI items with
+     * equal event times.  Positions with a null id precede all items with their event time, bounding sort key ranges.
+     */
+    private record SortPosition(String eventTime, String id) implements Comparable<SortPosition> {
+        private static final Comparator<SortPosition> ORDER = Comparator.comparing(SortPosition::eventTime)
+            .thenComparing(SortPosition::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        static SortPosition first(final String eventTime) {
+            return new SortPosition(eventTime, null);
+        }
+
+        static SortPosition after(final String eventTime) {
+            // No string sorts between a string and itself followed by the lowest character
+            return new SortPosition(eventTime + Character.MIN_VALUE, null);
+        }
+
+        static SortPosition fromKey(final Map<String, AttributeValue> key) {
+            final AttributeValue eventTime = key.get(EVENT_TIME_ATTRIBUTE);
+            final AttributeValue id = key.get(ID_ATTRIBUTE);
+            if (eventTime == null || eventTime.s() == null || id == null || id.s() == null) {
+                throw DynamoDbException.builder().message(INVALID_START_KEY_MESSAGE).statusCode(HTTP_BAD_REQUEST).build();
+            }
+            return new SortPosition(eventTime.s(), id.s());
+        }
+
+        @Override
+        public int compareTo(final SortPosition other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private final class PageIterator implements Iterator<Page<DynamoDbConsentHistory>> {
+        private final NavigableMap<SortPosition, StoredItem> orderedItems;
+        private final QueryEnhancedRequest queryRequest;
+        private final List<String> keyAttributes;
+        private Map<String, AttributeValue> exclusiveStartKey;
+        private boolean hasNextPage = true;
+
+        private PageIterator(final NavigableMap<SortPosition, StoredItem> orderedItems, final QueryEnhancedRequest queryRequest,
+                final List<String> keyAttributes) {
+            this.orderedItems = orderedItems;
+            this.queryRequest = queryRequest;
+            this.keyAttributes = keyAttributes;
+            this.exclusiveStartKey = queryRequest.exclusiveStartKey();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNextPage;
+        }
+
+        @Override
+        public Page<DynamoDbConsentHistory> next() {
+            if (!hasNextPage) {
+                throw new NoSuchElementException();
+            }
+            final Page<DynamoDbConsentHistory> page = readPage(orderedItems, queryRequest, keyAttributes, exclusiveStartKey);
+            exclusiveStartKey = page.lastEvaluatedKey();
+            hasNextPage = exclusiveStartKey != null;
+            return page;
+        }
+    }
+
+    private final class ServiceUserIndex implements DynamoDbIndex<DynamoDbConsentHistory> {
+        @Override
+        public SdkIterable<Page<DynamoDbConsentHistory>> query(final QueryEnhancedRequest queryRequest) {
+            return InMemoryDynamoDbConsentHistoryTable.this.query(queryRequest, indexName(), itemsByServiceUserId, INDEX_KEY_ATTRIBUTES);
+        }
+
+        @Override
+        public DynamoDbEnhancedClientExtension mapperExtension() {
+            return null;
+        }
+
+        @Override
+        public TableSchema<DynamoDbConsentHistory> tableSchema() {
+            return TABLE_SCHEMA;
+        }
+
+        @Override
+        public String tableName() {
+            return DynamoDbConsentHistory.TABLE_NAME;
+        }
+
+        @Override
+        public String indexName() {
+            return DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME;
+        }
+
+        @Override
+        public Key keyFrom(final DynamoDbConsentHistory item) {
+            return Key.builder().partitionValue(item.serviceUserId()).sortValue(item.eventTime()).build();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.consentframework.consenthistory.api.testcommon.dynamodb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class InMemoryDynamoDbConsentHistoryTableTest {
+    private static final OffsetDateTime FIRST_EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final String GSI_NAME = DynamoDbConsentHistory.CONSENT_HISTORY_BY_SERVICE_USER_GSI_NAME;
+
+    @Test
+    void testQueryReadsPartitionInSortKeyOrder() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItems(List.of(buildRecord(TestConstants.TEST_PARTITION_KEY, 2), buildRecord(TestConstants.TEST_PARTITION_KEY_2, 1),
+            buildRecord(TestConstants.TEST_PARTITION_KEY, 0)));
+
+        assertEquals(List.of(eventTime(0), eventTime(2)), queryTableEventTimes(table, keyEqualTo(TestConstants.TEST_PARTITION_KEY)));
+        assertEquals(List.of(eventTime(2)), getEventTimes(table.query(QueryEnhancedRequest.builder()
+            .queryConditional(keyEqualTo(TestConstants.TEST_PARTITION_KEY))
+            .scanIndexForward(false)
+            .limit(1)
+            .build()).stream().findFirst().orElseThrow().items()));
+        assertTrue(queryTableEventTimes(table, keyEqualTo("UnknownId")).isEmpty());
+    }
+
+    @Test
+    void testQueryWithSortKeyConditions() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        for (int eventIndex = 0; eventIndex < 5; eventIndex++) {
+            table.putItem(buildRecord(TestConstants.TEST_PARTITION_KEY, eventIndex));
+        }
+
+        assertEquals(List.of(eventTime(1), eventTime(2), eventTime(3)),
+            queryTableEventTimes(table, QueryConditional.sortBetween(sortKey(1), sortKey(3))));
+        assertEquals(List.of(eventTime(3), eventTime(4)),
+            queryTableEventTimes(table, QueryConditional.sortGreaterThanOrEqualTo(sortKey(3))));
+        assertEquals(List.of(eventTime(4)), queryTableEventTimes(table, QueryConditional.sortGreaterThan(sortKey(3))));
+        assertEquals(List.of(eventTime(0), eventTime(1)), queryTableEventTimes(table, QueryConditional.sortLessThanOrEqualTo(sortKey(1))));
+        assertEquals(List.of(eventTime(0)), queryTableEventTimes(table, QueryConditional.sortLessThan(sortKey(1))));
+        assertEquals(List.of(eventTime(2)), queryTableEventTimes(table, QueryConditional.keyEqualTo(sortKey(2))));
+        assertEquals(5, queryTableEventTimes(table, QueryConditional.sortBeginsWith(
+            Key.builder().partitionValue(TestConstants.TEST_PARTITION_KEY).sortValue("2024-01-01").build())).size());
+    }
+
+    @Test
+    void testPutItemReplacesItemWithSameKey() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItem(buildRecord(TestConstants.TEST_PARTITION_KEY, 0));
+        final DynamoDbConsentHistory replacement = DynamoDbConsentHistory.builder()
+            .id(TestConstants.TEST_PARTITION_KEY)
+            .eventId("replacement")
+            .eventType(ConsentEventType.MODIFY.name())
+            .eventTime(eventTime(0))
+            .serviceUserId("OtherServiceId|OtherUserId")
+            .build();
+        table.putItem(replacement);
+
+        assertEquals(List.of(replacement), table.query(request(keyEqualTo(TestConstants.TEST_PARTITION_KEY))).items().stream().toList());
+        assertTrue(queryIndex(table, request(keyEqualTo(TestConstants.TEST_SERVICE_USER_ID))).get(0).items().isEmpty());
+    }
+
+    @Test
+    void testQueryIndexPagesAtMaxPageBytes() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        final Map<String, String> consentData = new HashMap<>();
+        for (int entryIndex = 0; entryIndex < 100; entryIndex++) {
+            consentData.put("key-" + entryIndex, "value-" + entryIndex);
+        }
+        final int eventCount = 1000;
+        for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+            table.putItem(buildRecord(eventIndex % 2 == 0 ? TestConstants.TEST_PARTITION_KEY : TestConstants.TEST_PARTITION_KEY_2,
+                eventIndex, consentData));
+        }
+
+        final List<Page<DynamoDbConsentHistory>> pages = queryIndex(table, QueryEnhancedRequest.builder()
+            .queryConditional(keyEqualTo(TestConstants.TEST_SERVICE_USER_ID))
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .build());
+        assertTrue(pages.size() > 1);
+        final List<String> eventTimes = new ArrayList<>();
+        for (final Page<DynamoDbConsentHistory> page : pages) {
+            assertTrue(page.items().stream().mapToInt(InMemoryDynamoDbConsentHistoryTableTest::itemSizeBytes).sum()
+                <= InMemoryDynamoDbConsentHistoryTable.MAX_PAGE_BYTES);
+            assertTrue(page.consumedCapacity().capacityUnits() > 0);
+            eventTimes.addAll(getEventTimes(page.items()));
+        }
+        assertEquals(eventCount, eventTimes.size());
+        assertEquals(eventTimes.stream().sorted().toList(), eventTimes);
+
+        final Map<String, AttributeValue> lastEvaluatedKey = pages.get(0).lastEvaluatedKey();
+        assertEquals(Set.of("id", "eventTime", "serviceUserId"), lastEvaluatedKey.keySet());
+        assertNull(pages.get(pages.size() - 1).lastEvaluatedKey());
+        assertEquals(pages.size(), table.queryRequestCount());
+    }
+
+    @Test
+    void testQueryWithLimitAndExclusiveStartKey() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        for (int eventIndex = 0; eventIndex < 4; eventIndex++) {
+            table.putItem(buildRecord(TestConstants.TEST_PARTITION_KEY, eventIndex));
+        }
+
+        final List<Page<DynamoDbConsentHistory>> pages = queryIndex(table, QueryEnhancedRequest.builder()
+            .queryConditional(keyEqualTo(TestConstants.TEST_SERVICE_USER_ID))
+            .limit(2)
+            .build());
+        // As DynamoDB does, the page reaching the limit returns a last evaluated key even though no items follow
+        assertEquals(List.of(2, 2, 0), pages.stream().map(page -> page.items().size()).toList());
+        assertNotNull(pages.get(1).lastEvaluatedKey());
+
+        final Page<DynamoDbConsentHistory> secondPage = queryIndex(table, QueryEnhancedRequest.builder()
+            .queryConditional(keyEqualTo(TestConstants.TEST_SERVICE_USER_ID))
+            .limit(2)
+            .exclusiveStartKey(pages.get(0).lastEvaluatedKey())
+            .build()).get(0);
+        assertEquals(List.of(eventTime(2), eventTime(3)), getEventTimes(secondPage.items()));
+    }
+
+    @Test
+    void testQueryWithInvalidExclusiveStartKey() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        final QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+            .queryConditional(keyEqualTo(TestConstants.TEST_SERVICE_USER_ID))
+            .exclusiveStartKey(Map.of("id", AttributeValue.fromS(TestConstants.TEST_PARTITION_KEY)))
+            .build();
+
+        final DynamoDbException exception = assertThrows(DynamoDbException.class, () -> queryIndex(table, queryRequest));
+        assertEquals(InMemoryDynamoDbConsentHistoryTable.INVALID_START_KEY_MESSAGE, exception.getMessage());
+    }
+
+    @Test
+    void testQueryProjectsAttributes() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItem(buildRecord(TestConstants.TEST_PARTITION_KEY, 0));
+
+        final DynamoDbConsentHistory projectedRecord = table.query(QueryEnhancedRequest.builder()
+            .queryConditional(keyEqualTo(TestConstants.TEST_PARTITION_KEY))
+            .attributesToProject("id", "eventTime")
+            .build()).items().iterator().next();
+        assertEquals(TestConstants.TEST_PARTITION_KEY, projectedRecord.id());
+        assertEquals(eventTime(0), projectedRecord.eventTime());
+        assertNull(projectedRecord.eventId());
+        assertNull(projectedRecord.newImage());
+    }
+
+    @Test
+    void testQueryThrottled() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable().withThrottleProbability(1);
+        table.putItem(buildRecord(TestConstants.TEST_PARTITION_KEY, 0));
+
+        assertThrows(ProvisionedThroughputExceededException.class,
+            () -> queryTableEventTimes(table, keyEqualTo(TestConstants.TEST_PARTITION_KEY)));
+        assertEquals(1, table.throttledQueryRequestCount());
+        assertThrows(IllegalArgumentException.class, () -> table.withThrottleProbability(1.5));
+    }
+
+    @Test
+    void testQueryWithPageLatency() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable()
+            .withPageLatency(SimulatedLatency.constant(Duration.ofMillis(20)))
+            .withMaxPageBytes(1);
+        table.putItems(List.of(buildRecord(TestConstants.TEST_PARTITION_KEY, 0), buildRecord(TestConstants.TEST_PARTITION_KEY, 1)));
+
+        final long startNanos = System.nanoTime();
+        assertEquals(2, queryTableEventTimes(table, keyEqualTo(TestConstants.TEST_PARTITION_KEY)).size());
+        assertTrue(System.nanoTime() - startNanos >= Duration.ofMillis(40).toNanos());
+        assertEquals(2, table.queryRequestCount());
+    }
+
+    @Test
+    void testIndexOtherThanServiceUserIndex() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        assertThrows(IllegalArgumentException.class, () -> table.index("UnknownIndex"));
+        assertEquals(GSI_NAME, table.index(GSI_NAME).indexName());
+    }
+
+    private static List<String> queryTableEventTimes(final InMemoryDynamoDbConsentHistoryTable table,
+            final QueryConditional queryConditional) {
+        return getEventTimes(table.query(request(queryConditional)).items().stream().toList());
+    }
+
+    private static List<Page<DynamoDbConsentHistory>> queryIndex(final InMemoryDynamoDbConsentHistoryTable table,
+            final QueryEnhancedRequest queryRequest) {
+        return table.index(GSI_NAME).query(queryRequest).stream().toList();
+    }
+
+    private static QueryEnhancedRequest request(final QueryConditional queryConditional) {
+        return QueryEnhancedRequest.builder().queryConditional(queryConditional).build();
+    }
+
+    private static QueryConditional keyEqualTo(final String partitionValue) {
+        return QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionValue).build());
+    }
+
+    private static Key sortKey(final int eventIndex) {
+        return Key.builder().partitionValue(TestConstants.TEST_PARTITION_KEY).sortValue(eventTime(eventIndex)).build();
+    }
+
+    private static List<String> getEventTimes(final Iterable<DynamoDbConsentHistory> records) {
+        final List<String> eventTimes = new ArrayList<>();
+        records.forEach(record -> eventTimes.add(record.eventTime()));
+        return eventTimes;
+    }
+
+    private static int itemSizeBytes(final DynamoDbConsentHistory record) {
+        return InMemoryDynamoDbConsentHistoryTable.itemSizeBytes(
+            TableSchema.fromImmutableClass(DynamoDbConsentHistory.class).itemToMap(record, true));
+    }
+
+    private static String eventTime(final int eventIndex) {
+        return FIRST_EVENT_TIME.plusSeconds(eventIndex).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    private static DynamoDbConsentHistory buildRecord(final String consentId, final int eventIndex) {
+        return buildRecord(consentId, eventIndex, TestConstants.TEST_CONSENT_DATA);
+    }
+
+    private static DynamoDbConsentHistory buildRecord(final String consentId, final int eventIndex,
+            final Map<String, String> consentData) {
+        return DynamoDbConsentHistory.builder()
+            .id(consentId)
+            .eventId("event-" + eventIndex)
+            .eventType(ConsentEventType.MODIFY.name())
+            .eventTime(eventTime(eventIndex))
+            .serviceUserId(TestConstants.TEST_SERVICE_USER_ID)
+            .oldImage(DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1", consentData, null))
+            .newImage(DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("2", consentData, null))
+            .build();
+    }
+}
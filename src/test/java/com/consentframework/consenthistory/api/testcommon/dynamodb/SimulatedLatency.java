@@ -0,0 +1,63 @@
+package com.consentframework.consenthistory.api.testcommon.dynamodb;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Distribution of the latency of simulated DynamoDB requests.
+ */
+@FunctionalInterface
+public interface SimulatedLatency {
+    /**
+     * Requests complete without delay.
+     */
+    SimulatedLatency NONE = random -> 0L;
+
+    /**
+     * Sample the latency of a request.
+     *
+     * @param random source of randomness
+     * @return latency in nanoseconds
+     */
+    long sampleNanos(Random random);
+
+    /**
+     * Every request takes the same time.
+     *
+     * @param latency request latency
+     * @return latency distribution
+     */
+    static SimulatedLatency constant(final Duration latency) {
+        final long latencyNanos = latency.toNanos();
+        return random -> latencyNanos;
+    }
+
+    /**
+     * Request latencies are spread uniformly between a minimum and maximum.
+     *
+     * @param min minimum latency, inclusive
+     * @param max maximum latency, exclusive
+     * @return latency distribution
+     */
+    static SimulatedLatency uniform(final Duration min, final Duration max) {
+        final long minNanos = min.toNanos();
+        final long maxNanos = max.toNanos();
+        if (maxNanos <= minNanos) {
+            throw new IllegalArgumentException("Maximum latency must be greater than minimum latency");
+        }
+        return random -> random.nextLong(minNanos, maxNanos);
+    }
+
+    /**
+     * Request latencies are log-normally distributed, the long tailed shape of DynamoDB request latencies, where most
+     * requests complete close to the median and a few take several times longer.
+     *
+     * @param median median latency
+     * @param sigma standard deviation of the latency's natural logarithm, eg. 0.5 puts p99 at about 3.2 times the median
+     * @return latency distribution
+     */
+    static SimulatedLatency logNormal(final Duration median, final double sigma) {
+        final long medianNanos = median.toNanos();
+        return random -> Math.round(medianNanos * Math.exp(sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.consentframework.consenthistory.api.testcommon.dynamodb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+class SimulatedLatencyTest {
+    private final Random random = new Random(0L);
+
+    @Test
+    void testNoneAndConstant() {
+        assertEquals(0L, SimulatedLatency.NONE.sampleNanos(random));
+        assertEquals(Duration.ofMillis(5).toNanos(), SimulatedLatency.constant(Duration.ofMillis(5)).sampleNanos(random));
+    }
+
+    @Test
+    void testUniform() {
+        final SimulatedLatency latency = SimulatedLatency.uniform(Duration.ofMillis(1), Duration.ofMillis(2));
+        assertTrue(LongStream.generate(() -> latency.sampleNanos(random)).limit(1000)
+            .allMatch(nanos -> nanos >= Duration.ofMillis(1).toNanos() && nanos < Duration.ofMillis(2).toNanos()));
+        assertThrows(IllegalArgumentException.class, () -> SimulatedLatency.uniform(Duration.ofMillis(2), Duration.ofMillis(1)));
+    }
+
+    @Test
+    void testLogNormalCentersOnMedian() {
+        final SimulatedLatency latency = SimulatedLatency.logNormal(Duration.ofMillis(10), 0.5);
+        final long[] samples = LongStream.generate(() -> latency.sampleNanos(random)).limit(10_001).sorted().toArray();
+        final long median = samples[samples.length / 2];
+        assertTrue(Math.abs(median - Duration.ofMillis(10).toNanos()) < Duration.ofMillis(1).toNanos());
+        assertTrue(Arrays.stream(samples).allMatch(nanos -> nanos > 0));
+    }
+}
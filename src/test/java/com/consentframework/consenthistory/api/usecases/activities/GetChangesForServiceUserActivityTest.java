@@ -0,0 +1,57 @@
+package com.consentframework.consenthistory.api.usecases.activities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedWatermark;
+import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class GetChangesForServiceUserActivityTest {
+    private static final OffsetDateTime EVENT_TIME = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 500_000_000, ZoneOffset.UTC);
+    private static final ChangeFeedWatermark AFTER = ChangeFeedWatermark.ofEventTime(EVENT_TIME.toString(), EVENT_TIME);
+
+    private InMemoryServiceUserConsentHistoryRepository consentHistoryRepository;
+    private GetChangesForServiceUserActivity activity;
+
+    @BeforeEach
+    void setUp() {
+        consentHistoryRepository = new InMemoryServiceUserConsentHistoryRepository();
+        activity = new GetChangesForServiceUserActivity(consentHistoryRepository);
+    }
+
+    @Test
+    void testHandleRequestWhenNoHistory() throws Exception {
+        assertEquals(new ChangeFeedPage(List.of(), AFTER.value(), false),
+            activity.handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, AFTER, null));
+    }
+
+    @Test
+    void testHandleRequestReturnsChangesAtOrAfterWatermark() throws Exception {
+        final ConsentChangeEvent earlierChangeEvent = ConsentChangeEventGenerator.generate().eventTime(EVENT_TIME.minusSeconds(1));
+        final ConsentChangeEvent watermarkChangeEvent = ConsentChangeEventGenerator.generate().eventTime(EVENT_TIME);
+        final ConsentChangeEvent laterChangeEvent = ConsentChangeEventGenerator.generate().eventTime(EVENT_TIME.plusSeconds(1));
+        for (final ConsentChangeEvent consentChangeEvent : List.of(earlierChangeEvent, watermarkChangeEvent, laterChangeEvent)) {
+            consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                TestConstants.TEST_CONSENT_ID, consentChangeEvent);
+        }
+
+        final ChangeFeedPage changeFeedPage = activity.handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            AFTER, null);
+        assertEquals(new ChangeFeedPage(List.of(watermarkChangeEvent, laterChangeEvent),
+            laterChangeEvent.getEventTime().plusNanos(1).toString(), false), changeFeedPage);
+
+        // The next watermark is just after the last change event, so it is not returned again
+        assertEquals(new ChangeFeedPage(List.of(), changeFeedPage.nextWatermark(), false), activity.handleRequest(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, ChangeFeedWatermark.ofEventTime(changeFeedPage.nextWatermark(),
+                OffsetDateTime.parse(changeFeedPage.nextWatermark())), null));
+    }
+}
@@ -0,0 +1,112 @@
+package com.consentframework.consenthistory.api.usecases.activities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchKey;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchResult;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.RequestMetrics;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.BoundedParallelReader;
+import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class GetConsentHistoryBatchActivityTest {
+    private static final int MAX_CONCURRENCY = 3;
+    private static final ConsentHistoryBatchKey KEY = new ConsentHistoryBatchKey(TestConstants.TEST_SERVICE_ID,
+        TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+    private static final ConsentHistoryBatchKey KEY_2 = new ConsentHistoryBatchKey(TestConstants.TEST_SERVICE_ID,
+        TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID_2);
+
+    @Test
+    void testHandleRequestReturnsResultPerKeyInOrder() {
+        final InMemoryServiceUserConsentHistoryRepository consentHistoryRepository = new InMemoryServiceUserConsentHistoryRepository();
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent);
+        final GetConsentHistoryBatchActivity activity = new GetConsentHistoryBatchActivity(consentHistoryRepository,
+            new BoundedParallelReader(MAX_CONCURRENCY));
+
+        assertEquals(List.of(ConsentHistoryBatchResult.notFound(KEY_2), ConsentHistoryBatchResult.found(KEY, List.of(consentChangeEvent))),
+            activity.handleRequest(List.of(KEY_2, KEY)));
+    }
+
+    @Test
+    void testHandleRequestBoundsConcurrentQueries() {
+        final AtomicInteger inFlightQueries = new AtomicInteger();
+        final AtomicInteger maxInFlightQueries = new AtomicInteger();
+        final InMemoryServiceUserConsentHistoryRepository consentHistoryRepository = new InMemoryServiceUserConsentHistoryRepository() {
+            @Override
+            public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                    final EventTimeWindow eventTimeWindow) throws ResourceNotFoundException {
+                maxInFlightQueries.accumulateAndGet(inFlightQueries.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                    return super.getConsentHistory(serviceId, userId, consentId, eventTimeWindow);
+                } catch (final InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(interruptedException);
+                } finally {
+                    inFlightQueries.decrementAndGet();
+                }
+            }
+        };
+        final GetConsentHistoryBatchActivity activity = new GetConsentHistoryBatchActivity(consentHistoryRepository,
+            new BoundedParallelReader(MAX_CONCURRENCY));
+
+        final List<ConsentHistoryBatchKey> keys = IntStream.range(0, 20)
+            .mapToObj(index -> new ConsentHistoryBatchKey(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, "consent" + index))
+            .toList();
+        assertEquals(keys.size(), activity.handleRequest(keys).size());
+        assertEquals(MAX_CONCURRENCY, maxInFlightQueries.get());
+    }
+
+    @Test
+    void testHandleRequestMergesQueryMetrics() {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        table.putItem(DynamoDbServiceUserConsentHistoryRecordGenerator.generate());
+        final GetConsentHistoryBatchActivity activity = new GetConsentHistoryBatchActivity(
+            new DynamoDbServiceUserConsentHistoryRepository(table), new BoundedParallelReader(MAX_CONCURRENCY));
+
+        final RequestMetrics requestMetrics = RequestMetrics.start();
+        try {
+            activity.handleRequest(List.of(KEY, KEY_2));
+        } finally {
+            requestMetrics.stop();
+        }
+
+        assertEquals(2, requestMetrics.dynamoDbPageCount());
+        assertEquals(1, requestMetrics.dynamoDbItemCount());
+        assertTrue(requestMetrics.repositoryNanos() > 0);
+    }
+
+    @Test
+    void testHandleRequestPropagatesQueryFailure() {
+        final IllegalStateException queryFailure = new IllegalStateException("Query failed");
+        final InMemoryServiceUserConsentHistoryRepository consentHistoryRepository = new InMemoryServiceUserConsentHistoryRepository() {
+            @Override
+            public List<ConsentChangeEvent> getConsentHistory(final String serviceId, final String userId, final String consentId,
+                    final EventTimeWindow eventTimeWindow) {
+                throw queryFailure;
+            }
+        };
+        final GetConsentHistoryBatchActivity activity = new GetConsentHistoryBatchActivity(consentHistoryRepository,
+            new BoundedParallelReader(MAX_CONCURRENCY));
+
+        assertSame(queryFailure, assertThrows(IllegalStateException.class, () -> activity.handleRequest(List.of(KEY))));
+    }
+}
@@ -2,8 +2,11 @@ package com.consentframework.consenthistory.api.usecases.activities;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
 import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentEventType;
@@ -70,4 +73,37 @@ class GetHistoryForServiceUserActivityTest {
         assertEquals(TestConstants.TEST_PARTITION_KEY_2, retrievedConsent2History.getConsentId());
         assertEquals(List.of(consent2ChangeEvent1), retrievedConsent2History.getHistory());
     }
+
+    @Test
+    void testHandlePagedRequestWhenNoConsent() throws Exception {
+        final String expectedErrorMessage = String.format(ServiceUserConsentHistoryRepository.SERVICE_USER_CONSENTS_NOT_FOUND,
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+        final ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+            activity.handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1)));
+        assertEquals(expectedErrorMessage, exception.getMessage());
+    }
+
+    @Test
+    void testHandlePagedRequestWhenHaveConsents() throws Exception {
+        final ConsentChangeEvent consentChangeEvent1 = ConsentChangeEventGenerator.generate();
+        final ConsentChangeEvent consentChangeEvent2 = ConsentChangeEventGenerator.generate();
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent1);
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent2);
+
+        final ListPage<ConsentHistory> firstPage = activity.handleRequest(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1));
+        assertEquals(1, firstPage.resultsOnPage().size());
+        assertEquals(List.of(consentChangeEvent1), firstPage.resultsOnPage().get(0).getHistory());
+        assertTrue(firstPage.nextPageToken().isPresent());
+
+        final ListPage<ConsentHistory> secondPage = activity.handleRequest(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(1).withPageToken(firstPage.nextPageToken().get()));
+        assertEquals(1, secondPage.resultsOnPage().size());
+        assertEquals(List.of(consentChangeEvent2), secondPage.resultsOnPage().get(0).getHistory());
+        assertTrue(secondPage.nextPageToken().isEmpty());
+    }
 }
@@ -3,6 +3,9 @@ package com.consentframework.consenthistory.api.usecases.activities;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
@@ -14,6 +17,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Optional;
 
 class GetHistoryForServiceUserConsentActivityTest {
     private InMemoryServiceUserConsentHistoryRepository consentHistoryRepository;
@@ -52,4 +56,16 @@ class GetHistoryForServiceUserConsentActivityTest {
         assertEquals(consentChangeEvent1, consentHistory.get(0));
         assertEquals(consentChangeEvent2, consentHistory.get(1));
     }
+
+    @Test
+    void testRetrieveHistoryFromStartOfHistory() throws Exception {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        consentHistoryRepository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID, consentChangeEvent);
+
+        final ListPage<ConsentChangeEvent> response = activity.handleRequest(TestConstants.TEST_SERVICE_ID,
+            TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
+        assertEquals(List.of(consentChangeEvent), response.resultsOnPage());
+        assertEquals(Optional.empty(), response.nextPageToken());
+    }
 }
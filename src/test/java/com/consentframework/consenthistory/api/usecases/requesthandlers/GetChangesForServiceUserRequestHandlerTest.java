@@ -0,0 +1,193 @@
+package com.consentframework.consenthistory.api.usecases.requesthandlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.parsers.ApiQueryStringParameterParser;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentEventType;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
+import com.consentframework.consenthistory.api.usecases.activities.GetChangesForServiceUserActivity;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class GetChangesForServiceUserRequestHandlerTest extends RequestHandlerTest {
+    private static final Map<String, String> VALID_PATH_PARAMS = Map.of(
+        ApiPathParameterName.SERVICE_ID.getValue(), TestConstants.TEST_SERVICE_ID,
+        ApiPathParameterName.USER_ID.getValue(), TestConstants.TEST_USER_ID
+    );
+
+    private final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+    private final GetChangesForServiceUserRequestHandler handler = new GetChangesForServiceUserRequestHandler(
+        new GetChangesForServiceUserActivity(repository));
+    private final ObjectMapper objectMapper = new JSON().getMapper();
+
+    @Test
+    protected void testHandleNullRequest() throws Exception {
+        final Map<String, Object> response = handler.handleRequest(null);
+        assertMissingPathParametersResponse(response);
+    }
+
+    @Test
+    protected void testHandleRequestMissingPathParameters() throws Exception {
+        final Map<String, String> incompletePathParameters = Map.of(
+            ApiPathParameterName.SERVICE_ID.getValue(), TestConstants.TEST_SERVICE_ID);
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(incompletePathParameters, null));
+        assertMissingPathParametersResponse(response);
+    }
+
+    @Test
+    void testHandleRequestWithoutWatermark() {
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null));
+
+        final String expectedErrorMessage = String.format(ApiQueryStringParameterParser.MISSING_PARAMETER_MESSAGE,
+            ApiQueryStringParameterName.AFTER.getValue());
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestWithInvalidEventTimeWatermark() {
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.AFTER.getValue(), "yesterday at 10:00")));
+
+        final String expectedErrorMessage = String.format(ApiQueryStringParameterParser.INVALID_DATE_TIME_PARAMETER_MESSAGE,
+            ApiQueryStringParameterName.AFTER.getValue(), "yesterday at 10:00");
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestWithUnsupportedPositionWatermark() {
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.AFTER.getValue(), "position")));
+
+        final String expectedErrorMessage = String.format(ServiceUserConsentHistoryRepository.INVALID_WATERMARK_MESSAGE, "position");
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestReturnsChangesAtOrAfterEventTime() throws Exception {
+        final OffsetDateTime eventTime = OffsetDateTime.now().withOffsetSameInstant(ZoneOffset.UTC);
+        final ConsentChangeEvent consentChangeEvent1 = ConsentChangeEventGenerator.generate().eventTime(eventTime);
+        final ConsentChangeEvent consentChangeEvent2 = ConsentChangeEventGenerator.generate().eventTime(eventTime.plusMinutes(2));
+        final ConsentChangeEvent consentChangeEvent3 = new ConsentChangeEvent()
+            .consentId(TestConstants.TEST_PARTITION_KEY_2)
+            .eventId("TestEventId3")
+            .eventTime(eventTime.plusMinutes(1))
+            .eventType(ConsentEventType.INSERT);
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent1);
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent2);
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID_2,
+            consentChangeEvent3);
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.AFTER.getValue(), eventTime.toString())));
+        assertSuccessResponse(response);
+
+        final JsonNode responseBody = objectMapper.readTree((String) getResponseBody(response));
+        assertEquals(List.of(consentChangeEvent1, consentChangeEvent3, consentChangeEvent2), readChanges(responseBody));
+        assertEquals(consentChangeEvent2.getEventTime().plusNanos(1).toString(),
+            responseBody.get(ConsentHistoryJsonWriter.NEXT_WATERMARK_FIELD_NAME).asText());
+        assertFalse(responseBody.get(ConsentHistoryJsonWriter.HAS_MORE_FIELD_NAME).asBoolean());
+    }
+
+    @Test
+    void testHandleRequestCapsLimit() throws Exception {
+        final GetChangesForServiceUserActivity mockActivity = mock(GetChangesForServiceUserActivity.class);
+        when(mockActivity.handleRequest(eq(TestConstants.TEST_SERVICE_ID), eq(TestConstants.TEST_USER_ID), any(),
+            eq(GetChangesForServiceUserRequestHandler.MAX_PAGE_LIMIT))).thenReturn(new ChangeFeedPage(List.of(), "position", false));
+        final GetChangesForServiceUserRequestHandler mockHandler = new GetChangesForServiceUserRequestHandler(mockActivity);
+
+        final String requestedLimit = String.valueOf(GetChangesForServiceUserRequestHandler.MAX_PAGE_LIMIT + 1);
+        assertSuccessResponse(mockHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, Map.of(
+            ApiQueryStringParameterName.AFTER.getValue(), "position",
+            ApiQueryStringParameterName.LIMIT.getValue(), requestedLimit))));
+        verify(mockActivity).handleRequest(eq(TestConstants.TEST_SERVICE_ID), eq(TestConstants.TEST_USER_ID), any(),
+            eq(GetChangesForServiceUserRequestHandler.MAX_PAGE_LIMIT));
+    }
+
+    @Test
+    void testHandleRequestFollowsWatermarksThroughInMemoryTable() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        // Fractional seconds keep the seconds in every stored event time, so the records sort by event time
+        final OffsetDateTime firstEventTime = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 500_000_000, ZoneOffset.UTC);
+        final List<String> eventIds = new ArrayList<>();
+        for (int recordIndex = 0; recordIndex < 5; recordIndex++) {
+            final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+                DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1"),
+                DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("2"),
+                ConsentEventType.MODIFY, firstEventTime.plusSeconds(recordIndex));
+            table.putItems(List.of(consentHistoryRecord));
+            eventIds.add(consentHistoryRecord.eventId());
+        }
+        final GetChangesForServiceUserRequestHandler dynamoDbHandler = new GetChangesForServiceUserRequestHandler(
+            new GetChangesForServiceUserActivity(new DynamoDbServiceUserConsentHistoryRepository(table)));
+
+        final List<String> changedEventIds = new ArrayList<>();
+        String watermark = firstEventTime.plusSeconds(1).toString();
+        JsonNode responseBody;
+        do {
+            final Map<String, Object> response = dynamoDbHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, Map.of(
+                ApiQueryStringParameterName.AFTER.getValue(), watermark,
+                ApiQueryStringParameterName.LIMIT.getValue(), "2")));
+            assertSuccessResponse(response);
+            responseBody = objectMapper.readTree((String) getResponseBody(response));
+            readChanges(responseBody).forEach(consentChangeEvent -> changedEventIds.add(consentChangeEvent.getEventId()));
+            watermark = responseBody.get(ConsentHistoryJsonWriter.NEXT_WATERMARK_FIELD_NAME).asText();
+        } while (responseBody.get(ConsentHistoryJsonWriter.HAS_MORE_FIELD_NAME).asBoolean());
+
+        assertEquals(eventIds.subList(1, 5), changedEventIds);
+        assertTrue(changedEventIds.size() > 2);
+    }
+
+    private List<ConsentChangeEvent> readChanges(final JsonNode responseBody) throws Exception {
+        final List<ConsentChangeEvent> changes = new ArrayList<>();
+        for (final JsonNode change : responseBody.get(ConsentHistoryJsonWriter.DATA_FIELD_NAME)) {
+            changes.add(objectMapper.treeToValue(change, ConsentChangeEvent.class));
+        }
+        return changes;
+    }
+
+    private ApiRequest buildApiRequest(final Map<String, String> pathParameters, final Map<String, Object> queryStringParameters) {
+        return new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_CHANGES.getValue(),
+            TestConstants.TEST_SERVICE_USER_CHANGES_PATH, pathParameters, queryStringParameters, null, false, null);
+    }
+
+    private void assertMissingPathParametersResponse(final Map<String, Object> response) {
+        assertExceptionResponse(
+            HttpStatusCode.BAD_REQUEST,
+            "Missing required path parameters, expected serviceId, userId",
+            response
+        );
+    }
+}
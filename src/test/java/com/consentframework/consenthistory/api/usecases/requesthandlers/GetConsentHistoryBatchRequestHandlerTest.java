@@ -0,0 +1,133 @@
+package com.consentframework.consenthistory.api.usecases.requesthandlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.consenthistory.api.infrastructure.concurrency.BoundedParallelReader;
+import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.consenthistory.api.usecases.activities.GetConsentHistoryBatchActivity;
+import com.consentframework.consenthistory.api.usecases.serializers.ConsentHistoryJsonWriter;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.constants.HttpStatusCode;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+class GetConsentHistoryBatchRequestHandlerTest extends RequestHandlerTest {
+    private static final int MAXIMUM_KEYS = 3;
+
+    private final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
+    private final GetConsentHistoryBatchRequestHandler handler = new GetConsentHistoryBatchRequestHandler(
+        new GetConsentHistoryBatchActivity(repository, new BoundedParallelReader(2)), MAXIMUM_KEYS);
+    private final ObjectMapper objectMapper = new JSON().getMapper();
+
+    @Test
+    protected void testHandleNullRequest() throws Exception {
+        final Map<String, Object> response = handler.handleRequest(null);
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, GetConsentHistoryBatchRequestHandler.INVALID_BODY_MESSAGE, response);
+    }
+
+    @Test
+    protected void testHandleRequestMissingPathParameters() throws Exception {
+        // Batch requests identify their consents in the body, so have no path parameters to miss
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(buildBody(TestConstants.TEST_CONSENT_ID).toString()));
+        assertSuccessResponse(response);
+    }
+
+    @Test
+    void testHandleRequestReturnsHistoryOrNotFoundPerKey() throws Exception {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent);
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(
+            buildBody(TestConstants.TEST_CONSENT_ID_2, TestConstants.TEST_CONSENT_ID).toString()));
+        assertSuccessResponse(response);
+
+        final JsonNode data = objectMapper.readTree((String) getResponseBody(response)).get(ConsentHistoryJsonWriter.DATA_FIELD_NAME);
+        assertEquals(2, data.size());
+        assertEquals(TestConstants.TEST_CONSENT_ID_2, data.get(0).get(ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME).asText());
+        assertTrue(data.get(0).get(ConsentHistoryJsonWriter.NOT_FOUND_FIELD_NAME).asBoolean());
+        assertEquals(TestConstants.TEST_CONSENT_ID, data.get(1).get(ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME).asText());
+        assertEquals(consentChangeEvent.getEventId(),
+            data.get(1).get(ConsentHistoryJsonWriter.HISTORY_FIELD_NAME).get(0).get("eventId").asText());
+        assertFalse(data.get(1).has(ConsentHistoryJsonWriter.NOT_FOUND_FIELD_NAME));
+    }
+
+    @Test
+    void testHandleRequestWithBase64EncodedBody() {
+        final String body = Base64.getEncoder().encodeToString(buildBody(TestConstants.TEST_CONSENT_ID).toString()
+            .getBytes(StandardCharsets.UTF_8));
+        final Map<String, Object> response = handler.handleRequest(new ApiRequest(HttpMethod.POST.name(),
+            ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(), ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(), null, null, null,
+            true, body));
+        assertSuccessResponse(response);
+    }
+
+    @Test
+    void testHandleRequestWithInvalidBody() {
+        for (final String body : new String[] {null, "not json", "[]", "{}", "{\"keys\":{}}", "{\"keys\":[]}"}) {
+            final Map<String, Object> response = handler.handleRequest(buildApiRequest(body));
+            assertExceptionResponse(HttpStatusCode.BAD_REQUEST, GetConsentHistoryBatchRequestHandler.INVALID_BODY_MESSAGE, response);
+        }
+    }
+
+    @Test
+    void testHandleRequestWithTooManyKeys() {
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(buildBody(TestConstants.TEST_CONSENT_ID,
+            TestConstants.TEST_CONSENT_ID, TestConstants.TEST_CONSENT_ID, TestConstants.TEST_CONSENT_ID).toString()));
+
+        final String expectedErrorMessage = String.format(GetConsentHistoryBatchRequestHandler.TOO_MANY_KEYS_MESSAGE, MAXIMUM_KEYS, 4);
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestWithInvalidKey() {
+        final ObjectNode body = buildBody(TestConstants.TEST_CONSENT_ID, TestConstants.TEST_CONSENT_ID_2);
+        ((ObjectNode) body.get(GetConsentHistoryBatchRequestHandler.KEYS_FIELD_NAME).get(1))
+            .put(ConsentHistoryJsonWriter.USER_ID_FIELD_NAME, " ");
+        final ObjectNode missingFieldBody = buildBody(TestConstants.TEST_CONSENT_ID);
+        ((ObjectNode) missingFieldBody.get(GetConsentHistoryBatchRequestHandler.KEYS_FIELD_NAME).get(0))
+            .remove(ConsentHistoryJsonWriter.SERVICE_ID_FIELD_NAME);
+        final ObjectNode nonTextFieldBody = buildBody(TestConstants.TEST_CONSENT_ID);
+        ((ObjectNode) nonTextFieldBody.get(GetConsentHistoryBatchRequestHandler.KEYS_FIELD_NAME).get(0))
+            .put(ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME, 1);
+
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, String.format(GetConsentHistoryBatchRequestHandler.INVALID_KEY_MESSAGE, 1),
+            handler.handleRequest(buildApiRequest(body.toString())));
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, String.format(GetConsentHistoryBatchRequestHandler.INVALID_KEY_MESSAGE, 0),
+            handler.handleRequest(buildApiRequest(missingFieldBody.toString())));
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, String.format(GetConsentHistoryBatchRequestHandler.INVALID_KEY_MESSAGE, 0),
+            handler.handleRequest(buildApiRequest(nonTextFieldBody.toString())));
+    }
+
+    private ObjectNode buildBody(final String... consentIds) {
+        final ObjectNode body = objectMapper.createObjectNode();
+        final ArrayNode keys = body.putArray(GetConsentHistoryBatchRequestHandler.KEYS_FIELD_NAME);
+        for (final String consentId : consentIds) {
+            keys.addObject()
+                .put(ConsentHistoryJsonWriter.SERVICE_ID_FIELD_NAME, TestConstants.TEST_SERVICE_ID)
+                .put(ConsentHistoryJsonWriter.USER_ID_FIELD_NAME, TestConstants.TEST_USER_ID)
+                .put(ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME, consentId);
+        }
+        return body;
+    }
+
+    private static ApiRequest buildApiRequest(final String body) {
+        return new ApiRequest(HttpMethod.POST.name(), ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(),
+            ApiHttpResource.CONSENT_HISTORY_BATCH.getValue(), null, null, null, false, body);
+    }
+}
@@ -1,34 +1,56 @@
 package com.consentframework.consenthistory.api.usecases.requesthandlers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpHeaderName;
 import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
 import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiProxyResponseParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryView;
+import com.consentframework.consenthistory.api.domain.entities.EntityTag;
+import com.consentframework.consenthistory.api.domain.entities.EventTimeWindow;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.parsers.ApiQueryStringParameterParser;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.models.Consent;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentStatus;
 import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserConsentResponseContent;
 import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
 import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
 import com.consentframework.consenthistory.api.usecases.activities.GetHistoryForServiceUserConsentActivity;
+import com.consentframework.shared.api.domain.constants.ApiResponseParameterName;
 import com.consentframework.shared.api.domain.constants.HttpMethod;
 import com.consentframework.shared.api.domain.constants.HttpStatusCode;
 import com.consentframework.shared.api.domain.entities.ApiRequest;
 import com.consentframework.shared.api.domain.exceptions.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 class GetHistoryForServiceUserConsentRequestHandlerTest extends RequestHandlerTest {
     private final InMemoryServiceUserConsentHistoryRepository repository = new InMemoryServiceUserConsentHistoryRepository();
     private final GetHistoryForServiceUserConsentActivity activity = new GetHistoryForServiceUserConsentActivity(repository);
     private final GetHistoryForServiceUserConsentRequestHandler handler = new GetHistoryForServiceUserConsentRequestHandler(activity);
 
+    private static final String TEST_PAGE_TOKEN = "testPageToken";
     private static final Map<String, String> VALID_PATH_PARAMS = Map.of(
         ApiPathParameterName.SERVICE_ID.getValue(), TestConstants.TEST_SERVICE_ID,
         ApiPathParameterName.USER_ID.getValue(), TestConstants.TEST_USER_ID,
@@ -85,12 +107,123 @@ class GetHistoryForServiceUserConsentRequestHandlerTest extends RequestHandlerTe
         assertEquals(consentChangeEvent2, retrievedConsentHistory.get(1));
     }
 
+    @Test
+    void testHandleRequestReturnsEntityTagOfLatestEvent() {
+        final ConsentChangeEvent latestConsentChangeEvent = addConsentHistory();
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null));
+        assertSuccessResponse(response);
+        assertEquals(EntityTag.of(latestConsentChangeEvent).toHeaderValue(), getEntityTagHeader(response));
+    }
+
+    @Test
+    void testHandleRequestReturnsEntityTagOfLatestEventWhenReadOutOfOrder() {
+        final ConsentChangeEvent earlierConsentChangeEvent = ConsentChangeEventGenerator.generate();
+        final ConsentChangeEvent latestConsentChangeEvent = ConsentChangeEventGenerator.generate()
+            .eventTime(earlierConsentChangeEvent.getEventTime().plusSeconds(30));
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            latestConsentChangeEvent);
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            earlierConsentChangeEvent);
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null));
+        assertSuccessResponse(response);
+        assertEquals(EntityTag.of(latestConsentChangeEvent).toHeaderValue(), getEntityTagHeader(response));
+    }
+
+    @Test
+    void testHandleConditionalRequestWhenEntityTagMatches() throws Exception {
+        final ConsentChangeEvent latestConsentChangeEvent = addConsentHistory();
+        final InMemoryServiceUserConsentHistoryRepository repositorySpy = spy(repository);
+        final GetHistoryForServiceUserConsentRequestHandler conditionalHandler = new GetHistoryForServiceUserConsentRequestHandler(
+            new GetHistoryForServiceUserConsentActivity(repositorySpy));
+        final String entityTag = EntityTag.of(latestConsentChangeEvent).toHeaderValue();
+
+        final Map<String, Object> response = conditionalHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null,
+            Map.of("if-none-match", "\"stale\", " + entityTag)));
+        assertEquals(GetHistoryForServiceUserConsentRequestHandler.NOT_MODIFIED_STATUS_CODE,
+            response.get(ApiResponseParameterName.STATUS_CODE.getValue()));
+        assertFalse(response.containsKey(ApiResponseParameterName.BODY.getValue()));
+        assertEquals(entityTag, getEntityTagHeader(response));
+        verify(repositorySpy).getLatestConsentChangeEvent(any(), any(), any(), any());
+        // The in-memory repository reads the latest event from the full history, which is otherwise never read
+        verify(repositorySpy, times(1)).getConsentHistory(any(), any(), any(), any());
+    }
+
+    @Test
+    void testHandleConditionalRequestWhenEntityTagDoesNotMatch() {
+        final ConsentChangeEvent latestConsentChangeEvent = addConsentHistory();
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null,
+            Map.of(ApiHttpHeaderName.IF_NONE_MATCH.getValue(), "\"stale\"")));
+        assertSuccessResponse(response);
+        assertEquals(EntityTag.of(latestConsentChangeEvent).toHeaderValue(), getEntityTagHeader(response));
+    }
+
+    @Test
+    void testHandleConditionalRequestWhenConsentNotFound() {
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null,
+            Map.of(ApiHttpHeaderName.IF_NONE_MATCH.getValue(), "*")));
+
+        final String expectedErrorMessage = String.format(ServiceUserConsentHistoryRepository.CONSENT_NOT_FOUND_MESSAGE,
+                TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+        assertExceptionResponse(HttpStatusCode.NOT_FOUND, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestWithSummaryView() throws Exception {
+        final Consent consent = new Consent()
+            .serviceId(TestConstants.TEST_SERVICE_ID)
+            .userId(TestConstants.TEST_USER_ID)
+            .consentId(TestConstants.TEST_CONSENT_ID)
+            .consentVersion(1)
+            .status(ConsentStatus.ACTIVE);
+        final ConsentChangeEvent firstConsentChangeEvent = ConsentChangeEventGenerator.generate().newImage(consent);
+        final ConsentChangeEvent latestConsentChangeEvent = ConsentChangeEventGenerator.generate().oldImage(consent).newImage(consent);
+        List.of(firstConsentChangeEvent, latestConsentChangeEvent).forEach(consentChangeEvent -> repository.addConsentHistoryRecord(
+            TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID, consentChangeEvent));
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.VIEW.getValue(), ConsentHistoryView.SUMMARY.getValue())));
+        assertSuccessResponse(response);
+
+        final GetHistoryForServiceUserConsentResponseContent responseContent = new JSON().getMapper()
+            .readValue((String) getResponseBody(response), GetHistoryForServiceUserConsentResponseContent.class);
+        final ConsentChangeEvent retrievedLatestEvent = responseContent.getData().get(1);
+        assertEquals(ConsentHistoryView.SUMMARY.project(latestConsentChangeEvent), retrievedLatestEvent);
+        assertNull(retrievedLatestEvent.getOldImage());
+        assertNull(retrievedLatestEvent.getNewImage());
+        assertEquals(EntityTag.of(latestConsentChangeEvent).forView(ConsentHistoryView.SUMMARY).toHeaderValue(),
+            getEntityTagHeader(response));
+    }
+
+    @Test
+    void testHandleConditionalRequestDoesNotMatchOtherView() {
+        final ConsentChangeEvent latestConsentChangeEvent = addConsentHistory();
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.VIEW.getValue(), ConsentHistoryView.SUMMARY.getValue()),
+            Map.of(ApiHttpHeaderName.IF_NONE_MATCH.getValue(), EntityTag.of(latestConsentChangeEvent).toHeaderValue())));
+        assertSuccessResponse(response);
+    }
+
+    @Test
+    void testHandleRequestWithInvalidView() {
+        addConsentHistory();
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.VIEW.getValue(), "detailed")));
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, String.format(ApiQueryStringParameterParser.INVALID_VIEW_PARAMETER_MESSAGE,
+            ApiQueryStringParameterName.VIEW.getValue(), "full, summary", "detailed"), response);
+    }
+
     @Test
     void testHandleRequestWhenErrorThrown() throws Exception {
         final String testErrorMessage = "Test exception";
         final GetHistoryForServiceUserConsentActivity mockActivity = mock(GetHistoryForServiceUserConsentActivity.class);
         doThrow(new ResourceNotFoundException(testErrorMessage))
-            .when(mockActivity).handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID);
+            .when(mockActivity).handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL);
         final GetHistoryForServiceUserConsentRequestHandler mockHandler = new GetHistoryForServiceUserConsentRequestHandler(mockActivity);
 
         final ApiRequest request = buildApiRequest(VALID_PATH_PARAMS, null);
@@ -98,9 +231,82 @@ class GetHistoryForServiceUserConsentRequestHandlerTest extends RequestHandlerTe
         assertExceptionResponse(HttpStatusCode.NOT_FOUND, testErrorMessage, response);
     }
 
+    @Test
+    void testHandleRequestWhenResultIsPartial() throws Exception {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        final GetHistoryForServiceUserConsentActivity mockActivity = mock(GetHistoryForServiceUserConsentActivity.class);
+        when(mockActivity.handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            null, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL))
+            .thenReturn(new ListPage<>(List.of(consentChangeEvent), Optional.of(TEST_PAGE_TOKEN)));
+        final GetHistoryForServiceUserConsentRequestHandler mockHandler = new GetHistoryForServiceUserConsentRequestHandler(mockActivity);
+
+        final Map<String, Object> response = mockHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null));
+        assertSuccessResponse(response);
+        assertFalse(response.containsKey(ApiProxyResponseParameterName.HEADERS.getValue()));
+
+        final JsonNode responseBody = new JSON().getMapper().readTree((String) getResponseBody(response));
+        assertEquals(TEST_PAGE_TOKEN,
+            responseBody.get(GetHistoryForServiceUserConsentRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME).asText());
+        assertTrue(responseBody.get(GetHistoryForServiceUserConsentRequestHandler.PARTIAL_FIELD_NAME).asBoolean());
+        assertEquals(1, responseBody.get("data").size());
+        assertEquals(consentChangeEvent, new JSON().getMapper().treeToValue(responseBody.get("data").get(0), ConsentChangeEvent.class));
+    }
+
+    @Test
+    void testHandleContinuationRequestSkipsEntityTags() throws Exception {
+        final ConsentChangeEvent consentChangeEvent = ConsentChangeEventGenerator.generate();
+        final GetHistoryForServiceUserConsentActivity mockActivity = mock(GetHistoryForServiceUserConsentActivity.class);
+        when(mockActivity.handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            TEST_PAGE_TOKEN, EventTimeWindow.UNBOUNDED, ConsentHistoryView.FULL))
+            .thenReturn(new ListPage<>(List.of(consentChangeEvent), Optional.empty()));
+        final GetHistoryForServiceUserConsentRequestHandler mockHandler = new GetHistoryForServiceUserConsentRequestHandler(mockActivity);
+
+        final Map<String, Object> response = mockHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.PAGE_TOKEN.getValue(), TEST_PAGE_TOKEN),
+            Map.of(ApiHttpHeaderName.IF_NONE_MATCH.getValue(), EntityTag.of(consentChangeEvent).toHeaderValue())));
+        assertSuccessResponse(response);
+        assertFalse(response.containsKey(ApiProxyResponseParameterName.HEADERS.getValue()));
+        verify(mockActivity, never()).getEntityTag(any(), any(), any(), any());
+
+        final JsonNode responseBody = new JSON().getMapper().readTree((String) getResponseBody(response));
+        assertFalse(responseBody.has(GetHistoryForServiceUserConsentRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME));
+        assertFalse(responseBody.has(GetHistoryForServiceUserConsentRequestHandler.PARTIAL_FIELD_NAME));
+    }
+
+    @Test
+    void testHandleRequestWithInvalidPageToken() {
+        addConsentHistory();
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+            Map.of(ApiQueryStringParameterName.PAGE_TOKEN.getValue(), TEST_PAGE_TOKEN)));
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST,
+            String.format(ServiceUserConsentHistoryRepository.INVALID_PAGE_TOKEN_MESSAGE, TEST_PAGE_TOKEN), response);
+    }
+
+    private ConsentChangeEvent addConsentHistory() {
+        final ConsentChangeEvent consentChangeEvent1 = ConsentChangeEventGenerator.generate();
+        final ConsentChangeEvent consentChangeEvent2 = ConsentChangeEventGenerator.generate();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent1);
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent2);
+        return consentChangeEvent2;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String getEntityTagHeader(final Map<String, Object> response) {
+        final Map<String, String> headers = (Map<String, String>) response.get(ApiProxyResponseParameterName.HEADERS.getValue());
+        return headers.get(ApiHttpHeaderName.ETAG.getValue());
+    }
+
     private ApiRequest buildApiRequest(final Map<String, String> pathParameters, final Map<String, Object> queryStringParameters) {
+        return buildApiRequest(pathParameters, queryStringParameters, null);
+    }
+
+    private ApiRequest buildApiRequest(final Map<String, String> pathParameters, final Map<String, Object> queryStringParameters,
+            final Map<String, String> headers) {
         return new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(),
-            TestConstants.TEST_CONSENT_HISTORY_PATH, pathParameters, queryStringParameters, null, false, null);
+            TestConstants.TEST_CONSENT_HISTORY_PATH, pathParameters, queryStringParameters, headers, false, null);
     }
 
     private void assertMissingPathParametersResponse(final Map<String, Object> response) {
@@ -1,32 +1,54 @@
 package com.consentframework.consenthistory.api.usecases.requesthandlers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.consentframework.consenthistory.api.JSON;
 import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
 import com.consentframework.consenthistory.api.domain.constants.ApiPathParameterName;
+import com.consentframework.consenthistory.api.domain.constants.ApiQueryStringParameterName;
+import com.consentframework.consenthistory.api.domain.entities.ListPage;
+import com.consentframework.consenthistory.api.domain.parsers.ApiQueryStringParameterParser;
+import com.consentframework.consenthistory.api.domain.repositories.ConsentChangeEventBudget;
 import com.consentframework.consenthistory.api.domain.repositories.ServiceUserConsentHistoryRepository;
+import com.consentframework.consenthistory.api.domain.repositories.ServiceUserHistoryQuery;
+import com.consentframework.consenthistory.api.infrastructure.repositories.DynamoDbServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.infrastructure.repositories.InMemoryServiceUserConsentHistoryRepository;
 import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
 import com.consentframework.consenthistory.api.models.ConsentEventType;
 import com.consentframework.consenthistory.api.models.ConsentHistory;
 import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserResponseContent;
 import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.dynamodb.InMemoryDynamoDbConsentHistoryTable;
 import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.consentframework.consenthistory.api.testcommon.utils.DynamoDbServiceUserConsentHistoryRecordGenerator;
 import com.consentframework.consenthistory.api.usecases.activities.GetHistoryForServiceUserActivity;
 import com.consentframework.shared.api.domain.constants.HttpMethod;
 import com.consentframework.shared.api.domain.constants.HttpStatusCode;
 import com.consentframework.shared.api.domain.entities.ApiRequest;
 import com.consentframework.shared.api.domain.exceptions.InternalServiceException;
+import com.consentframework.shared.api.infrastructure.entities.DynamoDbConsentHistory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 class GetHistoryForServiceUserRequestHandlerTest extends RequestHandlerTest {
@@ -70,7 +92,8 @@ class GetHistoryForServiceUserRequestHandlerTest extends RequestHandlerTest {
         final String testErrorMessage = "Test exception";
         final GetHistoryForServiceUserActivity mockActivity = mock(GetHistoryForServiceUserActivity.class);
         doThrow(new InternalServiceException(testErrorMessage))
-            .when(mockActivity).handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID);
+            .when(mockActivity).handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+                ServiceUserHistoryQuery.FULL_HISTORY);
         final GetHistoryForServiceUserRequestHandler mockHandler = new GetHistoryForServiceUserRequestHandler(mockActivity);
 
         final ApiRequest request = buildApiRequest(VALID_PATH_PARAMS, null);
@@ -113,6 +136,177 @@ class GetHistoryForServiceUserRequestHandlerTest extends RequestHandlerTest {
         assertEquals(List.of(consent2ChangeEvent1), retrievedConsentHistory2.getHistory());
     }
 
+    @Test
+    void testHandleRequestWithPagination() throws Exception {
+        final ConsentChangeEvent consentChangeEvent1 = ConsentChangeEventGenerator.generate();
+        final ConsentChangeEvent consentChangeEvent2 = ConsentChangeEventGenerator.generate();
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent1);
+        repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+            consentChangeEvent2);
+        final ObjectMapper objectMapper = new JSON().getMapper();
+
+        final Map<String, Object> firstPageResponse = handler.handleRequest(
+            buildApiRequest(VALID_PATH_PARAMS, Map.of(ApiQueryStringParameterName.LIMIT.getValue(), "1")));
+        assertSuccessResponse(firstPageResponse);
+        final JsonNode firstPageBody = objectMapper.readTree((String) getResponseBody(firstPageResponse));
+        final GetHistoryForServiceUserResponseContent firstPageContent = objectMapper.treeToValue(
+            firstPageBody, GetHistoryForServiceUserResponseContent.class);
+        assertEquals(List.of(consentChangeEvent1), firstPageContent.getData().get(0).getHistory());
+        assertTrue(firstPageBody.has(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME));
+
+        final String nextPageToken = firstPageBody.get(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME).asText();
+        final Map<String, Object> secondPageResponse = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, Map.of(
+            ApiQueryStringParameterName.LIMIT.getValue(), "1",
+            ApiQueryStringParameterName.PAGE_TOKEN.getValue(), nextPageToken)));
+        assertSuccessResponse(secondPageResponse);
+        final JsonNode secondPageBody = objectMapper.readTree((String) getResponseBody(secondPageResponse));
+        final GetHistoryForServiceUserResponseContent secondPageContent = objectMapper.treeToValue(
+            secondPageBody, GetHistoryForServiceUserResponseContent.class);
+        assertEquals(List.of(consentChangeEvent2), secondPageContent.getData().get(0).getHistory());
+        assertFalse(secondPageBody.has(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME));
+    }
+
+    @Test
+    void testHandleRequestWithoutLimitReturnsFullHistory() throws Exception {
+        final int eventCount = 250;
+        for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+            repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                ConsentChangeEventGenerator.generate());
+        }
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null));
+        assertSuccessResponse(response);
+        final ObjectMapper objectMapper = new JSON().getMapper();
+        final JsonNode responseBody = objectMapper.readTree((String) getResponseBody(response));
+        final GetHistoryForServiceUserResponseContent responseContent = objectMapper.treeToValue(
+            responseBody, GetHistoryForServiceUserResponseContent.class);
+        assertEquals(eventCount, responseContent.getData().get(0).getHistory().size());
+        assertFalse(responseBody.has(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME));
+    }
+
+    @Test
+    void testHandleRequestCapsLimit() throws Exception {
+        final GetHistoryForServiceUserActivity mockActivity = mock(GetHistoryForServiceUserActivity.class);
+        when(mockActivity.handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT)))
+            .thenReturn(new ListPage<>(List.of(), Optional.empty()));
+        final GetHistoryForServiceUserRequestHandler mockHandler = new GetHistoryForServiceUserRequestHandler(mockActivity);
+
+        final String requestedLimit = String.valueOf(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT + 1);
+        mockHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, Map.of(ApiQueryStringParameterName.LIMIT.getValue(), requestedLimit)));
+        verify(mockActivity).handleRequest(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            ServiceUserHistoryQuery.FULL_HISTORY.withLimit(GetHistoryForServiceUserRequestHandler.MAX_PAGE_LIMIT));
+    }
+
+    @Test
+    void testHandleRequestWithinEventTimeWindow() throws Exception {
+        final OffsetDateTime eventTime = OffsetDateTime.now().withOffsetSameInstant(ZoneOffset.UTC);
+        final ConsentChangeEvent consentChangeEvent1 = ConsentChangeEventGenerator.generate().eventTime(eventTime.minusDays(1));
+        final ConsentChangeEvent consentChangeEvent2 = ConsentChangeEventGenerator.generate().eventTime(eventTime);
+        final ConsentChangeEvent consentChangeEvent3 = ConsentChangeEventGenerator.generate().eventTime(eventTime.plusDays(1));
+        List.of(consentChangeEvent1, consentChangeEvent2, consentChangeEvent3).forEach(consentChangeEvent ->
+            repository.addConsentHistoryRecord(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID, TestConstants.TEST_CONSENT_ID,
+                consentChangeEvent));
+
+        final Map<String, Object> response = handler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, Map.of(
+            ApiQueryStringParameterName.SINCE.getValue(), eventTime.minusHours(1).toString(),
+            ApiQueryStringParameterName.UNTIL.getValue(), eventTime.plusHours(1).toString())));
+        assertSuccessResponse(response);
+
+        final GetHistoryForServiceUserResponseContent responseContent = new JSON().getMapper()
+            .readValue((String) getResponseBody(response), GetHistoryForServiceUserResponseContent.class);
+        assertEquals(List.of(consentChangeEvent2), responseContent.getData().get(0).getHistory());
+    }
+
+    @Test
+    void testHandleRequestWithInvalidSince() {
+        final String sinceParameterName = ApiQueryStringParameterName.SINCE.getValue();
+        final ApiRequest request = buildApiRequest(VALID_PATH_PARAMS, Map.of(sinceParameterName, "yesterday"));
+        final Map<String, Object> response = handler.handleRequest(request);
+
+        final String expectedErrorMessage = String.format(ApiQueryStringParameterParser.INVALID_DATE_TIME_PARAMETER_MESSAGE,
+            sinceParameterName, "yesterday");
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestWithInvalidLimit() {
+        final String limitParameterName = ApiQueryStringParameterName.LIMIT.getValue();
+        final ApiRequest request = buildApiRequest(VALID_PATH_PARAMS, Map.of(limitParameterName, "0"));
+        final Map<String, Object> response = handler.handleRequest(request);
+
+        final String expectedErrorMessage = String.format(ApiQueryStringParameterParser.INVALID_INTEGER_PARAMETER_MESSAGE,
+            limitParameterName, "0");
+        assertExceptionResponse(HttpStatusCode.BAD_REQUEST, expectedErrorMessage, response);
+    }
+
+    @Test
+    void testHandleRequestWithResponseBudgetThroughInMemoryTable() throws Exception {
+        final InMemoryDynamoDbConsentHistoryTable table = new InMemoryDynamoDbConsentHistoryTable();
+        // Fractional seconds keep the seconds in every stored event time, so the records sort by event time
+        final OffsetDateTime firstEventTime = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 500_000_000, ZoneOffset.UTC);
+        final List<String> eventIds = new ArrayList<>();
+        for (int recordIndex = 0; recordIndex < 40; recordIndex++) {
+            final DynamoDbConsentHistory consentHistoryRecord = DynamoDbServiceUserConsentHistoryRecordGenerator.generate(
+                DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("1"),
+                DynamoDbServiceUserConsentHistoryRecordGenerator.generateDdbConsentImage("2"),
+                ConsentEventType.MODIFY, firstEventTime.plusSeconds(recordIndex));
+            table.putItems(List.of(consentHistoryRecord));
+            eventIds.add(consentHistoryRecord.eventId());
+        }
+        final long maximumResponseBytes = 8_000;
+        final GetHistoryForServiceUserRequestHandler budgetedHandler = new GetHistoryForServiceUserRequestHandler(
+            new GetHistoryForServiceUserActivity(new DynamoDbServiceUserConsentHistoryRepository(table)),
+            OptionalLong.of(maximumResponseBytes));
+        final ObjectMapper objectMapper = new JSON().getMapper();
+
+        final List<String> pagedEventIds = new ArrayList<>();
+        int pageCount = 0;
+        String pageToken = null;
+        do {
+            final Map<String, Object> response = budgetedHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS,
+                pageToken == null ? null : Map.of(ApiQueryStringParameterName.PAGE_TOKEN.getValue(), pageToken)));
+            assertSuccessResponse(response);
+            final String responseBody = (String) getResponseBody(response);
+            assertTrue(countEscapedBytes(responseBody) <= maximumResponseBytes);
+
+            final JsonNode responseContent = objectMapper.readTree(responseBody);
+            objectMapper.treeToValue(responseContent, GetHistoryForServiceUserResponseContent.class).getData().stream()
+                .flatMap(consentHistory -> consentHistory.getHistory().stream())
+                .forEach(consentChangeEvent -> pagedEventIds.add(consentChangeEvent.getEventId()));
+            pageToken = responseContent.has(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME)
+                ? responseContent.get(GetHistoryForServiceUserRequestHandler.NEXT_PAGE_TOKEN_FIELD_NAME).asText()
+                : null;
+            pageCount++;
+        } while (pageToken != null);
+
+        assertTrue(pageCount > 1);
+        assertEquals(eventIds, pagedEventIds);
+    }
+
+    @Test
+    void testHandleRequestWithResponseBudgetWhenSerializationFails() throws Exception {
+        final GetHistoryForServiceUserActivity mockActivity = mock(GetHistoryForServiceUserActivity.class);
+        when(mockActivity.handleRequest(eq(TestConstants.TEST_SERVICE_ID), eq(TestConstants.TEST_USER_ID),
+                argThat(query -> query.isBudgeted() && query.withBudget(ConsentChangeEventBudget.UNLIMITED)
+                    .equals(ServiceUserHistoryQuery.FULL_HISTORY))))
+            .thenThrow(new UncheckedIOException(new IOException("Test exception")));
+        final GetHistoryForServiceUserRequestHandler mockHandler = new GetHistoryForServiceUserRequestHandler(mockActivity,
+            OptionalLong.of(1_000));
+
+        final Map<String, Object> response = mockHandler.handleRequest(buildApiRequest(VALID_PATH_PARAMS, null));
+        assertExceptionResponse(HttpStatusCode.INTERNAL_SERVER_ERROR, "Test exception", response);
+    }
+
+    /**
+     * Count the UTF-8 bytes of the response body once escaped within the Lambda proxy response.
+     */
+    private static long countEscapedBytes(final String responseBody) {
+        return responseBody.getBytes(StandardCharsets.UTF_8).length
+            + responseBody.chars().filter(character -> character == '"' || character == '\\').count();
+    }
+
     private ApiRequest buildApiRequest(final Map<String, String> pathParameters, final Map<String, Object> queryStringParameters) {
         return new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_HISTORY.getValue(),
             TestConstants.TEST_SERVICE_USER_HISTORY_PATH, pathParameters, queryStringParameters, null, false, null);
@@ -0,0 +1,88 @@
+package com.consentframework.consenthistory.api.usecases.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import com.consentframework.shared.api.domain.constants.HttpMethod;
+import com.consentframework.shared.api.domain.entities.ApiRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class ApiRouterTest {
+    private static final String CONSENT_PATH = "/v1/consent-history/services/TestService/users/TestUser/consents/TestConsent";
+    private static final Map<String, Object> CONSENT_RESPONSE = Map.of("route", "consent");
+    private static final Map<String, Object> SERVICE_USER_RESPONSE = Map.of("route", "serviceUser");
+    private static final Map<String, Object> UNMATCHED_RESPONSE = Map.of("route", "unmatched");
+
+    private final ApiRouter router = ApiRouter.builder()
+        .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_CONSENT_HISTORY, request -> CONSENT_RESPONSE)
+        .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_HISTORY, request -> SERVICE_USER_RESPONSE)
+        .unmatchedRequestHandler(request -> UNMATCHED_RESPONSE)
+        .build();
+
+    @Test
+    void testHandleRequestByResource() {
+        assertSame(CONSENT_RESPONSE, router.handleRequest(buildRequest(HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(), CONSENT_PATH)));
+        assertSame(SERVICE_USER_RESPONSE, router.handleRequest(buildRequest(HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_HISTORY.getValue(), null)));
+    }
+
+    @Test
+    void testHandleRequestWhenNoRouteMatches() {
+        assertSame(UNMATCHED_RESPONSE, router.handleRequest(buildRequest(HttpMethod.POST.name(),
+            ApiHttpResource.SERVICE_USER_HISTORY.getValue(), null)));
+        assertSame(UNMATCHED_RESPONSE, router.handleRequest(buildRequest(null, ApiHttpResource.SERVICE_USER_HISTORY.getValue(), null)));
+        assertSame(UNMATCHED_RESPONSE, router.handleRequest(buildRequest(HttpMethod.GET.name(), "/v1/consent-history", null)));
+        assertSame(UNMATCHED_RESPONSE, router.handleRequest(buildRequest(HttpMethod.GET.name(), null, CONSENT_PATH)));
+    }
+
+    @Test
+    void testResolveRequestWithResource() {
+        final ApiRequest request = buildRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_HISTORY.getValue(), CONSENT_PATH);
+        assertSame(request, router.resolve(request));
+    }
+
+    @Test
+    void testResolveRequestByPath() {
+        final ApiRequest request = new ApiRequest(HttpMethod.GET.name(), null, CONSENT_PATH, null, Map.of("view", "summary"),
+            Map.of("Accept-Encoding", "gzip"), false, null);
+
+        final ApiRequest resolvedRequest = router.resolve(request);
+        assertEquals(new ApiRequest(HttpMethod.GET.name(), ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue(), CONSENT_PATH,
+            Map.of("serviceId", "TestService", "userId", "TestUser", "consentId", "TestConsent"), Map.of("view", "summary"),
+            Map.of("Accept-Encoding", "gzip"), false, null), resolvedRequest);
+        assertSame(CONSENT_RESPONSE, router.handleRequest(resolvedRequest));
+    }
+
+    @Test
+    void testResolveRequestWhenPathMatchesNoRoute() {
+        final ApiRequest request = buildRequest(HttpMethod.GET.name(), null, "/v1/consent-history/services");
+        assertSame(request, router.resolve(request));
+    }
+
+    @Test
+    void testBuildWithDuplicateRoute() {
+        final ApiRouter.Builder builder = ApiRouter.builder()
+            .route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_HISTORY, request -> SERVICE_USER_RESPONSE)
+            .route(HttpMethod.POST, ApiHttpResource.SERVICE_USER_HISTORY, request -> SERVICE_USER_RESPONSE);
+
+        final IllegalArgumentException thrownException = assertThrows(IllegalArgumentException.class,
+            () -> builder.route(HttpMethod.GET, ApiHttpResource.SERVICE_USER_HISTORY, request -> SERVICE_USER_RESPONSE));
+        assertEquals(String.format(ApiRouter.DUPLICATE_ROUTE_MESSAGE, HttpMethod.GET.name(),
+            ApiHttpResource.SERVICE_USER_HISTORY.getValue()), thrownException.getMessage());
+    }
+
+    @Test
+    void testBuildWithoutUnmatchedRequestHandler() {
+        final IllegalStateException thrownException = assertThrows(IllegalStateException.class, () -> ApiRouter.builder().build());
+        assertEquals(ApiRouter.MISSING_UNMATCHED_REQUEST_HANDLER_MESSAGE, thrownException.getMessage());
+    }
+
+    private static ApiRequest buildRequest(final String httpMethod, final String resource, final String path) {
+        return new ApiRequest(httpMethod, resource, path, null, null, null, false, null);
+    }
+}
@@ -0,0 +1,89 @@
+package com.consentframework.consenthistory.api.usecases.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.consentframework.consenthistory.api.domain.constants.ApiHttpResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+class PathTemplateTrieTest {
+    private static final String CONSENT_TEMPLATE = ApiHttpResource.SERVICE_USER_CONSENT_HISTORY.getValue();
+    private static final String SERVICE_USER_TEMPLATE = ApiHttpResource.SERVICE_USER_HISTORY.getValue();
+    private static final String LITERAL_CONSENT_TEMPLATE = "/v1/consent-history/services/{serviceId}/users/{userId}/consents/latest";
+
+    private final PathTemplateTrie trie = new PathTemplateTrie();
+
+    @BeforeEach
+    void setUp() {
+        trie.add(CONSENT_TEMPLATE);
+        trie.add(SERVICE_USER_TEMPLATE);
+    }
+
+    @Test
+    void testMatchExtractsPathParameters() {
+        assertEquals(Optional.of(new PathTemplateTrie.PathTemplateMatch(CONSENT_TEMPLATE,
+                Map.of("serviceId", "TestService", "userId", "TestUser", "consentId", "TestConsent"))),
+            trie.match("/v1/consent-history/services/TestService/users/TestUser/consents/TestConsent"));
+        assertEquals(Optional.of(new PathTemplateTrie.PathTemplateMatch(SERVICE_USER_TEMPLATE,
+                Map.of("serviceId", "TestService", "userId", "TestUser"))),
+            trie.match("/v1/consent-history/services/TestService/users/TestUser/consents"));
+    }
+
+    @Test
+    void testMatchIgnoresTrailingSlashes() {
+        assertEquals(SERVICE_USER_TEMPLATE, trie.match("/v1/consent-history/services/TestService/users/TestUser/consents/")
+            .orElseThrow().template());
+        assertEquals(SERVICE_USER_TEMPLATE, trie.match("v1/consent-history/services/TestService/users/TestUser/consents")
+            .orElseThrow().template());
+    }
+
+    @Test
+    void testMatchWhenPathMatchesNoTemplate() {
+        assertEquals(Optional.empty(), trie.match(null));
+        assertEquals(Optional.empty(), trie.match(""));
+        assertEquals(Optional.empty(), trie.match("/"));
+        assertEquals(Optional.empty(), trie.match("/v1/consent-history/services"));
+        assertEquals(Optional.empty(), trie.match("/v1/consent-history/services/TestService/users/TestUser"));
+        assertEquals(Optional.empty(), trie.match("/v1/consent-history/services/TestService/users/TestUser/consents/a/b"));
+        assertEquals(Optional.empty(), trie.match("/v1/consent-history/services//users/TestUser/consents"));
+        assertEquals(Optional.empty(), trie.match("/v1/consent-history/services/TestService/users/TestUser/consent"));
+    }
+
+    @Test
+    void testLiteralSegmentTakesPrecedenceOverPathParameter() {
+        trie.add(LITERAL_CONSENT_TEMPLATE);
+
+        assertEquals(LITERAL_CONSENT_TEMPLATE, trie.match("/v1/consent-history/services/TestService/users/TestUser/consents/latest")
+            .orElseThrow().template());
+        assertEquals(CONSENT_TEMPLATE, trie.match("/v1/consent-history/services/TestService/users/TestUser/consents/latest2")
+            .orElseThrow().template());
+    }
+
+    @Test
+    void testMatchBacktracksFromLiteralSegment() {
+        trie.add("/v1/consent-history/services/latest/users");
+
+        assertEquals(new PathTemplateTrie.PathTemplateMatch(SERVICE_USER_TEMPLATE, Map.of("serviceId", "latest", "userId", "TestUser")),
+            trie.match("/v1/consent-history/services/latest/users/TestUser/consents").orElseThrow());
+    }
+
+    @Test
+    void testAddDuplicateTemplate() {
+        final IllegalArgumentException thrownException = assertThrows(IllegalArgumentException.class,
+            () -> trie.add(SERVICE_USER_TEMPLATE + "/"));
+        assertEquals(String.format(PathTemplateTrie.DUPLICATE_TEMPLATE_MESSAGE, SERVICE_USER_TEMPLATE + "/"),
+            thrownException.getMessage());
+    }
+
+    @Test
+    void testAddConflictingPathParameterName() {
+        final String conflictingTemplate = "/v1/consent-history/services/{service}/events";
+        final IllegalArgumentException thrownException = assertThrows(IllegalArgumentException.class, () -> trie.add(conflictingTemplate));
+        assertEquals(String.format(PathTemplateTrie.CONFLICTING_PATH_PARAMETER_MESSAGE, conflictingTemplate, "service", "serviceId"),
+            thrownException.getMessage());
+    }
+}
@@ -0,0 +1,116 @@
+package com.consentframework.consenthistory.api.usecases.serializers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.domain.entities.ChangeFeedPage;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchKey;
+import com.consentframework.consenthistory.api.domain.entities.ConsentHistoryBatchResult;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.models.GetHistoryForServiceUserResponseContent;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+class ConsentHistoryJsonWriterTest {
+    private final ObjectMapper objectMapper = new JSON().getMapper();
+    private final ConsentHistoryJsonWriter jsonWriter = new ConsentHistoryJsonWriter(objectMapper);
+
+    private final ConsentChangeEvent consent1ChangeEvent1 = ConsentChangeEventGenerator.generate();
+    private final ConsentChangeEvent consent1ChangeEvent2 = ConsentChangeEventGenerator.generate();
+    private final ConsentChangeEvent consent2ChangeEvent1 = ConsentChangeEventGenerator.generate()
+        .consentId(TestConstants.TEST_CONSENT_ID_2);
+    private final List<ConsentHistory> consentHistories = List.of(
+        new ConsentHistory().consentId(consent1ChangeEvent1.getConsentId()).history(List.of(consent1ChangeEvent1, consent1ChangeEvent2)),
+        new ConsentHistory().consentId(TestConstants.TEST_CONSENT_ID_2).history(List.of(consent2ChangeEvent1)));
+
+    @Test
+    void testWriteConsentHistoriesMatchesResponseContent() throws Exception {
+        final StringWriter writer = new StringWriter();
+        jsonWriter.writeConsentHistories(writer, consentHistories, Optional.empty());
+
+        assertEquals(toExpectedJson(Optional.empty()), objectMapper.readTree(writer.toString()));
+    }
+
+    @Test
+    void testWriteConsentHistoriesWithNextPageToken() throws Exception {
+        final StringWriter writer = new StringWriter();
+        jsonWriter.writeConsentHistories(writer, consentHistories, Optional.of("token"));
+
+        assertEquals(toExpectedJson(Optional.of("token")), objectMapper.readTree(writer.toString()));
+    }
+
+    @Test
+    void testWriteConsentHistoriesWithSerializedEventsMatchesResponseContent() throws Exception {
+        final Map<ConsentChangeEvent, String> serializedEvents = new IdentityHashMap<>();
+        serializedEvents.put(consent1ChangeEvent2, objectMapper.writeValueAsString(consent1ChangeEvent2));
+        serializedEvents.put(consent2ChangeEvent1, objectMapper.writeValueAsString(consent2ChangeEvent1));
+
+        final StringWriter writer = new StringWriter();
+        jsonWriter.writeConsentHistories(writer, consentHistories, Optional.of("token"), serializedEvents);
+
+        final StringWriter expectedWriter = new StringWriter();
+        jsonWriter.writeConsentHistories(expectedWriter, consentHistories, Optional.of("token"));
+        assertEquals(expectedWriter.toString(), writer.toString());
+        assertEquals(toExpectedJson(Optional.of("token")), objectMapper.readTree(writer.toString()));
+    }
+
+    @Test
+    void testWriteChangeFeedPageWritesFlatEvents() throws Exception {
+        final StringWriter writer = new StringWriter();
+        jsonWriter.writeChangeFeedPage(writer, new ChangeFeedPage(List.of(consent1ChangeEvent1, consent2ChangeEvent1), "watermark", true));
+
+        final ObjectNode expectedJson = objectMapper.createObjectNode();
+        expectedJson.putArray(ConsentHistoryJsonWriter.DATA_FIELD_NAME)
+            .add(objectMapper.valueToTree(consent1ChangeEvent1))
+            .add(objectMapper.valueToTree(consent2ChangeEvent1));
+        expectedJson.put(ConsentHistoryJsonWriter.NEXT_WATERMARK_FIELD_NAME, "watermark");
+        expectedJson.put(ConsentHistoryJsonWriter.HAS_MORE_FIELD_NAME, true);
+        assertEquals(expectedJson, objectMapper.readTree(writer.toString()));
+    }
+
+    @Test
+    void testWriteConsentHistoryBatchWritesHistoryOrNotFoundPerKey() throws Exception {
+        final ConsentHistoryBatchKey foundKey = new ConsentHistoryBatchKey(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID);
+        final ConsentHistoryBatchKey notFoundKey = new ConsentHistoryBatchKey(TestConstants.TEST_SERVICE_ID, TestConstants.TEST_USER_ID,
+            TestConstants.TEST_CONSENT_ID_2);
+        final StringWriter writer = new StringWriter();
+        jsonWriter.writeConsentHistoryBatch(writer, List.of(
+            ConsentHistoryBatchResult.found(foundKey, List.of(consent1ChangeEvent1, consent1ChangeEvent2)),
+            ConsentHistoryBatchResult.notFound(notFoundKey)));
+
+        final ObjectNode expectedJson = objectMapper.createObjectNode();
+        final ArrayNode expectedData = expectedJson.putArray(ConsentHistoryJsonWriter.DATA_FIELD_NAME);
+        final ObjectNode expectedFoundResult = expectedData.addObject()
+            .put(ConsentHistoryJsonWriter.SERVICE_ID_FIELD_NAME, TestConstants.TEST_SERVICE_ID)
+            .put(ConsentHistoryJsonWriter.USER_ID_FIELD_NAME, TestConstants.TEST_USER_ID)
+            .put(ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME, TestConstants.TEST_CONSENT_ID);
+        expectedFoundResult.putArray(ConsentHistoryJsonWriter.HISTORY_FIELD_NAME)
+            .add(objectMapper.valueToTree(consent1ChangeEvent1))
+            .add(objectMapper.valueToTree(consent1ChangeEvent2));
+        expectedData.addObject()
+            .put(ConsentHistoryJsonWriter.SERVICE_ID_FIELD_NAME, TestConstants.TEST_SERVICE_ID)
+            .put(ConsentHistoryJsonWriter.USER_ID_FIELD_NAME, TestConstants.TEST_USER_ID)
+            .put(ConsentHistoryJsonWriter.CONSENT_ID_FIELD_NAME, TestConstants.TEST_CONSENT_ID_2)
+            .put(ConsentHistoryJsonWriter.NOT_FOUND_FIELD_NAME, true);
+        assertEquals(expectedJson, objectMapper.readTree(writer.toString()));
+    }
+
+    private JsonNode toExpectedJson(final Optional<String> nextPageToken) {
+        final ObjectNode expectedJson = objectMapper.valueToTree(new GetHistoryForServiceUserResponseContent().data(consentHistories));
+        nextPageToken.ifPresent(token -> expectedJson.put(ConsentHistoryJsonWriter.NEXT_PAGE_TOKEN_FIELD_NAME, token));
+        return expectedJson;
+    }
+}
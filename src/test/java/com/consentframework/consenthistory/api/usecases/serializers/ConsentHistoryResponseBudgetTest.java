@@ -0,0 +1,106 @@
+package com.consentframework.consenthistory.api.usecases.serializers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import com.consentframework.consenthistory.api.JSON;
+import com.consentframework.consenthistory.api.models.ConsentChangeEvent;
+import com.consentframework.consenthistory.api.models.ConsentHistory;
+import com.consentframework.consenthistory.api.testcommon.constants.TestConstants;
+import com.consentframework.consenthistory.api.testcommon.utils.ConsentChangeEventGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+class ConsentHistoryResponseBudgetTest {
+    private final ObjectMapper objectMapper = new JSON().getMapper();
+
+    private final ConsentChangeEvent consent1ChangeEvent1 = ConsentChangeEventGenerator.generate();
+    private final ConsentChangeEvent consent1ChangeEvent2 = ConsentChangeEventGenerator.generate();
+    private final ConsentChangeEvent consent2ChangeEvent1 = ConsentChangeEventGenerator.generate()
+        .consentId(TestConstants.TEST_CONSENT_ID_2);
+
+    @Test
+    void testTryAddCountsWrittenResponseBytes() throws Exception {
+        final ConsentHistoryResponseBudget budget = new ConsentHistoryResponseBudget(objectMapper, Long.MAX_VALUE);
+        assertTrue(budget.tryAdd(consent1ChangeEvent1));
+        assertTrue(budget.tryAdd(consent1ChangeEvent2));
+        assertTrue(budget.tryAdd(consent2ChangeEvent1));
+
+        final StringWriter writer = new StringWriter();
+        final List<ConsentHistory> consentHistories = List.of(
+            new ConsentHistory().consentId(consent1ChangeEvent1.getConsentId())
+                .history(List.of(consent1ChangeEvent1, consent1ChangeEvent2)),
+            new ConsentHistory().consentId(TestConstants.TEST_CONSENT_ID_2).history(List.of(consent2ChangeEvent1)));
+        new ConsentHistoryJsonWriter(objectMapper).writeConsentHistories(writer, consentHistories, Optional.empty());
+        final long writtenBytes = ConsentHistoryResponseBudget.countResponseBytes(writer.toString());
+
+        // The budget counts a trailing comma after the last event and consent history, within the reserved bytes
+        assertTrue(budget.responseBytes() >= writtenBytes);
+        assertTrue(budget.responseBytes() <= writtenBytes + ConsentHistoryResponseBudget.RESERVED_BYTES);
+    }
+
+    @Test
+    void testTryAddRejectsEventsBeyondMaximumBytes() {
+        final long eventBytes = ConsentHistoryResponseBudget.countResponseBytes(serialize(consent1ChangeEvent1));
+        final ConsentHistoryResponseBudget budget = new ConsentHistoryResponseBudget(objectMapper,
+            ConsentHistoryResponseBudget.RESERVED_BYTES + 2 * eventBytes);
+        assertTrue(budget.tryAdd(consent1ChangeEvent1));
+        final long responseBytes = budget.responseBytes();
+
+        assertFalse(budget.tryAdd(consent1ChangeEvent2));
+        assertEquals(responseBytes, budget.responseBytes());
+        assertEquals(List.of(consent1ChangeEvent1), List.copyOf(budget.serializedEvents().keySet()));
+    }
+
+    @Test
+    void testTryAddAlwaysAddsFirstEvent() {
+        final ConsentHistoryResponseBudget budget = new ConsentHistoryResponseBudget(objectMapper, 1);
+        assertTrue(budget.tryAdd(consent1ChangeEvent1));
+        assertFalse(budget.tryAdd(consent1ChangeEvent2));
+        assertEquals(serialize(consent1ChangeEvent1), budget.serializedEvents().get(consent1ChangeEvent1));
+    }
+
+    @Test
+    void testTryAddWhenEventCannotBeSerialized() throws Exception {
+        final ObjectMapper failingObjectMapper = spy(objectMapper);
+        final ObjectWriter failingWriter = mock(ObjectWriter.class);
+        doReturn(failingWriter).when(failingObjectMapper).writerFor(ConsentChangeEvent.class);
+        when(failingWriter.writeValueAsString(consent1ChangeEvent1)).thenThrow(new JsonProcessingException("Test exception") {});
+        final ConsentHistoryResponseBudget budget = new ConsentHistoryResponseBudget(failingObjectMapper, Long.MAX_VALUE);
+
+        final UncheckedIOException exception = assertThrows(UncheckedIOException.class, () -> budget.tryAdd(consent1ChangeEvent1));
+        assertInstanceOf(JsonProcessingException.class, exception.getCause());
+    }
+
+    @Test
+    void testCountResponseBytesCountsEscapesAndMultiByteCharacters() {
+        assertEquals(5, ConsentHistoryResponseBudget.countResponseBytes("\"a\""));
+        assertEquals(2, ConsentHistoryResponseBudget.countResponseBytes("\\"));
+        final String multiByteCharacters = "\u00e9\u20ac\ud83d\ude00";
+        assertEquals(multiByteCharacters.getBytes(StandardCharsets.UTF_8).length,
+            ConsentHistoryResponseBudget.countResponseBytes(multiByteCharacters));
+    }
+
+    private String serialize(final ConsentChangeEvent consentChangeEvent) {
+        try {
+            return objectMapper.writeValueAsString(consentChangeEvent);
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new UncheckedIOException(jsonProcessingException);
+        }
+    }
+}